@@ -0,0 +1,104 @@
+package javafiles.benchmarks;
+
+import javafiles.customexceptions.DealershipNotAcceptingVehiclesException;
+import javafiles.customexceptions.RentalException;
+import javafiles.customexceptions.VehicleAlreadyExistsException;
+import javafiles.domainfiles.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link Dealership#availableVehicles(long, long, String)} on a dealership holding
+ * 1,000,000 bookings in total, against scanning every booking for ones that overlap. Each
+ * vehicle is booked for one day out of every two, and each query starts on a random day.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class BookingBenchmark {
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+    private static final int TOTAL_BOOKINGS = 1_000_000;
+
+    @Param({"1000", "10000"})
+    public int vehicles;
+
+    private Dealership dealership;
+    private List<Booking> allBookings;
+    private Vehicle firstVehicle;
+    private long horizon;
+    private long queryStart;
+
+    @Setup(Level.Trial)
+    public void fillBookings() throws RentalException, VehicleAlreadyExistsException,
+            DealershipNotAcceptingVehiclesException {
+        dealership = new Dealership("D0", "Benchmark Motors");
+        dealership.setRentingVehicles(true);
+        for (int i = 0; i < vehicles; i++) {
+            Vehicle vehicle = i % 2 == 0 ? new SUV("V" + i, "RAV4", 25000L) : new Sedan("V" + i, "Camry", 20000L);
+            dealership.addIncomingVehicle(vehicle);
+        }
+        firstVehicle = dealership.getInventory().get(0);
+
+        int perVehicle = TOTAL_BOOKINGS / vehicles;
+        horizon = 2L * perVehicle * DAY;
+        allBookings = new ArrayList<>(TOTAL_BOOKINGS);
+        for (Vehicle vehicle : dealership.getInventory()) {
+            long offset = vehicle.getVehicleId().hashCode() & 1; // Stagger vehicles by a day
+            for (int b = 0; b < perVehicle; b++) {
+                long start = (2L * b + offset) * DAY;
+                allBookings.add(dealership.book(vehicle, start, start + DAY));
+            }
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void pickStart() {
+        queryStart = (long) (Math.random() * (horizon - 7 * DAY)) / DAY * DAY;
+    }
+
+    @Benchmark
+    public List<Vehicle> availableVehicles() {
+        return dealership.availableVehicles(queryStart, queryStart + DAY);
+    }
+
+    @Benchmark
+    public List<Vehicle> availableSUVs() {
+        return dealership.availableVehicles(queryStart, queryStart + DAY, "SUV");
+    }
+
+    @Benchmark
+    public boolean oneVehicleFree() {
+        return firstVehicle.isFreeBetween(queryStart, queryStart + 7 * DAY);
+    }
+
+    /**
+     * The same answer as {@link #availableVehicles()} found by checking every booking.
+     */
+    @Benchmark
+    public List<Vehicle> scanAllBookings() {
+        long end = queryStart + DAY;
+        Set<Vehicle> booked = new HashSet<>();
+        for (Booking booking : allBookings) {
+            if (booking.overlaps(queryStart, end)) booked.add(booking.getVehicle());
+        }
+        List<Vehicle> free = new ArrayList<>();
+        for (Vehicle vehicle : dealership.getInventory()) {
+            if (!booked.contains(vehicle)) free.add(vehicle);
+        }
+        return free;
+    }
+
+    @Benchmark
+    public boolean bookAndCancel() throws RentalException {
+        long start = horizon + queryStart;
+        return dealership.cancelBooking(dealership.book(firstVehicle, start, start + DAY));
+    }
+}
@@ -0,0 +1,52 @@
+package javafiles.benchmarks;
+
+import javafiles.Key;
+import javafiles.dataaccessfiles.InventoryGenerator;
+import javafiles.domainfiles.Company;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link Company#dataToInventory(List)} adding a whole file's worth of vehicles
+ * to an empty Company. errorRatio is split evenly between duplicate IDs and malformed prices.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompanyBenchmark {
+    @Param({"10", "100"})
+    public int dealerCount;
+
+    @Param({"100", "1000"})
+    public int vehiclesPerDealer;
+
+    @Param({"0.0", "0.1"})
+    public double errorRatio;
+
+    private InventoryGenerator generator;
+    private List<Map<Key, Object>> batch;
+    private Company company;
+
+    @Setup(Level.Trial)
+    public void createGenerator() {
+        generator = new InventoryGenerator(dealerCount, vehiclesPerDealer, 42L, errorRatio / 2, errorRatio / 2);
+    }
+
+    @Setup(Level.Invocation)
+    public void resetCompany() {
+        // Adding maps to a Company can change them, so each invocation gets new ones.
+        batch = generator.createMaps();
+        company = new Company();
+    }
+
+    @Benchmark
+    public List<Map<Key, Object>> dataToInventory() {
+        return company.dataToInventory(batch);
+    }
+}
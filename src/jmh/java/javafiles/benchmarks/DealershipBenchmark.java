@@ -0,0 +1,68 @@
+package javafiles.benchmarks;
+
+import javafiles.dataaccessfiles.InventoryGenerator;
+import javafiles.domainfiles.Company;
+import javafiles.domainfiles.Dealership;
+import javafiles.domainfiles.RentalOutcome;
+import javafiles.domainfiles.Vehicle;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link Dealership#inventoryContainsById(String)} for IDs that are and are not in
+ * the inventory, written the way they appear in files (mixed case and stray whitespace), and
+ * {@link Dealership#updateRentalStatuses(Collection, boolean)} renting and then checking in up
+ * to 500 vehicles.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DealershipBenchmark {
+    @Param({"100", "10000"})
+    public int vehiclesPerDealer;
+
+    @Param({"0.0", "0.1"})
+    public double errorRatio;
+
+    private Dealership dealership;
+    private String presentId;
+    private String missingId;
+    private List<String> rentalIds;
+
+    @Setup(Level.Trial)
+    public void fillDealership() {
+        Company company = new Company();
+        company.dataToInventory(new InventoryGenerator(1, vehiclesPerDealer, 42L, errorRatio / 2, errorRatio / 2).createMaps());
+        dealership = company.findDealership("D0");
+
+        String lastId = dealership.getInventory().get(dealership.getInventory().size() - 1).getVehicleId();
+        presentId = " " + lastId.toLowerCase() + " ";
+        missingId = "V" + vehiclesPerDealer;
+
+        dealership.setRentingVehicles(true);
+        rentalIds = dealership.getInventory().stream().limit(500).map(Vehicle::getVehicleId).toList();
+    }
+
+    @Benchmark
+    public boolean containsPresentId() {
+        return dealership.inventoryContainsById(presentId);
+    }
+
+    @Benchmark
+    public boolean containsMissingId() {
+        return dealership.inventoryContainsById(missingId);
+    }
+
+    @Benchmark
+    public Map<String, RentalOutcome> rentAndCheckIn() {
+        dealership.updateRentalStatuses(rentalIds, true);
+        return dealership.updateRentalStatuses(rentalIds, false);
+    }
+}
@@ -0,0 +1,80 @@
+package javafiles.benchmarks;
+
+import javafiles.DealershipExport;
+import javafiles.Key;
+import javafiles.customexceptions.ReadWriteException;
+import javafiles.dataaccessfiles.FileIOFactory;
+import javafiles.dataaccessfiles.InventoryGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks reading inventory files with the JSON and XML readers, and writing one with the
+ * JSON writer. The files are written once per trial by {@link InventoryGenerator}, with errorRatio
+ * split evenly between duplicate IDs and malformed prices.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileIOBenchmark {
+    @Param({"10", "100"})
+    public int dealerCount;
+
+    @Param({"100", "1000"})
+    public int vehiclesPerDealer;
+
+    @Param({"0.0", "0.1"})
+    public double errorRatio;
+
+    private File jsonFile;
+    private File xmlFile;
+    private File outputFile;
+    private List<DealershipExport> export;
+
+    @Setup(Level.Trial)
+    public void writeFiles() throws IOException, ReadWriteException {
+        InventoryGenerator generator =
+                new InventoryGenerator(dealerCount, vehiclesPerDealer, 42L, errorRatio / 2, errorRatio / 2);
+        jsonFile = tempFile("inventory", ".json");
+        xmlFile = tempFile("inventory", ".xml");
+        outputFile = tempFile("inventory-out", ".json");
+
+        generator.write(jsonFile.getPath());
+        generator.writeXml(xmlFile.getPath());
+        // Built once, so the write benchmark does not include generating the vehicles.
+        export = new ArrayList<>();
+        for (DealershipExport dealer : generator.exportView()) {
+            export.add(new DealershipExport(dealer.getDealerData(), new ArrayList<>(dealer.getVehicleData())));
+        }
+    }
+
+    private static File tempFile(String prefix, String suffix) throws IOException {
+        File file = File.createTempFile(prefix, suffix);
+        file.deleteOnExit();
+        return file;
+    }
+
+    @Benchmark
+    public List<Map<Key, Object>> jsonRead() throws ReadWriteException {
+        return FileIOFactory.getInstance().buildNewFileIOReader(jsonFile.getPath()).readInventory();
+    }
+
+    @Benchmark
+    public List<Map<Key, Object>> xmlRead() throws ReadWriteException {
+        return FileIOFactory.getInstance().buildNewFileIOReader(xmlFile.getPath()).readInventory();
+    }
+
+    @Benchmark
+    public void jsonWrite() throws ReadWriteException {
+        FileIOFactory.getInstance().buildNewFileIOWriter(outputFile.getPath()).writeInventory(export);
+    }
+}
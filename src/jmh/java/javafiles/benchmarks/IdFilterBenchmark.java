@@ -0,0 +1,82 @@
+package javafiles.benchmarks;
+
+import javafiles.Key;
+import javafiles.dataaccessfiles.InventoryGenerator;
+import javafiles.domainfiles.BloomFilter;
+import javafiles.domainfiles.Company;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks merging a feed of mostly new vehicles into a Company that already holds as many,
+ * with {@link Company#getIdFilterFalsePositiveRate()} set to 0 (every ID checked exactly in
+ * every dealership) and to two filter rates. 1% of the feed repeats IDs already in the Company.
+ * The memory taken by the filter at each rate is printed when the trial starts.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class IdFilterBenchmark {
+    @Param({"10", "100"})
+    public int dealerCount;
+
+    @Param({"200000"})
+    public int feedSize;
+
+    @Param({"0.0", "0.01", "0.001"})
+    public double falsePositiveRate;
+
+    private List<Map<Key, Object>> existing;
+    private List<Map<Key, Object>> feed;
+    private Company company;
+    private List<Map<Key, Object>> batch;
+
+    @Setup(Level.Trial)
+    public void createMaps() {
+        List<Map<Key, Object>> maps = new InventoryGenerator(dealerCount, 2 * feedSize / dealerCount, 42L).createMaps();
+        existing = new ArrayList<>(maps.size() / 2);
+        feed = new ArrayList<>(maps.size() / 2);
+        for (int i = 0; i < maps.size(); i++) {
+            (i % 2 == 0 ? existing : feed).add(maps.get(i));
+        }
+        for (int i = 0; i < feed.size(); i += 100) {
+            feed.set(i, existing.get(i));
+        }
+
+        if (falsePositiveRate > 0) {
+            BloomFilter filter = new BloomFilter(existing.size() + feed.size(), falsePositiveRate);
+            System.out.printf("%nID filter for %d IDs at %s: %d bytes, %d hashes%n",
+                    existing.size() + feed.size(), falsePositiveRate, filter.getMemoryBytes(), filter.getHashCount());
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void fillCompany() {
+        // Adding maps to a Company can change them, so each iteration gets copies.
+        company = new Company();
+        company.dataToInventory(copy(existing));
+        company.setIdFilterFalsePositiveRate(falsePositiveRate);
+        batch = copy(feed);
+    }
+
+    @Benchmark
+    public List<Map<Key, Object>> mergeFeed() {
+        return company.dataToInventory(batch);
+    }
+
+    private static List<Map<Key, Object>> copy(List<Map<Key, Object>> maps) {
+        List<Map<Key, Object>> copies = new ArrayList<>(maps.size());
+        for (Map<Key, Object> map : maps) {
+            copies.add(new EnumMap<>(map));
+        }
+        return copies;
+    }
+}
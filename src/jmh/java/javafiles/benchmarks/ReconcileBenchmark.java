@@ -0,0 +1,87 @@
+package javafiles.benchmarks;
+
+import javafiles.Key;
+import javafiles.dataaccessfiles.InventoryGenerator;
+import javafiles.domainfiles.Company;
+import javafiles.domainfiles.ReconcileResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks reconciling a daily feed of a Company's whole inventory with
+ * {@link Company#reconcileInventory}, where the given share of vehicles has a new price, as many
+ * were sold (left out of the feed) and as many are new. A share of 0 is a resend of an
+ * unchanged feed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class ReconcileBenchmark {
+    @Param({"100000"})
+    public int vehicleCount;
+
+    @Param({"0.0", "0.01", "0.1"})
+    public double changedShare;
+
+    private List<Map<Key, Object>> inventory;
+    private List<Map<Key, Object>> feed;
+    private Company company;
+    private List<Map<Key, Object>> batch;
+
+    @Setup(Level.Trial)
+    public void createMaps() {
+        inventory = new ArrayList<>(new InventoryGenerator(10, vehicleCount / 10, 42L).createMaps());
+        feed = new ArrayList<>(inventory.size());
+
+        int step = changedShare > 0 ? (int) Math.round(1 / changedShare) : 0;
+        for (int i = 0; i < inventory.size(); i++) {
+            Map<Key, Object> map = new EnumMap<>(inventory.get(i));
+            if (step == 0) {
+                feed.add(map);
+                continue;
+            }
+            if (i % step == 0) {
+                map.put(Key.VEHICLE_PRICE, (Long) map.get(Key.VEHICLE_PRICE) + 1);
+            } else if (i % step == 1) {
+                continue;
+            } else if (i % step == 2) {
+                map.put(Key.VEHICLE_ID, "NEW-" + i);
+            }
+            feed.add(map);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void fillCompany() {
+        // Adding maps to a Company can change them, so each iteration gets copies.
+        company = new Company();
+        company.dataToInventory(copy(inventory));
+        batch = copy(feed);
+    }
+
+    @Benchmark
+    public ReconcileResult reconcile() {
+        return company.reconcileInventory(batch);
+    }
+
+    @Benchmark
+    public ReconcileResult dryRun() {
+        return company.reconcileInventory(batch, true);
+    }
+
+    private static List<Map<Key, Object>> copy(List<Map<Key, Object>> maps) {
+        List<Map<Key, Object>> copies = new ArrayList<>(maps.size());
+        for (Map<Key, Object> map : maps) {
+            copies.add(new EnumMap<>(map));
+        }
+        return copies;
+    }
+}
@@ -0,0 +1,127 @@
+package javafiles.benchmarks;
+
+import javafiles.dataaccessfiles.InventoryGenerator;
+import javafiles.domainfiles.Company;
+import javafiles.metricsfiles.Histogram;
+import javafiles.metricsfiles.Metrics;
+import javafiles.serverfiles.InventoryServer;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends a mix of requests to an {@link InventoryServer} from many clients at once and prints the
+ * throughput and latency percentiles. Without --url, a server over a generated inventory is
+ * started in this process.
+ * </p>
+ * The mix is 80% vehicle pages (a fifth of them sorted by price), 10% single vehicle lookups,
+ * 5% dealership lookups and 5% rentals, which are returned by the next rental of the vehicle.
+ * </p>
+ * Options: --url, --requests (default 100000), --concurrency (2000), --dealers (100) and
+ * --vehiclesPerDealer (1000).
+ */
+public class ServerLoadTest {
+    public static void main(String[] args) throws Exception {
+        String url = null;
+        int requests = 100_000;
+        int concurrency = 2_000;
+        int dealers = 100;
+        int vehiclesPerDealer = 1_000;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--url" -> url = args[i + 1];
+                case "--requests" -> requests = Integer.parseInt(args[i + 1]);
+                case "--concurrency" -> concurrency = Integer.parseInt(args[i + 1]);
+                case "--dealers" -> dealers = Integer.parseInt(args[i + 1]);
+                case "--vehiclesPerDealer" -> vehiclesPerDealer = Integer.parseInt(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        InventoryServer server = null;
+        if (url == null) {
+            Company company = new Company();
+            company.dataToInventory(new InventoryGenerator(dealers, vehiclesPerDealer, 1L).createMaps());
+            server = new InventoryServer(company, 0);
+            server.start();
+            url = "http://localhost:" + server.getPort();
+        }
+
+        try {
+            run(url, requests, concurrency, dealers, dealers * vehiclesPerDealer);
+        } finally {
+            if (server != null) {server.stop(0);}
+        }
+    }
+
+    private static void run(String url, int requests, int concurrency, int dealers, int vehicles)
+            throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        Histogram latency = Metrics.histogram("loadtest.latency");
+        AtomicLong failures = new AtomicLong();
+        Semaphore inFlight = new Semaphore(concurrency);
+
+        long start = System.nanoTime();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < requests; i++) {
+                HttpRequest request = nextRequest(url, new SplittableRandom(i), dealers, vehicles);
+                inFlight.acquire();
+                clients.execute(() -> {
+                    long sent = System.nanoTime();
+                    try {
+                        int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        if (status >= 500) {failures.incrementAndGet();}
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                    } finally {
+                        latency.record(System.nanoTime() - sent);
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d requests, %d clients, %.1f s: %.0f requests/s, %d failed%n",
+                requests, concurrency, seconds, requests / seconds, failures.get());
+        System.out.printf("latency p50 %.2f ms, p99 %.2f ms, p99.9 %.2f ms%n",
+                millis(latency.percentile(0.5)), millis(latency.percentile(0.99)), millis(latency.percentile(0.999)));
+    }
+
+    private static HttpRequest nextRequest(String url, SplittableRandom random, int dealers, int vehicles) {
+        int kind = random.nextInt(100);
+        String vehicleId = "V" + random.nextInt(vehicles);
+        if (kind < 95) {
+            String path;
+            if (kind < 64) {
+                path = "/vehicles?dealer=D" + random.nextInt(dealers) + "&offset=" + random.nextInt(10) * 100;
+            } else if (kind < 80) {
+                path = "/vehicles?sort=price&order=desc&limit=50";
+            } else if (kind < 90) {
+                path = "/vehicles/" + vehicleId;
+            } else {
+                path = "/dealerships/D" + random.nextInt(dealers);
+            }
+            return HttpRequest.newBuilder(URI.create(url + path)).GET().build();
+        }
+        String body = "{\"vehicle_id\":\"" + vehicleId + "\"}";
+        return HttpRequest.newBuilder(URI.create(url + "/rentals"))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,16 @@
+package javafiles
+
+/**
+ * A single (dealership, vehicles) pair of an export. [dealerData] holds the dealership
+ * header fields and [vehicleData] holds one [Map] per vehicle of that dealership, neither
+ * of which repeat the other's [Key]s.
+ *
+ * Used in place of a [Map] keyed on the dealership data, so that exports keep the order of
+ * the dealerships and two dealerships with identical fields can not collide.
+ *
+ * @author Dylan Browne
+ */
+class DealershipExport(
+    val dealerData: Map<Key, Any>,
+    val vehicleData: List<Map<Key, Any>>
+)
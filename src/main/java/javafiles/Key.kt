@@ -147,6 +147,20 @@ enum class Key (// Getters and Setters:
         }
     }
 
+    /**
+     * Returns the value of this [Key] extracted from the given [extractFrom] value, without
+     * adding it to a [Map]. Returns null if [extractFrom] is not an instance of [passClazz],
+     * or if the [Key] has no value for it.
+     *
+     * @param extractFrom The [Object] that the value is being extracted from.
+     * @return The extracted value or null.
+     */
+    fun extractValue(extractFrom: Any): Any? {
+        if (func == null || passClazz == null) {return null}
+        if (!passClazz.isInstance(extractFrom)) {return null}
+        return func.invoke(extractFrom)
+    }
+
     companion object {
         /**
          * Wraps the given [cause] as the cause of a [ReadWriteException] that is appended to the
@@ -156,7 +170,20 @@ enum class Key (// Getters and Setters:
          * @param cause An exception that represents the cause of the error.
          */
         fun addErrorReason(map: MutableMap<Key, Any>, cause: Exception): MutableMap<Key, Any> {
-            REASON_FOR_ERROR.putValid(map, ReadWriteException(cause))
+            REASON_FOR_ERROR.putValid(map, ReadWriteException(cause, false))
+            return map
+        }
+
+        /**
+         * Appends a [REASON_FOR_ERROR] to the given [Map] for the given [ValidationCode], built
+         * with [ValidationCode.toReason].
+         *
+         * @param map The [Map] that has had an error occur and needs [REASON_FOR_ERROR] appended to it.
+         * @param code The reason the row was rejected.
+         * @param message A description of the problem.
+         */
+        fun addErrorReason(map: MutableMap<Key, Any>, code: ValidationCode, message: String): MutableMap<Key, Any> {
+            REASON_FOR_ERROR.putValid(map, code.toReason(message))
             return map
         }
     }
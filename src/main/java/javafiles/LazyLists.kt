@@ -0,0 +1,22 @@
+package javafiles
+
+/**
+ * Returns a read-only [List] of the given length whose elements are made by [element] each time they
+ * are read, so the list takes no memory of its own. Used by export views whose per-vehicle maps
+ * are built as they are read.
+ */
+internal fun <R> lazyList(length: Int, element: (Int) -> R): List<R> {
+    return object : AbstractList<R>() {
+        override val size: Int get() = length
+        override fun get(index: Int): R = element(index)
+    }
+}
+
+/**
+ * Returns a read-only view of this [List] with [transform] applied to each element as it is
+ * read. The view has the size of this List when it was taken.
+ */
+internal fun <T, R> List<T>.lazyMap(transform: (T) -> R): List<R> {
+    val source = this
+    return lazyList(source.size) { transform(source[it]) }
+}
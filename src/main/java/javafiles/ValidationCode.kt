@@ -0,0 +1,59 @@
+package javafiles
+
+import javafiles.customexceptions.*
+
+/**
+ * Why a row of vehicle data could not be added to a Company. Each code corresponds to one of
+ * the exceptions that used to be thrown for it, and so to one of the causes shown for bad
+ * inventory, but can be passed around and checked without creating an exception at all.
+ */
+enum class ValidationCode(
+    /**
+     * The class of exception this code stands for.
+     */
+    val exceptionClass: Class<out Exception>
+) {
+    NUMBER_FORMAT(NumberFormatException::class.java),
+    DUPLICATE_KEY(DuplicateKeyException::class.java),
+    VEHICLE_EXISTS(VehicleAlreadyExistsException::class.java),
+    INVALID_PRICE(InvalidPriceException::class.java),
+    DEALERSHIP_NOT_RECEIVING(DealershipNotAcceptingVehiclesException::class.java),
+    INVALID_TYPE(InvalidVehicleTypeException::class.java),
+    MISSING_INFO(MissingCriticalInfoException::class.java),
+    RENTAL_NOT_ALLOWED(SportsCarRentalNotAllowedException::class.java);
+
+    /**
+     * Creates the exception this code stands for, without a stack trace. [NumberFormatException]
+     * can not be created without one, so it is the only exception here that has one.
+     *
+     * @param message The message of the exception.
+     */
+    fun toException(message: String): Exception = when (this) {
+        NUMBER_FORMAT -> NumberFormatException(message)
+        DUPLICATE_KEY -> DuplicateKeyException(message, false)
+        VEHICLE_EXISTS -> VehicleAlreadyExistsException(message, false)
+        INVALID_PRICE -> InvalidPriceException(message, false)
+        DEALERSHIP_NOT_RECEIVING -> DealershipNotAcceptingVehiclesException(message, false)
+        INVALID_TYPE -> InvalidVehicleTypeException(message, false)
+        MISSING_INFO -> MissingCriticalInfoException(message, false)
+        RENTAL_NOT_ALLOWED -> SportsCarRentalNotAllowedException(message, false)
+    }
+
+    /**
+     * Creates the [ReadWriteException] stored as the [Key.REASON_FOR_ERROR] of a rejected row,
+     * with the exception from [toException] as its cause. Neither has a stack trace.
+     *
+     * @param message The message of the cause.
+     */
+    fun toReason(message: String): ReadWriteException = ReadWriteException(toException(message), false)
+
+    companion object {
+        /**
+         * Returns the code for the given exception, or null if it is not one of the codes.
+         */
+        @JvmStatic
+        fun of(exception: Throwable?): ValidationCode? {
+            return entries.find { it.exceptionClass == exception?.javaClass }
+        }
+    }
+}
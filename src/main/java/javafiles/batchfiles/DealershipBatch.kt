@@ -0,0 +1,421 @@
+package javafiles.batchfiles
+
+import javafiles.DealershipExport
+import javafiles.Key
+import javafiles.customexceptions.QuerySyntaxException
+import javafiles.customexceptions.ReadWriteException
+import javafiles.dataaccessfiles.FileIOFactory
+import javafiles.dataaccessfiles.ShardedInventoryStore
+import javafiles.domainfiles.Company
+import javafiles.domainfiles.Dealership
+import javafiles.domainfiles.InventoryQuery
+import javafiles.metricsfiles.Metrics
+import java.io.File
+import java.io.IOException
+import java.io.PrintStream
+import java.nio.file.Path
+import java.util.*
+import kotlin.system.exitProcess
+
+/**
+ * Runs the inventory jobs of the app from the command line, without starting JavaFX, so they
+ * can be scheduled on headless servers. See [USAGE] for the commands and options.
+ *
+ * Jobs work on the same master inventory file as the app, and only replace it once a job has
+ * finished, so a failed run never leaves a partly written master file. The exit code is
+ * [EXIT_OK] when everything succeeded, [EXIT_REJECTED] when some rows or transfers were
+ * rejected, and [EXIT_ERROR] when the job could not be run at all.
+ */
+object DealershipBatch {
+    const val EXIT_OK = 0
+    const val EXIT_REJECTED = 1
+    const val EXIT_ERROR = 2
+
+    /**
+     * The master inventory file used when --master is not given, the same file as the app uses.
+     */
+    const val DEFAULT_MASTER = "masterInventoryList.json"
+
+    private val USAGE = """
+        Usage: DealerProjectBatch [options] <command> <arguments>
+
+        Commands:
+          import <file>...          Adds the vehicles in each file to the master inventory.
+          reconcile <file>...       Makes the inventory of each dealership in each file match the file,
+                                    adding, removing and updating only the vehicles that differ.
+          export <file>             Writes the master inventory to the file, in the format of its extension.
+                                    With --where, writes only the matching vehicles and selected fields.
+          convert <in> <out>        Rewrites an inventory file in the format of <out>, row for row.
+          transfer <manifest>       Moves vehicles between dealerships in the master inventory. Each line
+                                    of the manifest is: vehicle_id,from_dealership_id,to_dealership_id
+          watch <directory>         Adds each inventory file dropped into the directory to the master
+                                    inventory until stopped, moving it to processed/ or failed/ after.
+          validate <file>...        Reports the rows of each file that could not be imported, without
+                                    changing the master inventory.
+          query <query>             Prints the matching vehicles of the master inventory as tab separated
+                                    fields, such as: select vehicle_id, price where price < 30000
+
+        Options:
+          --master <file|dir>       The master inventory file, or the directory of a store with one file
+                                    per dealership (default: $DEFAULT_MASTER).
+          --report <file>           Writes every rejected row, with its cause, to a tab separated file.
+          --where <query>           With export, the query the vehicles must match, such as:
+                                    select vehicle_id, price where vehicle_rental_status = false
+          --dry-run                 With reconcile, prints the differences without changing the master inventory.
+          --metrics                 Prints timing and throughput metrics when done.
+    """.trimIndent()
+
+    private val DEALER_KEYS: Set<Key> = EnumSet.of(
+        Key.DEALERSHIP_ID, Key.DEALERSHIP_NAME, Key.DEALERSHIP_RECEIVING_STATUS, Key.DEALERSHIP_RENTING_STATUS
+    )
+
+    @JvmStatic
+    fun main(args: Array<String>) {
+        exitProcess(run(args, System.out, System.err))
+    }
+
+    /**
+     * Runs the command given by the arguments and returns its exit code.
+     *
+     * @param args The command line arguments.
+     * @param out Where progress and summaries are printed.
+     * @param err Where usage and errors are printed.
+     * @return The exit code of the command.
+     */
+    @JvmStatic
+    fun run(args: Array<String>, out: PrintStream, err: PrintStream): Int {
+        var master = DEFAULT_MASTER
+        var reportPath: String? = null
+        var printMetrics = false
+        var dryRun = false
+        var where: String? = null
+        val operands = ArrayList<String>()
+
+        var i = 0
+        while (i < args.size) {
+            when (val arg = args[i]) {
+                "--master", "--report" -> {
+                    if (i + 1 == args.size) return usage(err, "$arg needs a file")
+                    if (arg == "--master") master = args[++i] else reportPath = args[++i]
+                }
+                "--where" -> {
+                    if (i + 1 == args.size) return usage(err, "$arg needs a query")
+                    where = args[++i]
+                }
+                "--metrics" -> printMetrics = true
+                "--dry-run" -> dryRun = true
+                "-h", "--help" -> {
+                    out.println(USAGE)
+                    return EXIT_OK
+                }
+                else -> operands.add(arg)
+            }
+            i++
+        }
+        if (operands.isEmpty()) return usage(err, "No command given")
+
+        val command = operands.removeAt(0)
+        val expected = when (command) {
+            "import", "reconcile", "validate" -> operands.isNotEmpty()
+            "export", "transfer", "query", "watch" -> operands.size == 1
+            "convert" -> operands.size == 2
+            else -> return usage(err, "Unknown command: $command")
+        }
+        if (!expected) return usage(err, "Wrong number of arguments for $command")
+
+        val start = System.nanoTime()
+        val exitCode = try {
+            RejectionReport(reportPath).use { report ->
+                val job = BatchJob(master, report, out)
+                when (command) {
+                    "import" -> job.import(operands)
+                    "reconcile" -> job.reconcile(operands, dryRun)
+                    "export" -> job.export(operands[0], where)
+                    "convert" -> job.convert(operands[0], operands[1])
+                    "transfer" -> job.transfer(operands[0])
+                    "query" -> job.query(operands[0])
+                    "watch" -> job.watch(operands[0])
+                    else -> job.validate(operands)
+                }
+                report.printSummary(out)
+                if (report.total == 0L) EXIT_OK else EXIT_REJECTED
+            }
+        } catch (e: ReadWriteException) {
+            err.println("Error: ${rootMessage(e)}")
+            EXIT_ERROR
+        } catch (e: QuerySyntaxException) {
+            err.println("Error: ${e.message}")
+            EXIT_ERROR
+        } catch (e: IOException) {
+            err.println("Error: ${rootMessage(e)}")
+            EXIT_ERROR
+        }
+
+        out.println("Finished $command in ${(System.nanoTime() - start) / 1_000_000} ms")
+        if (printMetrics) out.print(Metrics.report())
+        return exitCode
+    }
+
+    /**
+     * Returns the message of the innermost cause of the given exception that has one.
+     */
+    private fun rootMessage(e: Throwable): String {
+        return generateSequence(e) { it.cause }.mapNotNull { it.message }.lastOrNull() ?: e.javaClass.simpleName
+    }
+
+    private fun usage(err: PrintStream, problem: String): Int {
+        err.println(problem)
+        err.println(USAGE)
+        return EXIT_ERROR
+    }
+
+    /**
+     * A single run of a command against a master inventory file.
+     */
+    private class BatchJob(val master: String, val report: RejectionReport, val out: PrintStream) {
+
+        fun import(paths: List<String>) {
+            val company = loadMaster()
+            addFiles(company, paths)
+            saveMaster(company)
+        }
+
+        /**
+         * Reconciles the master inventory with each file in the order given, then saves it once
+         * unless this is a dry run.
+         */
+        fun reconcile(paths: List<String>, dryRun: Boolean) {
+            val company = loadMaster()
+            for (path in paths) {
+                val rows = read(path)
+                val result = company.reconcileInventory(rows, dryRun)
+                report.addRejectedRows(path, rows, result.rejected)
+                out.println("$path: ${rows.size} rows, $result")
+            }
+            if (dryRun) {
+                out.println("Dry run, $master was not changed")
+            } else {
+                saveMaster(company)
+            }
+        }
+
+        /**
+         * Adds the files dropped into the directory with a [HotFolderIngestor] until the process
+         * is stopped, saving the master inventory after each file that added vehicles.
+         */
+        fun watch(directory: String) {
+            val company = loadMaster()
+            val ingestor = HotFolderIngestor(company, Path.of(directory), onCommitted = { file -> watched(company, file) })
+            Runtime.getRuntime().addShutdownHook(Thread { ingestor.close() })
+            out.println("Watching $directory for ${FileIOFactory.readerExtensions().joinToString(", ")} files")
+            ingestor.run()
+        }
+
+        private fun watched(company: Company, file: HotFolderIngestor.IngestedFile) {
+            val error = file.error
+            if (error != null) {
+                report.add(file.path.toString(), 0, emptyMap(), "ReadFailed", rootMessage(error))
+                out.println("${file.path}: could not be read")
+                return
+            }
+
+            report.addRejectedRows(file.path.toString(), file.rows, file.rejected)
+            out.println("${file.path}: ${file.rows.size} rows, ${file.rows.size - file.rejected.size} added, ${file.rejected.size} rejected")
+            if (file.rows.size > file.rejected.size) {
+                try {
+                    saveMaster(company)
+                } catch (e: ReadWriteException) {
+                    out.println("Error: could not save $master: ${rootMessage(e)}")
+                }
+            }
+        }
+
+        fun validate(paths: List<String>) {
+            // Checked against a copy of the master inventory in memory, which is never saved.
+            addFiles(loadMaster(), paths)
+        }
+
+        /**
+         * Writes the master inventory, or only the part matching the given query, to the file.
+         */
+        fun export(path: String, where: String?) {
+            val query = where?.let { InventoryQuery.compile(it) }
+            val company = loadMaster()
+            if (query == null) {
+                FileIOFactory.buildNewFileIOWriter(path).writeInventory(company.calcExportView())
+                out.println("Wrote ${company.listDealerships.sumOf { it.inventory.size }} vehicles to $path")
+                return
+            }
+
+            val export = query.exportView(company).toList()
+            FileIOFactory.buildNewFileIOWriter(path).writeInventory(export)
+            out.println("Wrote ${export.sumOf { it.vehicleData.size }} vehicles to $path")
+        }
+
+        /**
+         * Rewrites every readable row of a file, without checking that its vehicles are valid
+         * or unique. Rows the reader could not parse, or without a dealership, are reported.
+         */
+        fun convert(inPath: String, outPath: String) {
+            val rows = read(inPath)
+            val dealers = LinkedHashMap<String, Pair<Map<Key, Any>, MutableList<Map<Key, Any>>>>()
+            var written = 0
+
+            rows.forEachIndexed { i, row ->
+                val reason = row[Key.REASON_FOR_ERROR] as? ReadWriteException
+                val dealerId = row[Key.DEALERSHIP_ID] as? String
+                if (reason != null || dealerId == null) {
+                    val cause = reason?.cause ?: reason
+                    report.add(inPath, i + 1, row, cause?.javaClass?.simpleName ?: "MissingCriticalInfoException",
+                        cause?.message ?: "No dealerID.")
+                    return@forEachIndexed
+                }
+                val vehicles = dealers.getOrPut(dealerId) { Pair(row.filterKeys { it in DEALER_KEYS }, ArrayList()) }.second
+                if (row[Key.DUMMY_VEHICLE] != true) {
+                    vehicles.add(row.filterKeys { it !in DEALER_KEYS })
+                    written++
+                }
+            }
+
+            FileIOFactory.buildNewFileIOWriter(outPath).writeInventory(
+                dealers.values.map { (dealerData, vehicles) -> DealershipExport(dealerData, vehicles) }
+            )
+            out.println("Wrote $written vehicles from ${rows.size} rows of $inPath to $outPath")
+        }
+
+        /**
+         * Prints the selected fields of each vehicle matching the query as they are found, so
+         * the results of a large query are never held in memory.
+         */
+        fun query(text: String) {
+            val query = InventoryQuery.compile(text)
+            val company = loadMaster()
+            out.println(query.selectKeys.joinToString("\t") { it.key })
+            var count = 0
+            query.project(company).forEachOrdered { row ->
+                out.println(query.selectKeys.joinToString("\t") { row[it]?.toString() ?: "" })
+                count++
+            }
+            out.println("$count vehicles matched")
+        }
+
+        /**
+         * Moves vehicles between dealerships as listed in a manifest file, then saves the master
+         * inventory once. Lines that can not be carried out are reported, and the rest go ahead.
+         */
+        fun transfer(manifestPath: String) {
+            val company = loadMaster()
+            val dealersById: Map<String, Dealership> = company.listDealerships.associateBy { it.dealerId }
+            var moved = 0
+
+            File(manifestPath).bufferedReader().useLines { lines ->
+                lines.forEachIndexed { i, line ->
+                    val trimmed = line.trim()
+                    if (trimmed.isEmpty() || trimmed.startsWith("#") || (i == 0 && trimmed.startsWith("vehicle_id"))) {
+                        return@forEachIndexed
+                    }
+                    val fields = trimmed.split(',').map { it.trim() }
+                    val data: MutableMap<Key, Any> = EnumMap(Key::class.java)
+                    fields.getOrNull(0)?.let { data[Key.VEHICLE_ID] = it }
+                    fields.getOrNull(1)?.let { data[Key.DEALERSHIP_ID] = it }
+
+                    val problem = when {
+                        fields.size != 3 -> "Expected vehicle_id,from_dealership_id,to_dealership_id"
+                        dealersById[fields[1]] == null -> "No dealership with ID ${fields[1]}."
+                        dealersById[fields[2]] == null -> "No dealership with ID ${fields[2]}."
+                        else -> transferOne(dealersById.getValue(fields[1]), dealersById.getValue(fields[2]), fields[0])
+                    }
+                    if (problem == null) {
+                        moved++
+                    } else {
+                        report.add(manifestPath, i + 1, data, "TransferFailed", problem)
+                    }
+                }
+            }
+
+            saveMaster(company)
+            out.println("Transferred $moved vehicles")
+        }
+
+        /**
+         * Transfers one vehicle and returns why it could not be transferred, or null if it was.
+         */
+        private fun transferOne(sender: Dealership, receiver: Dealership, vehicleId: String): String? {
+            val vehicle = sender.findVehicleById(vehicleId)
+                ?: return "Vehicle $vehicleId is not in dealership ${sender.dealerId}."
+            return try {
+                sender.dealershipVehicleTransfer(receiver, vehicle)
+                null
+            } catch (e: Exception) {
+                e.message ?: e.javaClass.simpleName
+            }
+        }
+
+        /**
+         * Reads the given files in parallel, then adds them to the company one at a time in the
+         * order given, so the outcome is the same as importing them one by one.
+         */
+        private fun addFiles(company: Company, paths: List<String>) {
+            val files = paths.parallelStream().map { read(it) }.toList()
+            paths.forEachIndexed { i, path ->
+                val rows = files[i]
+                val rejected = company.dataToInventory(rows)
+                report.addRejectedRows(path, rows, rejected)
+                out.println("$path: ${rows.size} rows, ${rows.size - rejected.size} added, ${rejected.size} rejected")
+            }
+        }
+
+        /**
+         * The master inventory as one file per dealership, when --master names a directory.
+         */
+        private val store: ShardedInventoryStore? =
+            if (File(master).isDirectory) ShardedInventoryStore(Path.of(master)) else null
+
+        /**
+         * Reads the master inventory into a new [Company]. A missing master file is an empty
+         * inventory, as it is for the app. Dealerships read from a [ShardedInventoryStore] are
+         * marked as saved, so only those that change are written back.
+         */
+        private fun loadMaster(): Company {
+            val company = Company()
+            val exists = if (store != null) store.exists() else File(master).exists()
+            if (!exists) {
+                out.println("No master inventory at $master, starting empty")
+                return company
+            }
+            @Suppress("UNCHECKED_CAST") // Readers return mutable maps, which dataToInventory adds error reasons to.
+            val rows = if (store != null) store.load() as List<MutableMap<Key, Any>> else read(master)
+            val rejected = company.dataToInventory(rows)
+            if (rejected.isNotEmpty()) {
+                out.println("Warning: ${rejected.size} rows of $master could not be loaded")
+            }
+            store?.let { company.listDealerships.forEach { dealer -> dealer.markSaved(dealer.changeCount) } }
+            return company
+        }
+
+        /**
+         * Writes the master inventory. A [ShardedInventoryStore] whose manifest does not match
+         * the dealerships read from its shards is reported as a [ReadWriteException], like any
+         * other master inventory that can not be written.
+         */
+        private fun saveMaster(company: Company) {
+            if (store == null) {
+                FileIOFactory.replaceInventoryFile(master, company.calcExportView())
+                return
+            }
+            val dirty = company.dirtyDealerships()
+            val counts = dirty.map { it.changeCount }
+            try {
+                store.save(company.allDealershipIds, dirty.map { it.snapshotExport() })
+            } catch (e: IllegalArgumentException) {
+                throw ReadWriteException("The manifest of $master does not match its dealership files: ${e.message}")
+            }
+            dirty.forEachIndexed { i, dealer -> dealer.markSaved(counts[i]) }
+        }
+
+        @Suppress("UNCHECKED_CAST") // Readers return mutable maps, which dataToInventory adds error reasons to.
+        private fun read(path: String): List<MutableMap<Key, Any>> {
+            return FileIOFactory.buildNewFileIOReader(path).readInventory() as List<MutableMap<Key, Any>>
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package javafiles.batchfiles
+
+import javafiles.Key
+import javafiles.dataaccessfiles.FileIOFactory
+import javafiles.domainfiles.Company
+import javafiles.domainfiles.StagedInventory
+import javafiles.metricsfiles.Metrics
+import java.io.Closeable
+import java.io.IOException
+import java.nio.file.ClosedWatchServiceException
+import java.nio.file.FileAlreadyExistsException
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardWatchEventKinds
+import java.nio.file.WatchService
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+/**
+ * Adds the inventory files dropped into a directory to a [Company] as they arrive, without
+ * anyone having to load them. The directory is watched with a [WatchService], and each file is
+ * read with the reader [FileIOFactory] picks for its extension.
+ *
+ * Files are read and checked on several threads at once, which is where almost all of the time
+ * goes, and are then added to the Company one at a time in the order they arrived. A file read
+ * quickly waits for any file that arrived before it, so the vehicles of each dealership are
+ * always added in the order their files were dropped. Files are moved to [processedDir] once
+ * added, or to [failedDir], next to a note of the error, if they could not be read. A file that
+ * can not be moved is left in [inbox] and reported as failed, and is not read again until the
+ * ingestor is restarted, so its vehicles are not added twice.
+ *
+ * A file is only read once its size and modification time have not changed for
+ * [settleMillis], so files still being copied in are not read half written. Files whose name
+ * starts with "." or ends in ".tmp" or ".part" are ignored, so partners can also write under
+ * such a name and rename the file when done.
+ *
+ * The Company is only changed while holding [commitLock], which is also held while
+ * [onCommitted] runs.
+ *
+ * @param company The Company the files are added to.
+ * @param inbox The directory that is watched.
+ * @param processedDir Where files are moved once added.
+ * @param failedDir Where files that could not be read are moved.
+ * @param readerThreads The number of files read at once.
+ * @param settleMillis How long a file must be unchanged before it is read.
+ * @param onCommitted Called with each file once it has been added or has failed.
+ */
+class HotFolderIngestor @JvmOverloads constructor(
+    private val company: Company,
+    val inbox: Path,
+    val processedDir: Path = inbox.resolve("processed"),
+    val failedDir: Path = inbox.resolve("failed"),
+    readerThreads: Int = DEFAULT_READER_THREADS,
+    private val settleMillis: Long = DEFAULT_SETTLE_MILLIS,
+    private val onCommitted: ((IngestedFile) -> Unit)? = null
+) : Closeable {
+    /**
+     * Held while the Company is changed by the ingestor, and while [onCommitted] runs.
+     */
+    val commitLock = Any()
+
+    private val watcher: WatchService = inbox.fileSystem.newWatchService()
+    private val readers: ExecutorService = Executors.newFixedThreadPool(readerThreads) { runnable ->
+        Thread(runnable, "hot-folder-read").apply { isDaemon = true }
+    }
+
+    /**
+     * Files submitted to be read but not yet added, in the order they arrived. Guarded by [commitLock].
+     */
+    private val pending = ArrayDeque<PendingFile>()
+
+    /**
+     * Files seen in [inbox] that are waiting to settle, by path. Only used by the watching thread.
+     */
+    private val settling = HashMap<Path, FileState>()
+
+    /**
+     * Files submitted and not yet moved out of [inbox], or that could not be moved out of it, so
+     * events for them are ignored.
+     */
+    private val inFlight: MutableSet<Path> = ConcurrentHashMap.newKeySet()
+
+    @Volatile
+    private var running = true
+
+    /**
+     * The result of one file.
+     *
+     * @param path Where the file was moved to, or where it is in [inbox] if it could not be moved.
+     * @param rows The maps read from the file, empty if it could not be read.
+     * @param rejected The maps that could not be added, each with a [Key.REASON_FOR_ERROR].
+     * @param error Why the file could not be read, or null if it was.
+     */
+    class IngestedFile internal constructor(
+        val path: Path,
+        val rows: List<Map<Key, Any>>,
+        val rejected: List<Map<Key, Any>>,
+        val error: Exception?
+    )
+
+    private class FileState(val size: Long, val modified: Long, val since: Long)
+
+    private class PendingFile(val path: Path, val detected: Long) {
+        @Volatile var done = false
+        var rows: List<MutableMap<Key, Any>> = emptyList()
+        var staged: StagedInventory? = null
+        var error: Exception? = null
+    }
+
+    init {
+        require(readerThreads > 0) { "Reader threads must be positive" }
+        Files.createDirectories(processedDir)
+        Files.createDirectories(failedDir)
+    }
+
+    /**
+     * Watches [inbox] until [close] is called, starting with the files already in it. Blocks
+     * the calling thread.
+     *
+     * @throws IOException If the directory can not be watched or listed.
+     */
+    @Throws(IOException::class)
+    fun run() {
+        inbox.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY)
+        rescan()
+
+        try {
+            while (running) {
+                val key = watcher.poll(POLL_MILLIS, TimeUnit.MILLISECONDS)
+                if (key != null) {
+                    for (event in key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            rescan()
+                        } else {
+                            noticed(inbox.resolve(event.context() as Path))
+                        }
+                    }
+                    key.reset()
+                }
+                submitSettled()
+            }
+        } catch (_: ClosedWatchServiceException) {
+            // Closed by close().
+        } catch (_: InterruptedException) {
+            Thread.currentThread().interrupt()
+        }
+    }
+
+    /**
+     * Stops watching, then waits for the files already submitted to be read and added.
+     */
+    override fun close() {
+        running = false
+        watcher.close()
+        readers.shutdown()
+        try {
+            readers.awaitTermination(1, TimeUnit.HOURS)
+        } catch (_: InterruptedException) {
+            Thread.currentThread().interrupt()
+        }
+    }
+
+    /**
+     * Notes every file already in [inbox], for when events were lost or before watching starts.
+     */
+    private fun rescan() {
+        Files.list(inbox).use { files -> files.forEach { noticed(it) } }
+    }
+
+    private fun noticed(path: Path) {
+        val name = path.fileName.toString()
+        if (name.startsWith(".") || name.endsWith(".tmp") || name.endsWith(".part") || path in inFlight) return
+        if (!Files.isRegularFile(path)) return
+        if (path !in settling) settling[path] = FileState(-1, -1, System.nanoTime())
+    }
+
+    /**
+     * Submits the files that have not changed for [settleMillis] to be read.
+     */
+    private fun submitSettled() {
+        val now = System.nanoTime()
+        val iterator = settling.entries.iterator()
+        while (iterator.hasNext()) {
+            val entry = iterator.next()
+            val path = entry.key
+            val current = try {
+                FileState(Files.size(path), Files.getLastModifiedTime(path).toMillis(), now)
+            } catch (_: IOException) {
+                iterator.remove() // Deleted or moved away before it was read.
+                continue
+            }
+
+            val last = entry.value
+            if (current.size != last.size || current.modified != last.modified) {
+                entry.setValue(current)
+            } else if (now - last.since >= TimeUnit.MILLISECONDS.toNanos(settleMillis)) {
+                iterator.remove()
+                submit(path, last.since)
+            }
+        }
+    }
+
+    private fun submit(path: Path, detected: Long) {
+        val file = PendingFile(path, detected)
+        inFlight.add(path)
+        synchronized(commitLock) {
+            pending.addLast(file)
+        }
+        readers.execute { read(file) }
+    }
+
+    /**
+     * Reads and stages a file on a reader thread, then adds every file that is ready to be.
+     */
+    private fun read(file: PendingFile) {
+        val start = System.nanoTime()
+        try {
+            @Suppress("UNCHECKED_CAST") // Readers return mutable maps, which commitInventory adds error reasons to.
+            val rows = FileIOFactory.buildNewFileIOReader(file.path.toString()).readInventory() as List<MutableMap<Key, Any>>
+            val staged = StagedInventory()
+            staged.stageAll(rows)
+            file.rows = rows
+            file.staged = staged
+            Metrics.timer("ingest.read").recordSince(start, rows.size.toLong(), Files.size(file.path))
+        } catch (e: Exception) {
+            file.error = e
+        }
+        file.done = true
+        commitReady()
+    }
+
+    /**
+     * Adds the files at the front of [pending] that have been read, stopping at the first that
+     * has not, so files are always added in the order they arrived.
+     */
+    private fun commitReady() {
+        synchronized(commitLock) {
+            while (pending.firstOrNull()?.done == true) {
+                commit(pending.removeFirst())
+            }
+        }
+    }
+
+    private fun commit(file: PendingFile) {
+        val staged = file.staged
+        var error = file.error
+        var rejected: List<Map<Key, Any>> = emptyList()
+
+        if (staged != null) {
+            val start = System.nanoTime()
+            rejected = company.commitInventory(staged)
+            Metrics.timer("ingest.commit").recordSince(start, staged.size.toLong())
+        }
+
+        val archived = try {
+            archive(file.path, if (error == null) processedDir else failedDir)
+        } catch (e: IOException) {
+            error = error ?: e
+            file.path
+        }
+        if (archived != file.path) {
+            if (error != null) writeErrorNote(archived, error)
+            inFlight.remove(file.path)
+        }
+
+        if (error == null) {
+            Metrics.counter("ingest.files.processed").increment()
+            Metrics.counter("ingest.rows").increment(file.rows.size.toLong())
+            Metrics.counter("ingest.rejected").increment(rejected.size.toLong())
+        } else {
+            Metrics.counter("ingest.files.failed").increment()
+        }
+        Metrics.timer("ingest.file").recordSince(file.detected, file.rows.size.toLong())
+
+        onCommitted?.invoke(IngestedFile(archived, file.rows, rejected, error))
+    }
+
+    companion object {
+        const val DEFAULT_SETTLE_MILLIS = 1000L
+        private const val POLL_MILLIS = 200L
+        private val DEFAULT_READER_THREADS = Runtime.getRuntime().availableProcessors().coerceIn(1, 4)
+
+        /**
+         * Moves the file into the directory, adding a number to its name if one with the same
+         * name is already there, and returns its new path.
+         */
+        private fun archive(path: Path, directory: Path): Path {
+            val name = path.fileName.toString()
+            var target = directory.resolve(name)
+            var n = 1
+            while (true) {
+                try {
+                    return Files.move(path, target)
+                } catch (_: FileAlreadyExistsException) {
+                    val dot = name.lastIndexOf('.').takeIf { it > 0 } ?: name.length
+                    target = directory.resolve("${name.substring(0, dot)}-${n++}${name.substring(dot)}")
+                }
+            }
+        }
+
+        private fun writeErrorNote(archived: Path, error: Exception) {
+            val message = generateSequence<Throwable>(error) { it.cause }.mapNotNull { it.message }.lastOrNull()
+                ?: error.javaClass.simpleName
+            try {
+                Files.writeString(archived.resolveSibling("${archived.fileName}.error.txt"), message + System.lineSeparator())
+            } catch (_: IOException) {
+                // The file itself is already in the failed directory, which is what matters.
+            }
+        }
+    }
+}
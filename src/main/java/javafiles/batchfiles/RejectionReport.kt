@@ -0,0 +1,89 @@
+package javafiles.batchfiles
+
+import javafiles.Key
+import javafiles.customexceptions.ReadWriteException
+import java.io.BufferedWriter
+import java.io.Closeable
+import java.io.FileWriter
+import java.io.PrintStream
+import java.util.*
+
+/**
+ * Collects the rows rejected during a batch run. Rejections are counted by cause and, when
+ * a report path is given, written to it straight away as tab separated lines, so a run with
+ * millions of rejections does not keep them in memory.
+ *
+ * @param path The path of the report file, or null to only count rejections.
+ */
+internal class RejectionReport(path: String?) : Closeable {
+    private val writer: BufferedWriter? = path?.let { BufferedWriter(FileWriter(it)) }
+    private val countsByCause: MutableMap<String, Long> = TreeMap()
+
+    /**
+     * The total number of rejections added.
+     */
+    var total: Long = 0
+        private set
+
+    init {
+        writer?.write("file\trow\tvehicle_id\tdealership_id\tcause\tmessage\n")
+    }
+
+    /**
+     * Adds the rejected maps returned when the given rows were added to a Company. Rejected
+     * maps are returned in the order of the rows, so their row numbers are found in one pass.
+     *
+     * @param file The file the rows were read from.
+     * @param rows Every row read from the file.
+     * @param rejected The rows that could not be added, each with a [Key.REASON_FOR_ERROR].
+     */
+    fun addRejectedRows(file: String, rows: List<Map<Key, Any>>, rejected: List<Map<Key, Any>>) {
+        var next = 0
+        for (i in rows.indices) {
+            if (next == rejected.size) break
+            if (rows[i] !== rejected[next]) continue
+            val reason = rejected[next][Key.REASON_FOR_ERROR] as? ReadWriteException
+            val cause = reason?.cause ?: reason
+            add(file, i + 1, rows[i], cause?.javaClass?.simpleName ?: "Unknown", cause?.message)
+            next++
+        }
+    }
+
+    /**
+     * Adds a single rejection.
+     *
+     * @param file The file the row came from.
+     * @param row The 1-based row or line number in the file.
+     * @param data The fields of the row, used for its vehicle and dealership IDs.
+     * @param cause A short name for why the row was rejected.
+     * @param message A description of the problem, if there is one.
+     */
+    fun add(file: String, row: Int, data: Map<Key, Any>, cause: String, message: String?) {
+        total++
+        countsByCause.merge(cause, 1L, Long::plus)
+        writer?.write(
+            listOf(file, row, data[Key.VEHICLE_ID] ?: "", data[Key.DEALERSHIP_ID] ?: "", cause, message ?: "")
+                .joinToString("\t") { field -> field.toString().replace(CONTROL_CHARS, " ") }
+        )
+        writer?.write("\n")
+    }
+
+    /**
+     * Prints the number of rejections for each cause, most common first.
+     */
+    fun printSummary(out: PrintStream) {
+        if (total == 0L) return
+        out.println("Rejected $total rows:")
+        countsByCause.entries.sortedByDescending { it.value }.forEach { (cause, count) ->
+            out.println("  $cause: $count")
+        }
+    }
+
+    override fun close() {
+        writer?.close()
+    }
+
+    companion object {
+        private val CONTROL_CHARS = "[\\t\\r\\n]".toRegex()
+    }
+}
@@ -0,0 +1,19 @@
+package javafiles.customexceptions;
+
+
+/**
+ * An exception class representing the error of when a vehicle is booked for a time
+ * that overlaps one of its existing bookings.
+ * This exception is a subclass of {@link RentalException}.
+ */
+public class BookingConflictException extends RentalException {
+
+    /**
+     * Constructs a new BookingConflictException with the specified detail message.
+     *
+     * @param message the detail message. The detail message is saved for later retrieval by the {@link #getMessage()} method.
+     */
+    public BookingConflictException(String message) {
+        super(message);
+    }
+}
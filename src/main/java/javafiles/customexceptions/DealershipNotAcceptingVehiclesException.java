@@ -14,4 +14,15 @@ public class DealershipNotAcceptingVehiclesException extends Exception {
     public DealershipNotAcceptingVehiclesException(String message) {
         super(message);
     }
+
+    /**
+     * Constructs a new DealershipNotAcceptingVehiclesException with the specified detail message, optionally
+     * without a stack trace.
+     *
+     * @param message the detail message.
+     * @param writableStackTrace whether the stack trace should be filled in.
+     */
+    public DealershipNotAcceptingVehiclesException(String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+    }
 }
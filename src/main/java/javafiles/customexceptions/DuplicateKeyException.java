@@ -4,4 +4,8 @@ public class DuplicateKeyException extends RuntimeException {
     public DuplicateKeyException(String message) {
         super(message);
     }
+
+    public DuplicateKeyException(String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+    }
 }
@@ -13,4 +13,15 @@ public class InvalidPriceException extends Exception {
     public InvalidPriceException(String message) {
         super(message);
     }
+
+    /**
+     * Constructs a new InvalidPriceException with the specified detail message, optionally
+     * without a stack trace.
+     *
+     * @param message the detail message.
+     * @param writableStackTrace whether the stack trace should be filled in.
+     */
+    public InvalidPriceException(String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+    }
 }
@@ -13,4 +13,15 @@ public class InvalidVehicleTypeException extends Exception {
     public InvalidVehicleTypeException(String message) {
         super(message);
     }
+
+    /**
+     * Constructs a new InvalidVehicleTypeException with the specified detail message, optionally
+     * without a stack trace.
+     *
+     * @param message the detail message.
+     * @param writableStackTrace whether the stack trace should be filled in.
+     */
+    public InvalidVehicleTypeException(String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+    }
 }
\ No newline at end of file
@@ -9,4 +9,15 @@ public class MissingCriticalInfoException extends Exception {
     public MissingCriticalInfoException(String message) {
         super(message);
     }
+
+    /**
+     * Constructs a new MissingCriticalInfoException with the specified detail message, optionally
+     * without a stack trace.
+     *
+     * @param message the detail message.
+     * @param writableStackTrace whether the stack trace should be filled in.
+     */
+    public MissingCriticalInfoException(String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+    }
 }
@@ -0,0 +1,30 @@
+package javafiles.customexceptions;
+
+/**
+ * Exception class for the error when the text of an inventory query can not be compiled,
+ * such as an unknown field, a missing value or a value of the wrong type for its field.
+ */
+public class QuerySyntaxException extends Exception {
+    private final int position;
+
+    /**
+     * Constructs a new QuerySyntaxException with the specified detail message and the position
+     * in the query text where the problem was found.
+     *
+     * @param message The detailed message (which is saved for later retrieval by the {@link #getMessage()} method).
+     * @param position The index of the character in the query text where the problem was found.
+     */
+    public QuerySyntaxException(String message, int position) {
+        super(message + " (at character " + (position + 1) + ")");
+        this.position = position;
+    }
+
+    /**
+     * Returns the index of the character in the query text where the problem was found.
+     *
+     * @return The 0-based position of the problem.
+     */
+    public int getPosition() {
+        return position;
+    }
+}
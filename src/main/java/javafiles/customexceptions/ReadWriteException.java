@@ -25,4 +25,16 @@ public class ReadWriteException extends Exception {
     public ReadWriteException(Throwable cause) {
         super(cause);
     }
+
+    /**
+     * Creates a new ReadWriteException with the given cause, optionally without a stack trace.
+     * Rows rejected during imports are given their reasons without stack traces, as filling
+     * them in would cost far more than checking the row.
+     *
+     * @param cause The cause of the Exception
+     * @param writableStackTrace Whether the stack trace should be filled in
+     */
+    public ReadWriteException(Throwable cause, boolean writableStackTrace) {
+        super(cause == null ? null : cause.toString(), cause, false, writableStackTrace);
+    }
 }
@@ -17,6 +17,17 @@ public class RentalException extends Exception {
         super(message);
     }
 
+    /**
+     * Constructs a new RentalException with the specified detail message, optionally
+     * without a stack trace.
+     *
+     * @param message the detail message.
+     * @param writableStackTrace whether the stack trace should be filled in.
+     */
+    public RentalException(String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+    }
+
     /**
      * Constructs a new RentalException with the specified detail message and cause.
      *
@@ -15,4 +15,15 @@ public class SportsCarRentalNotAllowedException extends RentalException {
     public SportsCarRentalNotAllowedException(String message) {
         super(message);
     }
+
+    /**
+     * Constructs a new SportsCarRentalNotAllowedException with the specified detail message, optionally
+     * without a stack trace.
+     *
+     * @param message the detail message.
+     * @param writableStackTrace whether the stack trace should be filled in.
+     */
+    public SportsCarRentalNotAllowedException(String message, boolean writableStackTrace) {
+        super(message, writableStackTrace);
+    }
 }
\ No newline at end of file
@@ -15,4 +15,15 @@ public class VehicleAlreadyExistsException extends Exception {
     public VehicleAlreadyExistsException(String message) {
         super(message);
     }
+
+    /**
+     * Constructs a new VehicleAlreadyExistsException with the specified detail message, optionally
+     * without a stack trace.
+     *
+     * @param message the detail message.
+     * @param writableStackTrace whether the stack trace should be filled in.
+     */
+    public VehicleAlreadyExistsException(String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+    }
 }
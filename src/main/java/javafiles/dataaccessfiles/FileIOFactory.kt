@@ -7,10 +7,13 @@ import javafiles.dataaccessfiles.builderimplements.*
 import javafiles.dataaccessfiles.builderimplements.XMLIOBuilder
 import javafiles.dataaccessfiles.fileioimplements.FileIOReader
 import javafiles.dataaccessfiles.fileioimplements.FileIOWriter
+import javafiles.DealershipExport
 import java.io.File
+import java.io.IOException
+import java.nio.file.AtomicMoveNotSupportedException
+import java.nio.file.Files
+import java.nio.file.StandardCopyOption
 import java.util.*
-import javax.swing.JFileChooser
-import javax.swing.filechooser.FileNameExtensionFilter
 
 object FileIOFactory {
     @JvmStatic
@@ -52,88 +55,27 @@ object FileIOFactory {
     }
 
     /**
-     * Opens a file chooser dialog to allow the user to select a file.
-     * The file chooser will start in the current user's working directory
-     * and will filter files to only show those with an extension in extensions.
-     *
-     * @param extensions The available extensions of files that can be chosen.
-     * @return The selected path to the file if the user selects a file and confirms
-     * the dialog, or null if the user cancels or closes the dialog without
-     * selecting a file.
-     *
-     * @author Christopher Engelhart
-     */
-    private fun selectFile(extensions: Array<String>): File? {
-        val fileChooser = JFileChooser()
-        fileChooser.currentDirectory = File(System.getProperty("user.dir"))
-        fileChooser.fileFilter = FileNameExtensionFilter("Choose File", *extensions)
-        val result = fileChooser.showOpenDialog(null)
-        return if (result == 0) fileChooser.selectedFile else null
-    }
-
-    /**
-     * Opens a file chooser dialog to allow the user to select a file.
-     * The file chooser will start in the current user's working directory
-     * and will filter files to only show those with an extension in extensions.
-     *
-     * @param extensions The available extensions of files that can be chosen.
-     * @return The selected path to the file if the user selects a file and confirms
-     * the dialog, or null if the user cancels or closes the dialog without
-     * selecting a file.
-     */
-    private fun selectFilePath(extensions: Array<String>): String? {
-        val file = selectFile(extensions) ?: return null
-        return file.toString()
-    }
-
-    /**
-     * Opens a file chooser dialog to allow the user to select a file.
-     * The file chooser will start in the current user's working directory
-     * and will filter files to only show those with an extension in
-     * that allows for the creation of a [FileIO] in the given mode
+     * Returns the extensions of files that a [FileIO] can be created from in the given mode
      * with one or more of the [FileIOBuilder]s in BUILDERS.
-     *
-     * @return The selected path to the file if the user selects a file and confirms
-     * the dialog, or null if the user cancels or closes the dialog without
-     * selecting a file.
      */
-    private fun selectFilePath(mode: BuilderTag): String? {
-        val builders = getBuilderList(mode)
-        val extensions: Array<String> = builders.flatMap {
-            it.extensions.toList()
-        }.toTypedArray()
-
-        return selectFilePath(extensions)
+    private fun extensions(mode: BuilderTag): List<String> {
+        return getBuilderList(mode).flatMap { it.extensions.toList() }
     }
 
     /**
-     * Opens a file chooser dialog to allow the user to select a file.
-     * The file chooser will start in the current user's working directory
-     * and will filter files to only show those with an extension in
-     * that allows for the creation of a [FileIO] in reading mode
-     * with one or more of the [FileIOBuilder]s in BUILDERS.
-     *
-     * @return The selected path to the file if the user selects a file and confirms
-     * the dialog, or null if the user cancels or closes the dialog without
-     * selecting a file.
+     * Returns the extensions (without the dot) of files that can be read, for use in a file
+     * chooser. Any path ending in one of these can be passed to [buildNewFileIOReader].
      */
-    fun selectFileReaderPath(): String? {
-        return selectFilePath(BuilderTag.READER)
+    fun readerExtensions(): List<String> {
+        return extensions(BuilderTag.READER)
     }
 
     /**
-     * Opens a file chooser dialog to allow the user to select a file.
-     * The file chooser will start in the current user's working directory
-     * and will filter files to only show those with an extension in
-     * that allows for the creation of a [FileIO] in writing mode
-     * with one or more of the [FileIOBuilder]s in BUILDERS.
-     *
-     * @return The selected path to the file if the user selects a file and confirms
-     * the dialog, or null if the user cancels or closes the dialog without
-     * selecting a file.
+     * Returns the extensions (without the dot) of files that can be written, for use in a file
+     * chooser. Any path ending in one of these can be passed to [buildNewFileIOWriter].
      */
-    fun selectFileWriterPath(): String? {
-        return selectFilePath(BuilderTag.WRITER)
+    fun writerExtensions(): List<String> {
+        return extensions(BuilderTag.WRITER)
     }
 
     private fun getBuilderList(mode: BuilderTag): List<FileIOBuilder> {
@@ -192,6 +134,32 @@ object FileIOFactory {
         return buildNewFileIO(path, tag) as FileIOWriter
     }
 
+    /**
+     * Writes the given export to a file next to the given path, with the [FileIOWriter] for its
+     * extension, and then moves that file over the path. Readers of the path never see a partly
+     * written file, and the file is left as it was if writing fails.
+     *
+     * @param path The path of the file to replace.
+     * @param export The [DealershipExport]s to write.
+     * @throws ReadWriteException If there is no [FileIOWriter] for the path, or it can not be written.
+     */
+    @Throws(ReadWriteException::class)
+    fun replaceInventoryFile(path: String, export: Iterable<DealershipExport>) {
+        val target = File(path).absoluteFile
+        val temp = File(target.parentFile, ".${target.name}") // Keeps the extension the writer is chosen by
+        buildNewFileIOWriter(temp.path).writeInventory(export)
+        try {
+            try {
+                Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE)
+            } catch (_: AtomicMoveNotSupportedException) {
+                Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING)
+            }
+        } catch (e: IOException) {
+            throw ReadWriteException(e)
+        }
+    }
+
     internal enum class BuilderTag {
         READER,
         WRITER
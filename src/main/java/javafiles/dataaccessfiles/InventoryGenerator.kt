@@ -0,0 +1,223 @@
+package javafiles.dataaccessfiles
+
+import javafiles.DealershipExport
+import javafiles.Key
+import javafiles.customexceptions.ReadWriteException
+import javafiles.lazyList
+import java.io.BufferedWriter
+import java.io.FileWriter
+import java.io.IOException
+import java.io.Writer
+import java.util.*
+
+/**
+ * Generates synthetic company inventories of any size for load and scale testing.
+ *
+ * The same settings and [seed] always give the same inventory. Each vehicle is generated on
+ * its own from the seed and its position, so inventories far larger than memory can be
+ * written without being built first.
+ *
+ * @param dealerCount The number of dealerships.
+ * @param vehiclesPerDealer The number of vehicles in each dealership.
+ * @param seed The seed the inventory is generated from.
+ * @param duplicateIdRate The share of vehicles (0 to 1) that reuse the ID of an earlier vehicle.
+ * @param malformedPriceRate The share of vehicles (0 to 1) whose price is not a number.
+ * @param typeWeights The relative weight of each vehicle type, such as "SUV" or "Sports car".
+ */
+class InventoryGenerator @JvmOverloads constructor(
+    val dealerCount: Int,
+    val vehiclesPerDealer: Int,
+    val seed: Long = 0L,
+    val duplicateIdRate: Double = 0.0,
+    val malformedPriceRate: Double = 0.0,
+    typeWeights: Map<String, Double> = DEFAULT_TYPE_WEIGHTS
+) {
+    private val types: Array<String>
+    private val cumulativeWeights: DoubleArray
+
+    init {
+        require(dealerCount >= 0) { "Dealer count cannot be negative" }
+        require(vehiclesPerDealer >= 0) { "Vehicles per dealer cannot be negative" }
+        require(duplicateIdRate in 0.0..1.0) { "Duplicate ID rate must be between 0 and 1" }
+        require(malformedPriceRate in 0.0..1.0) { "Malformed price rate must be between 0 and 1" }
+        require(typeWeights.values.all { it >= 0.0 } && typeWeights.values.sum() > 0.0) {
+            "Type weights must not be negative and must not all be 0"
+        }
+
+        types = typeWeights.keys.toTypedArray()
+        cumulativeWeights = DoubleArray(types.size)
+        var total = 0.0
+        typeWeights.values.forEachIndexed { i, weight ->
+            total += weight
+            cumulativeWeights[i] = total
+        }
+    }
+
+    /**
+     * The total number of vehicles in the inventory.
+     */
+    val vehicleCount: Long
+        get() = dealerCount.toLong() * vehiclesPerDealer
+
+    /**
+     * Returns the dealership fields of the dealership at the given index.
+     */
+    fun dealerData(dealerIndex: Int): Map<Key, Any> {
+        val map: MutableMap<Key, Any> = EnumMap(Key::class.java)
+        map[Key.DEALERSHIP_ID] = "D$dealerIndex"
+        map[Key.DEALERSHIP_NAME] = "Dealer $dealerIndex"
+        map[Key.DEALERSHIP_RECEIVING_STATUS] = true
+        map[Key.DEALERSHIP_RENTING_STATUS] = dealerIndex % 3 == 0
+        return map
+    }
+
+    /**
+     * Returns the vehicle fields, without the dealership fields, of the vehicle at the given
+     * index of the dealership at the given index.
+     */
+    fun vehicleData(dealerIndex: Int, vehicleIndex: Int): Map<Key, Any> {
+        val index = dealerIndex.toLong() * vehiclesPerDealer + vehicleIndex
+        val random = SplittableRandom(seed xor (index * SEED_STEP))
+        val map: MutableMap<Key, Any> = EnumMap(Key::class.java)
+
+        val idIndex = if (index > 0 && random.nextDouble() < duplicateIdRate) random.nextLong(index) else index
+        map[Key.VEHICLE_ID] = "V$idIndex"
+        map[Key.VEHICLE_TYPE] = pickType(random.nextDouble() * cumulativeWeights.last())
+        map[Key.VEHICLE_MANUFACTURER] = MANUFACTURERS[random.nextInt(MANUFACTURERS.size)]
+        map[Key.VEHICLE_MODEL] = "Model ${random.nextInt(MODEL_COUNT)}"
+        map[Key.VEHICLE_PRICE] = if (random.nextDouble() < malformedPriceRate) {
+            MALFORMED_PRICES[random.nextInt(MALFORMED_PRICES.size)]
+        } else {
+            MIN_PRICE + random.nextLong(PRICE_RANGE)
+        }
+        map[Key.VEHICLE_PRICE_UNIT] = "dollars"
+        map[Key.VEHICLE_ACQUISITION_DATE] = FIRST_ACQUISITION_DATE + random.nextLong(ACQUISITION_DATE_RANGE)
+        return map
+    }
+
+    private fun pickType(value: Double): String {
+        val i = cumulativeWeights.indexOfFirst { value < it }
+        return types[if (i < 0) types.size - 1 else i]
+    }
+
+    /**
+     * Returns the inventory as [DealershipExport]s, in the form taken by a [FileIOWriter].
+     * Vehicles are generated as they are read, so the view takes no memory of its own.
+     */
+    fun exportView(): List<DealershipExport> {
+        return (0 until dealerCount).map { dealerIndex ->
+            DealershipExport(dealerData(dealerIndex), lazyList(vehiclesPerDealer) { vehicleData(dealerIndex, it) })
+        }
+    }
+
+    /**
+     * Returns the whole inventory as one Map per vehicle holding both the vehicle and dealership
+     * fields, like the Maps returned by [FileIOReader.readInventory].
+     */
+    fun createMaps(): List<MutableMap<Key, Any>> {
+        val maps: MutableList<MutableMap<Key, Any>> = ArrayList(Math.toIntExact(vehicleCount))
+        for (dealerIndex in 0 until dealerCount) {
+            val dealer = dealerData(dealerIndex)
+            for (vehicleIndex in 0 until vehiclesPerDealer) {
+                val map: MutableMap<Key, Any> = EnumMap(Key::class.java)
+                map.putAll(vehicleData(dealerIndex, vehicleIndex))
+                map.putAll(dealer)
+                maps.add(map)
+            }
+        }
+        return maps
+    }
+
+    /**
+     * Writes the inventory to the given path with the [FileIOWriter] for its extension.
+     *
+     * @param path The path of the file to write.
+     * @throws ReadWriteException If there is no [FileIOWriter] for the path, or it can not be written.
+     */
+    @Throws(ReadWriteException::class)
+    fun write(path: String) {
+        FileIOFactory.buildNewFileIOWriter(path).writeInventory(exportView())
+    }
+
+    /**
+     * Writes the inventory to the given path in the XML format read by the XML [FileIOReader],
+     * which has no [FileIOWriter] of its own.
+     *
+     * @param path The path of the file to write.
+     * @throws ReadWriteException If the file can not be written.
+     */
+    @Throws(ReadWriteException::class)
+    fun writeXml(path: String) {
+        try {
+            BufferedWriter(FileWriter(path)).use { writer ->
+                writer.write("<Dealers>\n")
+                for (dealer in exportView()) {
+                    writer.write("  <Dealer id=\"${escape(dealer.dealerData[Key.DEALERSHIP_ID])}\">\n")
+                    writer.write("    <Name>${escape(dealer.dealerData[Key.DEALERSHIP_NAME])}</Name>\n")
+                    for (vehicle in dealer.vehicleData) {
+                        writeXmlVehicle(writer, vehicle)
+                    }
+                    writer.write("  </Dealer>\n")
+                }
+                writer.write("</Dealers>\n")
+            }
+        } catch (e: IOException) {
+            throw ReadWriteException(e)
+        }
+    }
+
+    private fun writeXmlVehicle(writer: Writer, vehicle: Map<Key, Any>) {
+        writer.write("    <Vehicle type=\"${escape(vehicle[Key.VEHICLE_TYPE])}\" id=\"${escape(vehicle[Key.VEHICLE_ID])}\">\n")
+        writer.write("      <Price unit=\"${escape(vehicle[Key.VEHICLE_PRICE_UNIT])}\">${escape(vehicle[Key.VEHICLE_PRICE])}</Price>\n")
+        writer.write("      <Make>${escape(vehicle[Key.VEHICLE_MANUFACTURER])}</Make>\n")
+        writer.write("      <Model>${escape(vehicle[Key.VEHICLE_MODEL])}</Model>\n")
+        writer.write("    </Vehicle>\n")
+    }
+
+    private fun escape(value: Any?): String {
+        return value.toString()
+            .replace("&", "&amp;")
+            .replace("<", "&lt;")
+            .replace(">", "&gt;")
+            .replace("\"", "&quot;")
+    }
+
+    companion object {
+        /**
+         * Every vehicle type, weighted equally.
+         */
+        @JvmField
+        val DEFAULT_TYPE_WEIGHTS: Map<String, Double> =
+            linkedMapOf("SUV" to 1.0, "Sedan" to 1.0, "Pickup" to 1.0, "Sports car" to 1.0)
+
+        private const val SEED_STEP = -0x61c8864680b583ebL // 2^64 / golden ratio
+        private const val MIN_PRICE = 5_000L
+        private const val PRICE_RANGE = 95_000L
+        private const val MODEL_COUNT = 100
+        private const val FIRST_ACQUISITION_DATE = 1_500_000_000_000L
+        private const val ACQUISITION_DATE_RANGE = 300_000_000_000L
+        private val MANUFACTURERS = arrayOf("Ford", "Toyota", "Honda", "Chevrolet", "Tesla", "Porsche")
+        private val MALFORMED_PRICES = arrayOf("N/A", "12,000", "$15000", "ten thousand", "")
+
+        /**
+         * Writes a generated inventory to a file. Arguments are the output path, the number of
+         * dealerships, the vehicles per dealership and, optionally, the seed, duplicate ID rate
+         * and malformed price rate. Paths ending in .xml are written with [writeXml].
+         */
+        @JvmStatic
+        fun main(args: Array<String>) {
+            require(args.size >= 3) {
+                "Usage: <path> <dealerCount> <vehiclesPerDealer> [seed] [duplicateIdRate] [malformedPriceRate]"
+            }
+            val generator = InventoryGenerator(
+                args[1].toInt(), args[2].toInt(),
+                args.getOrNull(3)?.toLong() ?: 0L,
+                args.getOrNull(4)?.toDouble() ?: 0.0,
+                args.getOrNull(5)?.toDouble() ?: 0.0
+            )
+            val path = args[0]
+            if (path.endsWith(".xml")) generator.writeXml(path) else generator.write(path)
+            println("Wrote ${generator.vehicleCount} vehicles to $path")
+        }
+    }
+}
@@ -0,0 +1,433 @@
+package javafiles.dataaccessfiles
+
+import javafiles.Key
+import javafiles.customexceptions.ReadWriteException
+import java.io.*
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.*
+
+/**
+ * Holds the rows that could not be added to a Company, each with a [Key.REASON_FOR_ERROR], so
+ * they can be corrected or discarded later.
+ *
+ * Each row gets a row ID when it is added, which never changes and is never reused. Rows can be
+ * read, replaced and removed by ID in constant time, and found by vehicle ID (ignoring case and
+ * whitespace) or by the simple class name of the cause of their error, such as
+ * "VehicleAlreadyExistsException".
+ *
+ * Only the first [memoryCap] rows are kept in memory. Any more are written to a temporary
+ * spill file and read back when asked for, so a feed with hundreds of thousands of bad rows only
+ * costs a few bytes of memory for each row past the cap. The spill file is deleted by [close].
+ *
+ * Like the rest of the GUI state, a store is only used from one thread at a time.
+ *
+ * @param memoryCap The number of rows kept in memory before rows are spilled to disk.
+ * @param spillDirectory The directory for the spill file, or null for the default temporary directory.
+ */
+class RejectedRowStore @JvmOverloads constructor(
+    val memoryCap: Int = DEFAULT_MEMORY_CAP,
+    private val spillDirectory: Path? = null
+) : Closeable {
+    private val memoryRows: MutableMap<Int, MutableMap<Key, Any>> = HashMap()
+
+    // Per row ID: where the row is (IN_MEMORY, REMOVED or its offset in the spill file), the
+    // length of its spilled record, and the keys it is indexed under.
+    private var locations = LongArray(INITIAL_CAPACITY)
+    private var lengths = IntArray(INITIAL_CAPACITY)
+    private var vehicleKeys = arrayOfNulls<String>(INITIAL_CAPACITY)
+    private var causes = arrayOfNulls<String>(INITIAL_CAPACITY)
+
+    // Sets rather than arrays, so indexing or removing a row does not copy the IDs of the others.
+    private val byVehicle: MutableMap<String, MutableSet<Int>> = HashMap()
+    private val byCause: MutableMap<String, BitSet> = TreeMap()
+
+    private var spillPath: Path? = null
+    private var spillFile: RandomAccessFile? = null
+    private var nextId = 0
+
+    /**
+     * The number of rows in the store.
+     */
+    var size: Int = 0
+        private set
+
+    /**
+     * The number of rows in the store that are held in the spill file rather than in memory.
+     */
+    val spilledCount: Int
+        get() = size - memoryRows.size
+
+    init {
+        require(memoryCap >= 0) { "Memory cap cannot be negative" }
+    }
+
+    /**
+     * Adds a row, keeping it in memory if there is room, or spilling it to disk if not. A row
+     * kept in memory is the given Map itself, so changes to it are seen by [get].
+     *
+     * @param row The rejected row.
+     * @return The ID of the row.
+     * @throws ReadWriteException If the row needed to be spilled and the spill file could not be written.
+     */
+    @Throws(ReadWriteException::class)
+    fun add(row: Map<Key, Any>): Int {
+        val id = nextId
+        ensureCapacity(id + 1)
+        store(id, row)
+        index(id, row)
+        nextId++
+        size++
+        return id
+    }
+
+    /**
+     * Adds every given row, in order.
+     *
+     * @return The IDs of the rows, in the same order.
+     * @throws ReadWriteException If a row could not be spilled. The rows before it are kept.
+     */
+    @Throws(ReadWriteException::class)
+    fun addAll(rows: Collection<Map<Key, Any>>): List<Int> {
+        return rows.map { add(it) }
+    }
+
+    /**
+     * Returns the row with the given ID, or null if there is none. Spilled rows are read from
+     * disk each time, so changes to them are only kept by [update].
+     *
+     * @throws ReadWriteException If the row is spilled and could not be read.
+     */
+    @Throws(ReadWriteException::class)
+    fun get(rowId: Int): MutableMap<Key, Any>? {
+        return when (location(rowId)) {
+            REMOVED -> null
+            IN_MEMORY -> memoryRows[rowId]
+            else -> readSpilled(rowId)
+        }
+    }
+
+    /**
+     * Replaces the row with the given ID, updating its place in the vehicle and cause indexes.
+     *
+     * @return Whether there was a row with the ID.
+     * @throws ReadWriteException If the row is spilled and could not be rewritten.
+     */
+    @Throws(ReadWriteException::class)
+    fun update(rowId: Int, row: Map<Key, Any>): Boolean {
+        if (location(rowId) == REMOVED) return false
+        unindex(rowId)
+        if (locations[rowId] == IN_MEMORY) {
+            memoryRows[rowId] = mutableCopy(row)
+        } else {
+            spill(rowId, row) // The old record is left unused in the file
+        }
+        index(rowId, row)
+        return true
+    }
+
+    /**
+     * Removes the row with the given ID.
+     *
+     * @return Whether there was a row with the ID.
+     */
+    fun remove(rowId: Int): Boolean {
+        val location = location(rowId)
+        if (location == REMOVED) return false
+        if (location == IN_MEMORY) memoryRows.remove(rowId)
+        unindex(rowId)
+        locations[rowId] = REMOVED
+        size--
+        if (size == memoryRows.size) truncateSpillFile()
+        return true
+    }
+
+    /**
+     * Removes every row.
+     */
+    fun clear() {
+        memoryRows.clear()
+        Arrays.fill(locations, 0, nextId, REMOVED)
+        Arrays.fill(vehicleKeys, 0, nextId, null)
+        Arrays.fill(causes, 0, nextId, null)
+        byVehicle.clear()
+        byCause.clear()
+        size = 0
+        truncateSpillFile()
+    }
+
+    /**
+     * Returns the IDs of the rows in the store, in the order they were added.
+     */
+    fun rowIds(): List<Int> {
+        return (0 until nextId).filter { locations[it] != REMOVED }
+    }
+
+    /**
+     * Returns up to limit rows, in the order they were added, skipping the first offset rows.
+     *
+     * @throws ReadWriteException If a spilled row could not be read.
+     */
+    @Throws(ReadWriteException::class)
+    fun rows(offset: Int, limit: Int): List<Row> {
+        val rows = ArrayList<Row>(minOf(limit, size))
+        var skipped = 0
+        for (id in 0 until nextId) {
+            if (rows.size >= limit) break
+            if (locations[id] == REMOVED) continue
+            if (skipped++ < offset) continue
+            rows.add(Row(id, get(id)!!))
+        }
+        return rows
+    }
+
+    /**
+     * Returns the IDs of the rows for the given vehicle ID, compared ignoring case and whitespace.
+     */
+    fun idsForVehicle(vehicleId: String): List<Int> {
+        return byVehicle[vehicleKey(vehicleId)]?.toList() ?: emptyList()
+    }
+
+    /**
+     * Returns the IDs of the rows whose error has a cause with the given simple class name,
+     * such as "InvalidPriceException", or "ReadWriteException" if the error has no cause.
+     */
+    fun idsWithCause(cause: String): List<Int> {
+        return byCause[cause]?.stream()?.boxed()?.toList() ?: emptyList()
+    }
+
+    /**
+     * Returns the number of rows for each cause name used by [idsWithCause].
+     */
+    fun countsByCause(): Map<String, Int> {
+        return byCause.mapValues { it.value.cardinality() }
+    }
+
+    /**
+     * Removes every row and deletes the spill file.
+     */
+    override fun close() {
+        clear()
+        spillFile?.close()
+        spillFile = null
+        spillPath?.let { Files.deleteIfExists(it) }
+        spillPath = null
+    }
+
+    private fun location(rowId: Int): Long {
+        return if (rowId in 0 until nextId) locations[rowId] else REMOVED
+    }
+
+    private fun store(id: Int, row: Map<Key, Any>) {
+        if (memoryRows.size < memoryCap) {
+            memoryRows[id] = mutableCopy(row)
+            locations[id] = IN_MEMORY
+        } else {
+            spill(id, row)
+        }
+    }
+
+    private fun index(id: Int, row: Map<Key, Any>) {
+        val vehicleId = row[Key.VEHICLE_ID]
+        if (vehicleId is String) {
+            val key = vehicleKey(vehicleId)
+            vehicleKeys[id] = key
+            byVehicle.getOrPut(key) { LinkedHashSet() }.add(id)
+        }
+        val cause = causeName(row[Key.REASON_FOR_ERROR])
+        causes[id] = cause
+        byCause.getOrPut(cause) { BitSet() }.set(id)
+    }
+
+    private fun unindex(id: Int) {
+        vehicleKeys[id]?.let { key ->
+            val ids = byVehicle[key]!!
+            ids.remove(id)
+            if (ids.isEmpty()) byVehicle.remove(key)
+        }
+        causes[id]?.let { cause ->
+            val ids = byCause[cause]!!
+            ids.clear(id)
+            if (ids.isEmpty) byCause.remove(cause)
+        }
+        vehicleKeys[id] = null
+        causes[id] = null
+    }
+
+    private fun ensureCapacity(capacity: Int) {
+        if (capacity <= locations.size) return
+        val newCapacity = maxOf(capacity, locations.size * 2)
+        locations = locations.copyOf(newCapacity)
+        lengths = lengths.copyOf(newCapacity)
+        vehicleKeys = vehicleKeys.copyOf(newCapacity)
+        causes = causes.copyOf(newCapacity)
+    }
+
+    private fun spill(id: Int, row: Map<Key, Any>) {
+        val bytes = ByteArrayOutputStream()
+        DataOutputStream(bytes).use { writeRow(it, row) }
+        try {
+            val file = spillFile ?: openSpillFile()
+            val offset = file.length()
+            file.seek(offset)
+            file.write(bytes.toByteArray())
+            locations[id] = offset
+            lengths[id] = bytes.size()
+        } catch (e: IOException) {
+            throw ReadWriteException(e)
+        }
+    }
+
+    private fun readSpilled(id: Int): MutableMap<Key, Any> {
+        try {
+            val bytes = ByteArray(lengths[id])
+            val file = spillFile!!
+            file.seek(locations[id])
+            file.readFully(bytes)
+            return DataInputStream(ByteArrayInputStream(bytes)).use { readRow(it) }
+        } catch (e: IOException) {
+            throw ReadWriteException(e)
+        }
+    }
+
+    private fun openSpillFile(): RandomAccessFile {
+        val path = if (spillDirectory != null) {
+            Files.createTempFile(spillDirectory, "rejected-rows", ".bin")
+        } else {
+            Files.createTempFile("rejected-rows", ".bin")
+        }
+        path.toFile().deleteOnExit()
+        spillPath = path
+        return RandomAccessFile(path.toFile(), "rw").also { spillFile = it }
+    }
+
+    private fun truncateSpillFile() {
+        try {
+            spillFile?.setLength(0)
+        } catch (_: IOException) {
+            // The space is reclaimed when the file is deleted
+        }
+    }
+
+    /**
+     * A row of the store along with its ID.
+     */
+    class Row(val id: Int, val data: MutableMap<Key, Any>)
+
+    companion object {
+        /**
+         * The number of rows kept in memory by default.
+         */
+        const val DEFAULT_MEMORY_CAP = 10_000
+
+        private const val INITIAL_CAPACITY = 64
+        private const val IN_MEMORY = -1L
+        private const val REMOVED = -2L
+
+        private const val STRING: Byte = 0
+        private const val LONG: Byte = 1
+        private const val BOOLEAN: Byte = 2
+        private const val ERROR: Byte = 3
+
+        private val WHITESPACE = "\\s+".toRegex()
+
+        private fun vehicleKey(vehicleId: String): String {
+            return vehicleId.replace(WHITESPACE, "").lowercase(Locale.ROOT)
+        }
+
+        private fun causeName(reason: Any?): String {
+            if (reason !is Throwable) return "Unknown"
+            return (reason.cause ?: reason).javaClass.simpleName
+        }
+
+        private fun mutableCopy(row: Map<Key, Any>): MutableMap<Key, Any> {
+            @Suppress("UNCHECKED_CAST")
+            return row as? MutableMap<Key, Any> ?: EnumMap(row)
+        }
+
+        /**
+         * Writes a row as its number of fields followed by each field's [Key], type and value.
+         * Errors are written as the class and message of their cause, without stack traces, as
+         * those would take far more space than the row itself.
+         */
+        private fun writeRow(out: DataOutputStream, row: Map<Key, Any>) {
+            out.writeInt(row.size)
+            for ((key, value) in row) {
+                out.writeShort(key.ordinal)
+                when (value) {
+                    is Long -> {
+                        out.writeByte(LONG.toInt())
+                        out.writeLong(value)
+                    }
+                    is Boolean -> {
+                        out.writeByte(BOOLEAN.toInt())
+                        out.writeBoolean(value)
+                    }
+                    is Throwable -> {
+                        out.writeByte(ERROR.toInt())
+                        writeString(out, value.message)
+                        writeString(out, value.cause?.javaClass?.name)
+                        writeString(out, value.cause?.message)
+                    }
+                    else -> {
+                        out.writeByte(STRING.toInt())
+                        writeString(out, value.toString())
+                    }
+                }
+            }
+        }
+
+        private fun readRow(input: DataInputStream): MutableMap<Key, Any> {
+            val row: MutableMap<Key, Any> = EnumMap(Key::class.java)
+            repeat(input.readInt()) {
+                val key = Key.entries[input.readShort().toInt()]
+                row[key] = when (input.readByte()) {
+                    LONG -> input.readLong()
+                    BOOLEAN -> input.readBoolean()
+                    ERROR -> readError(input)
+                    else -> readString(input) ?: ""
+                }
+            }
+            return row
+        }
+
+        /**
+         * Rebuilds an error written by [writeRow] as a [ReadWriteException] around a new
+         * exception of the cause's class, if the class can be made from a message.
+         */
+        private fun readError(input: DataInputStream): ReadWriteException {
+            val message = readString(input)
+            val causeClass = readString(input)
+            val causeMessage = readString(input)
+            if (causeClass == null) return ReadWriteException(message)
+
+            val cause = try {
+                Class.forName(causeClass).getConstructor(String::class.java).newInstance(causeMessage) as Throwable
+            } catch (e: ReflectiveOperationException) {
+                return ReadWriteException(message)
+            } catch (e: ClassCastException) {
+                return ReadWriteException(message)
+            }
+            return ReadWriteException(cause)
+        }
+
+        private fun writeString(out: DataOutputStream, value: String?) {
+            if (value == null) {
+                out.writeInt(-1)
+                return
+            }
+            val bytes = value.toByteArray(StandardCharsets.UTF_8)
+            out.writeInt(bytes.size)
+            out.write(bytes)
+        }
+
+        private fun readString(input: DataInputStream): String? {
+            val length = input.readInt()
+            if (length < 0) return null
+            val bytes = ByteArray(length)
+            input.readFully(bytes)
+            return String(bytes, StandardCharsets.UTF_8)
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package javafiles.dataaccessfiles
+
+import javafiles.DealershipExport
+import javafiles.Key
+import javafiles.customexceptions.ReadWriteException
+import javafiles.metricsfiles.Metrics
+import org.json.simple.JSONArray
+import org.json.simple.JSONObject
+import org.json.simple.parser.JSONParser
+import org.json.simple.parser.ParseException
+import java.io.IOException
+import java.nio.file.AtomicMoveNotSupportedException
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardCopyOption
+
+/**
+ * Stores an inventory as one file per dealership (a shard) in a directory, with a small
+ * manifest listing the dealerships in order and the file of each. Saving only rewrites the
+ * shards of the dealerships given as changed, so a change to one vehicle writes one dealership
+ * rather than the whole company. Shards are read in parallel.
+ *
+ * Each shard, and then the manifest, is written to a temporary file and moved into place, so a
+ * reader never sees a partly written file. Shards of dealerships no longer listed are deleted
+ * once the new manifest is in place, but only if this store has read or written them. A shard
+ * that this store has not read or written, such as one that could not be loaded or one skipped
+ * because another could not, is never overwritten or deleted, so one bad file never costs a
+ * dealership its inventory. Loads and saves are synchronized, so saves
+ * can be made from a background thread.
+ *
+ * @param directory The directory holding the manifest and shards. Created when first saved.
+ * @param extension The extension of the shards, which picks their [FileIOFactory] reader and writer.
+ */
+class ShardedInventoryStore @JvmOverloads constructor(
+    val directory: Path,
+    val extension: String = "json"
+) {
+    private val manifestPath: Path = directory.resolve(MANIFEST_NAME)
+
+    /**
+     * The file name of each dealership's shard by dealership ID, in manifest order, as last
+     * read or written.
+     */
+    private val shardNames = LinkedHashMap<String, String>()
+    private var manifestRead = false
+
+    /**
+     * The IDs of the dealerships whose shards were returned by [load] or written by [save].
+     * Only these can be overwritten or dropped from the manifest.
+     */
+    private val known = HashSet<String>()
+
+    /**
+     * The IDs of the dealerships whose shards could not be read by the last [load].
+     */
+    private val unreadable = LinkedHashSet<String>()
+
+    /**
+     * Whether a manifest exists, meaning there is a stored inventory to [load].
+     */
+    fun exists(): Boolean = Files.isRegularFile(manifestPath)
+
+    /**
+     * Reads every shard listed in the manifest, in parallel.
+     *
+     * @return One Map per vehicle holding both the vehicle and dealership fields, like the
+     * Maps of [FileIOReader.readInventory], with the dealerships in manifest order. Empty if
+     * there is no manifest.
+     * @throws ReadWriteException If the manifest or any shard can not be read. Every shard is
+     * still tried, and those that failed are named in the message. As nothing is returned, no
+     * shard of the manifest is overwritten by later saves.
+     */
+    @Synchronized
+    @Throws(ReadWriteException::class)
+    fun load(): List<Map<Key, Any>> {
+        val start = System.nanoTime()
+        readManifest()
+        val entries = shardNames.entries.toList()
+        val shards = entries.parallelStream().map { entry ->
+            runCatching { FileIOFactory.buildNewFileIOReader(directory.resolve(entry.value).toString()).readInventory() }
+        }.toList()
+
+        unreadable.clear()
+        entries.forEachIndexed { i, entry -> if (shards[i].isFailure) unreadable.add(entry.key) }
+        if (unreadable.isNotEmpty()) {
+            Metrics.counter("store.shards.unreadable").increment(unreadable.size.toLong())
+            val failure = shards.first { it.isFailure }.exceptionOrNull()!!
+            val reason = generateSequence(failure) { it.cause }.mapNotNull { it.message }.lastOrNull() ?: failure.toString()
+            throw ReadWriteException(
+                "Could not read the stored inventory of dealership(s) ${unreadable.joinToString()} in $directory: $reason"
+            )
+        }
+        known.addAll(shardNames.keys)
+
+        val rows = shards.flatMap { it.getOrThrow() }
+        Metrics.timer("store.load").recordSince(start, rows.size.toLong())
+        return rows
+    }
+
+    /**
+     * Writes the shards of the changed dealerships, then a manifest listing the given
+     * dealerships. A dealership that is listed but has no shard yet must be among the changed.
+     * Dealerships in the manifest that this store has not loaded or saved, such as those of a
+     * failed [load], stay in the manifest after the given ones, and their shards are left as
+     * they are.
+     *
+     * @param dealerIds The IDs of every dealership, in order.
+     * @param changed The exports of the dealerships that changed since they were last saved.
+     * @throws ReadWriteException If a file can not be written, or a changed dealership has a
+     * shard in the manifest that this store has not loaded or saved and so would be overwritten.
+     * Shards written before the failure are kept, and the previous manifest is left in place.
+     * @throws IllegalArgumentException If a changed dealership is not listed, or a listed
+     * dealership has never been saved and is not among the changed.
+     */
+    @Synchronized
+    @Throws(ReadWriteException::class)
+    fun save(dealerIds: List<String>, changed: List<DealershipExport>) {
+        val start = System.nanoTime()
+        readManifest()
+        val changedIds = changed.map { export ->
+            requireNotNull(export.dealerData[Key.DEALERSHIP_ID] as? String) { "Dealership export has no ID" }
+        }
+        val listed = dealerIds.toSet()
+        val changedSet = changedIds.toSet()
+        for (id in changedIds) {
+            require(id in listed) { "Dealership $id is not listed" }
+        }
+        for (id in dealerIds) {
+            require(id in shardNames || id in changedSet) { "Dealership $id has never been saved" }
+        }
+        for (id in changedIds) {
+            if (id in unreadable) {
+                throw ReadWriteException("The stored inventory of dealership $id could not be read, so it is not overwritten.")
+            }
+            if (id in shardNames && id !in known) {
+                throw ReadWriteException("The stored inventory of dealership $id has not been loaded, so it is not overwritten.")
+            }
+        }
+
+        // Names of dropped shards are not reused, as those files are only deleted at the end.
+        val taken = HashSet<String>()
+        taken.add(MANIFEST_NAME)
+        shardNames.values.forEach { taken.add(it.lowercase()) }
+        val names = LinkedHashMap<String, String>()
+        for (id in dealerIds) {
+            names[id] = shardNames[id] ?: newShardName(id, taken).also { taken.add(it.lowercase()) }
+        }
+        for ((id, name) in shardNames) {
+            if (id !in names && id !in known) names[id] = name // Never read, so not known to be dropped.
+        }
+
+        var rows = 0L
+        try {
+            Files.createDirectories(directory)
+        } catch (e: IOException) {
+            throw ReadWriteException(e)
+        }
+        changed.forEachIndexed { i, export ->
+            FileIOFactory.replaceInventoryFile(directory.resolve(names.getValue(changedIds[i])).toString(), listOf(export))
+            rows += export.vehicleData.size
+        }
+
+        writeManifest(names)
+        known.addAll(changedIds)
+        known.retainAll(names.keys)
+        val stale = shardNames.values.toSet() - names.values.toSet()
+        shardNames.clear()
+        shardNames.putAll(names)
+        for (name in stale) {
+            try {
+                Files.deleteIfExists(directory.resolve(name))
+            } catch (_: IOException) {
+                // Not in the manifest, so never read again.
+            }
+        }
+
+        Metrics.counter("store.shards.written").increment(changed.size.toLong())
+        Metrics.counter("store.shards.skipped").increment((dealerIds.size - changed.size).toLong())
+        Metrics.timer("store.save").recordSince(start, rows)
+    }
+
+    /**
+     * Returns a file name for the shard of the given dealership that does not clash, even
+     * ignoring case, with the names already taken. IDs can hold any character, so only ASCII
+     * letters, digits and '-' are kept and the rest are written as '_' and their hex code.
+     */
+    private fun newShardName(dealerId: String, taken: Set<String>): String {
+        val base = buildString {
+            for (c in dealerId) {
+                if (c.isLetterOrDigit() && c.code < 128 || c == '-') append(c) else append('_').append(c.code.toString(16))
+            }
+        }.ifEmpty { "_" }
+
+        var name = "$base.$extension"
+        var n = 1
+        while (name.lowercase() in taken) {
+            name = "$base~${n++}.$extension"
+        }
+        return name
+    }
+
+    private fun readManifest() {
+        if (manifestRead) return
+        if (!exists()) {
+            manifestRead = true
+            return
+        }
+
+        try {
+            val json = Files.newBufferedReader(manifestPath).use { JSONParser().parse(it) } as JSONObject
+            val names = LinkedHashMap<String, String>()
+            for (entry in json["dealerships"] as JSONArray) {
+                val shard = entry as JSONObject
+                names[shard["id"] as String] = shard["file"] as String
+            }
+            shardNames.putAll(names)
+            manifestRead = true
+        } catch (e: IOException) {
+            throw ReadWriteException(e)
+        } catch (e: ParseException) {
+            throw ReadWriteException(e)
+        } catch (e: RuntimeException) {
+            throw ReadWriteException(e) // A manifest of the wrong shape.
+        }
+    }
+
+    @Suppress("UNCHECKED_CAST") // json-simple's collections are raw.
+    private fun writeManifest(names: Map<String, String>) {
+        val shards = JSONArray()
+        for ((id, name) in names) {
+            val shard = JSONObject()
+            shard["id"] = id
+            shard["file"] = name
+            shards.add(shard)
+        }
+        val json = JSONObject()
+        json["version"] = MANIFEST_VERSION
+        json["dealerships"] = shards
+
+        val temp = directory.resolve(".$MANIFEST_NAME")
+        try {
+            Files.createDirectories(directory)
+            Files.writeString(temp, json.toJSONString())
+            try {
+                Files.move(temp, manifestPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE)
+            } catch (_: AtomicMoveNotSupportedException) {
+                Files.move(temp, manifestPath, StandardCopyOption.REPLACE_EXISTING)
+            }
+        } catch (e: IOException) {
+            throw ReadWriteException(e)
+        }
+    }
+
+    companion object {
+        const val MANIFEST_NAME = "manifest.json"
+        private const val MANIFEST_VERSION = 1L
+    }
+}
@@ -1,9 +1,10 @@
 package javafiles.dataaccessfiles.fileioimplements
 
-import javafiles.Key
+import javafiles.DealershipExport
 import javafiles.customexceptions.ReadWriteException
 import javafiles.dataaccessfiles.FileIO
 
 interface FileIOWriter : FileIO {
-    fun writeInventory(maps: Map<Map<Key, Any>, List<Map<Key, Any>>>)
+    @Throws(ReadWriteException::class)
+    fun writeInventory(export: Iterable<DealershipExport>)
 }
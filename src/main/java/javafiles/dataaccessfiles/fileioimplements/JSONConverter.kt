@@ -0,0 +1,48 @@
+package javafiles.dataaccessfiles.fileioimplements
+
+import javafiles.Key
+
+import org.json.simple.JSONObject
+
+import java.util.EnumMap
+
+/**
+ * Converts between Maps of [Key]s and the JSONObjects of the JSON inventory format, so that
+ * everything that reads or writes inventory JSON uses the same field names.
+ *
+ * @author Dylan Browne
+ */
+internal object JSONConverter {
+    /**
+     * Takes a Map<Key, Object> of data and converts it to a JSONObject whose keys are the
+     * [Key.key] of each [Key] in the map.
+     *
+     * @param data The Map of items to put in the JSONObject.
+     * @return The newly created JSONObject
+     */
+    fun toJSONObject(data: Map<Key, Any>): JSONObject {
+        val jObj = JSONObject()
+        for (key in Key.entries) {
+            val dataPoint = data[key] ?: continue
+            jObj[key.key] = dataPoint
+        }
+        return jObj
+    }
+
+    /**
+     * Takes a JSONObject and creates and returns a Map. Fills the Map with the data from the
+     * JSONObject whose keys are the [Key.key] of a [Key]. Other keys are ignored.
+     *
+     * @param jObj The JSONObject that data is being extracted from.
+     * @return The newly created Map.
+     */
+    fun toMap(jObj: JSONObject): MutableMap<Key, Any> {
+        val map: MutableMap<Key, Any> = EnumMap(Key::class.java)
+
+        for (key in Key.entries) {
+            val dataPoint = jObj[key.key] ?: continue
+            map[key] = dataPoint
+        }
+        return map
+    }
+}
@@ -2,6 +2,8 @@ package javafiles.dataaccessfiles.fileioimplements
 
 import javafiles.Key
 import javafiles.customexceptions.ReadWriteException
+import javafiles.metricsfiles.FileReadEvent
+import javafiles.metricsfiles.Metrics
 
 import org.json.simple.JSONArray
 import org.json.simple.JSONObject
@@ -10,7 +12,6 @@ import org.json.simple.parser.ParseException
 
 import java.io.*
 
-import java.util.EnumMap
 import kotlin.collections.ArrayList
 
 /**
@@ -28,58 +29,49 @@ internal class JSONIORead
  * @throws ReadWriteException Thrown if the mode is an invalid char.
  */
     constructor(override val file: File) : FileIOReader {
-    /**
-     * Takes a JSONObject and creates and returns a Map. Fills the Map with the
-     * data from the JSONObject with the same keys as keys. If any keys are absent,
-     * null is returned.
-     *
-     * @param jObj The JSONObject that data is being extracted from.
-     */
-    private fun readJSONObject(jObj: JSONObject): Map<Key, Any> {
-        val map: MutableMap<Key, Any> = EnumMap(Key::class.java)
-
-        for (key in Key.entries) {
-            val keyStr = key.key
-
-            val dataPoint = jObj[keyStr] ?: continue
-            map[key] = dataPoint
-        }
-        return map
-    }
-
     /**
      * Reads and returns the data stored in the file of this object.
      *
      * @return A List of Map<Key></Key>, Object>s that correspond to the
      * JSONArray of data stored in the JSON file for this object.
      * The Map has data in the same keys as keys.
-     * @throws ReadWriteException Thrown if not in read ('r') mode.
+     * @throws ReadWriteException Thrown if the file can not be read, or is not a JSON object
+     * holding a "car_inventory" array, such as a file that was cut short while being written.
      */
     @Throws(ReadWriteException::class)
     override fun readInventory(): List<Map<Key, Any>> {
+        val start = System.nanoTime()
+        val event = FileReadEvent()
+        event.begin()
         val parser = JSONParser()
-        val fileReader: Reader
-        val jFile: JSONObject
+        val parsed: Any?
         try {
-            fileReader = FileReader(file)
-            jFile = parser.parse(fileReader) as JSONObject
-            fileReader.close()
+            parsed = FileReader(file).use { parser.parse(it) }
         } catch (e: Exception) {
             when(e) {
-                is ParseException, is IOException -> {return ArrayList()}
+                is ParseException, is IOException -> {throw ReadWriteException(e)}
                 else -> throw e
             }
         }
 
-        val jArray = jFile["car_inventory"] as JSONArray
+        val jArray = (parsed as? JSONObject)?.get("car_inventory") as? JSONArray
+            ?: throw ReadWriteException("File: \"${file.path}\" does not hold a car_inventory array.")
 
         val maps: MutableList<Map<Key, Any>> = ArrayList()
 
         for (jObj in jArray) {
-            val map = readJSONObject(jObj as JSONObject)
+            val map = JSONConverter.toMap(jObj as JSONObject)
             maps.add(map)
         }
 
+        Metrics.timer("io.read.json").recordSince(start, maps.size.toLong(), file.length())
+        if (event.shouldCommit()) {
+            event.path = file.path
+            event.format = "json"
+            event.rows = maps.size.toLong()
+            event.bytes = file.length()
+            event.commit()
+        }
         return maps
     }
 }
\ No newline at end of file
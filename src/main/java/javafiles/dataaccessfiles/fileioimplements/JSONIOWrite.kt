@@ -1,10 +1,10 @@
 package javafiles.dataaccessfiles.fileioimplements
 
+import javafiles.DealershipExport
 import javafiles.Key
 import javafiles.customexceptions.ReadWriteException
-
-import org.json.simple.JSONArray
-import org.json.simple.JSONObject
+import javafiles.metricsfiles.FileWriteEvent
+import javafiles.metricsfiles.Metrics
 
 import java.io.*
 import java.util.EnumMap
@@ -24,64 +24,62 @@ internal class JSONIOWrite
  */
     constructor(override val file: File) : FileIOWriter {
     /**
-     * Takes a Map<Key></Key>, Object> of data with the same keys as keys
-     * and converts it to a JSONObject and returns it.
+     * Takes the (dealership, vehicles) pairs to write to the file stored in this object.
+     * Dealerships are written in the order given, and a dealership with no vehicles is
+     * written as a single [Key.DUMMY_VEHICLE] entry so that it is not lost.
      *
-     * @param data The Map of items to be ordered in a JSONObject with the keys for
-     * the data the same as the keys in keys.
-     * @return The newly created JSONObject
-     */
-    private fun makeJSONObject(data: Map<Key, Any>): JSONObject {
-        val jObj = JSONObject()
-        for (key in Key.entries) {
-            val dataPoint = data[key] ?: continue
-            jObj[key.key] = dataPoint
-        }
-        return jObj
-    }
-
-    /**
-     * Takes a List of Maps to write to the file stored in this object.
+     * Each vehicle is written as soon as it is made, so the whole inventory is never held
+     * in memory as JSON at once.
      *
-     * @param maps List of Maps to write to a file.
-     * @throws ReadWriteException Thrown if not in write ('w') mode.
+     * @param export The [DealershipExport]s to write to a file.
+     * @throws ReadWriteException Thrown if the file could not be written to.
      */
     @Throws(ReadWriteException::class)
-    override fun writeInventory(maps: Map<Map<Key, Any>, List<Map<Key, Any>>>) {
-        val jArray = JSONArray()
+    override fun writeInventory(export: Iterable<DealershipExport>) {
+        val start = System.nanoTime()
+        val event = FileWriteEvent()
+        event.begin()
+        var rows = 0L
+        try {
+            BufferedWriter(FileWriter(file)).use { writer ->
+                var first = true
+                val writeCar = { carMap: Map<Key, Any> ->
+                    if (!first) {writer.write(",")}
+                    first = false
+                    rows++
+                    JSONConverter.toJSONObject(carMap).writeJSONString(writer)
+                }
 
-        maps.forEach { dealerCarPair->
-            if (dealerCarPair.value.isEmpty()) {
-                val dummyCar = EnumMap(dealerCarPair.key)
-                Key.DUMMY_VEHICLE.putValid(dummyCar, true)
+                writer.write("{\"car_inventory\":[")
+                for (dealer in export) {
+                    if (dealer.vehicleData.isEmpty()) {
+                        val dummyCar: MutableMap<Key, Any> = EnumMap(Key::class.java)
+                        dummyCar.putAll(dealer.dealerData)
+                        Key.DUMMY_VEHICLE.putValid(dummyCar, true)
 
-                jArray.add(makeJSONObject(dummyCar))
-            } else {
-                dealerCarPair.value.forEach { carMap ->
-                    val fullCarMap = EnumMap(carMap)
-                    fullCarMap.putAll(dealerCarPair.key)
+                        writeCar(dummyCar)
+                    } else {
+                        dealer.vehicleData.forEach { carMap ->
+                            val fullCarMap: MutableMap<Key, Any> = EnumMap(Key::class.java)
+                            fullCarMap.putAll(carMap)
+                            fullCarMap.putAll(dealer.dealerData)
 
-                    jArray.add(makeJSONObject(fullCarMap))
+                            writeCar(fullCarMap)
+                        }
+                    }
                 }
+                writer.write("]}")
             }
-        }
-
-        /*
-        for (dealer in maps.keys) {
-            val jObj = makeJSONObject(carData)
-            jArray.add(jObj)
-        }
-         */
-
-        val fileWriter: Writer
-        val jFile = JSONObject()
-        jFile["car_inventory"] = jArray
-        try {
-            fileWriter = FileWriter(file)
-            jFile.writeJSONString(fileWriter)
-            fileWriter.close()
         } catch (e: IOException) {
             throw(ReadWriteException(e))
         }
+        Metrics.timer("io.write.json").recordSince(start, rows, file.length())
+        if (event.shouldCommit()) {
+            event.path = file.path
+            event.format = "json"
+            event.rows = rows
+            event.bytes = file.length()
+            event.commit()
+        }
     }
-}
\ No newline at end of file
+}
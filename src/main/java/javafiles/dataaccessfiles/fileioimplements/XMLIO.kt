@@ -1,8 +1,10 @@
 package javafiles.dataaccessfiles.fileioimplements
 
 import javafiles.Key
-import javafiles.customexceptions.DuplicateKeyException
+import javafiles.ValidationCode
 import javafiles.customexceptions.ReadWriteException
+import javafiles.metricsfiles.FileReadEvent
+import javafiles.metricsfiles.Metrics
 
 import org.w3c.dom.Document
 import org.w3c.dom.Element
@@ -85,10 +87,9 @@ internal class XMLIO
             if (key.xmlName.equals(tagName, ignoreCase = true)) {
                 // If there is an issue with the val, the first value is saved and the rest discarded.
                 val nodeValCast = if (key.key.clazz == java.lang.Long::class) {
-                    try {
-                        nodeValue.toLong()
-                    } catch (e: NumberFormatException) {
-                        XMLKey.REASON.key.putValid(map, ReadWriteException(e))
+                    nodeValue.toLongOrNull() ?: run {
+                        val reason = "For input string: \"$nodeValue\""
+                        XMLKey.REASON.key.putValid(map, ValidationCode.NUMBER_FORMAT.toReason(reason))
                         return
                     }
                 } else { nodeValue }
@@ -96,8 +97,7 @@ internal class XMLIO
                 if (map.containsKey(key.key) && map[key.key] != nodeValCast) {
                     val reason = "Key " + key.xmlName + " already has a value and [" +
                                  map[key.key].toString() + "] != [" + nodeValue + "]."
-                    val cause = DuplicateKeyException(reason)
-                    XMLKey.REASON.key.putValid(map, ReadWriteException(cause))
+                    XMLKey.REASON.key.putValid(map, ValidationCode.DUPLICATE_KEY.toReason(reason))
                     return
                 }
                 map[key.key] = nodeValCast
@@ -244,6 +244,9 @@ internal class XMLIO
      */
     @Throws(ReadWriteException::class)
     override fun readInventory(): List<Map<Key, Any>> {
+        val start = System.nanoTime()
+        val event = FileReadEvent()
+        event.begin()
         val factory = DocumentBuilderFactory.newInstance()
         val builder: DocumentBuilder
         val document: Document
@@ -259,6 +262,15 @@ internal class XMLIO
             }
         }
 
-        return parseDocument(document)
+        val maps = parseDocument(document)
+        Metrics.timer("io.read.xml").recordSince(start, maps.size.toLong(), file.length())
+        if (event.shouldCommit()) {
+            event.path = file.path
+            event.format = "xml"
+            event.rows = maps.size.toLong()
+            event.bytes = file.length()
+            event.commit()
+        }
+        return maps
     }
 }
@@ -0,0 +1,101 @@
+package javafiles.domainfiles
+
+import kotlin.math.ceil
+import kotlin.math.ln
+import kotlin.math.roundToInt
+
+/**
+ * A set of Strings that can answer "definitely not present" or "possibly present". It never
+ * misses a String that was added, and wrongly answers "possibly present" for about
+ * [falsePositiveRate] of the Strings that were not, as long as no more than the expected
+ * number of Strings are added. It takes far less memory than the Strings themselves, about
+ * 1.2 bytes per String at a 1% false positive rate, and each check takes constant time.
+ *
+ * Used by [Company.commitInventory] to skip the exact duplicate ID check for IDs that are
+ * definitely new.
+ *
+ * @param expectedItems The number of Strings the filter is sized for.
+ * @param falsePositiveRate The share (between 0 and 1, exclusive) of absent Strings that may be
+ * reported as possibly present.
+ */
+class BloomFilter(expectedItems: Int, val falsePositiveRate: Double) {
+    /**
+     * The number of bits in the filter.
+     */
+    val bitCount: Long
+
+    /**
+     * The number of bits set for each String.
+     */
+    val hashCount: Int
+
+    private val words: LongArray
+
+    init {
+        require(expectedItems >= 0) { "Expected items cannot be negative" }
+        require(falsePositiveRate > 0.0 && falsePositiveRate < 1.0) { "False positive rate must be between 0 and 1" }
+
+        val items = maxOf(expectedItems, 1)
+        val bits = maxOf(ceil(-items * ln(falsePositiveRate) / (LN_2 * LN_2)).toLong(), Long.SIZE_BITS.toLong())
+        words = LongArray(Math.toIntExact((bits + Long.SIZE_BITS - 1) / Long.SIZE_BITS))
+        bitCount = words.size.toLong() * Long.SIZE_BITS
+        hashCount = (bitCount.toDouble() / items * LN_2).roundToInt().coerceIn(1, MAX_HASHES)
+    }
+
+    /**
+     * The memory taken by the filter's bits, in bytes.
+     */
+    val memoryBytes: Long
+        get() = words.size.toLong() * Long.SIZE_BYTES
+
+    /**
+     * Adds the given String.
+     */
+    fun add(value: String) {
+        val h1 = hash(value)
+        val h2 = mix(h1) or 1L
+        for (i in 0 until hashCount) {
+            val bit = Math.floorMod(h1 + i * h2, bitCount)
+            words[(bit ushr 6).toInt()] = words[(bit ushr 6).toInt()] or (1L shl bit.toInt())
+        }
+    }
+
+    /**
+     * Returns false if the given String was definitely never added, or true if it may have been.
+     */
+    fun mightContain(value: String): Boolean {
+        val h1 = hash(value)
+        val h2 = mix(h1) or 1L
+        for (i in 0 until hashCount) {
+            val bit = Math.floorMod(h1 + i * h2, bitCount)
+            if (words[(bit ushr 6).toInt()] and (1L shl bit.toInt()) == 0L) return false
+        }
+        return true
+    }
+
+    private companion object {
+        private val LN_2 = ln(2.0)
+        private const val MAX_HASHES = 16
+
+        /**
+         * A 64-bit FNV-1a hash of the String's characters, mixed so every bit depends on every character.
+         */
+        private fun hash(value: String): Long {
+            var h = -0x340d631b7bdddcdbL
+            for (c in value) {
+                h = (h xor c.code.toLong()) * 0x100000001b3L
+            }
+            return mix(h)
+        }
+
+        /**
+         * The final mixing step of MurmurHash3.
+         */
+        private fun mix(value: Long): Long {
+            var h = value
+            h = (h xor (h ushr 33)) * -0xae502812aa7333L
+            h = (h xor (h ushr 33)) * -0x3b314601e57a13adL
+            return h xor (h ushr 33)
+        }
+    }
+}
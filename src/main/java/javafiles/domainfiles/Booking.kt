@@ -0,0 +1,32 @@
+package javafiles.domainfiles
+
+import java.time.Instant
+
+/**
+ * A reservation of a [Vehicle] for the time from [start] up to, but not including, [end],
+ * both in milliseconds since epoch. Bookings are made with [Dealership.book], which checks
+ * them against the vehicle's [RentalStrategy] and its other bookings.
+ */
+class Booking internal constructor(
+    /**
+     * The booked vehicle.
+     */
+    val vehicle: Vehicle,
+    /**
+     * The time the booking starts.
+     */
+    val start: Long,
+    /**
+     * The time the booking ends. The vehicle is free again from this time.
+     */
+    val end: Long
+) {
+    /**
+     * Returns whether this booking covers any time from start up to, but not including, end.
+     */
+    fun overlaps(start: Long, end: Long): Boolean = this.start < end && start < this.end
+
+    override fun toString(): String {
+        return "Booking of ${vehicle.vehicleId} from ${Instant.ofEpochMilli(start)} to ${Instant.ofEpochMilli(end)}"
+    }
+}
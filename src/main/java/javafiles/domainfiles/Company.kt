@@ -1,10 +1,14 @@
 package javafiles.domainfiles
 
+import javafiles.DealershipExport
 import javafiles.Key
+import javafiles.ValidationCode
 import javafiles.customexceptions.*
+import javafiles.lazyMap
+import javafiles.metricsfiles.Metrics
 import java.util.*
+import java.util.function.Predicate
 import kotlin.collections.ArrayList
-import kotlin.collections.HashMap
 
 /**
  * Represents a central manager for all dealerships within a vehicle dealership system.
@@ -19,6 +23,31 @@ import kotlin.collections.HashMap
 class Company {
     val listDealerships: ArrayList<Dealership> = ArrayList()
 
+    /**
+     * Running totals over the inventories of every [Dealership] added with [addDealership].
+     */
+    val aggregates = InventoryAggregates()
+
+    /**
+     * The recorded versions of the inventory of every [Dealership], for undoing and redoing
+     * changes. Versions are only recorded when [InventoryHistory.checkpoint] is called.
+     */
+    val history = InventoryHistory(this)
+
+    private val snapshots = SnapshotRegistry()
+
+    /**
+     * The false positive rate of the [BloomFilter] that [commitInventory] uses to skip the
+     * exact duplicate ID check for IDs that are definitely new. Lower rates need fewer exact
+     * checks but more memory, about 1.2 bytes per vehicle at 0.01. A rate of 0 turns the filter
+     * off, so every ID is checked exactly.
+     */
+    var idFilterFalsePositiveRate: Double = 0.01
+        set(value) {
+            require(value >= 0.0 && value < 1.0) { "False positive rate must be at least 0 and below 1" }
+            field = value
+        }
+
     /**
      * Adds a [Dealership] object to the list of dealerships in the company.
      *
@@ -26,6 +55,8 @@ class Company {
      */
     fun addDealership(dealership: Dealership) {
         listDealerships.add(dealership)
+        dealership.aggregates.attachTo(aggregates)
+        dealership.snapshots = snapshots
     }
 
     /**
@@ -50,6 +81,17 @@ class Company {
         return listDealerships.find { it.dealerId == dealerId }
     }
 
+    /**
+     * Returns the [Dealership] whose inventory holds the given [Vehicle] in O(1),
+     * using the back-reference kept on the [Vehicle] by its dealership's inventory.
+     *
+     * @param vehicle The Vehicle whose dealership is being searched for.
+     * @return The Dealership holding the vehicle (null if it is not in any inventory).
+     */
+    fun findVehicleDealership(vehicle: Vehicle): Dealership? {
+        return vehicle.dealership
+    }
+
     /**
      * Checks if a [Dealership] with the given ID has renting services enabled.
      *
@@ -110,10 +152,47 @@ class Company {
         return listDealerships.any { it.inventoryContainsById(id ?: "") }
     }
 
-    private fun mapToInventory(
-        map: MutableMap<Key, Any>,
-        newDealers: MutableMap<Dealership, Map<Key, Any>>
+    /**
+     * Returns whether a given Vehicle ID is in any Dealership of the Company, checking it
+     * exactly only if the given [BloomFilter] of the Company's IDs says it might be.
+     */
+    private fun isDuplicateId(vehicleId: String, idFilter: BloomFilter?): Boolean {
+        if (idFilter != null && !idFilter.mightContain(Dealership.normalizeId(vehicleId))) {
+            return false
+        }
+        val duplicate = isVehicleInInventoryById(vehicleId)
+        if (idFilter != null && !duplicate) {
+            Metrics.counter("company.idFilter.falsePositives").increment()
+        }
+        return duplicate
+    }
+
+    /**
+     * Builds a [BloomFilter] of the IDs of every vehicle in the Company, with room for the
+     * given number of rows to be added. Returns null if the filter is turned off, or if there
+     * are too few rows for it to pay for itself.
+     */
+    internal fun buildIdFilter(rows: Int): BloomFilter? {
+        val rate = idFilterFalsePositiveRate
+        if (rate == 0.0 || rows < ID_FILTER_THRESHOLD) {
+            return null
+        }
+
+        val start = System.nanoTime()
+        val filter = BloomFilter(aggregates.vehicleCount + rows, rate)
+        for (dealer in listDealerships) {
+            dealer.normalizedIds().forEach { filter.add(it) }
+        }
+        Metrics.timer("company.idFilter.build").recordSince(start, aggregates.vehicleCount.toLong())
+        return filter
+    }
+
+    internal fun mapToInventory(
+        row: StagedInventory.StagedRow,
+        newDealers: MutableMap<Dealership, Map<Key, Any>>,
+        idFilter: BloomFilter?
     ): Map<Key, Any>? {
+        val map = row.map
         if (map.containsKey(Key.REASON_FOR_ERROR)) {
             return map
         }
@@ -122,7 +201,7 @@ class Company {
         val name = map[Key.DEALERSHIP_NAME] as? String
 
         if (id == null) {
-            return Key.addErrorReason(map, MissingCriticalInfoException("No dealerID."))
+            return Key.addErrorReason(map, ValidationCode.MISSING_INFO, "No dealerID.")
         }
 
         var dealership = findDealership(id)
@@ -137,8 +216,8 @@ class Company {
         }
 
         val vehicleId = map[Key.VEHICLE_ID] as? String
-        if (vehicleId != null && isVehicleInInventoryById(vehicleId)) {
-            return Key.addErrorReason(map, VehicleAlreadyExistsException("Duplicate Vehicle ID in inventory"))
+        if (vehicleId != null && isDuplicateId(vehicleId, idFilter)) {
+            return Key.addErrorReason(map, ValidationCode.VEHICLE_EXISTS, "Duplicate Vehicle ID in inventory")
         }
 
         if (dealership == null) {
@@ -147,9 +226,10 @@ class Company {
             newDealers[dealership] = map // Mark as newly created
         }
 
-        if (!dealership.dataToInventory(map)) {
+        if (!dealership.stagedToInventory(map, row.result)) {
             return map
         }
+        idFilter?.add(Dealership.normalizeId(row.vehicle!!.vehicleId))
         return null
     }
 
@@ -158,38 +238,339 @@ class Company {
      * and writes the data in each map to the corresponding [Dealership].
      *
      * @param data The List of Maps containing Vehicle information to be added to inventory.
+     * @return The List of Maps that could not be added, each with a [Key.REASON_FOR_ERROR].
      */
     fun dataToInventory(data: List<MutableMap<Key, Any>>): List<Map<Key, Any>> {
-        val badInventoryMaps = mutableListOf<Map<Key, Any>>()
-        val newlyCreatedDealerships = mutableMapOf<Dealership, Map<Key, Any>>()
+        val start = System.nanoTime()
+        val staged = StagedInventory()
+        staged.stageAll(data)
+        val badInventoryMaps = commitInventory(staged)
+        Metrics.timer("company.dataToInventory").recordSince(start, data.size.toLong())
+        return badInventoryMaps
+    }
 
-        for (map in data) {
-            val badMap = mapToInventory(map, newlyCreatedDealerships)
-            if (badMap != null) {
-                badInventoryMaps.add(badMap)
-            }
-        }
+    /**
+     * Adds the vehicles of a [StagedInventory] to the corresponding [Dealership]s in one pass,
+     * creating any dealerships that do not exist yet. Gives the same result as
+     * [dataToInventory] on the maps that were staged.
+     *
+     * For large batches, vehicle IDs are first checked against a [BloomFilter] of the IDs
+     * already in the Company and in the batch (see [idFilterFalsePositiveRate]), so only the
+     * few IDs it cannot rule out are looked up in every dealership.
+     *
+     * @param staged The [StagedInventory] holding the prepared vehicles.
+     * @return The List of Maps that could not be added, each with a [Key.REASON_FOR_ERROR].
+     */
+    fun commitInventory(staged: StagedInventory): List<Map<Key, Any>> {
+        return beginCommit(staged).finish()
+    }
+
+    /**
+     * Starts adding the vehicles of a [StagedInventory] to the Company, to be done a few rows at
+     * a time with [InventoryCommit.step]. Gives the same result as [commitInventory] once
+     * [InventoryCommit.finish] is called.
+     *
+     * @param staged The [StagedInventory] holding the prepared vehicles.
+     * @return The [InventoryCommit], with no rows committed yet.
+     */
+    fun beginCommit(staged: StagedInventory): InventoryCommit {
+        return InventoryCommit(this, staged)
+    }
 
-        // Apply receiving and renting status only to newly created dealerships
-        for ((dealer, statusMap) in newlyCreatedDealerships) {
-            dealer.rentingVehicles = statusMap[Key.DEALERSHIP_RENTING_STATUS] as? Boolean ?: false
-            dealer.statusAcquiringVehicle = statusMap[Key.DEALERSHIP_RECEIVING_STATUS] as? Boolean ?: true
+    /**
+     * Brings the inventory of each dealership named in the given maps in line with them, for
+     * feeds that resend a dealership's whole inventory. Vehicles are matched by ID (ignoring
+     * case and whitespace): those not in the inventory are added, those no longer in the feed
+     * are removed, and those whose data differs are updated. Vehicles that are the same are
+     * left alone, so resending an unchanged feed changes nothing. Dealerships not named in the
+     * maps are not touched, and a dealership named only by a map without a vehicle has its
+     * inventory emptied.
+     *
+     * Optional fields, such as the manufacturer, are only compared when a map gives them. A
+     * change to the type, model or price replaces the vehicle, keeping its bookings; other
+     * changes are made to the vehicle in place. Dealerships that do not exist yet are created
+     * as by [dataToInventory].
+     *
+     * @param data The maps of vehicle information, as for [dataToInventory].
+     * @param dryRun If true, the differences are found but the inventory is not changed.
+     * @return The vehicles added, removed and changed, and the maps that could not be
+     * reconciled, each with a [Key.REASON_FOR_ERROR].
+     */
+    @JvmOverloads
+    fun reconcileInventory(data: List<MutableMap<Key, Any>>, dryRun: Boolean = false): ReconcileResult {
+        val start = System.nanoTime()
+        val staged = StagedInventory()
+        staged.stageAll(data)
+        val result = InventoryReconciler(this, dryRun).reconcile(staged)
+
+        Metrics.timer(if (dryRun) "company.reconcile.dryRun" else "company.reconcile").recordSince(start, data.size.toLong())
+        if (!dryRun) {
+            Metrics.counter("company.reconcile.added").increment(result.added.size.toLong())
+            Metrics.counter("company.reconcile.removed").increment(result.removed.size.toLong())
+            Metrics.counter("company.reconcile.changed").increment(result.changed.size.toLong())
+            Metrics.counter("company.rejected").increment(result.rejected.size.toLong())
         }
+        return result
+    }
 
-        return badInventoryMaps
+    /**
+     * Retrieves [Vehicle] data for all Dealerships within the Company, in the order of
+     * [listDealerships]. Each [DealershipExport] is only built once it is reached, so the
+     * export is streamed one dealership at a time instead of being held in memory at once.
+     *
+     * @return An [Iterable] of [DealershipExport]s, one per dealership in the Company.
+     */
+    fun calcExportView(): Iterable<DealershipExport> {
+        return listDealerships.asSequence().map {
+            DealershipExport(it.calcDealerMapData(), it.calcDataMap())
+        }.asIterable()
     }
 
     /**
-     * Retrieves [Vehicle] data for all Dealerships within the Company.
+     * Returns an export of only part of the Company, for systems that want a subset of the
+     * inventory: the dealerships passing [dealerFilter], with only their vehicles passing
+     * [vehicleFilter], and only the fields in [keys]. Like [calcExportView], it is built one
+     * dealership at a time as it is read, and can be given to any
+     * [javafiles.dataaccessfiles.fileioimplements.FileIOWriter].
      *
-     * @return A [List] of [Map]s representing all vehicles in the Company.
+     * Dealerships left out by [dealerFilter] are skipped without their vehicles being visited,
+     * and the maps of vehicles are only built for the vehicles that match, so exporting a
+     * small part of the Company costs little more than testing the filters. A dealership with
+     * no matching vehicles is left out when there is a [vehicleFilter].
+     *
+     * @param dealerFilter The dealerships to export, or null for all of them.
+     * @param vehicleFilter The vehicles to export, or null for all of them.
+     * @param keys The fields to export, dealership or vehicle, or null for all of them.
+     * @return An [Iterable] of [DealershipExport]s, one per exported dealership.
      */
-    fun calcDataMap(): Map<Map<Key, Any>, List<Map<Key, Any>>> {
-        val maps: MutableMap<Map<Key, Any>, List<Map<Key, Any>>> = HashMap()
-        listDealerships.forEach {
-            maps[it.calcDealerMapData()] = it.calcDataMap()
+    @JvmOverloads
+    fun exportView(
+        dealerFilter: Predicate<Dealership>?,
+        vehicleFilter: Predicate<Vehicle>? = null,
+        keys: List<Key>? = null
+    ): Iterable<DealershipExport> {
+        return exportView(listDealerships, dealerFilter, { it.inventory }, vehicleFilter, vehicleFilter != null, keys)
+    }
+
+    /**
+     * Builds the export of [exportView] from the given candidates, which [InventoryQuery] narrows
+     * down with its dealership and vehicle ID indexes.
+     */
+    internal fun exportView(
+        dealers: List<Dealership>,
+        dealerFilter: Predicate<Dealership>?,
+        candidates: (Dealership) -> List<Vehicle>,
+        vehicleFilter: Predicate<Vehicle>?,
+        skipEmpty: Boolean,
+        keys: List<Key>?
+    ): Iterable<DealershipExport> {
+        val dealerKeys = keys?.filter { it in QueryExpr.DEALERSHIP_KEYS }
+        val vehicleKeys = keys?.filter { it !in QueryExpr.DEALERSHIP_KEYS }
+
+        return dealers.asSequence()
+            .filter { dealerFilter == null || dealerFilter.test(it) }
+            .mapNotNull { dealer ->
+                val candidateVehicles = candidates(dealer)
+                val vehicles = if (vehicleFilter == null) candidateVehicles else candidateVehicles.filter { vehicleFilter.test(it) }
+                if (skipEmpty && vehicles.isEmpty()) return@mapNotNull null
+
+                val dealerData = if (dealerKeys == null) dealer.calcDealerMapData() else projectFields(dealer, dealerKeys)
+                DealershipExport(dealerData, vehicles.lazyMap { vehicle ->
+                    if (vehicleKeys == null) vehicle.getDataMap() else projectFields(vehicle, vehicleKeys)
+                })
+            }
+            .asIterable()
+    }
+
+    /**
+     * Returns an export view of the current inventory that is unaffected by vehicles later
+     * added to or removed from the [Company]. Only the dealership fields and the inventory
+     * lists are copied, so it is cheap to take; the per-vehicle maps are built as the export is
+     * read, so they show changes made to the vehicles until then. Use [openSnapshot] to read
+     * the export on another thread while the Company keeps changing.
+     */
+    fun snapshotExportView(): List<DealershipExport> {
+        return listDealerships.map { it.snapshotExport() }
+    }
+
+    /**
+     * Opens a view of the given dealerships as they are now, which stays the same while the
+     * Company keeps changing, so it can be exported or reported on from another thread without
+     * holding up changes. Opening it copies the dealership fields and the inventory lists, but
+     * no vehicle data: while it is open, a vehicle's data is only copied, once, the first time
+     * it changes. The copies are dropped once no open snapshot needs them, so the snapshot must
+     * be closed when done with.
+     *
+     * Must be called where changes to the Company can not be made at the same time, such as on
+     * the thread that makes them. The snapshot can then be read and closed on any thread.
+     *
+     * @param dealers The dealerships to include, all of them by default.
+     * @return The open [InventorySnapshot].
+     */
+    @JvmOverloads
+    fun openSnapshot(dealers: List<Dealership> = listDealerships): InventorySnapshot {
+        val start = System.nanoTime()
+        val version = snapshots.open()
+        val views = dealers.map { Pair(it.calcDealerMapData(), ArrayList(it.inventory)) }
+        Metrics.timer("snapshot.open").recordSince(start)
+        return InventorySnapshot(snapshots, version, views)
+    }
+
+    /**
+     * Returns the dealerships that have changed since they were last saved, in the order of
+     * [listDealerships]. See [Dealership.isDirty].
+     */
+    fun dirtyDealerships(): List<Dealership> {
+        return listDealerships.filter { it.isDirty }
+    }
+
+    /**
+     * Returns the Dealerships searched by the given [VehicleQuery].
+     */
+    private fun queryDealerships(query: VehicleQuery): List<Dealership> {
+        val dealerId = query.dealerId ?: return listDealerships
+        return listOfNotNull(findDealership(dealerId))
+    }
+
+    /**
+     * Counts the [Vehicle]s matching the given [VehicleQuery]. Without a filter this only
+     * sums inventory sizes, so it does not depend on the number of vehicles.
+     *
+     * @param query The [VehicleQuery] describing the vehicles to count.
+     * @return The number of matching vehicles.
+     */
+    fun countVehicles(query: VehicleQuery): Int {
+        return countVehicles(queryDealerships(query).map { it.inventory }, query.filter)
+    }
+
+    private fun countVehicles(inventories: List<List<Vehicle>>, filter: Predicate<Vehicle>?): Int {
+        if (filter == null) return inventories.sumOf { it.size }
+        return inventories.sumOf { inventory -> inventory.count { filter.test(it) } }
+    }
+
+    /**
+     * Returns one page of the [Vehicle]s matching the given [VehicleQuery].
+     *
+     * Unsorted pages are read in place: whole inventories before [offset] are skipped without
+     * being visited (when there is no filter) and the search stops once the page is full.
+     * Sorted pages keep only the best [offset] + [limit] vehicles in a bounded heap rather than
+     * sorting every match.
+     *
+     * @param query The [VehicleQuery] describing the vehicles to return and their order.
+     * @param offset The number of matching vehicles to skip.
+     * @param limit The maximum number of vehicles to return.
+     * @return A [List] of at most [limit] vehicles.
+     */
+    fun queryVehicles(query: VehicleQuery, offset: Int, limit: Int): List<Vehicle> {
+        return queryVehicles(queryDealerships(query).map { it.inventory }, query, offset, limit)
+    }
+
+    /**
+     * Prepares one page of the [Vehicle]s matching the given [VehicleQuery] to be fetched with
+     * [VehiclePageRequest.fetch] on another thread, such as for a table off the JavaFX thread.
+     * Preparing it takes time and memory that do not depend on the number of vehicles:
+     * - A page without a filter or sort is cut from the live inventories here, as only the page
+     *   itself is visited.
+     * - Otherwise only each searched dealership's [Dealership.versionedInventory] is taken. It is
+     *   persistent, so nothing is copied, and later changes to the Company do not affect it.
+     *   Filtered pages without a sort then list the vehicles in no set order, but in the same
+     *   order for as long as the inventory is unchanged.
+     *
+     * Must be called where changes to the Company can not be made at the same time, such as on
+     * the thread that makes them.
+     *
+     * @param query The [VehicleQuery] describing the vehicles to return and their order.
+     * @param offset The number of matching vehicles to skip.
+     * @param limit The maximum number of vehicles to return.
+     * @return The [VehiclePageRequest] of the page.
+     */
+    fun preparePage(query: VehicleQuery, offset: Int, limit: Int): VehiclePageRequest {
+        val dealers = queryDealerships(query)
+        if (query.filter == null && query.sortKey == null) {
+            val inventories = dealers.map { it.inventory }
+            val page = VehiclePage(countVehicles(inventories, null), queryVehicles(inventories, query, offset, limit))
+            return VehiclePageRequest { page }
+        }
+
+        val versions = dealers.map { it.versionedInventory }
+        return VehiclePageRequest {
+            val inventories = versions.map { version ->
+                val vehicles = ArrayList<Vehicle>(version.size)
+                version.forEachValue { vehicles.add(it) }
+                vehicles
+            }
+            VehiclePage(countVehicles(inventories, query.filter), queryVehicles(inventories, query, offset, limit))
         }
-        return maps
+    }
+
+    private fun queryVehicles(inventories: List<List<Vehicle>>, query: VehicleQuery, offset: Int, limit: Int): List<Vehicle> {
+        require(offset >= 0) { "Offset cannot be negative" }
+        require(limit >= 0) { "Limit cannot be negative" }
+
+        val comparator = query.comparator()
+        return if (comparator == null) {
+            queryUnsorted(inventories, query.filter, offset, limit)
+        } else {
+            querySorted(inventories, query.filter, comparator, offset, limit)
+        }
+    }
+
+    private fun queryUnsorted(
+        inventories: List<List<Vehicle>>, filter: Predicate<Vehicle>?, offset: Int, limit: Int
+    ): List<Vehicle> {
+        val page: MutableList<Vehicle> = ArrayList(minOf(limit, PAGE_CAPACITY_HINT))
+        var skip = offset
+
+        for (inventory in inventories) {
+            if (filter == null) {
+                if (skip >= inventory.size) {
+                    skip -= inventory.size
+                    continue
+                }
+                for (i in skip until inventory.size) {
+                    if (page.size >= limit) return page
+                    page.add(inventory[i])
+                }
+                skip = 0
+                continue
+            }
+            for (vehicle in inventory) {
+                if (!filter.test(vehicle)) continue
+                if (skip > 0) {
+                    skip--
+                    continue
+                }
+                if (page.size >= limit) return page
+                page.add(vehicle)
+            }
+        }
+        return page
+    }
+
+    private fun querySorted(
+        inventories: List<List<Vehicle>>, filter: Predicate<Vehicle>?,
+        comparator: Comparator<Vehicle>, offset: Int, limit: Int
+    ): List<Vehicle> {
+        val keep = offset.toLong() + limit
+        if (keep == 0L) return ArrayList()
+
+        // Max-heap of the best [keep] vehicles seen so far.
+        val heap = PriorityQueue(comparator.reversed())
+        for (inventory in inventories) {
+            for (vehicle in inventory) {
+                if (filter != null && !filter.test(vehicle)) continue
+                if (heap.size < keep) {
+                    heap.add(vehicle)
+                } else if (comparator.compare(vehicle, heap.peek()) < 0) {
+                    heap.poll()
+                    heap.add(vehicle)
+                }
+            }
+        }
+
+        val sorted = heap.sortedWith(comparator)
+        if (offset >= sorted.size) return ArrayList()
+        return ArrayList(sorted.subList(offset, minOf(sorted.size.toLong(), keep).toInt()))
     }
 
     /**
@@ -216,4 +597,29 @@ class Company {
         }
         return dealershipInfoList
     }
+
+    companion object {
+        /**
+         * Returns the given fields of a [Dealership] or [Vehicle], leaving out those without a value.
+         */
+        private fun projectFields(source: Any, keys: List<Key>): Map<Key, Any> {
+            val map: MutableMap<Key, Any> = EnumMap(Key::class.java)
+            for (key in keys) {
+                key.extractValue(source)?.let { map[key] = it }
+            }
+            return map
+        }
+
+        /**
+         * Upper bound on the initial capacity of a query page, so huge limits do not
+         * allocate up front.
+         */
+        private const val PAGE_CAPACITY_HINT = 1024
+
+        /**
+         * Below this many rows, checking every ID exactly is cheaper than building the
+         * [BloomFilter] over the whole Company.
+         */
+        private const val ID_FILTER_THRESHOLD = 1024
+    }
 }
\ No newline at end of file
@@ -1,8 +1,14 @@
 package javafiles.domainfiles
 
+import javafiles.DealershipExport
 import javafiles.Key
+import javafiles.ValidationCode
 import javafiles.customexceptions.*
+import javafiles.lazyMap
 import javafiles.domainfiles.VehicleCreator.Companion.instance
+import javafiles.metricsfiles.Metrics
+import javafiles.metricsfiles.RentalToggleEvent
+import javafiles.metricsfiles.VehicleTransferEvent
 import java.util.*
 
 /**
@@ -19,36 +25,213 @@ import java.util.*
  */
 class Dealership (
     val dealerId: String,
-    var dealerName: String
+    dealerName: String
 ) {
-    val inventory: MutableList<Vehicle> = ArrayList()
+    val inventory: MutableList<Vehicle> = InventoryList(this)
+
+    var dealerName: String = dealerName
+        set(value) {
+            if (field != value) markChanged()
+            field = value
+        }
+
     var statusAcquiringVehicle: Boolean = true
+        set(value) {
+            if (field != value) markChanged()
+            field = value
+        }
+
     var rentingVehicles = false
+        set(value) {
+            if (field != value) markChanged()
+            field = value
+        }
+
+    /**
+     * The number of changes made to this dealership or its inventory so far: vehicles added or
+     * removed, changes to the fields of its vehicles and to its own name and statuses. Only grows.
+     */
+    @Volatile
+    var changeCount: Long = 1 // A new dealership has not been saved yet.
+        private set
+
+    /**
+     * The [changeCount] when this dealership was last saved, set with [markSaved].
+     */
+    @Volatile
+    var savedChangeCount: Long = 0
+        private set
+
+    /**
+     * Whether this dealership has changed since it was last saved.
+     */
+    val isDirty: Boolean
+        get() = changeCount != savedChangeCount
+
+    /**
+     * Records that this dealership was saved as it was when [changeCount] was the given count.
+     * Can be called from the thread that did the saving; changes made since the count was read
+     * keep the dealership dirty.
+     *
+     * @param count The [changeCount] read before the dealership was copied for saving.
+     */
+    fun markSaved(count: Long) {
+        if (count > savedChangeCount) savedChangeCount = count
+    }
+
+    /**
+     * Called whenever something saved with this dealership changes.
+     */
+    internal fun markChanged() {
+        changeCount++
+    }
+
+    /**
+     * Running totals over [inventory], kept up to date by [InventoryList] and [Vehicle].
+     */
+    val aggregates = InventoryAggregates()
+
+    /**
+     * The snapshots of the [Company] this dealership was added to, which its vehicles tell
+     * before they change. Null until the dealership is added to a Company.
+     */
+    internal var snapshots: SnapshotRegistry? = null
+
+    /**
+     * Index of [inventory] by [normalizeId] of each vehicle ID, kept up to date by [InventoryList].
+     */
+    private val vehiclesById: MutableMap<String, Vehicle> = HashMap()
+
+    /**
+     * [inventory] by [normalizeId] of each vehicle ID, as a [PersistentHashMap] kept up to date
+     * by [InventoryList]. Each change makes a new version that shares all but a few nodes with
+     * the one before, which is what lets [InventoryHistory] keep many versions of the inventory.
+     */
+    var versionedInventory: PersistentHashMap<String, Vehicle> = PersistentHashMap.empty()
+        private set
+
+    /**
+     * The vehicles of [inventory] that can be rented, in the order they were added, kept up to
+     * date by [InventoryList]. Whether a vehicle can be rented is fixed by its [RentalStrategy].
+     */
+    private val rentableVehicles: MutableSet<Vehicle> = LinkedHashSet()
+
+    /**
+     * [rentableVehicles] by [Vehicle.vehicleType], so [availableVehicles] only visits vehicles
+     * of the type asked for.
+     */
+    private val rentableByType: MutableMap<String, MutableSet<Vehicle>> = HashMap()
 
+    /**
+     * Returns whether a [Vehicle] with the given ID is in [inventory]. IDs are compared ignoring
+     * case and whitespace. Uses an index of the inventory, so it does not scan the vehicles.
+     */
     fun inventoryContainsById(newId: String): Boolean {
-        val cleanId = newId.trim().replace("\\s+".toRegex(), "")
-        for (vehicle in inventory) {
-            val existingVehicleId = vehicle.vehicleId.trim().replace("\\s+".toRegex(), "")
-            if (existingVehicleId.equals(cleanId, ignoreCase = true)) {
-                return true
-            }
+        return vehiclesById.containsKey(normalizeId(newId))
+    }
+
+    /**
+     * Returns the [Vehicle] in [inventory] with the given ID (ignoring case and whitespace),
+     * or null if there is none.
+     */
+    fun findVehicleById(vehicleId: String): Vehicle? {
+        return vehiclesById[normalizeId(vehicleId)]
+    }
+
+    /**
+     * Returns the [normalizeId] form of the ID of every vehicle in [inventory].
+     */
+    internal fun normalizedIds(): Collection<String> = vehiclesById.keys
+
+    /**
+     * Returns the index of [inventory] by the [normalizeId] form of each vehicle ID.
+     */
+    internal fun indexedVehicles(): Map<String, Vehicle> = vehiclesById
+
+    /**
+     * Called by [InventoryList] whenever a [Vehicle] is added to [inventory].
+     */
+    internal fun onInventoryAdd(vehicle: Vehicle) {
+        vehicle.dealership = this
+        val id = normalizeId(vehicle.vehicleId)
+        vehiclesById[id] = vehicle
+        versionedInventory = versionedInventory.put(id, vehicle)
+        if (vehicle.canBeRented) {
+            rentableVehicles.add(vehicle)
+            rentableByType.getOrPut(vehicle.vehicleType) { LinkedHashSet() }.add(vehicle)
+        }
+        aggregates.add(vehicle)
+        markChanged()
+    }
+
+    /**
+     * Called by [InventoryList] whenever a [Vehicle] is removed from [inventory].
+     * A [Vehicle] being transferred is added to the receiving [Dealership] before it is
+     * removed from the sender, so the back-reference is only cleared if it still points here.
+     */
+    internal fun onInventoryRemove(vehicle: Vehicle) {
+        if (vehicle.dealership === this) {
+            vehicle.dealership = null
+        }
+        val id = normalizeId(vehicle.vehicleId)
+        vehiclesById.remove(id, vehicle)
+        if (versionedInventory[id] === vehicle) {
+            versionedInventory = versionedInventory.remove(id)
         }
-        return false
+        if (rentableVehicles.remove(vehicle)) {
+            val ofType = rentableByType.getValue(vehicle.vehicleType)
+            ofType.remove(vehicle)
+            if (ofType.isEmpty()) rentableByType.remove(vehicle.vehicleType)
+        }
+        aggregates.remove(vehicle)
+        markChanged()
+    }
+
+    /**
+     * Changes [inventory] to hold the vehicles of an earlier or later [versionedInventory] of
+     * this dealership. Only the vehicles that differ are removed or added, and vehicles added
+     * back go to the end of [inventory].
+     *
+     * @param version The version to restore, taken from [versionedInventory].
+     */
+    internal fun restoreInventory(version: PersistentHashMap<String, Vehicle>) {
+        val removed = HashSet<Vehicle>()
+        val added = ArrayList<Vehicle>()
+        versionedInventory.diff(version, { _, vehicle -> removed.add(vehicle) }, { _, vehicle -> added.add(vehicle) })
+
+        inventory.removeAll(removed)
+        inventory.addAll(added)
+        versionedInventory = version // Holds the same vehicles, and shares its nodes with other versions.
     }
 
     @Throws(DealershipNotAcceptingVehiclesException::class, VehicleAlreadyExistsException::class)
     fun addIncomingVehicle(newVehicle: Vehicle) {
+        val problem = checkIncomingVehicle(newVehicle)
+        if (problem != null) {
+            throw problem.toException()!!
+        }
+
+        inventory.add(newVehicle)
+    }
+
+    /**
+     * Returns why the given [Vehicle] can not be added to [inventory], or null if it can.
+     */
+    internal fun checkIncomingVehicle(newVehicle: Vehicle): VehicleResult? {
         if (!statusAcquiringVehicle) {
-            throw DealershipNotAcceptingVehiclesException(
+            return VehicleResult.invalid(
+                ValidationCode.DEALERSHIP_NOT_RECEIVING,
                 "Dealership $dealerId is not accepting new vehicles at this time. Vehicle ID: ${newVehicle.vehicleId} was not added."
             )
         }
 
         if (inventoryContainsById(newVehicle.vehicleId)) {
-            throw VehicleAlreadyExistsException("Vehicle ID: ${newVehicle.vehicleId} already exists in inventory of dealership $dealerId.")
+            return VehicleResult.invalid(
+                ValidationCode.VEHICLE_EXISTS,
+                "Vehicle ID: ${newVehicle.vehicleId} already exists in inventory of dealership $dealerId."
+            )
         }
-
-        inventory.add(newVehicle)
+        return null
     }
 
     fun removeFromInventory(targetVehicle: Vehicle) {
@@ -59,16 +242,32 @@ class Dealership (
      * Takes a Map with information about a Vehicle, creates that Vehicle and adds to inventory.
      */
     fun dataToInventory(map: MutableMap<Key, Any>): Boolean {
-        return try {
-            val vehicle = vehicleFactory.createFullVehicle(map)
-            addIncomingVehicle(vehicle)
-            true
-        } catch (e: Exception) {
-            //TODO: Less generic Exceptions?
-            val wrapped = ReadWriteException(e)
-            Key.REASON_FOR_ERROR.putValid(map, wrapped)
-            false
+        return stagedToInventory(map, vehicleFactory.validate(map))
+    }
+
+    /**
+     * Adds a [Vehicle] that was already created from the given Map by [StagedInventory] to
+     * inventory. Failures are recorded on the Map in the same way as [dataToInventory], but
+     * without stack traces, and without throwing.
+     *
+     * @param map The Map the vehicle was created from.
+     * @param result The result of creating the Vehicle, or null if it was not created.
+     * @return Whether the vehicle was added.
+     */
+    internal fun stagedToInventory(map: MutableMap<Key, Any>, result: VehicleResult?): Boolean {
+        val vehicle = result?.vehicle
+        val problem = when {
+            result == null -> VehicleResult.invalid(ValidationCode.MISSING_INFO, "Vehicle could not be created.")
+            vehicle == null -> result
+            else -> checkIncomingVehicle(vehicle)
+        }
+        if (problem != null) {
+            Key.REASON_FOR_ERROR.putValid(map, problem.toReason())
+            return false
         }
+
+        inventory.add(vehicle!!)
+        return true
     }
 
     @Throws(
@@ -88,8 +287,136 @@ class Dealership (
      */
     @Throws(RentalException::class)
     fun updateVehicleRental(vehicle: Vehicle) {
-        // Will throw RentalException if vehicle is a sports car
-        vehicle.rentalStatus = !vehicle.rentalStatus
+        val start = System.nanoTime()
+        val event = RentalToggleEvent()
+        event.begin()
+        try {
+            // Will throw RentalException if vehicle is a sports car
+            vehicle.rentalStatus = !vehicle.rentalStatus
+            event.succeeded = true
+        } catch (e: RentalException) {
+            Metrics.counter("dealership.rental.failed").increment()
+            throw e
+        } finally {
+            if (event.shouldCommit()) {
+                event.vehicleId = vehicle.vehicleId
+                event.dealershipId = dealerId
+                event.rented = vehicle.rentalStatus
+                event.commit()
+            }
+        }
+        Metrics.timer("dealership.rental").recordSince(start)
+    }
+
+    /**
+     * Sets the rental status of each of the given vehicles to the same value, such as to check
+     * in every returned rental at the end of the day. Each vehicle's [RentalStrategy] is asked
+     * with [RentalStrategy.allowsUpdateTo] first, so vehicles that cannot change are reported
+     * rather than thrown for, and all allowed changes are made in one pass.
+     *
+     * Renting, unlike returning, also needs the dealership to be renting vehicles.
+     *
+     * @param vehicleIds The IDs of the vehicles, compared ignoring case and whitespace.
+     * @param rented The rental status to set.
+     * @return The outcome for each given ID, in the order given.
+     */
+    fun updateRentalStatuses(vehicleIds: Collection<String>, rented: Boolean): Map<String, RentalOutcome> {
+        val start = System.nanoTime()
+        val outcomes = LinkedHashMap<String, RentalOutcome>()
+        for (vehicleId in vehicleIds) {
+            val vehicle = findVehicleById(vehicleId)
+            outcomes[vehicleId] = when {
+                vehicle == null -> RentalOutcome.NOT_FOUND
+                vehicle.rentalStatus == rented -> RentalOutcome.UNCHANGED
+                rented && !rentingVehicles -> RentalOutcome.DEALERSHIP_NOT_RENTING
+                !vehicle.allowsRentalStatus(rented) -> RentalOutcome.NOT_ALLOWED
+                else -> {
+                    vehicle.rentalStatus = rented
+                    RentalOutcome.CHANGED
+                }
+            }
+        }
+
+        val failed = outcomes.values.count { !it.succeeded }
+        if (failed > 0) Metrics.counter("dealership.rental.failed").increment(failed.toLong())
+        Metrics.timer("dealership.rental.bulk").recordSince(start)
+        return outcomes
+    }
+
+    /**
+     * Books a vehicle of this dealership from start up to, but not including, end. Bookings
+     * are reservations for later rentals and do not change [Vehicle.rentalStatus].
+     *
+     * @param vehicle The vehicle to book, which must be in [inventory].
+     * @param start The start of the booking, in milliseconds since epoch.
+     * @param end The end of the booking, in milliseconds since epoch. Must be after start.
+     * @return The new [Booking].
+     * @throws VehicleNotFoundException If the vehicle is not in [inventory].
+     * @throws DealershipNotRentingException If the dealership is not renting vehicles.
+     * @throws RentalException If the vehicle's [RentalStrategy] does not allow renting it,
+     * such as for a [SportsCar].
+     * @throws BookingConflictException If the vehicle is already booked for part of the time.
+     */
+    @Throws(RentalException::class)
+    fun book(vehicle: Vehicle, start: Long, end: Long): Booking {
+        require(start < end) { "Booking must end after it starts" }
+        if (vehicle.dealership !== this) {
+            throw VehicleNotFoundException("Vehicle ID: ${vehicle.vehicleId} is not in the inventory of dealership $dealerId.")
+        }
+        if (!rentingVehicles) {
+            throw DealershipNotRentingException("Dealership $dealerId is not renting vehicles.")
+        }
+        vehicle.checkBookable()
+        if (!vehicle.isFreeBetween(start, end)) {
+            throw BookingConflictException("Vehicle ID: ${vehicle.vehicleId} is already booked for part of that time.")
+        }
+
+        val booking = Booking(vehicle, start, end)
+        vehicle.addBooking(booking)
+        Metrics.counter("dealership.bookings").increment()
+        return booking
+    }
+
+    /**
+     * Cancels the given booking.
+     *
+     * @return Whether the booking existed.
+     */
+    fun cancelBooking(booking: Booking): Boolean {
+        return booking.vehicle.removeBooking(booking)
+    }
+
+    /**
+     * Returns the vehicles of this dealership that could be booked from start up to, but not
+     * including, end: those whose [RentalStrategy] allows renting and that have no booking in
+     * that time.
+     *
+     * Only the rentable vehicles of the given type are visited, found through an index by type
+     * kept up to date with [inventory], and each is checked in logarithmic time in its number
+     * of bookings. A search over k such vehicles with b bookings each costs O(k log b): other
+     * types, vehicles that can never be rented and the bookings themselves are never scanned.
+     *
+     * @param start The start of the time, in milliseconds since epoch.
+     * @param end The end of the time, in milliseconds since epoch.
+     * @param vehicleType Only vehicles of this type, such as "SUV", or all types if null.
+     * @return The free vehicles, in the order they were added to [inventory]. Empty if the
+     * dealership is not renting.
+     */
+    @JvmOverloads
+    fun availableVehicles(start: Long, end: Long, vehicleType: String? = null): List<Vehicle> {
+        if (!rentingVehicles) return emptyList()
+        val candidates = if (vehicleType == null) rentableVehicles else rentableByType[vehicleType] ?: return emptyList()
+        return candidates.filter { it.isFreeBetween(start, end) }
+    }
+
+    /**
+     * Returns an export of this dealership that is unaffected by later changes to it. Only the
+     * dealership fields and the inventory list are copied; the per-vehicle maps are built as
+     * the export is read.
+     */
+    fun snapshotExport(): DealershipExport {
+        val vehicles = ArrayList(inventory)
+        return DealershipExport(calcDealerMapData(), vehicles.lazyMap { it.getDataMap() })
     }
 
     fun calcDealerMapData(): Map<Key, Any> {
@@ -118,17 +445,29 @@ class Dealership (
             throw DuplicateSenderException("Sender and receiver dealership can not be the same")
         }
 
-        receivingDealer.addIncomingVehicle(transferVehicle)
-        inventory.remove(transferVehicle)
+        val start = System.nanoTime()
+        val event = VehicleTransferEvent()
+        event.begin()
+        try {
+            receivingDealer.addIncomingVehicle(transferVehicle)
+            inventory.remove(transferVehicle)
+            event.succeeded = true
+        } catch (e: Exception) {
+            Metrics.counter("dealership.transfer.failed").increment()
+            throw e
+        } finally {
+            if (event.shouldCommit()) {
+                event.vehicleId = transferVehicle.vehicleId
+                event.senderId = dealerId
+                event.receiverId = receivingDealer.dealerId
+                event.commit()
+            }
+        }
+        Metrics.timer("dealership.transfer").recordSince(start)
     }
     
     override fun toString(): String {
-        var rentedVehicleNum = 0
-        for (vehicle in inventory) {
-            if (vehicle.rentalStatus) {
-                rentedVehicleNum++
-            }
-        }
+        val rentedVehicleNum = aggregates.rentedCount
 
         var str = "Dealership ID: $dealerId\n"
         str += "Dealership Name: ${Objects.requireNonNullElse(dealerName, "No name on file.")}\n"
@@ -139,5 +478,14 @@ class Dealership (
 
     companion object {
         private val vehicleFactory: VehicleFactory = instance // Singleton
+        private val WHITESPACE = "\\s+".toRegex()
+
+        /**
+         * Returns the form of a vehicle ID used to compare IDs, ignoring case and whitespace.
+         */
+        @JvmStatic
+        fun normalizeId(vehicleId: String): String {
+            return vehicleId.replace(WHITESPACE, "").lowercase(Locale.ROOT)
+        }
     }
 }
\ No newline at end of file
@@ -16,4 +16,12 @@ class DefaultRentalStrategy : RentalStrategy {
      * @param value The attempted new value of the rental status.
      */
     override fun updateTo(value: Boolean) { }
-}
\ No newline at end of file
+
+    /**
+     * The default strategy allows all changes.
+     *
+     * @param value The new value of the rental status.
+     * @return true.
+     */
+    override fun allowsUpdateTo(value: Boolean): Boolean = true
+}
@@ -0,0 +1,129 @@
+package javafiles.domainfiles
+
+/**
+ * Running totals over an inventory: the number of vehicles, how many are rented, the total
+ * value for each price unit and the number of vehicles of each type.
+ *
+ * Totals are updated as vehicles are added, removed, transferred and rented or returned, each
+ * in constant time, so reading them never scans the inventory. Each [Dealership] keeps totals
+ * for its own inventory, and passes every change on to the totals of its [Company].
+ *
+ * Reads and updates are synchronized, so totals can be read from any thread.
+ */
+class InventoryAggregates internal constructor() {
+    private var parent: InventoryAggregates? = null
+    private var count = 0
+    private var rented = 0
+    private val valueByUnit: MutableMap<String, Long> = HashMap()
+    private val countByType: MutableMap<String, Int> = HashMap()
+
+    /**
+     * The number of vehicles in the inventory.
+     */
+    val vehicleCount: Int
+        @Synchronized get() = count
+
+    /**
+     * The number of vehicles that are rented.
+     */
+    val rentedCount: Int
+        @Synchronized get() = rented
+
+    /**
+     * The number of vehicles that are not rented.
+     */
+    val availableCount: Int
+        @Synchronized get() = count - rented
+
+    /**
+     * Returns the total price of the vehicles priced in the given unit, such as "dollars".
+     */
+    @Synchronized
+    fun totalValue(priceUnit: String): Long = valueByUnit[priceUnit] ?: 0L
+
+    /**
+     * Returns the total price of the vehicles for each price unit.
+     */
+    @Synchronized
+    fun valueByPriceUnit(): Map<String, Long> = HashMap(valueByUnit)
+
+    /**
+     * Returns the number of vehicles of the given type, such as "SUV".
+     */
+    @Synchronized
+    fun countOfType(vehicleType: String): Int = countByType[vehicleType] ?: 0
+
+    /**
+     * Returns the number of vehicles of each type.
+     */
+    @Synchronized
+    fun countByType(): Map<String, Int> = HashMap(countByType)
+
+    @Synchronized
+    internal fun add(vehicle: Vehicle) {
+        update(vehicle.vehicleType, vehicle.priceUnit, vehicle.vehiclePrice, vehicle.rentalStatus, 1)
+        parent?.add(vehicle)
+    }
+
+    @Synchronized
+    internal fun remove(vehicle: Vehicle) {
+        update(vehicle.vehicleType, vehicle.priceUnit, vehicle.vehiclePrice, vehicle.rentalStatus, -1)
+        parent?.remove(vehicle)
+    }
+
+    /**
+     * Called when a vehicle in the inventory is rented (true) or returned (false).
+     */
+    @Synchronized
+    internal fun rentalChanged(nowRented: Boolean) {
+        rented += if (nowRented) 1 else -1
+        parent?.rentalChanged(nowRented)
+    }
+
+    /**
+     * Called when the price unit of a vehicle in the inventory changes.
+     */
+    @Synchronized
+    internal fun priceUnitChanged(price: Long, oldUnit: String, newUnit: String) {
+        addValue(oldUnit, -price)
+        addValue(newUnit, price)
+        parent?.priceUnitChanged(price, oldUnit, newUnit)
+    }
+
+    /**
+     * Makes every later change to these totals also apply to the given totals, and adds the
+     * current totals to them. Any previous parent has the current totals taken back out.
+     */
+    @Synchronized
+    internal fun attachTo(newParent: InventoryAggregates?) {
+        parent?.merge(this, -1)
+        parent = newParent
+        newParent?.merge(this, 1)
+    }
+
+    @Synchronized
+    private fun merge(other: InventoryAggregates, sign: Int) {
+        count += sign * other.count
+        rented += sign * other.rented
+        other.valueByUnit.forEach { (unit, value) -> addValue(unit, sign * value) }
+        other.countByType.forEach { (type, n) -> addCount(type, sign * n) }
+        parent?.merge(other, sign)
+    }
+
+    private fun update(type: String, unit: String, price: Long, isRented: Boolean, sign: Int) {
+        count += sign
+        if (isRented) rented += sign
+        addValue(unit, sign * price)
+        addCount(type, sign)
+    }
+
+    private fun addValue(unit: String, delta: Long) {
+        val value = (valueByUnit[unit] ?: 0L) + delta
+        if (value == 0L) valueByUnit.remove(unit) else valueByUnit[unit] = value
+    }
+
+    private fun addCount(type: String, delta: Int) {
+        val n = (countByType[type] ?: 0) + delta
+        if (n == 0) countByType.remove(type) else countByType[type] = n
+    }
+}
@@ -0,0 +1,105 @@
+package javafiles.domainfiles
+
+import javafiles.Key
+import javafiles.metricsfiles.ImportBatchEvent
+import javafiles.metricsfiles.Metrics
+
+/**
+ * Adds the vehicles of a [StagedInventory] to a [Company] a bounded number of rows at a time,
+ * started with [Company.beginCommit]. The thread that owns the Company, such as the JavaFX
+ * thread, can do other work between calls to [step], so a large import does not hold it up.
+ * [Company.commitInventory] runs a whole commit at once.
+ *
+ * Newly created dealerships get the receiving and renting status of their rows once [finish]
+ * is called, as with [Company.commitInventory]. The Company may be changed between steps:
+ * vehicles added to it in the meantime are still checked for duplicate IDs.
+ */
+class InventoryCommit internal constructor(private val company: Company, private val staged: StagedInventory) {
+    private val rows = staged.rows()
+    private val start = System.nanoTime()
+    private val event = ImportBatchEvent()
+    private val badInventoryMaps = mutableListOf<Map<Key, Any>>()
+    private val newlyCreatedDealerships = mutableMapOf<Dealership, Map<Key, Any>>()
+
+    private var idFilter: BloomFilter? = null
+    private var filterBuilt = false
+
+    /**
+     * The sum of the change counts of the dealerships after the last step, used to tell whether
+     * the Company was changed between steps.
+     */
+    private var changesAfterStep = 0L
+
+    /**
+     * The number of rows committed so far.
+     */
+    var committed: Int = 0
+        private set
+
+    /**
+     * The number of rows to commit.
+     */
+    val total: Int
+        get() = rows.size
+
+    val isDone: Boolean
+        get() = committed >= rows.size
+
+    init {
+        event.begin()
+    }
+
+    /**
+     * Commits up to the given number of rows.
+     *
+     * @param maxRows The most rows to commit in this step.
+     * @return Whether rows are left to commit.
+     */
+    fun step(maxRows: Int): Boolean {
+        require(maxRows > 0) { "A step must commit at least one row" }
+        if (!filterBuilt || changeCount() != changesAfterStep) {
+            // Vehicles added since the filter was built would be missed by it.
+            idFilter = company.buildIdFilter(rows.size - committed)
+            filterBuilt = true
+        }
+
+        val end = minOf(rows.size, committed + maxRows)
+        for (i in committed until end) {
+            val badMap = company.mapToInventory(rows[i], newlyCreatedDealerships, idFilter)
+            if (badMap != null) {
+                badInventoryMaps.add(badMap)
+            }
+        }
+        committed = end
+        changesAfterStep = changeCount()
+        return !isDone
+    }
+
+    /**
+     * Commits any rows left and applies the status of newly created dealerships.
+     *
+     * @return The List of Maps that could not be added, each with a [Key.REASON_FOR_ERROR].
+     */
+    fun finish(): List<Map<Key, Any>> {
+        if (!isDone) step(rows.size - committed)
+
+        // Apply receiving and renting status only to newly created dealerships
+        for ((dealer, statusMap) in newlyCreatedDealerships) {
+            dealer.rentingVehicles = statusMap[Key.DEALERSHIP_RENTING_STATUS] as? Boolean ?: false
+            dealer.statusAcquiringVehicle = statusMap[Key.DEALERSHIP_RECEIVING_STATUS] as? Boolean ?: true
+        }
+
+        Metrics.timer("company.commitInventory").recordSince(start, staged.size.toLong())
+        Metrics.counter("company.rejected").increment(badInventoryMaps.size.toLong())
+        if (event.shouldCommit()) {
+            event.rows = staged.size.toLong()
+            event.rejected = badInventoryMaps.size.toLong()
+            event.accepted = event.rows - event.rejected
+            event.newDealerships = newlyCreatedDealerships.size.toLong()
+            event.commit()
+        }
+        return badInventoryMaps
+    }
+
+    private fun changeCount(): Long = company.listDealerships.sumOf { it.changeCount }
+}
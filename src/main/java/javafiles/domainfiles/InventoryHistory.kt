@@ -0,0 +1,214 @@
+package javafiles.domainfiles
+
+import javafiles.customexceptions.DealershipNotAcceptingVehiclesException
+import javafiles.customexceptions.VehicleAlreadyExistsException
+import javafiles.metricsfiles.Metrics
+
+/**
+ * The versions of a [Company]'s inventory recorded with [checkpoint], which [undo] and [redo]
+ * move between, such as to put back a vehicle removed or transferred by mistake.
+ *
+ * A version is a [PersistentHashMap] of each dealership's [Dealership.versionedInventory] by
+ * dealership ID. Versions share every part of the inventory that did not change between them,
+ * so a version taken after one vehicle was removed only costs the few trie nodes on that
+ * vehicle's path, and keeping [capacity] versions costs little more than keeping one. Moving
+ * between versions only swaps which version is current; the inventories are then brought in
+ * line by adding and removing the vehicles that differ, found without visiting what the
+ * versions share.
+ *
+ * Only which vehicles each dealership holds is versioned. Changes made to a vehicle, such as
+ * to its rental status, and to a dealership's name or statuses are not undone. A dealership
+ * created after a version has its inventory emptied when that version is restored, but is not
+ * removed.
+ *
+ * Vehicles put back by [undo] and [redo] are checked as any added vehicle is: the dealership must
+ * be accepting vehicles, and no other vehicle in the Company may have the same ID. If any vehicle
+ * fails, nothing is changed and the exception is thrown.
+ */
+class InventoryHistory internal constructor(private val company: Company) {
+    /**
+     * A recorded version of the inventory, with the label of the change that led to it.
+     */
+    private class Version(val label: String, val dealers: PersistentHashMap<String, PersistentHashMap<String, Vehicle>>)
+
+    private var current = Version("", PersistentHashMap.empty())
+    private val undoVersions = ArrayDeque<Version>()
+    private val redoVersions = ArrayDeque<Version>()
+
+    /**
+     * The most versions kept to undo to. Once there are more, the oldest are dropped.
+     */
+    var capacity: Int = DEFAULT_CAPACITY
+        set(value) {
+            require(value > 0) { "Capacity must be positive" }
+            field = value
+            trim()
+        }
+
+    /**
+     * Whether there is a change to [undo].
+     */
+    val canUndo: Boolean
+        get() = undoVersions.isNotEmpty() || capture() !== current.dealers
+
+    /**
+     * Whether there is an undone change to [redo].
+     */
+    val canRedo: Boolean
+        get() = redoVersions.isNotEmpty()
+
+    /**
+     * The label of the change [undo] would undo, or null if there is none.
+     */
+    val undoLabel: String?
+        get() = if (capture() !== current.dealers) UNRECORDED_LABEL else current.label.takeIf { undoVersions.isNotEmpty() }
+
+    /**
+     * The label of the change [redo] would make again, or null if there is none.
+     */
+    val redoLabel: String?
+        get() = redoVersions.lastOrNull()?.label
+
+    /**
+     * Records the inventory as it is now as a new version, after a change that can be undone.
+     * Does nothing if the inventory has not changed since the last version. Changes that were
+     * undone can no longer be redone once a new version is recorded.
+     *
+     * @param label A description of the change, such as "Remove vehicle V1 from D1".
+     * @return Whether a version was recorded.
+     */
+    fun checkpoint(label: String): Boolean {
+        val dealers = capture()
+        if (dealers === current.dealers) return false
+
+        undoVersions.addLast(current)
+        current = Version(label, dealers)
+        redoVersions.clear()
+        trim()
+        Metrics.counter("history.checkpoints").increment()
+        return true
+    }
+
+    /**
+     * Puts the inventory back as it was before the last recorded change. Changes made since
+     * the last [checkpoint] are first recorded, so they are what is undone.
+     *
+     * @return The label of the change undone, or null if there was nothing to undo.
+     * @throws DealershipNotAcceptingVehiclesException If a vehicle would be put back in a
+     * dealership that is not accepting vehicles.
+     * @throws VehicleAlreadyExistsException If a vehicle would be put back while another vehicle
+     * in the Company has its ID.
+     */
+    @Throws(DealershipNotAcceptingVehiclesException::class, VehicleAlreadyExistsException::class)
+    fun undo(): String? {
+        checkpoint(UNRECORDED_LABEL)
+        val previous = undoVersions.lastOrNull() ?: return null
+        checkRestore(previous)
+        undoVersions.removeLast()
+        val undone = current
+        redoVersions.addLast(undone)
+        moveTo(previous)
+        return undone.label
+    }
+
+    /**
+     * Makes the last undone change again. Nothing is redone if the inventory was changed after
+     * the undo, as that change is first recorded, which drops the changes that could be redone.
+     *
+     * @return The label of the change made again, or null if there was nothing to redo.
+     * @throws DealershipNotAcceptingVehiclesException If a vehicle would be put back in a
+     * dealership that is not accepting vehicles.
+     * @throws VehicleAlreadyExistsException If a vehicle would be put back while another vehicle
+     * in the Company has its ID.
+     */
+    @Throws(DealershipNotAcceptingVehiclesException::class, VehicleAlreadyExistsException::class)
+    fun redo(): String? {
+        checkpoint(UNRECORDED_LABEL)
+        val next = redoVersions.lastOrNull() ?: return null
+        checkRestore(next)
+        redoVersions.removeLast()
+        undoVersions.addLast(current)
+        moveTo(next)
+        return next.label
+    }
+
+    /**
+     * Forgets every version and takes the inventory as it is now as the first, such as once
+     * the inventory has been loaded.
+     */
+    fun clear() {
+        undoVersions.clear()
+        redoVersions.clear()
+        current = Version("", capture())
+    }
+
+    /**
+     * Returns the inventory of every dealership as it is now, built on the given version.
+     * Dealerships whose inventory is the same object as in that version are not copied, so if
+     * nothing changed this returns the version's map itself.
+     */
+    private fun capture(
+        base: PersistentHashMap<String, PersistentHashMap<String, Vehicle>> = current.dealers
+    ): PersistentHashMap<String, PersistentHashMap<String, Vehicle>> {
+        var dealers = base
+        for (dealer in company.listDealerships) {
+            dealers = dealers.put(dealer.dealerId, dealer.versionedInventory)
+        }
+        return dealers
+    }
+
+    /**
+     * Checks every vehicle that restoring the given version would add, without changing
+     * anything. Only the vehicles that differ from the current inventories are visited, and each
+     * is looked up by ID in the version's inventory of every other dealership.
+     */
+    @Throws(DealershipNotAcceptingVehiclesException::class, VehicleAlreadyExistsException::class)
+    private fun checkRestore(version: Version) {
+        for (dealer in company.listDealerships) {
+            val target = version.dealers[dealer.dealerId] ?: PersistentHashMap.empty()
+            val added = ArrayList<Pair<String, Vehicle>>()
+            dealer.versionedInventory.diff(target, { _, _ -> }, { id, vehicle -> added.add(Pair(id, vehicle)) })
+
+            for ((id, vehicle) in added) {
+                if (!dealer.statusAcquiringVehicle) {
+                    throw DealershipNotAcceptingVehiclesException(
+                        "Dealership ${dealer.dealerId} is not accepting new vehicles at this time. Vehicle ID: ${vehicle.vehicleId} was not put back."
+                    )
+                }
+                val holder = company.listDealerships.find { other ->
+                    other !== dealer && (version.dealers[other.dealerId] ?: PersistentHashMap.empty())[id] != null
+                }
+                if (holder != null) {
+                    throw VehicleAlreadyExistsException(
+                        "Vehicle ID: ${vehicle.vehicleId} already exists in inventory of dealership ${holder.dealerId}, so it was not put back."
+                    )
+                }
+            }
+        }
+    }
+
+    private fun moveTo(version: Version) {
+        val start = System.nanoTime()
+        for (dealer in company.listDealerships) {
+            dealer.restoreInventory(version.dealers[dealer.dealerId] ?: PersistentHashMap.empty())
+        }
+        val dealers = capture(version.dealers) // Adds the dealerships created since the version.
+        current = if (dealers === version.dealers) version else Version(version.label, dealers)
+        Metrics.timer("history.restore").recordSince(start)
+    }
+
+    private fun trim() {
+        while (undoVersions.size > capacity) {
+            undoVersions.removeFirst()
+        }
+    }
+
+    companion object {
+        const val DEFAULT_CAPACITY = 1000
+
+        /**
+         * The label of changes that were made without a [checkpoint].
+         */
+        const val UNRECORDED_LABEL = "Unrecorded changes"
+    }
+}
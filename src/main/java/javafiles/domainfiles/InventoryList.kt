@@ -0,0 +1,58 @@
+package javafiles.domainfiles
+
+/**
+ * The [MutableList] backing [Dealership.inventory]. Behaves as an [ArrayList], but every
+ * [Vehicle] added or removed is reported back to the owning [Dealership] so that state kept
+ * alongside the inventory (such as [Vehicle.dealership] and the vehicle ID index) can never drift from the list, even
+ * when the list is modified directly.
+ *
+ * @param owner The [Dealership] whose inventory this is.
+ */
+internal class InventoryList(private val owner: Dealership) : AbstractMutableList<Vehicle>() {
+    private val vehicles: MutableList<Vehicle> = ArrayList()
+
+    override val size: Int
+        get() = vehicles.size
+
+    override fun get(index: Int): Vehicle {
+        return vehicles[index]
+    }
+
+    override fun add(index: Int, element: Vehicle) {
+        vehicles.add(index, element)
+        onAdded(element)
+    }
+
+    override fun removeAt(index: Int): Vehicle {
+        val removed = vehicles.removeAt(index)
+        onRemoved(removed)
+        return removed
+    }
+
+    override fun set(index: Int, element: Vehicle): Vehicle {
+        val replaced = vehicles.set(index, element)
+        onRemoved(replaced)
+        onAdded(element)
+        return replaced
+    }
+
+    /**
+     * Removes every given vehicle in one pass over the list, instead of shifting the rest of
+     * the list once for each vehicle removed.
+     */
+    override fun removeAll(elements: Collection<Vehicle>): Boolean {
+        val targets = elements as? Set<Vehicle> ?: HashSet(elements)
+        val removed = ArrayList<Vehicle>()
+        vehicles.removeIf { vehicle -> (vehicle in targets).also { if (it) removed.add(vehicle) } }
+        removed.forEach { onRemoved(it) }
+        return removed.isNotEmpty()
+    }
+
+    private fun onAdded(vehicle: Vehicle) {
+        owner.onInventoryAdd(vehicle)
+    }
+
+    private fun onRemoved(vehicle: Vehicle) {
+        owner.onInventoryRemove(vehicle)
+    }
+}
@@ -0,0 +1,246 @@
+package javafiles.domainfiles
+
+import javafiles.DealershipExport
+import javafiles.Key
+import javafiles.customexceptions.QuerySyntaxException
+import java.util.*
+import java.util.function.Predicate
+import java.util.stream.Stream
+
+/**
+ * A query over the [Vehicle]s of a [Company], written in a small language over [Key] fields,
+ * such as `vehicle_type = "SUV" and price < 30000 and vehicle_rental_status = false`.
+ * See [QueryParser] for the full syntax. Text comparisons are exact, and a field with no
+ * value never matches.
+ *
+ * A query is compiled once by [compile] and can then be run any number of times. Compiling
+ * plans the query as well:
+ * - `dealership_id = ...` and `dealership_id in (...)` conditions pick the dealerships to search
+ *   instead of checking every one.
+ * - `vehicle_id = ...` and `vehicle_id in (...)` conditions look vehicles up in each
+ *   dealership's ID index instead of scanning its inventory.
+ * - Other conditions on dealership fields are checked once per dealership, not per vehicle.
+ *
+ * Dealerships are searched in parallel, and results are returned as [Stream]s that are only
+ * evaluated as they are read.
+ */
+class InventoryQuery private constructor(
+    /**
+     * The text the query was compiled from.
+     */
+    val text: String,
+    /**
+     * The fields named after select in the query, or the vehicle fields and dealership ID if
+     * it has no select. Used by [project] when no fields are given.
+     */
+    val selectKeys: List<Key>,
+    private val dealerIds: Set<String>?,
+    private val vehicleIds: Set<String>?,
+    private val dealerTest: Predicate<Dealership>?,
+    private val vehicleTest: Predicate<Vehicle>?
+) {
+    /**
+     * Returns the matching vehicles of the given [Company], in the order of its dealerships
+     * and their inventories.
+     *
+     * @param company The [Company] to search.
+     * @return A [Stream] of the matching vehicles.
+     */
+    fun stream(company: Company): Stream<Vehicle> {
+        return ArrayList(candidateDealerships(company)).parallelStream()
+            .filter { dealerTest == null || dealerTest.test(it) }
+            .flatMap { dealer ->
+                val vehicles = candidateVehicles(dealer).stream()
+                if (vehicleTest == null) vehicles else vehicles.filter(vehicleTest)
+            }
+    }
+
+    /**
+     * Returns the given fields of each matching vehicle, read from the vehicle or from its
+     * dealership. Fields without a value are left out of the maps.
+     *
+     * @param company The [Company] to search.
+     * @param keys The fields to return, [selectKeys] by default.
+     * @return A [Stream] of one [Map] per matching vehicle.
+     */
+    @JvmOverloads
+    fun project(company: Company, keys: List<Key> = selectKeys): Stream<Map<Key, Any>> {
+        return stream(company).map { vehicle -> projectVehicle(vehicle, keys) }
+    }
+
+    /**
+     * Returns the matching part of the given [Company] for a
+     * [javafiles.dataaccessfiles.fileioimplements.FileIOWriter], as with [Company.exportView].
+     * Dealerships and vehicles named by ID in the query are looked up rather than searched for.
+     *
+     * @param company The [Company] to export from.
+     * @param keys The fields to export, [selectKeys] by default.
+     * @return An [Iterable] of [DealershipExport]s, one per dealership with a matching vehicle.
+     */
+    @JvmOverloads
+    fun exportView(company: Company, keys: List<Key> = selectKeys): Iterable<DealershipExport> {
+        return company.exportView(
+            candidateDealerships(company), dealerTest, { candidateVehicles(it) }, vehicleTest,
+            vehicleTest != null || vehicleIds != null, keys
+        )
+    }
+
+    /**
+     * Returns the dealerships of the given [Company] that pass the query's dealership conditions
+     * and, if it has any vehicle conditions, hold at least one matching vehicle.
+     *
+     * @param company The [Company] to search.
+     * @return The matching dealerships, in the order of [Company.listDealerships].
+     */
+    fun matchingDealerships(company: Company): List<Dealership> {
+        return ArrayList(candidateDealerships(company)).parallelStream()
+            .filter { dealerTest == null || dealerTest.test(it) }
+            .filter { dealer ->
+                (vehicleTest == null && vehicleIds == null) ||
+                    candidateVehicles(dealer).any { vehicleTest == null || vehicleTest.test(it) }
+            }
+            .toList()
+    }
+
+    /**
+     * Returns whether the given vehicle matches the query.
+     */
+    fun matches(vehicle: Vehicle): Boolean {
+        val dealer = vehicle.dealership
+        if (dealerIds != null && dealer?.dealerId !in dealerIds) return false
+        if (dealerTest != null && (dealer == null || !dealerTest.test(dealer))) return false
+        if (vehicleIds != null && Dealership.normalizeId(vehicle.vehicleId) !in vehicleIds) return false
+        return vehicleTest == null || vehicleTest.test(vehicle)
+    }
+
+    /**
+     * Returns the query as a [Predicate] on single vehicles, such as for the filter of a [VehicleQuery].
+     */
+    fun asPredicate(): Predicate<Vehicle> = Predicate { matches(it) }
+
+    override fun toString(): String = text
+
+    private fun candidateDealerships(company: Company): List<Dealership> {
+        val ids = dealerIds ?: return company.listDealerships
+        return company.listDealerships.filter { it.dealerId in ids }
+    }
+
+    private fun candidateVehicles(dealer: Dealership): List<Vehicle> {
+        val ids = vehicleIds ?: return dealer.inventory
+        return ids.mapNotNull { dealer.findVehicleById(it) }
+    }
+
+    companion object {
+        private val DEFAULT_SELECT_KEYS: List<Key> = listOf(
+            Key.DEALERSHIP_ID, Key.VEHICLE_ID, Key.VEHICLE_TYPE, Key.VEHICLE_MANUFACTURER, Key.VEHICLE_MODEL,
+            Key.VEHICLE_PRICE, Key.VEHICLE_PRICE_UNIT, Key.VEHICLE_ACQUISITION_DATE, Key.VEHICLE_RENTAL_STATUS
+        )
+
+        /**
+         * Compiles the given query text.
+         *
+         * @param text The query, such as `vehicle_type = "SUV" and price < 30000`.
+         * @return The compiled query.
+         * @throws QuerySyntaxException If the text is not a valid query.
+         */
+        @JvmStatic
+        @Throws(QuerySyntaxException::class)
+        fun compile(text: String): InventoryQuery {
+            val parser = QueryParser(text)
+            val expr = parser.parse()
+            val conditions = if (expr is QueryExpr.And) expr.parts else listOf(expr)
+
+            var dealerIds: Set<String>? = null
+            var vehicleIds: Set<String>? = null
+            val dealerConditions = ArrayList<QueryExpr>()
+            val vehicleConditions = ArrayList<QueryExpr>()
+            for (condition in conditions) {
+                val ids = equalityValues(condition, Key.DEALERSHIP_ID)
+                val vIds = equalityValues(condition, Key.VEHICLE_ID)
+                when {
+                    ids != null -> dealerIds = dealerIds?.intersect(ids) ?: ids
+                    vIds != null -> {
+                        val normalized = vIds.mapTo(HashSet()) { Dealership.normalizeId(it) }
+                        vehicleIds = vehicleIds?.intersect(normalized) ?: normalized
+                        vehicleConditions.add(condition) // The index ignores case, so the exact check is still needed
+                    }
+                    condition.dealershipOnly() -> dealerConditions.add(condition)
+                    else -> vehicleConditions.add(condition)
+                }
+            }
+
+            return InventoryQuery(
+                text,
+                parser.selectKeys ?: DEFAULT_SELECT_KEYS,
+                dealerIds,
+                vehicleIds,
+                combine(dealerConditions) { compileDealer(it) },
+                combine(vehicleConditions) { compileVehicle(it) }
+            )
+        }
+
+        /**
+         * Returns the values a condition requires the given field to equal, or null if it
+         * is not an `=` or `in` condition on that field.
+         */
+        private fun equalityValues(condition: QueryExpr, key: Key): Set<String>? = when {
+            condition is QueryExpr.Compare && condition.key == key && condition.op == CompareOp.EQ ->
+                setOf(condition.value as String)
+            condition is QueryExpr.In && condition.key == key -> condition.values.mapTo(HashSet()) { it as String }
+            else -> null
+        }
+
+        private fun <T> combine(conditions: List<QueryExpr>, compile: (QueryExpr) -> Predicate<T>): Predicate<T>? {
+            if (conditions.isEmpty()) return null
+            return conditions.map(compile).reduce { a, b -> a.and(b) }
+        }
+
+        private fun compileDealer(expr: QueryExpr): Predicate<Dealership> {
+            return compile(expr) { key, dealer: Dealership -> key.extractValue(dealer) }
+        }
+
+        private fun compileVehicle(expr: QueryExpr): Predicate<Vehicle> {
+            return compile(expr) { key, vehicle: Vehicle ->
+                if (key in QueryExpr.DEALERSHIP_KEYS) vehicle.dealership?.let { key.extractValue(it) }
+                else key.extractValue(vehicle)
+            }
+        }
+
+        /**
+         * Turns a condition into a tree of [Predicate]s that read fields with the given function.
+         * Query values are converted once here, not for every vehicle.
+         */
+        private fun <T> compile(expr: QueryExpr, read: (Key, T) -> Any?): Predicate<T> = when (expr) {
+            is QueryExpr.And -> expr.parts.map { compile(it, read) }.reduce { a, b -> a.and(b) }
+            is QueryExpr.Or -> expr.parts.map { compile(it, read) }.reduce { a, b -> a.or(b) }
+            is QueryExpr.Not -> compile(expr.part, read).negate()
+            is QueryExpr.In -> {
+                val key = expr.key
+                val values = HashSet(expr.values)
+                Predicate { values.contains(read(key, it)) }
+            }
+            is QueryExpr.Compare -> {
+                val key = expr.key
+                val op = expr.op
+                val value = expr.value as Comparable<*> // The parser only produces comparable values
+                Predicate {
+                    val field = read(key, it) as? Comparable<*>
+                    field != null && op.accepts(compareValues(field, value))
+                }
+            }
+        }
+
+        private fun projectVehicle(vehicle: Vehicle, keys: List<Key>): Map<Key, Any> {
+            val map: MutableMap<Key, Any> = EnumMap(Key::class.java)
+            for (key in keys) {
+                val value = if (key in QueryExpr.DEALERSHIP_KEYS) {
+                    vehicle.dealership?.let { key.extractValue(it) }
+                } else {
+                    key.extractValue(vehicle)
+                }
+                if (value != null) map[key] = value
+            }
+            return map
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package javafiles.domainfiles
+
+import javafiles.Key
+import javafiles.ValidationCode
+import java.util.IdentityHashMap
+
+/**
+ * Works out and applies the difference between a feed of a dealership's full inventory and
+ * what the [Company] holds for it. See [Company.reconcileInventory].
+ *
+ * Each dealership in the feed is joined with its inventory on [Dealership.normalizeId] in
+ * two hash lookups per vehicle: the feed's vehicles are looked up in the dealership's ID index
+ * to find those added or changed, and the inventory is looked up in a map of the feed to find
+ * those removed. Nothing is changed until every dealership has been compared, and vehicles
+ * that were unchanged are never touched.
+ */
+internal class InventoryReconciler(private val company: Company, private val dryRun: Boolean) {
+    private val rejected = ArrayList<Map<Key, Any>>()
+    private val feeds = LinkedHashMap<String, DealerFeed>()
+
+    /**
+     * The feed for one dealership: the first map naming it, which gives its name and statuses
+     * if it has to be created, and its rows by normalized vehicle ID.
+     */
+    private class DealerFeed(val statusMap: Map<Key, Any>) {
+        val rows = LinkedHashMap<String, StagedInventory.StagedRow>()
+        var dealer: Dealership? = null
+        var created = false
+        val additions = ArrayList<Vehicle>()
+        val removals = ArrayList<Vehicle>()
+        val updates = ArrayList<Pair<Vehicle, StagedInventory.StagedRow>>()
+        val replacements = ArrayList<Vehicle>()
+    }
+
+    fun reconcile(staged: StagedInventory): ReconcileResult {
+        for (row in staged.rows()) {
+            groupRow(row)
+        }
+        for ((dealerId, feed) in feeds) {
+            feed.dealer = company.findDealership(dealerId)
+            diff(feed)
+        }
+        if (checkAdditions()) {
+            // Additions are rejected after the rows were grouped, so put the rejections back in row order.
+            val position = IdentityHashMap<Map<Key, Any>, Int>()
+            staged.rows().forEachIndexed { i, row -> position[row.map] = i }
+            rejected.sortBy { position[it] }
+        }
+
+        val added = feeds.values.flatMap { it.additions }
+        val removed = feeds.values.flatMap { it.removals }
+        val changed = if (dryRun) feeds.values.flatMap { feed -> feed.updates.map { it.first } } else apply()
+        val unchanged = feeds.values.sumOf { it.rows.size - it.additions.size - it.updates.size }
+        return ReconcileResult(dryRun, added, removed, changed, unchanged, rejected)
+    }
+
+    /**
+     * Adds the row to the feed of its dealership, or to [rejected] if it can not be reconciled.
+     */
+    private fun groupRow(row: StagedInventory.StagedRow) {
+        val map = row.map
+        if (map.containsKey(Key.REASON_FOR_ERROR)) {
+            rejected.add(map)
+            return
+        }
+        val dealerId = map[Key.DEALERSHIP_ID] as? String
+        if (dealerId == null) {
+            rejected.add(Key.addErrorReason(map, ValidationCode.MISSING_INFO, "No dealerID."))
+            return
+        }
+
+        val feed = feeds.getOrPut(dealerId) { DealerFeed(map) }
+        if (map[Key.DUMMY_VEHICLE] == true) {
+            return
+        }
+        val vehicle = row.vehicle
+        if (vehicle == null) {
+            Key.REASON_FOR_ERROR.putValid(map, row.result!!.toReason())
+            rejected.add(map)
+            return
+        }
+        if (feed.rows.putIfAbsent(Dealership.normalizeId(vehicle.vehicleId), row) != null) {
+            rejected.add(Key.addErrorReason(map, ValidationCode.VEHICLE_EXISTS,
+                "Vehicle ID: ${vehicle.vehicleId} is listed more than once for dealership $dealerId."))
+        }
+    }
+
+    /**
+     * Sorts the rows of the feed into additions, updates and unchanged vehicles, and finds the
+     * vehicles of the dealership that the feed no longer lists.
+     */
+    private fun diff(feed: DealerFeed) {
+        val indexed = feed.dealer?.indexedVehicles() ?: emptyMap()
+        for ((id, row) in feed.rows) {
+            val existing = indexed[id]
+            when {
+                existing == null -> feed.additions.add(row.vehicle!!)
+                differs(existing, row) -> feed.updates.add(Pair(existing, row))
+            }
+        }
+        for ((id, vehicle) in indexed) {
+            if (!feed.rows.containsKey(id)) feed.removals.add(vehicle)
+        }
+    }
+
+    /**
+     * Rejects the additions that can not be made: those already in a dealership that keeps
+     * them, those added to more than one dealership, and those sent to a dealership that is not
+     * receiving vehicles. A vehicle removed from one dealership of the feed can be added to
+     * another, which moves it.
+     *
+     * @return Whether any addition was rejected.
+     */
+    private fun checkAdditions(): Boolean {
+        var anyRejected = false
+        val removedIds = HashSet<String>()
+        feeds.values.forEach { feed -> feed.removals.forEach { removedIds.add(Dealership.normalizeId(it.vehicleId)) } }
+        val addedIds = HashSet<String>()
+
+        for (feed in feeds.values) {
+            val iterator = feed.additions.iterator()
+            while (iterator.hasNext()) {
+                val vehicle = iterator.next()
+                val id = Dealership.normalizeId(vehicle.vehicleId)
+                val problem = when {
+                    !addedIds.add(id) -> VehicleResult.invalid(ValidationCode.VEHICLE_EXISTS,
+                        "Vehicle ID: ${vehicle.vehicleId} is listed for more than one dealership.")
+                    id !in removedIds && company.listDealerships.any { it.inventoryContainsById(id) } ->
+                        VehicleResult.invalid(ValidationCode.VEHICLE_EXISTS,
+                            "Vehicle ID: ${vehicle.vehicleId} already exists in another dealership.")
+                    else -> feed.dealer?.checkIncomingVehicle(vehicle)
+                }
+                if (problem != null) {
+                    iterator.remove()
+                    val map = feed.rows.remove(id)!!.map
+                    Key.REASON_FOR_ERROR.putValid(map, problem.toReason())
+                    rejected.add(map)
+                    anyRejected = true
+                }
+            }
+        }
+        return anyRejected
+    }
+
+    /**
+     * Makes the changes worked out by [diff], removing every vehicle to be removed or replaced
+     * before adding any, so vehicles can move between dealerships of the feed.
+     *
+     * @return The changed vehicles as they are in the inventory afterwards.
+     */
+    private fun apply(): List<Vehicle> {
+        val changed = ArrayList<Vehicle>()
+
+        for ((dealerId, feed) in feeds) {
+            val dealer = feed.dealer ?: Dealership(dealerId, feed.statusMap[Key.DEALERSHIP_NAME] as? String ?: "").also {
+                company.addDealership(it)
+                feed.dealer = it
+                feed.created = true
+            }
+
+            val replaced = ArrayList<Vehicle>()
+            for ((existing, row) in feed.updates) {
+                val incoming = row.vehicle!!
+                if (needsReplacing(existing, incoming)) {
+                    replaced.add(existing)
+                    feed.replacements.add(replacement(existing, incoming, row.map))
+                } else {
+                    update(existing, incoming, row.map)
+                    changed.add(existing)
+                }
+            }
+            dealer.inventory.removeAll((feed.removals + replaced).toSet())
+        }
+
+        for (feed in feeds.values) {
+            feed.dealer!!.inventory.addAll(feed.replacements)
+            feed.dealer!!.inventory.addAll(feed.additions)
+            changed.addAll(feed.replacements)
+        }
+
+        // Statuses are only taken from the feed for dealerships it created, as for imports.
+        for (feed in feeds.values) {
+            if (!feed.created) continue
+            feed.dealer!!.rentingVehicles = feed.statusMap[Key.DEALERSHIP_RENTING_STATUS] as? Boolean ?: false
+            feed.dealer!!.statusAcquiringVehicle = feed.statusMap[Key.DEALERSHIP_RECEIVING_STATUS] as? Boolean ?: true
+        }
+        return changed
+    }
+
+    private companion object {
+        /**
+         * Returns whether the feed's row describes the vehicle differently. Optional fields are
+         * only compared when the row gives them, so a feed without them leaves them as they are.
+         */
+        private fun differs(existing: Vehicle, row: StagedInventory.StagedRow): Boolean {
+            val incoming = row.vehicle!!
+            val map = row.map
+            return needsReplacing(existing, incoming) ||
+                (map[Key.VEHICLE_MANUFACTURER] is String && existing.vehicleManufacturer != incoming.vehicleManufacturer) ||
+                (map[Key.VEHICLE_PRICE_UNIT] is String && existing.priceUnit != incoming.priceUnit) ||
+                (map[Key.VEHICLE_ACQUISITION_DATE] is Long && existing.acquisitionDate != incoming.acquisitionDate) ||
+                (map[Key.VEHICLE_RENTAL_STATUS] is Boolean && existing.rentalStatus != incoming.rentalStatus)
+        }
+
+        /**
+         * Returns whether the vehicles differ in a field that can not be changed on a [Vehicle],
+         * so the existing vehicle has to be replaced rather than updated.
+         */
+        private fun needsReplacing(existing: Vehicle, incoming: Vehicle): Boolean {
+            return existing.vehicleId != incoming.vehicleId || existing.vehicleType != incoming.vehicleType ||
+                existing.vehicleModel != incoming.vehicleModel || existing.vehiclePrice != incoming.vehiclePrice
+        }
+
+        /**
+         * Sets the optional fields that the row gives on the existing vehicle.
+         */
+        private fun update(existing: Vehicle, incoming: Vehicle, map: Map<Key, Any>) {
+            if (map[Key.VEHICLE_MANUFACTURER] is String) existing.vehicleManufacturer = incoming.vehicleManufacturer
+            if (map[Key.VEHICLE_PRICE_UNIT] is String) existing.priceUnit = incoming.priceUnit
+            if (map[Key.VEHICLE_ACQUISITION_DATE] is Long) existing.acquisitionDate = incoming.acquisitionDate
+            if (map[Key.VEHICLE_RENTAL_STATUS] is Boolean && existing.allowsRentalStatus(incoming.rentalStatus)) {
+                existing.rentalStatus = incoming.rentalStatus
+            }
+        }
+
+        /**
+         * Returns the incoming vehicle with the optional fields the row does not give, and the
+         * bookings, taken from the vehicle it replaces.
+         */
+        private fun replacement(existing: Vehicle, incoming: Vehicle, map: Map<Key, Any>): Vehicle {
+            if (map[Key.VEHICLE_MANUFACTURER] !is String) incoming.vehicleManufacturer = existing.vehicleManufacturer
+            if (map[Key.VEHICLE_PRICE_UNIT] !is String) incoming.priceUnit = existing.priceUnit
+            if (map[Key.VEHICLE_ACQUISITION_DATE] !is Long) incoming.acquisitionDate = existing.acquisitionDate
+            if (map[Key.VEHICLE_RENTAL_STATUS] !is Boolean && incoming.allowsRentalStatus(existing.rentalStatus)) {
+                incoming.rentalStatus = existing.rentalStatus
+            }
+            if (incoming.canBeRented) {
+                existing.getBookings().forEach { incoming.addBooking(Booking(incoming, it.start, it.end)) }
+            }
+            return incoming
+        }
+    }
+}
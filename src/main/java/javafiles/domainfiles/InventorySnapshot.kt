@@ -0,0 +1,49 @@
+package javafiles.domainfiles
+
+import javafiles.DealershipExport
+import javafiles.Key
+import javafiles.lazyMap
+import java.util.concurrent.atomic.AtomicBoolean
+
+/**
+ * A view of the dealerships of a [Company] as they were when it was opened with
+ * [Company.openSnapshot]. Changes made to the Company since, whether to which vehicles the
+ * dealerships hold or to the vehicles themselves, do not show in it. It can be read on any
+ * thread, and several snapshots can be open at once.
+ *
+ * A snapshot must be closed once read, after which it can no longer be read. Closing the last
+ * snapshot that needs the earlier data of a vehicle lets it be reclaimed.
+ */
+class InventorySnapshot internal constructor(
+    private val registry: SnapshotRegistry,
+    /**
+     * The version of this snapshot. Later snapshots of the same Company have higher versions.
+     */
+    val version: Long,
+    dealers: List<Pair<Map<Key, Any>, List<Vehicle>>>
+) : AutoCloseable {
+    private val closed = AtomicBoolean(false)
+
+    /**
+     * One export per dealership, in the order given when opened. The per-vehicle maps are
+     * built as they are read.
+     */
+    val dealerships: List<DealershipExport> = dealers.map { (dealerData, vehicles) ->
+        DealershipExport(dealerData, vehicles.lazyMap { vehicle ->
+            check(!closed.get()) { "Snapshot is closed" }
+            registry.dataAt(vehicle, version)
+        })
+    }
+
+    val isClosed: Boolean
+        get() = closed.get()
+
+    /**
+     * Closes the snapshot. Closing it again does nothing.
+     */
+    override fun close() {
+        if (closed.compareAndSet(false, true)) {
+            registry.close(version)
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package javafiles.domainfiles
+
+import java.util.function.BiConsumer
+
+/**
+ * An immutable map stored as a hash array mapped trie. [put] and [remove] return a new map and
+ * leave this one as it was, copying only the nodes on the path to the changed key, at most one
+ * per 5 bits of its hash. Everything else is shared with this map, so each new version of a map
+ * of n entries costs O(log32 n) time and memory, and many versions can be kept at once.
+ *
+ * Because versions share their unchanged nodes, [diff] can find the entries that differ between
+ * two versions of the same map without visiting the parts they share.
+ *
+ * Used for [Dealership.versionedInventory] and the versions kept by [InventoryHistory].
+ * Keys must not change their [hashCode] or [equals] while in the map.
+ */
+class PersistentHashMap<K : Any, V : Any> private constructor(
+    private val root: BitmapNode,
+    /**
+     * The number of entries in the map.
+     */
+    val size: Int
+) : Iterable<Map.Entry<K, V>> {
+
+    fun isEmpty(): Boolean = size == 0
+
+    /**
+     * Returns the value of the given key, or null if it is not in the map.
+     */
+    @Suppress("UNCHECKED_CAST")
+    operator fun get(key: K): V? = root.get(key, spread(key.hashCode()), 0) as V?
+
+    fun containsKey(key: K): Boolean = get(key) != null
+
+    /**
+     * Returns a map with the given value for the key. Returns this map if the key already has
+     * that same value.
+     */
+    fun put(key: K, value: V): PersistentHashMap<K, V> {
+        val edit = Edit()
+        val newRoot = root.put(Entry(spread(key.hashCode()), key, value), 0, edit) as BitmapNode
+        return if (newRoot === root) this else PersistentHashMap(newRoot, size + edit.sizeChange)
+    }
+
+    /**
+     * Returns a map without the given key. Returns this map if the key is not in it.
+     */
+    fun remove(key: K): PersistentHashMap<K, V> {
+        val edit = Edit()
+        val newRoot = root.remove(key, spread(key.hashCode()), 0, edit)
+        return when {
+            newRoot === root -> this
+            newRoot == null -> empty()
+            else -> PersistentHashMap(newRoot as BitmapNode, size + edit.sizeChange)
+        }
+    }
+
+    /**
+     * Finds the changes that turn this map into the other, calling [onRemoved] for each entry
+     * of this map that the other does not have with an equal value, and [onAdded] for each entry
+     * of the other that this map does not have. A key whose value differs is reported to both.
+     * Parts of the tries that the two maps share are skipped, so comparing two versions of a
+     * map takes time in proportion to the changes between them rather than to their size.
+     */
+    @Suppress("UNCHECKED_CAST")
+    fun diff(other: PersistentHashMap<K, V>, onRemoved: BiConsumer<K, V>, onAdded: BiConsumer<K, V>) {
+        diffSlots(root, other.root, { onRemoved.accept(it.key as K, it.value as V) }, { onAdded.accept(it.key as K, it.value as V) })
+    }
+
+    /**
+     * Calls [action] with each value of the map, in no set order.
+     */
+    @Suppress("UNCHECKED_CAST")
+    fun forEachValue(action: (V) -> Unit) {
+        root.forEachEntry { action(it.value as V) }
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    override fun iterator(): Iterator<Map.Entry<K, V>> {
+        val entries = ArrayList<Map.Entry<K, V>>(size)
+        root.forEachEntry { entries.add(it as Map.Entry<K, V>) }
+        return entries.iterator()
+    }
+
+    override fun toString(): String = joinToString(", ", "{", "}") { "${it.key}=${it.value}" }
+
+    private class Entry(val hash: Int, override val key: Any, override val value: Any) : Map.Entry<Any, Any>
+
+    /**
+     * How a [put] or [remove] changed the number of entries.
+     */
+    private class Edit {
+        var sizeChange = 0
+    }
+
+    /**
+     * A node of the trie. Each slot of a node is either an [Entry] or a child node.
+     */
+    private abstract class Node {
+        abstract fun get(key: Any, hash: Int, shift: Int): Any?
+
+        /**
+         * Returns the node with the entry put in, or this node if it was already there.
+         */
+        abstract fun put(entry: Entry, shift: Int, edit: Edit): Node
+
+        /**
+         * Returns the node without the key, this node if the key is not in it, or null if
+         * nothing is left.
+         */
+        abstract fun remove(key: Any, hash: Int, shift: Int, edit: Edit): Node?
+
+        /**
+         * Returns the only entry under this node, or null if there is more than one.
+         */
+        abstract fun singleEntry(): Entry?
+
+        abstract fun forEachEntry(action: (Entry) -> Unit)
+    }
+
+    /**
+     * A node with a slot for each 5 bits of hash, at [shift], that some key has. [bitmap] has
+     * a bit set for each such slot, and [slots] holds only those slots, in bit order.
+     */
+    private class BitmapNode(val bitmap: Int, val slots: Array<Any>) : Node() {
+        fun slotFor(bit: Int): Any? {
+            return if (bitmap and bit == 0) null else slots[Integer.bitCount(bitmap and (bit - 1))]
+        }
+
+        override fun get(key: Any, hash: Int, shift: Int): Any? {
+            return when (val slot = slotFor(bitFor(hash, shift))) {
+                null -> null
+                is Entry -> if (slot.hash == hash && slot.key == key) slot.value else null
+                else -> (slot as Node).get(key, hash, shift + BITS)
+            }
+        }
+
+        override fun put(entry: Entry, shift: Int, edit: Edit): Node {
+            val bit = bitFor(entry.hash, shift)
+            val index = Integer.bitCount(bitmap and (bit - 1))
+            if (bitmap and bit == 0) {
+                edit.sizeChange = 1
+                return BitmapNode(bitmap or bit, slots.inserted(index, entry))
+            }
+
+            val slot = slots[index]
+            if (slot is Entry) {
+                if (slot.hash == entry.hash && slot.key == entry.key) {
+                    return if (slot.value === entry.value) this else BitmapNode(bitmap, slots.replaced(index, entry))
+                }
+                edit.sizeChange = 1
+                return BitmapNode(bitmap, slots.replaced(index, branch(shift + BITS, slot, slot.hash, entry, entry.hash)))
+            }
+            val child = slot as Node
+            val newChild = child.put(entry, shift + BITS, edit)
+            return if (newChild === child) this else BitmapNode(bitmap, slots.replaced(index, newChild))
+        }
+
+        override fun remove(key: Any, hash: Int, shift: Int, edit: Edit): Node? {
+            val bit = bitFor(hash, shift)
+            if (bitmap and bit == 0) return this
+            val index = Integer.bitCount(bitmap and (bit - 1))
+
+            val newSlot: Any? = when (val slot = slots[index]) {
+                is Entry -> {
+                    if (slot.hash != hash || slot.key != key) return this
+                    edit.sizeChange = -1
+                    null
+                }
+                else -> {
+                    val child = slot as Node
+                    val newChild = child.remove(key, hash, shift + BITS, edit)
+                    if (newChild === child) return this
+                    // A child left with one entry is replaced by the entry, so the trie stays as shallow as it can.
+                    newChild?.singleEntry() ?: newChild
+                }
+            }
+
+            return when {
+                newSlot != null -> BitmapNode(bitmap, slots.replaced(index, newSlot))
+                slots.size == 1 -> null
+                else -> BitmapNode(bitmap xor bit, slots.removed(index))
+            }
+        }
+
+        override fun singleEntry(): Entry? = if (slots.size == 1) slots[0] as? Entry else null
+
+        override fun forEachEntry(action: (Entry) -> Unit) {
+            for (slot in slots) {
+                if (slot is Entry) action(slot) else (slot as Node).forEachEntry(action)
+            }
+        }
+    }
+
+    /**
+     * A node holding the entries whose keys have the same full hash.
+     */
+    private class CollisionNode(val hash: Int, val entries: Array<Entry>) : Node() {
+        override fun get(key: Any, hash: Int, shift: Int): Any? {
+            if (hash != this.hash) return null
+            return entries.find { it.key == key }?.value
+        }
+
+        override fun put(entry: Entry, shift: Int, edit: Edit): Node {
+            if (entry.hash != hash) {
+                edit.sizeChange = 1
+                return branch(shift, this, hash, entry, entry.hash)
+            }
+            val index = entries.indexOfFirst { it.key == entry.key }
+            if (index < 0) {
+                edit.sizeChange = 1
+                return CollisionNode(hash, entries + entry)
+            }
+            if (entries[index].value === entry.value) return this
+            return CollisionNode(hash, entries.copyOf().also { it[index] = entry })
+        }
+
+        override fun remove(key: Any, hash: Int, shift: Int, edit: Edit): Node? {
+            if (hash != this.hash) return this
+            val index = entries.indexOfFirst { it.key == key }
+            if (index < 0) return this
+            edit.sizeChange = -1
+            if (entries.size == 1) return null
+            return CollisionNode(hash, entries.filterIndexed { i, _ -> i != index }.toTypedArray())
+        }
+
+        override fun singleEntry(): Entry? = if (entries.size == 1) entries[0] else null
+
+        override fun forEachEntry(action: (Entry) -> Unit) {
+            entries.forEach(action)
+        }
+    }
+
+    companion object {
+        private const val BITS = 5
+        private const val MASK = (1 shl BITS) - 1
+        private val EMPTY = PersistentHashMap<Any, Any>(BitmapNode(0, emptyArray()), 0)
+
+        /**
+         * Returns the empty map. Every empty map is the same object.
+         */
+        @JvmStatic
+        @Suppress("UNCHECKED_CAST")
+        fun <K : Any, V : Any> empty(): PersistentHashMap<K, V> = EMPTY as PersistentHashMap<K, V>
+
+        /**
+         * Mixes the high bits of a hash code into the low bits, which pick the slots nearest
+         * the root.
+         */
+        private fun spread(hashCode: Int): Int = hashCode xor (hashCode ushr 16)
+
+        private fun bitFor(hash: Int, shift: Int): Int = 1 shl ((hash ushr shift) and MASK)
+
+        /**
+         * Returns a node at [shift] holding two slots, each an [Entry] or [CollisionNode], whose
+         * hashes are given. Adds a node for each level at which the hashes have the same bits.
+         */
+        private fun branch(shift: Int, a: Any, aHash: Int, b: Any, bHash: Int): Node {
+            if (aHash == bHash) {
+                return CollisionNode(aHash, arrayOf(a as Entry, b as Entry))
+            }
+            val aIndex = (aHash ushr shift) and MASK
+            val bIndex = (bHash ushr shift) and MASK
+            return when {
+                aIndex == bIndex -> BitmapNode(1 shl aIndex, arrayOf(branch(shift + BITS, a, aHash, b, bHash)))
+                aIndex < bIndex -> BitmapNode((1 shl aIndex) or (1 shl bIndex), arrayOf(a, b))
+                else -> BitmapNode((1 shl aIndex) or (1 shl bIndex), arrayOf(b, a))
+            }
+        }
+
+        /**
+         * Compares two slots at the same place in two tries. Two [BitmapNode]s are compared
+         * slot by slot, skipping slots they share; anything else holds few entries, which are
+         * compared directly.
+         */
+        private fun diffSlots(a: Any?, b: Any?, onRemoved: (Entry) -> Unit, onAdded: (Entry) -> Unit) {
+            if (a === b) return
+            if (a is BitmapNode && b is BitmapNode) {
+                var bits = a.bitmap or b.bitmap
+                while (bits != 0) {
+                    val bit = Integer.lowestOneBit(bits)
+                    bits = bits xor bit
+                    diffSlots(a.slotFor(bit), b.slotFor(bit), onRemoved, onAdded)
+                }
+                return
+            }
+
+            val before = entriesOf(a)
+            val after = entriesOf(b)
+            for (entry in before) {
+                val match = after.find { it.key == entry.key }
+                if (match == null || match.value != entry.value) onRemoved(entry)
+            }
+            for (entry in after) {
+                val match = before.find { it.key == entry.key }
+                if (match == null || match.value != entry.value) onAdded(entry)
+            }
+        }
+
+        private fun entriesOf(slot: Any?): List<Entry> {
+            return when (slot) {
+                null -> emptyList()
+                is Entry -> listOf(slot)
+                else -> ArrayList<Entry>().also { entries -> (slot as Node).forEachEntry { entries.add(it) } }
+            }
+        }
+
+        private fun Array<Any>.inserted(index: Int, element: Any): Array<Any> {
+            val copy = arrayOfNulls<Any>(size + 1)
+            System.arraycopy(this, 0, copy, 0, index)
+            copy[index] = element
+            System.arraycopy(this, index, copy, index + 1, size - index)
+            @Suppress("UNCHECKED_CAST")
+            return copy as Array<Any>
+        }
+
+        private fun Array<Any>.replaced(index: Int, element: Any): Array<Any> {
+            return copyOf().also { it[index] = element }
+        }
+
+        private fun Array<Any>.removed(index: Int): Array<Any> {
+            val copy = arrayOfNulls<Any>(size - 1)
+            System.arraycopy(this, 0, copy, 0, index)
+            System.arraycopy(this, index + 1, copy, index, size - index - 1)
+            @Suppress("UNCHECKED_CAST")
+            return copy as Array<Any>
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package javafiles.domainfiles
+
+import javafiles.Key
+import javafiles.customexceptions.QuerySyntaxException
+
+/**
+ * A parsed condition of an [InventoryQuery].
+ */
+internal sealed class QueryExpr {
+    class And(val parts: List<QueryExpr>) : QueryExpr()
+    class Or(val parts: List<QueryExpr>) : QueryExpr()
+    class Not(val part: QueryExpr) : QueryExpr()
+    class Compare(val key: Key, val op: CompareOp, val value: Any) : QueryExpr()
+    class In(val key: Key, val values: List<Any>) : QueryExpr()
+
+    /**
+     * Returns whether every field this condition reads belongs to the [Dealership] rather
+     * than the [Vehicle], so it can be checked once per dealership.
+     */
+    fun dealershipOnly(): Boolean = when (this) {
+        is And -> parts.all { it.dealershipOnly() }
+        is Or -> parts.all { it.dealershipOnly() }
+        is Not -> part.dealershipOnly()
+        is Compare -> key in DEALERSHIP_KEYS
+        is In -> key in DEALERSHIP_KEYS
+    }
+
+    companion object {
+        val DEALERSHIP_KEYS: Set<Key> = setOf(
+            Key.DEALERSHIP_ID, Key.DEALERSHIP_NAME, Key.DEALERSHIP_RECEIVING_STATUS, Key.DEALERSHIP_RENTING_STATUS
+        )
+    }
+}
+
+internal enum class CompareOp(val symbol: String) {
+    EQ("="), NE("!="), LT("<"), LE("<="), GT(">"), GE(">=");
+
+    /**
+     * Returns whether a field that compares to the query value with the given result of
+     * [compareTo] passes this comparison.
+     */
+    fun accepts(comparison: Int): Boolean = when (this) {
+        EQ -> comparison == 0
+        NE -> comparison != 0
+        LT -> comparison < 0
+        LE -> comparison <= 0
+        GT -> comparison > 0
+        GE -> comparison >= 0
+    }
+}
+
+/**
+ * Parses the text of an [InventoryQuery]:
+ *
+ * ```
+ * query      := [select field (, field)* where] condition
+ * condition  := and (or and)*
+ * and        := not (and not)*
+ * not        := not not | ( condition ) | comparison
+ * comparison := field op value | field in ( value (, value)* )
+ * op         := = | != | < | <= | > | >=
+ * value      := "text" | 'text' | number | true | false
+ * ```
+ *
+ * Fields are the [Key.key] names of the vehicle and dealership [Key]s, and keywords may be in
+ * any case. Values are checked against the type of their field as they are parsed.
+ */
+internal class QueryParser(private val text: String) {
+    private val tokens: List<Token> = tokenize()
+    private var next = 0
+
+    /**
+     * The fields after select, or null if the query has no select.
+     */
+    var selectKeys: List<Key>? = null
+        private set
+
+    @Throws(QuerySyntaxException::class)
+    fun parse(): QueryExpr {
+        if (peekWord("select")) {
+            next++
+            val keys = ArrayList<Key>()
+            do {
+                keys.add(field())
+            } while (accept(TokenType.COMMA))
+            selectKeys = keys
+            if (!peekWord("where")) throw error("Expected where")
+            next++
+        }
+        val expr = orExpr()
+        if (peek().type != TokenType.END) throw error("Unexpected '${peek().text}'")
+        return expr
+    }
+
+    private fun orExpr(): QueryExpr {
+        val parts = mutableListOf(andExpr())
+        while (peekWord("or")) {
+            next++
+            parts.add(andExpr())
+        }
+        return if (parts.size == 1) parts[0] else QueryExpr.Or(parts)
+    }
+
+    private fun andExpr(): QueryExpr {
+        val parts = mutableListOf(notExpr())
+        while (peekWord("and")) {
+            next++
+            parts.add(notExpr())
+        }
+        return if (parts.size == 1) parts[0] else QueryExpr.And(parts)
+    }
+
+    private fun notExpr(): QueryExpr {
+        if (peekWord("not")) {
+            next++
+            return QueryExpr.Not(notExpr())
+        }
+        if (accept(TokenType.OPEN)) {
+            val expr = orExpr()
+            expect(TokenType.CLOSE, "Expected ')'")
+            return expr
+        }
+        return comparison()
+    }
+
+    private fun comparison(): QueryExpr {
+        val key = field()
+        if (peekWord("in")) {
+            next++
+            expect(TokenType.OPEN, "Expected '(' after in")
+            val values = ArrayList<Any>()
+            do {
+                values.add(value(key))
+            } while (accept(TokenType.COMMA))
+            expect(TokenType.CLOSE, "Expected ')'")
+            return QueryExpr.In(key, values)
+        }
+
+        val token = peek()
+        val op = CompareOp.entries.find { it.symbol == token.text && token.type == TokenType.OP }
+            ?: throw error("Expected a comparison after ${key.key}")
+        next++
+        val value = value(key)
+        if (value is Boolean && op != CompareOp.EQ && op != CompareOp.NE) {
+            throw error("${key.key} can only be compared with = or !=", token)
+        }
+        return QueryExpr.Compare(key, op, value)
+    }
+
+    private fun field(): Key {
+        val token = peek()
+        if (token.type != TokenType.WORD) throw error("Expected a field name")
+        next++
+        return FIELDS[token.text.lowercase()] ?: throw error("Unknown field '${token.text}'", token)
+    }
+
+    /**
+     * Parses a value and checks that it has the type of the given field.
+     */
+    private fun value(key: Key): Any {
+        val token = peek()
+        next++
+        val value: Any = when {
+            token.type == TokenType.STRING -> token.text
+            token.type == TokenType.NUMBER -> token.text.toLongOrNull() ?: throw error("Number too large", token)
+            token.type == TokenType.WORD && token.text.lowercase() in BOOLEANS -> token.text.lowercase().toBoolean()
+            else -> throw error("Expected a value", token)
+        }
+        if (!key.clazz.isInstance(value)) {
+            throw error("${key.key} needs a ${key.clazz.simpleName} value", token)
+        }
+        return value
+    }
+
+    private fun peek(): Token = tokens[next]
+
+    private fun peekWord(word: String): Boolean {
+        val token = peek()
+        return token.type == TokenType.WORD && token.text.equals(word, ignoreCase = true)
+    }
+
+    private fun accept(type: TokenType): Boolean {
+        if (peek().type != type) return false
+        next++
+        return true
+    }
+
+    private fun expect(type: TokenType, message: String) {
+        if (!accept(type)) throw error(message)
+    }
+
+    private fun error(message: String, token: Token = peek()): QuerySyntaxException {
+        return QuerySyntaxException(message, token.position)
+    }
+
+    private fun tokenize(): List<Token> {
+        val tokens = ArrayList<Token>()
+        var i = 0
+        while (i < text.length) {
+            val c = text[i]
+            val start = i
+            when {
+                c.isWhitespace() -> i++
+                c == '(' -> tokens.add(Token(TokenType.OPEN, "(", i++))
+                c == ')' -> tokens.add(Token(TokenType.CLOSE, ")", i++))
+                c == ',' -> tokens.add(Token(TokenType.COMMA, ",", i++))
+                c == '"' || c == '\'' -> {
+                    val value = StringBuilder()
+                    i++
+                    while (i < text.length && text[i] != c) {
+                        if (text[i] == '\\' && i + 1 < text.length) i++
+                        value.append(text[i++])
+                    }
+                    if (i == text.length) throw QuerySyntaxException("Unclosed string", start)
+                    i++
+                    tokens.add(Token(TokenType.STRING, value.toString(), start))
+                }
+                c.isDigit() || (c == '-' && i + 1 < text.length && text[i + 1].isDigit()) -> {
+                    i++
+                    while (i < text.length && (text[i].isDigit() || text[i] == '_')) i++
+                    tokens.add(Token(TokenType.NUMBER, text.substring(start, i).replace("_", ""), start))
+                }
+                c.isLetter() || c == '_' -> {
+                    while (i < text.length && (text[i].isLetterOrDigit() || text[i] == '_')) i++
+                    tokens.add(Token(TokenType.WORD, text.substring(start, i), start))
+                }
+                c in "=!<>" -> {
+                    i++
+                    if (i < text.length && text[i] == '=' || (c == '<' && i < text.length && text[i] == '>')) i++
+                    val op = when (val symbol = text.substring(start, i)) {
+                        "==" -> "="
+                        "<>" -> "!="
+                        else -> symbol
+                    }
+                    if (op == "!") throw QuerySyntaxException("Expected '!='", start)
+                    tokens.add(Token(TokenType.OP, op, start))
+                }
+                else -> throw QuerySyntaxException("Unexpected character '$c'", start)
+            }
+        }
+        tokens.add(Token(TokenType.END, "end of query", text.length))
+        return tokens
+    }
+
+    private enum class TokenType { WORD, STRING, NUMBER, OP, OPEN, CLOSE, COMMA, END }
+
+    private class Token(val type: TokenType, val text: String, val position: Int)
+
+    companion object {
+        private val BOOLEANS = setOf("true", "false")
+
+        /**
+         * The [Key]s that can be queried, by name. Keys without a value on a vehicle or
+         * dealership, such as [Key.REASON_FOR_ERROR], are left out.
+         */
+        private val FIELDS: Map<String, Key> = (QueryExpr.DEALERSHIP_KEYS + listOf(
+            Key.VEHICLE_TYPE, Key.VEHICLE_MANUFACTURER, Key.VEHICLE_MODEL, Key.VEHICLE_ID,
+            Key.VEHICLE_RENTAL_STATUS, Key.VEHICLE_PRICE, Key.VEHICLE_PRICE_UNIT, Key.VEHICLE_ACQUISITION_DATE
+        )).associateBy { it.key }
+    }
+}
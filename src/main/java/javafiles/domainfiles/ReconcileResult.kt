@@ -0,0 +1,47 @@
+package javafiles.domainfiles
+
+import javafiles.Key
+
+/**
+ * What [Company.reconcileInventory] found when comparing a feed with the inventory of the
+ * dealerships named in it, and, unless it was a dry run, what it changed.
+ */
+class ReconcileResult internal constructor(
+    /**
+     * Whether the inventory was left as it was.
+     */
+    val dryRun: Boolean,
+    /**
+     * The vehicles in the feed that were not in their dealership's inventory.
+     */
+    val added: List<Vehicle>,
+    /**
+     * The vehicles in the inventory of a dealership in the feed that the feed no longer lists.
+     */
+    val removed: List<Vehicle>,
+    /**
+     * The vehicles whose data in the feed differs from the inventory. These are the vehicles
+     * in the inventory once the changes are made, or those that would change for a dry run.
+     */
+    val changed: List<Vehicle>,
+    /**
+     * The number of vehicles in the feed that matched the inventory exactly.
+     */
+    val unchangedCount: Int,
+    /**
+     * The maps of the feed that could not be reconciled, each with a [Key.REASON_FOR_ERROR],
+     * in the order of the feed.
+     */
+    val rejected: List<Map<Key, Any>>
+) {
+    /**
+     * Whether the feed differs from the inventory at all, not counting rejected maps.
+     */
+    val hasChanges: Boolean
+        get() = added.isNotEmpty() || removed.isNotEmpty() || changed.isNotEmpty()
+
+    override fun toString(): String {
+        return "${added.size} added, ${removed.size} removed, ${changed.size} changed, " +
+               "$unchangedCount unchanged, ${rejected.size} rejected"
+    }
+}
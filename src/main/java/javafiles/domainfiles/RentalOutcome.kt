@@ -0,0 +1,37 @@
+package javafiles.domainfiles
+
+/**
+ * The result for one vehicle of [Dealership.updateRentalStatuses].
+ */
+enum class RentalOutcome {
+    /**
+     * The rental status was changed.
+     */
+    CHANGED,
+
+    /**
+     * The vehicle already had the requested rental status.
+     */
+    UNCHANGED,
+
+    /**
+     * No vehicle with the ID is in the dealership's inventory.
+     */
+    NOT_FOUND,
+
+    /**
+     * The vehicle's [RentalStrategy] does not allow the change, such as for a [SportsCar].
+     */
+    NOT_ALLOWED,
+
+    /**
+     * The vehicle could not be rented because the dealership is not renting vehicles.
+     */
+    DEALERSHIP_NOT_RENTING;
+
+    /**
+     * Whether the vehicle has the requested rental status after the update.
+     */
+    val succeeded: Boolean
+        get() = this == CHANGED || this == UNCHANGED
+}
@@ -17,4 +17,21 @@ interface RentalStrategy {
      */
     @Throws(RentalException::class)
     fun updateTo(value: Boolean)
+
+    /**
+     * Returns whether the rental status may be changed to the given value, without throwing.
+     * By default this tries [updateTo], so strategies only need to override it if they can
+     * answer without an exception.
+     *
+     * @param value The new value of the rental status.
+     * @return Whether [updateTo] would allow the change.
+     */
+    fun allowsUpdateTo(value: Boolean): Boolean {
+        return try {
+            updateTo(value)
+            true
+        } catch (e: RentalException) {
+            false
+        }
+    }
 }
@@ -0,0 +1,137 @@
+package javafiles.domainfiles
+
+import javafiles.Key
+import javafiles.metricsfiles.Metrics
+import java.util.Collections
+import java.util.IdentityHashMap
+import java.util.TreeSet
+
+/**
+ * The data of a [Vehicle] before a change, kept for the [InventorySnapshot]s that were opened
+ * before it. It is the vehicle's data for every snapshot version up to [until] and above the
+ * [until] of the [older] version.
+ */
+internal class VehicleVersion(val until: Long, val data: Map<Key, Any>, val older: VehicleVersion?)
+
+/**
+ * Keeps track of the open [InventorySnapshot]s of a [Company], and of the earlier data of its
+ * vehicles that they still need. See [Company.openSnapshot].
+ *
+ * Nothing is copied while no snapshot is open. While one is, the first change to a vehicle
+ * saves the vehicle's data as it was, as a [VehicleVersion] tagged with the newest open
+ * snapshot, so the change is only paid for once however many snapshots are open. A snapshot
+ * reads the oldest saved version made after it was opened, or the vehicle itself if none was.
+ * Versions no open snapshot can read are dropped as snapshots close.
+ */
+internal class SnapshotRegistry {
+    /**
+     * The version of the last snapshot opened. Guarded by this.
+     */
+    private var clock = 0L
+
+    /**
+     * The versions of the open snapshots. Guarded by this.
+     */
+    private val open = TreeSet<Long>()
+
+    /**
+     * The version of the newest open snapshot, or 0 if none is open.
+     */
+    @Volatile
+    private var newestOpen = 0L
+
+    /**
+     * The vehicles holding saved versions. Guarded by this.
+     */
+    private val versioned: MutableSet<Vehicle> = Collections.newSetFromMap(IdentityHashMap())
+
+    /**
+     * Registers a new snapshot and returns its version.
+     */
+    @Synchronized
+    fun open(): Long {
+        val version = ++clock
+        open.add(version)
+        newestOpen = version
+        return version
+    }
+
+    /**
+     * Unregisters the snapshot of the given version, and drops the saved versions that no
+     * open snapshot can read any more.
+     */
+    @Synchronized
+    fun close(version: Long) {
+        if (!open.remove(version)) return
+        newestOpen = if (open.isEmpty()) 0L else open.last()
+
+        val iterator = versioned.iterator()
+        while (iterator.hasNext()) {
+            val vehicle = iterator.next()
+            vehicle.versions = if (open.isEmpty()) null else prune(vehicle.versions)
+            if (vehicle.versions == null) iterator.remove()
+        }
+    }
+
+    /**
+     * Called by [Vehicle] before a field saved with it changes, on the thread making the change.
+     * Saves the vehicle's data if an open snapshot can still see it.
+     */
+    fun beforeChange(vehicle: Vehicle) {
+        if (newestOpen == 0L) return
+        if ((vehicle.versions?.until ?: 0L) >= newestOpen) return // Already changed since the newest snapshot.
+
+        synchronized(this) {
+            val newest = newestOpen
+            val head = vehicle.versions
+            if (newest == 0L || (head?.until ?: 0L) >= newest) return
+            vehicle.versions = VehicleVersion(newest, vehicle.getDataMap(), head)
+            versioned.add(vehicle)
+        }
+        Metrics.counter("snapshot.vehicleVersions").increment()
+    }
+
+    /**
+     * Returns the data of the vehicle as it was when the snapshot of the given version was
+     * opened. Can be called on any thread while that snapshot is open.
+     */
+    fun dataAt(vehicle: Vehicle, version: Long): Map<Key, Any> {
+        find(vehicle.versions, version)?.let { return it }
+        val live = vehicle.getDataMap()
+        // If the vehicle changed while it was being read, its earlier data was saved first.
+        return find(vehicle.versions, version) ?: live
+    }
+
+    /**
+     * Returns the versions of the chain that an open snapshot can read. Guarded by this.
+     */
+    private fun prune(head: VehicleVersion?): VehicleVersion? {
+        val kept = ArrayList<VehicleVersion>()
+        var dropped = false
+        var node = head
+        while (node != null) {
+            val reader = open.higher(node.older?.until ?: 0L)
+            if (reader != null && reader <= node.until) kept.add(node) else dropped = true
+            node = node.older
+        }
+        if (!dropped) return head
+
+        var rebuilt: VehicleVersion? = null
+        for (version in kept.asReversed()) {
+            rebuilt = VehicleVersion(version.until, version.data, rebuilt)
+        }
+        return rebuilt
+    }
+
+    private companion object {
+        private fun find(head: VehicleVersion?, version: Long): Map<Key, Any>? {
+            var found: VehicleVersion? = null
+            var node = head
+            while (node != null && node.until >= version) {
+                found = node
+                node = node.older
+            }
+            return found?.data
+        }
+    }
+}
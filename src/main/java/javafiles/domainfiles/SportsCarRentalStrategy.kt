@@ -21,4 +21,12 @@ class SportsCarRentalStrategy : RentalStrategy {
     override fun updateTo(value: Boolean) {
         throw SportsCarRentalNotAllowedException("Sports car rental features cannot be changed")
     }
+
+    /**
+     * Sports cars never allow the rental status to change.
+     *
+     * @param value The new value of the rental status.
+     * @return false.
+     */
+    override fun allowsUpdateTo(value: Boolean): Boolean = false
 }
@@ -0,0 +1,83 @@
+package javafiles.domainfiles
+
+import javafiles.Key
+import javafiles.metricsfiles.Metrics
+import java.util.stream.IntStream
+
+/**
+ * Vehicle data read from a file that has been prepared to be added to a [Company] by
+ * [Company.commitInventory], without having touched the [Company] yet.
+ *
+ * Staging does the expensive, independent part of an import (creating and validating each
+ * [Vehicle]) so that it can run on a background thread. Committing then only has to check the
+ * staged vehicles against the [Company] and add them, which is quick and happens all at once.
+ */
+class StagedInventory {
+    private val rows: MutableList<StagedRow> = ArrayList()
+
+    /**
+     * The number of rows that have been staged.
+     */
+    val size: Int
+        get() = rows.size
+
+    /**
+     * Stages a single map of vehicle data. The [Vehicle] is created straight away, unless the
+     * map is already known to be bad or describes a dealership without a vehicle. If the vehicle
+     * can not be created, the reason is kept and reported when the row is committed. Bad rows
+     * are found with [VehicleFactory.validate], so no exception is thrown for them.
+     *
+     * @param map The map of vehicle data to stage.
+     */
+    fun stage(map: MutableMap<Key, Any>) {
+        rows.add(stageRow(map))
+    }
+
+    /**
+     * Stages every map in the given list, in order. Large lists are staged on all cores, since
+     * each vehicle is created independently of the others.
+     *
+     * @param maps The maps of vehicle data to stage.
+     */
+    fun stageAll(maps: List<MutableMap<Key, Any>>) {
+        if (maps.size < PARALLEL_THRESHOLD) {
+            maps.forEach { stage(it) }
+            return
+        }
+        val staged = arrayOfNulls<StagedRow>(maps.size)
+        IntStream.range(0, maps.size).parallel().forEach { staged[it] = stageRow(maps[it]) }
+        staged.mapTo(rows) { it!! }
+    }
+
+    private fun stageRow(map: MutableMap<Key, Any>): StagedRow {
+        Metrics.counter("inventory.staged").increment()
+        if (map.containsKey(Key.REASON_FOR_ERROR) || map[Key.DEALERSHIP_ID] !is String ||
+            map[Key.DUMMY_VEHICLE] == true) {
+            return StagedRow(map, null)
+        }
+
+        return StagedRow(map, vehicleFactory.validate(map))
+    }
+
+    internal fun rows(): List<StagedRow> {
+        return rows
+    }
+
+    /**
+     * A single staged map along with the [VehicleResult] of creating a [Vehicle] from it, or
+     * null if no vehicle was to be created.
+     */
+    internal class StagedRow(val map: MutableMap<Key, Any>, val result: VehicleResult?) {
+        val vehicle: Vehicle?
+            get() = result?.vehicle
+    }
+
+    companion object {
+        private val vehicleFactory: VehicleFactory = VehicleCreator.instance // Singleton
+
+        /**
+         * Below this many maps, splitting the work across threads costs more than it saves.
+         */
+        private const val PARALLEL_THRESHOLD = 4096
+    }
+}
@@ -40,31 +40,104 @@ abstract class Vehicle(
     /**
      * The name of the vehicle's manufacturer. Defaults to "Unknown".
      */
+    @Volatile
     var vehicleManufacturer: String = "Unknown"
+        set(value) {
+            if (field != value) {
+                beforeChange()
+                dealership?.markChanged()
+            }
+            field = value
+        }
 
     /**
      * The unit of currency for the vehicle's price. Defaults to "dollars".
      */
+    @Volatile
     var priceUnit: String = "dollars"
+        set(value) {
+            val old = field
+            if (old != value) beforeChange()
+            field = value
+            if (old != value) {
+                dealership?.aggregates?.priceUnitChanged(vehiclePrice, old, value)
+                dealership?.markChanged()
+            }
+        }
 
     /**
      * The acquisition date of the vehicle as a Unix timestamp (milliseconds since epoch).
      * Can be null if the acquisition date is not yet set.
      */
+    @Volatile
     var acquisitionDate: Long? = null
+        set(value) {
+            if (field != value) {
+                beforeChange()
+                dealership?.markChanged()
+            }
+            field = value
+        }
+
+    /**
+     * The [Dealership] whose inventory currently holds this vehicle, or null if it is not in
+     * any inventory. Kept up to date by [Dealership.inventory] on every add, removal and
+     * transfer, so finding the owner of a vehicle does not require a search.
+     */
+    var dealership: Dealership? = null
+        internal set
 
     /**
      * Indicates whether the vehicle is currently rented.
      */
+    @Volatile
     var rentalStatus: Boolean = false
         @Throws(RentalException::class)
         set(value) {
             if (value != rentalStatus) {
                 rentalStrategy.updateTo(value)
+                beforeChange()
                 field = value
+                dealership?.aggregates?.rentalChanged(value)
+                dealership?.markChanged()
             }
         }
 
+    /**
+     * Earlier data of this vehicle kept for open [InventorySnapshot]s, newest first. Only
+     * changed by [SnapshotRegistry].
+     */
+    @Volatile
+    internal var versions: VehicleVersion? = null
+
+    /**
+     * Lets the open [InventorySnapshot]s of the Company keep this vehicle's data before one of
+     * its fields changes. The fields are volatile, so a snapshot reading them on another thread
+     * sees the saved data whenever it sees a change.
+     */
+    private fun beforeChange() {
+        dealership?.snapshots?.beforeChange(this)
+    }
+
+    /**
+     * The bookings of this vehicle by start time. Bookings of a vehicle never overlap, so
+     * sorted by start they are also sorted by end, and the only booking that can overlap a
+     * time is the last one starting before that time ends.
+     */
+    private val bookings: TreeMap<Long, Booking> = TreeMap()
+
+    /**
+     * Whether the [RentalStrategy] of this vehicle allows it to be rented or booked at all.
+     */
+    val canBeRented: Boolean
+        get() = allowsRentalStatus(true)
+
+    /**
+     * Returns whether the [RentalStrategy] of this vehicle allows [rentalStatus] to be set to
+     * the given value, without throwing.
+     */
+    fun allowsRentalStatus(value: Boolean): Boolean = rentalStrategy.allowsUpdateTo(value)
+
     init {
         require(vehicleId.isNotBlank()) { "Vehicle ID cannot be blank" }
         require(vehicleModel.isNotBlank()) { "Vehicle model cannot be blank" }
@@ -91,6 +164,47 @@ abstract class Vehicle(
             }
         } ?: ""
 
+    /**
+     * Returns the bookings of this vehicle, ordered by start time.
+     */
+    fun getBookings(): List<Booking> = ArrayList(bookings.values)
+
+    /**
+     * Returns whether this vehicle has no booking covering any time from start up to, but not
+     * including, end. Takes logarithmic time in the number of bookings of the vehicle.
+     *
+     * @param start The start of the time, in milliseconds since epoch.
+     * @param end The end of the time, in milliseconds since epoch.
+     */
+    fun isFreeBetween(start: Long, end: Long): Boolean {
+        val last = bookings.lowerEntry(end) ?: return true
+        return last.value.end <= start
+    }
+
+    /**
+     * Checks with the [RentalStrategy] that this vehicle can be booked.
+     *
+     * @throws RentalException If the [RentalStrategy] does not allow the vehicle to be rented.
+     */
+    @Throws(RentalException::class)
+    internal fun checkBookable() {
+        rentalStrategy.updateTo(true)
+    }
+
+    /**
+     * Adds the given booking, which must not overlap any other.
+     */
+    internal fun addBooking(booking: Booking) {
+        bookings[booking.start] = booking
+    }
+
+    /**
+     * Removes the given booking, returning whether it was one of this vehicle's bookings.
+     */
+    internal fun removeBooking(booking: Booking): Boolean {
+        return bookings.remove(booking.start, booking)
+    }
+
     /**
      * Retrieves Vehicle data and returns a [Map] with the given data.
      * Each key-value pair in the map represents an attribute of the vehicle.
@@ -1,6 +1,7 @@
 package javafiles.domainfiles
 
 import javafiles.Key
+import javafiles.ValidationCode
 import javafiles.customexceptions.InvalidPriceException
 import javafiles.customexceptions.InvalidVehicleTypeException
 import javafiles.customexceptions.MissingCriticalInfoException
@@ -50,29 +51,38 @@ class VehicleCreator private constructor() // Private constructor
      * @throws InvalidVehicleTypeException If the vehicle type is not supported.
      */
     override fun createVehicle(type: String?, id: String?, model: String?, price: Long?): Vehicle {
+        return buildVehicle(type, id, model, price).getOrThrow()
+    }
+
+    /**
+     * Checks the given values and creates the [Vehicle] they describe, reporting any problem
+     * in the returned [VehicleResult].
+     */
+    private fun buildVehicle(type: String?, id: String?, model: String?, price: Long?): VehicleResult {
         if (type == null) {
-            throw InvalidVehicleTypeException("Null Vehicle type.")
+            return VehicleResult.invalid(ValidationCode.INVALID_TYPE, "Null Vehicle type.")
         }
         if (id.isNullOrBlank()) {
-            throw MissingCriticalInfoException("Null Vehicle id.")
+            return VehicleResult.invalid(ValidationCode.MISSING_INFO, "Null Vehicle id.")
         }
         if (model.isNullOrBlank()) {
-            throw MissingCriticalInfoException("Null Vehicle model.")
+            return VehicleResult.invalid(ValidationCode.MISSING_INFO, "Null Vehicle model.")
         }
         if (price == null) {
-            throw InvalidPriceException("Null Vehicle price.")
+            return VehicleResult.invalid(ValidationCode.INVALID_PRICE, "Null Vehicle price.")
         }
         if (price <= 0) {
-            throw InvalidPriceException("Price is invalid ($price <= 0).")
+            return VehicleResult.invalid(ValidationCode.INVALID_PRICE, "Price is invalid ($price <= 0).")
         }
 
-        return when (type.lowercase(Locale.getDefault())) {
+        val vehicle = when (type.lowercase(Locale.getDefault())) {
             "suv" -> SUV(id, model, price)
             "sedan" -> Sedan(id, model, price)
             "pickup" -> Pickup(id, model, price)
             "sports car" -> SportsCar(id, model, price)
-            else -> throw InvalidVehicleTypeException("$type is not a valid Vehicle Type.")
+            else -> return VehicleResult.invalid(ValidationCode.INVALID_TYPE, "$type is not a valid Vehicle Type.")
         }
+        return VehicleResult.valid(vehicle)
     }
 
 
@@ -94,12 +104,25 @@ class VehicleCreator private constructor() // Private constructor
     @Throws(InvalidVehicleTypeException::class, InvalidPriceException::class,
             MissingCriticalInfoException::class, SportsCarRentalNotAllowedException::class)
     override fun createFullVehicle(map: Map<Key, Any>): Vehicle {
+        return validate(map).getOrThrow()
+    }
+
+    /**
+     * Creates a [Vehicle] object from a map of key-value pairs in the same way as
+     * [createFullVehicle], without throwing. Used for imports, where a large share of rows
+     * may be bad.
+     *
+     * @param map A map containing the vehicle's attributes.
+     * @return The created [Vehicle], or the [ValidationCode] saying why it could not be created.
+     */
+    override fun validate(map: Map<Key, Any>): VehicleResult {
         val type = map[Key.VEHICLE_TYPE] as? String
         val id = map[Key.VEHICLE_ID] as? String
         val model = map[Key.VEHICLE_MODEL] as? String
         val price = map[Key.VEHICLE_PRICE] as? Long
 
-        val vehicle = createVehicle(type, id, model, price)
+        val result = buildVehicle(type, id, model, price)
+        val vehicle = result.vehicle ?: return result
 
         val make = map[Key.VEHICLE_MANUFACTURER] as? String
         val date = map[Key.VEHICLE_ACQUISITION_DATE] as? Long
@@ -109,10 +132,13 @@ class VehicleCreator private constructor() // Private constructor
         if (rentalStatus != null && vehicle is SportsCar && rentalStatus == false) {
             rentalStatus = null
         }
+        if (rentalStatus == true && !vehicle.allowsRentalStatus(true)) {
+            return VehicleResult.invalid(ValidationCode.RENTAL_NOT_ALLOWED, "Sports car rental features cannot be changed")
+        }
 
         fillVehicle(vehicle, make, date, unit, rentalStatus)
 
-        return vehicle
+        return result
     }
     companion object {
         val instance: VehicleCreator = VehicleCreator()
@@ -20,4 +20,10 @@ interface VehicleFactory {
     @Throws(InvalidVehicleTypeException::class, InvalidPriceException::class,
             MissingCriticalInfoException::class, SportsCarRentalNotAllowedException::class)
     fun createFullVehicle(map: Map<Key, Any>): Vehicle
+
+    /**
+     * Creates a [Vehicle] from a map in the same way as [createFullVehicle], but reports a
+     * problem with the data in the returned [VehicleResult] instead of throwing.
+     */
+    fun validate(map: Map<Key, Any>): VehicleResult
 }
\ No newline at end of file
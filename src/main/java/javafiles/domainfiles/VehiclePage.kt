@@ -0,0 +1,27 @@
+package javafiles.domainfiles
+
+/**
+ * One page of the [Vehicle]s matching a [VehicleQuery], along with the number of vehicles
+ * matching it on every page.
+ *
+ * @param total The number of vehicles matching the query.
+ * @param vehicles The vehicles on the page.
+ */
+class VehiclePage(
+    val total: Int,
+    val vehicles: List<Vehicle>
+)
+
+/**
+ * A page of a [VehicleQuery] prepared by [Company.preparePage]. [fetch] can be called on any
+ * thread, while the Company keeps changing.
+ */
+class VehiclePageRequest internal constructor(private val load: () -> VehiclePage) {
+    /**
+     * Finds the vehicles of the page. Vehicles changed since the page was prepared show their
+     * changes, but which vehicles are searched does not change.
+     *
+     * @return The [VehiclePage].
+     */
+    fun fetch(): VehiclePage = load()
+}
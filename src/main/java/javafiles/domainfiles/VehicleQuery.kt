@@ -0,0 +1,45 @@
+package javafiles.domainfiles
+
+import javafiles.Key
+import java.util.function.Predicate
+
+/**
+ * Describes which [Vehicle]s of a [Company] are returned by [Company.queryVehicles] and
+ * counted by [Company.countVehicles], and in what order.
+ *
+ * @param dealerId If not null, only the inventory of the [Dealership] with this ID is searched.
+ * @param filter If not null, only [Vehicle]s passing this [Predicate] are returned.
+ * @param sortKey If not null, [Vehicle]s are sorted by the value of this [Key]. Both vehicle
+ *  and dealership [Key]s can be sorted on. If null, vehicles are returned in inventory order.
+ * @param ascending Whether [sortKey] is sorted in ascending or descending order.
+ */
+class VehicleQuery @JvmOverloads constructor(
+    val dealerId: String? = null,
+    val filter: Predicate<Vehicle>? = null,
+    val sortKey: Key? = null,
+    val ascending: Boolean = true
+) {
+    /**
+     * Returns a [Comparator] ordering [Vehicle]s by [sortKey], or null if there is no [sortKey].
+     * Vehicles without a value for the [Key] are always sorted last.
+     */
+    internal fun comparator(): Comparator<Vehicle>? {
+        val key = sortKey ?: return null
+        return Comparator { a, b ->
+            val valA = sortValue(key, a)
+            val valB = sortValue(key, b)
+            when {
+                valA == null && valB == null -> 0
+                valA == null -> 1
+                valB == null -> -1
+                ascending -> compareValues(valA, valB)
+                else -> compareValues(valB, valA)
+            }
+        }
+    }
+
+    private fun sortValue(key: Key, vehicle: Vehicle): Comparable<*>? {
+        val value = key.extractValue(vehicle) ?: vehicle.dealership?.let { key.extractValue(it) }
+        return value as? Comparable<*>
+    }
+}
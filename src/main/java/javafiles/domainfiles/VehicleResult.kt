@@ -0,0 +1,55 @@
+package javafiles.domainfiles
+
+import javafiles.ValidationCode
+import javafiles.customexceptions.ReadWriteException
+
+/**
+ * The result of [VehicleFactory.validate]: either the created [Vehicle], or the
+ * [ValidationCode] and message saying why it could not be created. No exception is created
+ * unless one is asked for with [toException], [toReason] or [getOrThrow].
+ */
+class VehicleResult private constructor(
+    /**
+     * The created vehicle, or null if the data was not valid.
+     */
+    val vehicle: Vehicle?,
+    /**
+     * Why the vehicle could not be created, or null if it was.
+     */
+    val code: ValidationCode?,
+    /**
+     * A description of the problem, or null if the vehicle was created.
+     */
+    val message: String?
+) {
+    /**
+     * Whether the vehicle was created.
+     */
+    val isValid: Boolean
+        get() = vehicle != null
+
+    /**
+     * Returns the exception for the problem, without a stack trace, or null if there was none.
+     */
+    fun toException(): Exception? = code?.toException(message!!)
+
+    /**
+     * Returns the [ReadWriteException] to store as the reason a row was rejected, or null if
+     * the vehicle was created.
+     */
+    fun toReason(): ReadWriteException? = code?.toReason(message!!)
+
+    /**
+     * Returns the created vehicle, or throws the exception for the problem.
+     */
+    @Throws(Exception::class)
+    fun getOrThrow(): Vehicle = vehicle ?: throw toException()!!
+
+    companion object {
+        @JvmStatic
+        fun valid(vehicle: Vehicle): VehicleResult = VehicleResult(vehicle, null, null)
+
+        @JvmStatic
+        fun invalid(code: ValidationCode, message: String): VehicleResult = VehicleResult(null, code, message)
+    }
+}
@@ -1,16 +1,9 @@
 package javafiles.gui;
 
-import javafiles.Key;
-import javafiles.customexceptions.ReadWriteException;
-import javafiles.dataaccessfiles.FileIOFactory;
-import javafiles.dataaccessfiles.fileioimplements.FileIOReader;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 
-import javax.swing.*;
 import java.io.IOException;
-import java.util.List;
-import java.util.Map;
 
 import static javafiles.gui.FXMLPath.INVENTORY_SCREEN;
 import static javafiles.gui.FXMLPath.VEHICLE_ENTRY;
@@ -39,24 +32,18 @@ public class AddInventoryController {
 
     /**
      * Handles the "Load From File" button action.
+     * The file is read on a background thread while its progress is shown.
      *
      * @param event The ActionEvent triggered by the "Load From File" button.
      */
     @FXML
     private void handleLoadFromFile(ActionEvent event) {
-        String path = FileIOFactory.getInstance().selectFileReaderPath();
+        String path = GuiUtility.selectFileReaderPath();
 
         if (path == null) {
             return;
         }
-        try {
-            FileIOReader fileIOReader = FileIOFactory.getInstance().buildNewFileIOReader(path);
-            List<Map<Key, Object>> maps = fileIOReader.readInventory();
-            List<Map<Key, Object>> badMaps = AppStateManager.dataToInventory(maps);
-            GuiUtility.showMapTables(maps, badMaps);
-        } catch (ReadWriteException e) {
-            JOptionPane.showMessageDialog(null, "Could Not Read From File.");
-        }
+        AppStateManager.importInventoryFile(path);
     }
 
     /**
@@ -1,15 +1,26 @@
 package javafiles.gui;
 
+import javafiles.DealershipExport;
 import javafiles.Key;
 import javafiles.customexceptions.*;
 import javafiles.dataaccessfiles.FileIOFactory;
-import javafiles.dataaccessfiles.fileioimplements.FileIOReader;
+import javafiles.dataaccessfiles.RejectedRowStore;
+import javafiles.dataaccessfiles.ShardedInventoryStore;
 import javafiles.dataaccessfiles.fileioimplements.FileIOWriter;
 import javafiles.domainfiles.Company;
 import javafiles.domainfiles.Dealership;
+import javafiles.domainfiles.InventoryHistory;
+import javafiles.domainfiles.InventoryQuery;
+import javafiles.domainfiles.InventorySnapshot;
+import javafiles.domainfiles.RentalOutcome;
+import javafiles.domainfiles.StagedInventory;
 import javafiles.domainfiles.Vehicle;
+import javafiles.metricsfiles.Metrics;
+import javafx.application.Platform;
+import javafx.concurrent.Task;
 
-import javax.swing.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -22,9 +33,14 @@ import java.util.stream.Collectors;
 public class AppStateManager {
 
     private static String masterInventoryList = "masterInventoryList.json";
+    // One file per dealership, replacing masterInventoryList once the inventory has been saved in it.
+    private static final ShardedInventoryStore masterInventoryStore = new ShardedInventoryStore(Path.of("masterInventory"));
     private static Company company;
-    private static ArrayList<Map<Key,Object>>  badInventoryList = new ArrayList<>();
+    private static final RejectedRowStore badInventoryStore = new RejectedRowStore();
     private static boolean badInventoryScreenVisited = false;
+    // Until the master file has been read, writing it would replace it with a partial inventory.
+    private static boolean masterInventoryLoaded = true;
+    private static final InventoryQuery RENTING_DEALERSHIPS = compileQuery("dealership_rental_status = true");
 
 
     /**
@@ -32,6 +48,17 @@ public class AppStateManager {
      */
     private AppStateManager() {}
 
+    /**
+     * Compiles one of the fixed queries used by this class, which are known to be valid.
+     */
+    private static InventoryQuery compileQuery(String text) {
+        try {
+            return InventoryQuery.compile(text);
+        } catch (QuerySyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     /**
      * Initializes the Company instance with the provided Company object.
      * If the Company instance already exists, this method will not overwrite it.
@@ -59,19 +86,19 @@ public class AppStateManager {
     /**
      * Retrieves a List of Maps representing all vehicle data within the Company instance.
      * </p>
-     * Each Map contains key-value pairs representing vehicle attributes.
-     * Method calls {@link Company#calcDataMap()}.
+     * Each Map contains key-value pairs representing vehicle attributes, ordered by dealership.
+     * Method calls {@link Company#calcExportView()}.
      *
      * @return A List of Maps containing vehicle data.
      */
     public static List<Map<Key, Object>> getCompanyData() {
-        Map<Map<Key, Object>, List<Map<Key, Object>>> data = company.calcDataMap();
         List<Map<Key, Object>> dataList = new ArrayList<>();
 
-        for(Map<Key, Object> dealerMap: data.keySet()) {
-            for (Map<Key, Object> vehicleMap: data.get(dealerMap)) {
-                Map<Key, Object> map = new EnumMap<>(vehicleMap);
-                map.putAll(dealerMap);
+        for (DealershipExport dealer : company.calcExportView()) {
+            for (Map<Key, Object> vehicleMap : dealer.getVehicleData()) {
+                Map<Key, Object> map = new EnumMap<>(Key.class);
+                map.putAll(vehicleMap);
+                map.putAll(dealer.getDealerData());
                 dataList.add(map);
             }
         }
@@ -91,14 +118,14 @@ public class AppStateManager {
     }
 
     /**
-     * Retrieves a list of maps containing failed inventory load vehicles.
+     * Retrieves the store of maps containing failed inventory load vehicles, each under a stable row ID.
      * The maps contain key-value pairs where each key represents vehicle data.
      *
-     * @return badInventoryList
+     * @return badInventoryStore
      */
-    public static List<Map<Key, Object>> getBadDataInventory()
+    public static RejectedRowStore getBadDataInventory()
     {
-      return badInventoryList;
+      return badInventoryStore;
     }
 
 
@@ -175,6 +202,8 @@ public class AppStateManager {
         Dealership sender = company.findDealership(senderId);
         Dealership receiver = company.findDealership(receiverId);
         sender.dealershipVehicleTransfer(receiver, transferVehicle);
+        company.getHistory().checkpoint("Transfer vehicle " + transferVehicle.getVehicleId()
+                + " from " + senderId + " to " + receiverId);
 
         writeToInventoryFile();
     }
@@ -189,59 +218,159 @@ public class AppStateManager {
      */
     public static List<Map<Key, Object>> dataToInventory(List<Map<Key, Object>> maps) {
         List<Map<Key, Object>> badMaps = company.dataToInventory(maps);
-        badInventoryList.addAll(badMaps);
+        company.getHistory().checkpoint("Add inventory");
+        addToBadInventory(badMaps);
+        GuiUtility.countRejections(badMaps);
 
         writeToInventoryFile();
         return badMaps;
     }
 
     /**
-     * Loads initial inventory data from a file.
-     * This method attempts to read inventory data from the specified file using FileIO,
-     * and processes it using  {@link Company#dataToInventory(List)} method.
-     * If a ReadWriteException occurs, it prints the error message and returns an empty list.
+     * Reads and checks the inventory file at the given path on a {@link BackgroundIO} thread while
+     * showing its progress, then adds the vehicles to the Company on the JavaFX thread a chunk at a time.
+     * The vehicles that could not be added are kept in the bad inventory list and the results
+     * are shown.
+     *
+     * @param path The path of the inventory file to import.
+     * @return The running import Task.
      */
-    protected static void loadInitialFiles() {
-        try {
-            FileIOReader fileIOReader = FileIOFactory.getInstance().buildNewFileIOReader(masterInventoryList);
-
-            List<Map<Key, Object>> maps = fileIOReader.readInventory();
-            List<Map<Key, Object>> badDataMaps = company.dataToInventory(maps);
+    protected static Task<StagedInventory> importInventoryFile(String path) {
+        InventoryImportTask task = new InventoryImportTask(path);
+        task.setOnSucceeded(event -> task.commit(company, badMaps -> {
+            company.getHistory().checkpoint("Import inventory");
+            addToBadInventory(badMaps);
+            GuiUtility.countRejections(badMaps);
+            writeToInventoryFile();
+            GuiUtility.showMapTables(task.getMaps(), badMaps);
+        }));
+        task.setOnFailed(event -> GuiUtility.showAlert("Could Not Read From File."));
+
+        GuiUtility.showTaskProgress(BackgroundIO.run(task), "Loading Inventory");
+        return task;
+    }
 
-            if (!badDataMaps.isEmpty()) {GuiUtility.showMapTables(maps, badDataMaps);}
-        } catch (ReadWriteException e) {
-            JOptionPane.showMessageDialog(null, e.getMessage());
+    /**
+     * Loads initial inventory data from the master inventory store.
+     * This method reads inventory data from every dealership file of the store, or from
+     * masterInventoryList if the store has not been written yet, on a {@link BackgroundIO}
+     * thread, and adds it to the Company a chunk at a time with {@link Company#beginCommit(StagedInventory)}
+     * once done. If neither exists, such as on a first launch, the Company starts empty.
+     * If a ReadWriteException occurs, the error message is shown instead.
+     * </p>
+     * Dealerships read from the store are marked as saved, while those read from
+     * masterInventoryList are all written to the store by the next save.
+     * </p>
+     * Nothing is saved until the inventory is loaded, so if loading is cancelled the user is told
+     * so and can either load it again or exit the application.
+     */
+    protected static void loadInitialFiles() {
+        boolean fromStore = masterInventoryStore.exists();
+        if (!fromStore && !Files.exists(Path.of(masterInventoryList))) {
+            masterInventoryLoaded = true; // Nothing stored yet, so start empty.
+            return;
         }
+        InventoryImportTask task = fromStore
+                ? new InventoryImportTask(masterInventoryStore)
+                : new InventoryImportTask(masterInventoryList);
+        masterInventoryLoaded = false;
+        task.setOnSucceeded(event -> task.commit(company, badDataMaps -> {
+            if (fromStore) {
+                for (Dealership dealership : company.getListDealerships()) {
+                    dealership.markSaved(dealership.getChangeCount());
+                }
+            }
+            company.getHistory().clear(); // Loading the inventory is not a change to undo.
+            masterInventoryLoaded = true;
+            GuiUtility.countRejections(badDataMaps);
+
+            if (!badDataMaps.isEmpty()) {GuiUtility.showMapTables(task.getMaps(), badDataMaps);}
+        }));
+        task.setOnFailed(event -> {
+            masterInventoryLoaded = true;
+            GuiUtility.showAlert(task.getException().getMessage());
+        });
+        task.setOnCancelled(event -> {
+            if (GuiUtility.askChoice("Loading the inventory was cancelled. No changes can be saved until it is loaded.",
+                    "Load Again", "Exit")) {
+                loadInitialFiles();
+            } else {
+                Platform.exit();
+            }
+        });
+
+        GuiUtility.showTaskProgress(BackgroundIO.run(task), "Loading Inventory");
     }
 
     /**
-     * Writes the Company's inventory data to a file.
+     * Writes the dealerships that changed since they were last saved to the master inventory store.
      * </p>
-     * This method retrieves the inventory data from the Company by calling
-     * {@link Company#calcDataMap()} and attempts to write it to the specified
-     * file using FileIO. If a ReadWriteException occurs, it prints an error message.
+     * This method opens a snapshot of the changed dealerships with
+     * {@link Company#openSnapshot(List)} and writes them with {@link ShardedInventoryStore#save(List, List)}
+     * on the {@link BackgroundIO} save thread, so a change to one vehicle only rewrites the file of
+     * its dealership, and changes made while it is written are left for the next save. If a ReadWriteException occurs, it shows an error message.
+     * Nothing is written while the initial inventory is still loading.
      */
     protected static void writeToInventoryFile() {
-        Map<Map<Key, Object>, List<Map<Key, Object>>> data = company.calcDataMap();
-        try {
-            FileIOWriter fileIO = FileIOFactory.getInstance().buildNewFileIOWriter(masterInventoryList);
-            fileIO.writeInventory(data);
-        } catch (ReadWriteException e) {
-            JOptionPane.showMessageDialog(null, "Inventory could not be written.");
+        if (!masterInventoryLoaded) {return;}
+
+        long start = System.nanoTime();
+        List<Dealership> dirty = company.dirtyDealerships();
+        if (dirty.isEmpty() && masterInventoryStore.exists()) {return;}
+
+        List<String> dealerIds = company.getAllDealershipIds();
+        long[] changeCounts = new long[dirty.size()];
+        for (int i = 0; i < dirty.size(); i++) {
+            changeCounts[i] = dirty.get(i).getChangeCount();
         }
+        InventorySnapshot snapshot = company.openSnapshot(dirty);
+        Metrics.timer("app.save.snapshot").recordSince(start);
+        BackgroundIO.save(() -> {
+            try (snapshot) {
+                masterInventoryStore.save(dealerIds, snapshot.getDealerships());
+                for (int i = 0; i < dirty.size(); i++) {
+                    dirty.get(i).markSaved(changeCounts[i]);
+                }
+            } catch (ReadWriteException e) {
+                Platform.runLater(() -> GuiUtility.showAlert("Inventory could not be written."));
+            }
+            Metrics.timer("app.save").recordSince(start);
+        });
     }
 
+    /**
+     * Writes the Company's inventory data to a file chosen by the user, in the same way
+     * as {@link #writeToInventoryFile()}. The file holds the inventory as it was when chosen,
+     * read from a {@link Company#openSnapshot()} while editing carries on.
+     */
     protected static void writeToInventoryFileWithChoice() {
-        Map<Map<Key, Object>, List<Map<Key, Object>>> data = company.calcDataMap();
-        String path = FileIOFactory.getInstance().selectFileWriterPath();
+        String path = GuiUtility.selectFileWriterPath();
 
         if (path == null) {return;}
 
+        InventorySnapshot snapshot = company.openSnapshot();
+        BackgroundIO.save(() -> {
+            try (snapshot) {
+                writeInventory(path, snapshot.getDealerships());
+            }
+        });
+    }
+
+    /**
+     * Writes the Company's inventory data to a file and waits for it, and any earlier saves,
+     * to finish. Used when the application is closing.
+     */
+    protected static void writeToInventoryFileAndWait() {
+        writeToInventoryFile();
+        BackgroundIO.awaitSaves();
+    }
+
+    private static void writeInventory(String path, Iterable<DealershipExport> data) {
         try {
             FileIOWriter fileIO = FileIOFactory.getInstance().buildNewFileIOWriter(path);
             fileIO.writeInventory(data);
         } catch (ReadWriteException e) {
-            JOptionPane.showMessageDialog(null, "Inventory could not be written.");
+            Platform.runLater(() -> GuiUtility.showAlert("Inventory could not be written."));
         }
     }
 
@@ -264,8 +393,7 @@ public class AppStateManager {
      */
     public static List<String> getRentingEnabledDealershipIDs()
     {
-        return company.getListDealerships().stream()
-                .filter(dealership -> company.isDealershipRentingEnabled(dealership.getDealerId()))
+        return RENTING_DEALERSHIPS.matchingDealerships(company).stream()
                 .map(Dealership::getDealerId)
                 .collect(Collectors.toList());
     }
@@ -321,6 +449,7 @@ public class AppStateManager {
         }
 
         company.manualVehicleAdd(map, dealership);
+        company.getHistory().checkpoint("Add vehicle " + map.get(Key.VEHICLE_ID) + " to " + dealershipID);
 
         writeToInventoryFile();
     }
@@ -361,6 +490,28 @@ public class AppStateManager {
         writeToInventoryFile();
     }
 
+    /**
+     * Sets the rental status of several vehicles of a dealership at once, such as checking in
+     * the day's returned rentals, and saves the inventory once if any changed.
+     * </p>
+     * Method calls {@link Dealership#updateRentalStatuses(Collection, boolean)}.
+     *
+     * @param dealershipId dealership ID of target dealership
+     * @param vehicleIds IDs of the vehicles to update
+     * @param rented the rental status to set
+     * @return the {@link RentalOutcome} for each vehicle ID
+     */
+    public static Map<String, RentalOutcome> updateDealershipVehicleRentalStates(String dealershipId,
+            Collection<String> vehicleIds, boolean rented)
+    {
+        Dealership dealer = company.findDealership(dealershipId);
+        Map<String, RentalOutcome> outcomes = dealer.updateRentalStatuses(vehicleIds, rented);
+        if (outcomes.containsValue(RentalOutcome.CHANGED)) {
+            writeToInventoryFile();
+        }
+        return outcomes;
+    }
+
 
     /**
      * Takes a String representing a Dealership ID and returns {@link Dealership}
@@ -378,6 +529,19 @@ public class AppStateManager {
 
 
 
+    /**
+     * Returns the {@link Dealership} whose inventory holds the given {@link Vehicle}.
+     * </p>
+     * Method calls {@link Company#findVehicleDealership(Vehicle)}.
+     *
+     * @param vehicle The Vehicle whose dealership is being searched for.
+     * @return The Dealership holding the vehicle (null if absent).
+     */
+    public static Dealership findVehicleDealership(Vehicle vehicle)
+    {
+        return company.findVehicleDealership(vehicle);
+    }
+
     /**
      * Gets the complete inventory of a given dealership.
      * Method calls {@link Dealership#getInventory()}.
@@ -404,22 +568,94 @@ public class AppStateManager {
     {
         Dealership dealer = company.findDealership(dealershipId);
         dealer.removeFromInventory(targetVehicle);
+        company.getHistory().checkpoint("Remove vehicle " + targetVehicle.getVehicleId() + " from " + dealershipId);
         writeToInventoryFile();
     }
 
+    /**
+     * Undoes the last recorded change to which vehicles the dealerships hold, such as a removal
+     * or transfer, and saves the inventory.
+     * Method calls {@link InventoryHistory#undo()}.
+     *
+     * @return a description of the change undone, or null if there was nothing to undo
+     * @throws DealershipNotAcceptingVehiclesException if a vehicle would go back to a dealership not accepting vehicles
+     * @throws VehicleAlreadyExistsException if a vehicle would go back while another vehicle has its ID
+     */
+    public static String undoLastChange() throws DealershipNotAcceptingVehiclesException, VehicleAlreadyExistsException
+    {
+        String label = company.getHistory().undo();
+        if (label != null) {
+            writeToInventoryFile();
+        }
+        return label;
+    }
 
     /**
-     * Method takes a {@link Map} object containing {@link Key} {@link Object} pair representing a
-     * vehicle in the badInventoryList. Method attempts to remove the vehicle if it exists in the
-     * badInventoryList.
+     * Makes the last undone change again and saves the inventory.
+     * Method calls {@link InventoryHistory#redo()}.
      *
-     * @param targetItem target map representing vehicle in badInventoryList
+     * @return a description of the change made again, or null if there was nothing to redo
+     * @throws DealershipNotAcceptingVehiclesException if a vehicle would go back to a dealership not accepting vehicles
+     * @throws VehicleAlreadyExistsException if a vehicle would go back while another vehicle has its ID
      */
-    public static void removeItemFromBadInventory(Map<Key,Object> targetItem)
+    public static String redoLastChange() throws DealershipNotAcceptingVehiclesException, VehicleAlreadyExistsException
     {
-        if(badInventoryList.contains(targetItem))
-        {
-            badInventoryList.remove(targetItem);
+        String label = company.getHistory().redo();
+        if (label != null) {
+            writeToInventoryFile();
+        }
+        return label;
+    }
+
+
+    /**
+     * Method takes the row ID of a vehicle in the badInventoryStore and removes it if it is still there.
+     *
+     * @param rowId row ID of the target vehicle in badInventoryStore
+     */
+    public static void removeItemFromBadInventory(int rowId)
+    {
+        badInventoryStore.remove(rowId);
+    }
+
+    /**
+     * Removes every vehicle in the badInventoryStore with the given vehicle ID, such as once a
+     * corrected copy of it has been added to the Company.
+     *
+     * @param vehicleId vehicle ID of the target vehicles
+     */
+    public static void removeVehicleFromBadInventory(String vehicleId)
+    {
+        for (int rowId : badInventoryStore.idsForVehicle(vehicleId)) {
+            badInventoryStore.remove(rowId);
+        }
+    }
+
+    /**
+     * Saves changes made to a vehicle in the badInventoryStore, which are otherwise lost for rows
+     * the store keeps on disk.
+     *
+     * @param rowId row ID of the target vehicle in badInventoryStore
+     * @param data the changed map of the vehicle
+     */
+    public static void updateBadInventoryItem(int rowId, Map<Key, Object> data)
+    {
+        try {
+            badInventoryStore.update(rowId, data);
+        } catch (ReadWriteException e) {
+            GuiUtility.showAlert("Could not save the change: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Adds the given rejected maps to the badInventoryStore.
+     */
+    private static void addToBadInventory(List<Map<Key, Object>> badMaps)
+    {
+        try {
+            badInventoryStore.addAll(badMaps);
+        } catch (ReadWriteException e) {
+            GuiUtility.showAlert("Some rejected vehicles could not be kept: " + e.getMessage());
         }
     }
 
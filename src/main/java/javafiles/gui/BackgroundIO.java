@@ -0,0 +1,81 @@
+package javafiles.gui;
+
+import javafx.concurrent.Task;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs file I/O and inventory work off the JavaFX application thread.
+ * </p>
+ * Reads, imports and queries share a small bounded pool, so a large import can not starve the
+ * pool or start an unbounded number of threads. Saves go through a separate single thread so that
+ * they are written to disk in the order they were requested, and a later save always wins.
+ * All threads are daemons, so an unfinished task never keeps the application open.
+ */
+final class BackgroundIO {
+    private static final int WORKER_THREADS = 2;
+    private static final long SAVE_WAIT_SECONDS = 30;
+
+    private static final ExecutorService WORKERS = Executors.newFixedThreadPool(WORKER_THREADS,
+            daemonFactory("background-io"));
+    private static final ExecutorService SAVES = Executors.newSingleThreadExecutor(daemonFactory("inventory-save"));
+
+    private static volatile Future<?> lastSave;
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     */
+    private BackgroundIO() {}
+
+    /**
+     * Runs the given Task on the background pool. Its handlers are called on the JavaFX thread.
+     *
+     * @param task The Task to run.
+     * @return The given Task.
+     */
+    static <T> Task<T> run(Task<T> task) {
+        WORKERS.execute(task);
+        return task;
+    }
+
+    /**
+     * Queues the given save after all earlier saves.
+     *
+     * @param save The work that writes the inventory.
+     */
+    static void save(Runnable save) {
+        lastSave = SAVES.submit(save);
+    }
+
+    /**
+     * Waits for all queued saves to finish, such as before the application exits.
+     */
+    static void awaitSaves() {
+        Future<?> save = lastSave;
+        if (save == null) {return;}
+
+        try {
+            save.get(SAVE_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            System.err.println("Inventory could not be written: " + e.getMessage());
+        }
+    }
+
+    private static ThreadFactory daemonFactory(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -3,6 +3,7 @@ package javafiles.gui;
 import javafiles.Key;
 
 import javafiles.customexceptions.*;
+import javafiles.dataaccessfiles.RejectedRowStore;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleObjectProperty;
@@ -41,7 +42,7 @@ import static javafiles.gui.FXMLPath.MAIN_SCREEN;
  * select items for discarding or uploading. The "Vehicle Type" column is displayed
  * as a dropdown list for editing, and the "Acquisition Date" column uses a DatePicker.
  */
-public class BadInventoryScreenController {
+public class BadInventoryScreenController implements Refreshable {
 
     @FXML
     private Button backButton;
@@ -91,16 +92,22 @@ public class BadInventoryScreenController {
     private ObservableList<MapWithSelection> badInventoryList = FXCollections.observableArrayList();
     private final ObservableList<String> vehicleTypeOptions = FXCollections.observableArrayList("SUV", "Sedan", "Sports car", "Pickup");
 
-    private List<Map<Key, Object>> badInventoryData;
+    private RejectedRowStore badInventoryData;
+
+    /**
+     * The most rows shown in the table at once. Rows past this are shown as earlier rows are
+     * uploaded or discarded, so a huge feed of bad rows is never all loaded at once.
+     */
+    private static final int TABLE_ROW_LIMIT = 5000;
 
     /**
      * Sets the bad inventory data to be displayed in the table. This data is
      * retrieved from the {@link AppStateManager}.
      *
-     * @param data The list of maps containing the bad inventory data.
+     * @param data The store holding the bad inventory data.
      */
-    public void setBadInventoryData(List<Map<Key, Object>> data) {
-        this.badInventoryData = AppStateManager.getBadDataInventory();
+    public void setBadInventoryData(RejectedRowStore data) {
+        this.badInventoryData = data;
         populateTableView();
         if (!AppStateManager.isBadInventoryScreenVisited()) {
             showAlert("User note: Incomplete vehicle data in this table are editable \n" +
@@ -116,7 +123,7 @@ public class BadInventoryScreenController {
      * configures editable behavior for all columns except the "Error Reason" column.
      * The "Vehicle Type" column is configured to use a dropdown list for editing,
      * and the "Acquisition Date" column uses a DatePicker for selection.
-     * Finally, it calls {@link #setBadInventoryData(List)} to populate the table.
+     * Finally, it calls {@link #setBadInventoryData(RejectedRowStore)} to populate the table.
      */
     @FXML
     public void initialize() {
@@ -133,21 +140,21 @@ public class BadInventoryScreenController {
             return new SimpleStringProperty(value != null ? value.toString() : "");
         });
         dealershipIdColumn.setCellFactory(TextFieldTableCell.forTableColumn(new DefaultStringConverter()));
-        dealershipIdColumn.setOnEditCommit(event -> event.getRowValue().getData().put(Key.DEALERSHIP_ID, event.getNewValue()));
+        dealershipIdColumn.setOnEditCommit(event -> updateField(event.getRowValue(), Key.DEALERSHIP_ID, event.getNewValue()));
 
         dealershipNameColum.setCellValueFactory(cellData -> {
             Object value = cellData.getValue().getData().get(Key.DEALERSHIP_NAME);
             return new SimpleStringProperty(value != null ? value.toString() : "");
         });
         dealershipNameColum.setCellFactory(TextFieldTableCell.forTableColumn(new DefaultStringConverter()));
-        dealershipNameColum.setOnEditCommit(event -> event.getRowValue().getData().put(Key.DEALERSHIP_NAME, event.getNewValue()));
+        dealershipNameColum.setOnEditCommit(event -> updateField(event.getRowValue(), Key.DEALERSHIP_NAME, event.getNewValue()));
 
         vehicleIdColumn.setCellValueFactory(cellData -> {
             Object value = cellData.getValue().getData().get(Key.VEHICLE_ID);
             return new SimpleStringProperty(value != null ? value.toString() : "");
         });
         vehicleIdColumn.setCellFactory(TextFieldTableCell.forTableColumn(new DefaultStringConverter()));
-        vehicleIdColumn.setOnEditCommit(event -> event.getRowValue().getData().put(Key.VEHICLE_ID, event.getNewValue()));
+        vehicleIdColumn.setOnEditCommit(event -> updateField(event.getRowValue(), Key.VEHICLE_ID, event.getNewValue()));
 
         // Make Vehicle Type column editable with ComboBoxTableCell
         vehicleTypeColumn.setCellValueFactory(cellData -> {
@@ -155,21 +162,21 @@ public class BadInventoryScreenController {
             return new SimpleStringProperty(value != null ? value.toString() : "");
         });
         vehicleTypeColumn.setCellFactory(javafx.scene.control.cell.ComboBoxTableCell.forTableColumn(vehicleTypeOptions));
-        vehicleTypeColumn.setOnEditCommit(event -> event.getRowValue().getData().put(Key.VEHICLE_TYPE, event.getNewValue()));
+        vehicleTypeColumn.setOnEditCommit(event -> updateField(event.getRowValue(), Key.VEHICLE_TYPE, event.getNewValue()));
 
         vehicleManufacturerColumn.setCellValueFactory(cellData -> {
             Object value = cellData.getValue().getData().get(Key.VEHICLE_MANUFACTURER);
             return new SimpleStringProperty(value != null ? value.toString() : "");
         });
         vehicleManufacturerColumn.setCellFactory(TextFieldTableCell.forTableColumn(new DefaultStringConverter()));
-        vehicleManufacturerColumn.setOnEditCommit(event -> event.getRowValue().getData().put(Key.VEHICLE_MANUFACTURER, event.getNewValue()));
+        vehicleManufacturerColumn.setOnEditCommit(event -> updateField(event.getRowValue(), Key.VEHICLE_MANUFACTURER, event.getNewValue()));
 
         vehicleModelColumn.setCellValueFactory(cellData -> {
             Object value = cellData.getValue().getData().get(Key.VEHICLE_MODEL);
             return new SimpleStringProperty(value != null ? value.toString() : "");
         });
         vehicleModelColumn.setCellFactory(TextFieldTableCell.forTableColumn(new DefaultStringConverter()));
-        vehicleModelColumn.setOnEditCommit(event -> event.getRowValue().getData().put(Key.VEHICLE_MODEL, event.getNewValue()));
+        vehicleModelColumn.setOnEditCommit(event -> updateField(event.getRowValue(), Key.VEHICLE_MODEL, event.getNewValue()));
 
         vehiclePriceColumn.setCellValueFactory(cellData -> {
             Object value = cellData.getValue().getData().get(Key.VEHICLE_PRICE);
@@ -179,7 +186,7 @@ public class BadInventoryScreenController {
         vehiclePriceColumn.setOnEditCommit(event -> {
             try {
                 Long newPrice = Long.parseLong(event.getNewValue());
-                event.getRowValue().getData().put(Key.VEHICLE_PRICE, newPrice);
+                updateField(event.getRowValue(), Key.VEHICLE_PRICE, newPrice);
             } catch (NumberFormatException e) {
                 showAlert("Invalid Price Format. Please enter a number.");
                 badInventoryTableView.refresh(); // Revert to the old value
@@ -191,7 +198,7 @@ public class BadInventoryScreenController {
             return new SimpleStringProperty(value != null ? value.toString() : "");
         });
         priceUnitColumn.setCellFactory(TextFieldTableCell.forTableColumn(new DefaultStringConverter()));
-        priceUnitColumn.setOnEditCommit(event -> event.getRowValue().getData().put(Key.VEHICLE_PRICE_UNIT, event.getNewValue()));
+        priceUnitColumn.setOnEditCommit(event -> updateField(event.getRowValue(), Key.VEHICLE_PRICE_UNIT, event.getNewValue()));
 
         // Make Acquisition Date column editable with DatePicker
         acquisitionDateColumn.setCellValueFactory(cellData -> {
@@ -218,7 +225,7 @@ public class BadInventoryScreenController {
                             commitEdit(selectedDate);
                             if (currentRowData != null) {
                                 // Update the underlying map with Epoch Long
-                                currentRowData.getData().put(Key.VEHICLE_ACQUISITION_DATE, epochMillis);
+                                updateField(currentRowData, Key.VEHICLE_ACQUISITION_DATE, epochMillis);
                                 badInventoryTableView.refresh();
                             }
                         }
@@ -231,7 +238,7 @@ public class BadInventoryScreenController {
                         long epochMillis = selectedDate.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
                         commitEdit(selectedDate); // Indicate that the edit is complete
                         if (currentRowData != null) {
-                            currentRowData.getData().put(Key.VEHICLE_ACQUISITION_DATE, epochMillis);
+                            updateField(currentRowData, Key.VEHICLE_ACQUISITION_DATE, epochMillis);
                             badInventoryTableView.refresh();
                         }
                     }
@@ -308,21 +315,51 @@ public class BadInventoryScreenController {
     }
 
     /**
-     * Populates the table view with data from the {@link #badInventoryData} list.
+     * Shows the current bad inventory data, which may have grown since the screen was last shown.
+     */
+    @Override
+    public void refresh() {
+        setBadInventoryData(AppStateManager.getBadDataInventory());
+    }
+
+    /**
+     * Populates the table view with data from the {@link #badInventoryData} store.
      * It clears any existing items in the {@link #badInventoryList}, creates
-     * {@link MapWithSelection} wrappers for each data map, and sets the
+     * {@link MapWithSelection} wrappers for up to {@link #TABLE_ROW_LIMIT} rows, and sets the
      * {@link #badInventoryList} as the items for the {@link #badInventoryTableView}.
      */
     private void populateTableView() {
         if (badInventoryData != null) {
             badInventoryList.clear();
-            for (Map<Key, Object> dataMap : badInventoryData) {
-                badInventoryList.add(new MapWithSelection(dataMap));
+            try {
+                for (RejectedRowStore.Row row : badInventoryData.rows(0, TABLE_ROW_LIMIT)) {
+                    badInventoryList.add(new MapWithSelection(row.getId(), row.getData()));
+                }
+            } catch (ReadWriteException e) {
+                showAlert("Could not read all of the bad inventory: " + e.getMessage());
             }
             badInventoryTableView.setItems(badInventoryList);
+            if (badInventoryData.getSize() > badInventoryList.size()) {
+                errorReasonColumn.setText("Error Reason (showing " + badInventoryList.size() + " of "
+                        + badInventoryData.getSize() + ")");
+            } else {
+                errorReasonColumn.setText("Error Reason");
+            }
         }
     }
 
+    /**
+     * Sets a field of a row in the table and saves the change to the bad inventory store.
+     *
+     * @param row The row that was edited.
+     * @param key The field that was edited.
+     * @param value The new value of the field.
+     */
+    private void updateField(MapWithSelection row, Key key, Object value) {
+        row.getData().put(key, value);
+        AppStateManager.updateBadInventoryItem(row.getRowId(), row.getData());
+    }
+
     /**
      * Handles the action when the "Back" button is clicked. It navigates the user
      * back to the main screen.
@@ -356,7 +393,7 @@ public class BadInventoryScreenController {
             if (item.isSelected())
             {
                 itemsToRemove.add(item);
-                AppStateManager.removeItemFromBadInventory(item.getData()); // remove from List tracking bad items in AppStateManager
+                AppStateManager.removeItemFromBadInventory(item.getRowId()); // remove from store tracking bad items in AppStateManager
             }
         }
 
@@ -442,8 +479,8 @@ public class BadInventoryScreenController {
                 try {
                     AppStateManager.manualVehicleAdd(data);
                     badInventoryList.remove(wrapper);
-                    badInventoryData.removeIf(badDataMap ->
-                            badDataMap.get(Key.VEHICLE_ID).equals(data.get(Key.VEHICLE_ID)));
+                    AppStateManager.removeItemFromBadInventory(wrapper.getRowId());
+                    AppStateManager.removeVehicleFromBadInventory(vehicleId);
                 } catch (VehicleAlreadyExistsException | InvalidPriceException |
                          DealershipNotAcceptingVehiclesException | InvalidVehicleTypeException |
                          MissingCriticalInfoException | IllegalArgumentException e) {
@@ -495,18 +532,30 @@ public class BadInventoryScreenController {
      */
     public static class MapWithSelection {
 
+        private final int rowId;
         private final Map<Key, Object> data;
         private final BooleanProperty selected = new SimpleBooleanProperty(false);
 
         /**
          * Constructs a new {@code MapWithSelection} object.
          *
+         * @param rowId The ID of the row in the {@link RejectedRowStore}.
          * @param data The {@code Map<Key, Object>} to wrap.
          */
-        public MapWithSelection(Map<Key, Object> data) {
+        public MapWithSelection(int rowId, Map<Key, Object> data) {
+            this.rowId = rowId;
             this.data = data;
         }
 
+        /**
+         * Returns the ID of the row in the {@link RejectedRowStore}.
+         *
+         * @return The row ID.
+         */
+        public int getRowId() {
+            return rowId;
+        }
+
         /**
          * Returns the underlying data map.
          *
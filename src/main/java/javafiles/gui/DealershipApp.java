@@ -2,12 +2,17 @@ package javafiles.gui;
 
 
 import javafiles.domainfiles.Company;
+import javafiles.metricsfiles.Metrics;
 import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.scene.Scene;
 import javafx.stage.Stage;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
 
-import static javafiles.gui.FXMLPath.MAIN_SCREEN;
+import static javafiles.gui.FXMLPath.*;
 
 /**
  * The main application class for the Dealership application.
@@ -15,14 +20,22 @@ import static javafiles.gui.FXMLPath.MAIN_SCREEN;
  * including initialization, startup, and shutdown.
  */
 public class DealershipApp extends Application {
+    /** The system property that prints the time from process start to the first frame. */
+    static final String STARTUP_TIMING_PROPERTY = "dealership.startup.timing";
+    /** The system property that prints every metric in {@link Metrics} when the app closes. */
+    static final String METRICS_PROPERTY = "dealership.metrics";
+    /** The system property used by the appCds Gradle task to close the app once startup is done. */
+    static final String CDS_TRAINING_PROPERTY = "dealership.cds.training";
+
 /**
      * Called when the application is stopped.
-     * Writes the current inventory data to a file using {@link AppStateManager#writeToInventoryFile()}.
+     * Writes the current inventory data to a file using {@link AppStateManager#writeToInventoryFileAndWait()}.
      */
 
     @Override
     public void stop() {
-        AppStateManager.writeToInventoryFile();
+        AppStateManager.writeToInventoryFileAndWait();
+        if (Boolean.getBoolean(METRICS_PROPERTY)) {System.out.print(Metrics.report());}
     }
 
 
@@ -45,14 +58,45 @@ public class DealershipApp extends Application {
 
         SceneManager sceneManger = SceneManager.getInstance(primaryStage);
         sceneManger.switchScene(MAIN_SCREEN);
+        if (Boolean.getBoolean(STARTUP_TIMING_PROPERTY)) {logFirstFrame(primaryStage.getScene());}
         primaryStage.show();
 
         AppStateManager.loadInitialFiles();
 
+        // Load the most used screens once the first frame is up, so the first visit to them is quick.
+        Platform.runLater(() -> {
+            try {
+                sceneManger.preload(INVENTORY_SCREEN, ADD_INVENTORY, VIEW_INVENTORY,
+                        VEHICLE_TRANSFER, VEHIClE_RENTAL, VEHICLE_REMOVAL);
+            } catch (IOException e) {
+                System.err.println("Screens could not be preloaded: " + e.getMessage());
+            }
+            if (Boolean.getBoolean(CDS_TRAINING_PROPERTY)) {Platform.exit();}
+        });
 
     }
 
 
+    /**
+     * Prints the time from the start of the process to the end of the first layout pulse of the
+     * given scene, which is when its first frame is drawn.
+     *
+     * @param scene The first scene shown.
+     */
+    private static void logFirstFrame(Scene scene) {
+        Runnable listener = new Runnable() {
+            @Override
+            public void run() {
+                scene.removePostLayoutPulseListener(this);
+                ProcessHandle.current().info().startInstant().ifPresent(start -> {
+                    long millis = Duration.between(start, Instant.now()).toMillis();
+                    System.out.println("Time to first frame: " + millis + " ms");
+                });
+            }
+        };
+        scene.addPostLayoutPulseListener(listener);
+    }
+
     /**
      * The main method to launch the application.
      *
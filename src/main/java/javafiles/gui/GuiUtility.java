@@ -2,17 +2,33 @@ package javafiles.gui;
 
 import javafiles.Key;
 import javafiles.customexceptions.*;
+import javafiles.dataaccessfiles.FileIOFactory;
+import javafiles.metricsfiles.Metrics;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.collections.FXCollections;
+import javafx.concurrent.Task;
+import javafx.geometry.Insets;
+import javafx.scene.control.Alert;
+import javafx.scene.control.ButtonBar;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.control.TitledPane;
+import javafx.scene.layout.VBox;
+import javafx.stage.FileChooser;
 
-import javax.swing.*;
-import javax.swing.table.TableColumn;
-import javax.swing.table.TableColumnModel;
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 /**
  * A utility class that contains commonly used functions for managing GUI elements,
- * specifically for creating and manipulating JTables to display data.
+ * specifically for creating and manipulating TableViews to display data, and for
+ * dialogs such as alerts and file choosers.
  */
 
 public class GuiUtility {
@@ -26,7 +42,8 @@ public class GuiUtility {
         INVALID_PRICE(InvalidPriceException.class, "Price Err", "Price was null or <= 0."),
         DEAL_REC(DealershipNotAcceptingVehiclesException.class, "Rec Err", "Dealership is not receiving vehicles."),
         TYPE_ERR(InvalidVehicleTypeException.class, "Type", "Vehicle type or id is invalid."),
-        MISSING(MissingCriticalInfoException.class, "Missing", "Missing critical information to create a vehicle");
+        MISSING(MissingCriticalInfoException.class, "Missing", "Missing critical information to create a vehicle"),
+        RENTAL(SportsCarRentalNotAllowedException.class, "Rental", "Vehicle type cannot be rented.");
 
         final String CLASS_NAME;
         final String KEY;
@@ -38,7 +55,7 @@ public class GuiUtility {
         }
 
         /**
-         * Creates ane returns a List of Object[] to be used in the creation of the error JTable.
+         * Creates ane returns a List of Object[] to be used in the creation of the error table.
          *
          * @return the created List of Object[].
          */
@@ -75,51 +92,70 @@ public class GuiUtility {
     }
 
     /**
-     * Creates and returns a new JScrollPane from the given JTable.
+     * Counts each of the given rejected maps in {@link Metrics} under the {@link CauseEnum} key
+     * of its {@link Key#REASON_FOR_ERROR}, as "inventory.rejected.&lt;key&gt;".
      *
-     * @param table The table that is being added to the JScrollPanel.
-     * @param message The title of the JScrollPanel.
-     * @param height The preferred height of the JScrollPanel
-     * @return the newly created JScrollPane.
+     * @param badMaps The maps that could not be added to the Company.
      */
-    private static JScrollPane createJScrollPane(JTable table, String message, int height) {
-        JScrollPane scrollPane = new JScrollPane(table);
-        scrollPane.setBorder(BorderFactory.createTitledBorder(message));
-        scrollPane.setPreferredSize(new java.awt.Dimension(500, height));
+    static void countRejections(List<Map<Key, Object>> badMaps) {
+        for (Map<Key, Object> map : badMaps) {
+            Object reason = map.get(Key.REASON_FOR_ERROR);
+            String causeKey = CauseEnum.getCauseKey(reason instanceof ReadWriteException e ? e : null);
+            Metrics.counter("inventory.rejected." + causeKey).increment();
+        }
+    }
+
+    /**
+     * Creates and returns a new TitledPane holding the given TableView.
+     *
+     * @param table The table that is being added to the TitledPane.
+     * @param message The title of the TitledPane.
+     * @param height The preferred height of the table.
+     * @return the newly created TitledPane.
+     */
+    private static TitledPane createTitledTable(TableView<Object[]> table, String message, int height) {
+        table.setPrefSize(500, height);
+        TitledPane titledPane = new TitledPane(message, table);
+        titledPane.setCollapsible(false);
 
-        return scrollPane;
+        return titledPane;
     }
 
     /**
-     * Sets the preferred column of each column to be the int in the same index as size.
+     * Sets the preferred width of each column to be the int in the same index as size.
      *
      * @param table The table whose preferred column sizes is being updated.
      * @param size An array of the size of columns being created.
      */
-    private static void resizeTable(JTable table, int[] size) {
-        TableColumnModel colModel = table.getColumnModel();
+    private static void resizeTable(TableView<Object[]> table, int[] size) {
         for (int i = 0; i < size.length; i++) {
-            TableColumn col = colModel.getColumn(i);
-            col.setPreferredWidth(size[i]);
+            table.getColumns().get(i).setPrefWidth(size[i]);
         }
     }
 
     /**
-     * Creates and returns a new JTable with the given data and column names.
+     * Creates and returns a new read only TableView with the given data and column names.
      *
-     * @param data The list of rows of data for the JTable.
-     * @param colNames The array of names for the columns in the JTable.
-     * @return the newly created JTable.
+     * @param data The list of rows of data for the TableView.
+     * @param colNames The array of names for the columns in the TableView.
+     * @return the newly created TableView.
      */
-    private static JTable createJTable(List<Object[]> data, String[] colNames) {
-        return new JTable(data.toArray(new Object[0][]), colNames);
+    private static TableView<Object[]> createTable(List<Object[]> data, String[] colNames) {
+        TableView<Object[]> table = new TableView<>(FXCollections.observableArrayList(data));
+        for (int i = 0; i < colNames.length; i++) {
+            int index = i;
+            TableColumn<Object[], Object> column = new TableColumn<>(colNames[i]);
+            column.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(cellData.getValue()[index]));
+            table.getColumns().add(column);
+        }
+        return table;
     }
 
     /**
-     * Shows a JPanel containing JTables for good and bad maps that were or were not added to Company, respectively.
+     * Shows a dialog containing tables for good and bad maps that were or were not added to Company, respectively.
      *
-     * @param successData The list of rows of successfully added data for the JTable.
-     * @param invalidData The list of rows of not successfully added data for the JTable.
+     * @param successData The list of rows of successfully added data for the table.
+     * @param invalidData The list of rows of not successfully added data for the table.
      */
     public static void showMapFromFileInfo(List<Object[]> successData, List<Object[]> invalidData) {
         String[] columnNames = {"Vehicle ID", "Make", "Model", "Type", "Dealership ID"};
@@ -128,27 +164,27 @@ public class GuiUtility {
 
         List<Object[]> errorData = CauseEnum.getListObjectArr();
 
-        JTable successTable = createJTable(successData, columnNames);
-        JTable invalidTable = createJTable(invalidData, badColNames);
-        JTable errorTable = createJTable(errorData, errorColNames);
+        TableView<Object[]> successTable = createTable(successData, columnNames);
+        TableView<Object[]> invalidTable = createTable(invalidData, badColNames);
+        TableView<Object[]> errorTable = createTable(errorData, errorColNames);
 
         resizeTable(errorTable, new int[]{100, 400});
 
-        JScrollPane successScrollPane = createJScrollPane(successTable, "Successfully Added Vehicles", 150);
-        JScrollPane invalidScrollPane = createJScrollPane(invalidTable, "Unable to Add Vehicles", 150);
-        JScrollPane errorScrollPane = createJScrollPane(errorTable,"Error Reasons", 160);
-
-        JPanel panel = new JPanel();
-        panel.setLayout(new BoxLayout(panel, BoxLayout.Y_AXIS));
-        panel.add(successScrollPane);
-        panel.add(invalidScrollPane);
-        panel.add(errorScrollPane);
+        VBox content = new VBox(
+                createTitledTable(successTable, "Successfully Added Vehicles", 150),
+                createTitledTable(invalidTable, "Unable to Add Vehicles", 150),
+                createTitledTable(errorTable, "Error Reasons", 160));
 
-        JOptionPane.showMessageDialog(null, panel, "Vehicle Import Results", JOptionPane.INFORMATION_MESSAGE);
+        Alert alert = new Alert(Alert.AlertType.INFORMATION, null, ButtonType.OK);
+        alert.setTitle("Vehicle Import Results");
+        alert.setHeaderText(null);
+        alert.getDialogPane().setContent(content);
+        alert.setResizable(true);
+        alert.show();
     }
 
     /**
-     * Shows a JPanel containing the JTables for good and bad maps that were or were not added to Company, respectively.
+     * Shows a dialog containing the tables for good and bad maps that were or were not added to Company, respectively.
      *
      * @param maps The List of all Maps read from a FileIO.
      * @param badMaps THe List of bad Maps that could not be added to Company.
@@ -179,4 +215,123 @@ public class GuiUtility {
 
         showMapFromFileInfo(successData, invalidData);
     }
-}
\ No newline at end of file
+
+    /**
+     * Replaces the items of a ComboBox of dealership IDs, keeping its selection if the
+     * selected item is still one of the items and clearing it otherwise.
+     *
+     * @param comboBox The ComboBox being updated.
+     * @param items The new items of the ComboBox.
+     * @return Whether the ComboBox still has a selection.
+     */
+    static boolean refreshComboItems(ComboBox<String> comboBox, List<String> items) {
+        String selected = comboBox.getValue();
+        comboBox.setItems(FXCollections.observableArrayList(items));
+
+        if (selected != null && items.contains(selected)) {
+            comboBox.setValue(selected);
+            return true;
+        }
+        comboBox.setValue(null);
+        return false;
+    }
+
+    /**
+     * Shows a JavaFX information Alert with the given message, without blocking the caller.
+     *
+     * @param message The message shown in the Alert.
+     */
+    public static void showAlert(String message) {
+        Alert alert = new Alert(Alert.AlertType.INFORMATION, message, ButtonType.OK);
+        alert.setHeaderText(null);
+        alert.show();
+    }
+
+    /**
+     * Shows a JavaFX warning Alert with the given message and two choices, and waits for one
+     * of them to be picked.
+     *
+     * @param message The message shown in the Alert.
+     * @param accept The text of the first choice.
+     * @param decline The text of the second choice, which is also picked by closing the Alert.
+     * @return Whether the first choice was picked.
+     */
+    static boolean askChoice(String message, String accept, String decline) {
+        ButtonType acceptButton = new ButtonType(accept, ButtonBar.ButtonData.OK_DONE);
+        ButtonType declineButton = new ButtonType(decline, ButtonBar.ButtonData.CANCEL_CLOSE);
+        Alert alert = new Alert(Alert.AlertType.WARNING, message, acceptButton, declineButton);
+        alert.setHeaderText(null);
+        return alert.showAndWait().filter(acceptButton::equals).isPresent();
+    }
+
+    /**
+     * Shows a dialog with the progress and message of the given Task, and a Cancel button that
+     * cancels it. The dialog closes itself once the Task is done, however it finished.
+     *
+     * @param task The Task whose progress is shown.
+     * @param title The title of the dialog.
+     */
+    public static void showTaskProgress(Task<?> task, String title) {
+        ProgressBar progressBar = new ProgressBar();
+        progressBar.setPrefWidth(300);
+        progressBar.progressProperty().bind(task.progressProperty());
+        Label label = new Label();
+        label.textProperty().bind(task.messageProperty());
+
+        VBox content = new VBox(10, label, progressBar);
+        content.setPadding(new Insets(10));
+
+        Alert alert = new Alert(Alert.AlertType.NONE, null, ButtonType.CANCEL);
+        alert.setTitle(title);
+        alert.getDialogPane().setContent(content);
+        alert.setOnHidden(event -> {
+            if (task.isRunning()) {task.cancel();}
+        });
+
+        task.runningProperty().addListener((observable, wasRunning, isRunning) -> {
+            if (!isRunning && task.isDone()) {alert.close();}
+        });
+        if (task.isDone()) {return;}
+        alert.show();
+    }
+
+    /**
+     * Opens a file chooser dialog to allow the user to select a file to read inventory from.
+     * The file chooser will start in the current user's working directory and will only show
+     * files with an extension given by {@link FileIOFactory#readerExtensions()}.
+     *
+     * @return The selected path to the file, or null if the user cancels or closes the dialog
+     * without selecting a file.
+     */
+    static String selectFileReaderPath() {
+        FileChooser fileChooser = createFileChooser(FileIOFactory.getInstance().readerExtensions());
+        File file = fileChooser.showOpenDialog(SceneManager.getInstance(null).getStage());
+        return file == null ? null : file.toString();
+    }
+
+    /**
+     * Opens a file chooser dialog to allow the user to select a file to write inventory to.
+     * The file chooser will start in the current user's working directory and will only show
+     * files with an extension given by {@link FileIOFactory#writerExtensions()}.
+     *
+     * @return The selected path to the file, or null if the user cancels or closes the dialog
+     * without selecting a file.
+     */
+    static String selectFileWriterPath() {
+        FileChooser fileChooser = createFileChooser(FileIOFactory.getInstance().writerExtensions());
+        File file = fileChooser.showSaveDialog(SceneManager.getInstance(null).getStage());
+        return file == null ? null : file.toString();
+    }
+
+    private static FileChooser createFileChooser(List<String> extensions) {
+        List<String> patterns = new ArrayList<>();
+        for (String extension : extensions) {
+            patterns.add("*." + extension);
+        }
+
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setInitialDirectory(new File(System.getProperty("user.dir")));
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Choose File", patterns));
+        return fileChooser;
+    }
+}
@@ -0,0 +1,107 @@
+package javafiles.gui;
+
+import javafiles.Key;
+import javafiles.customexceptions.ReadWriteException;
+import javafiles.dataaccessfiles.FileIOFactory;
+import javafiles.dataaccessfiles.ShardedInventoryStore;
+import javafiles.dataaccessfiles.fileioimplements.FileIOReader;
+import javafiles.domainfiles.Company;
+import javafiles.domainfiles.InventoryCommit;
+import javafiles.domainfiles.StagedInventory;
+import javafx.application.Platform;
+import javafx.concurrent.Task;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A Task that reads an inventory file and stages its vehicles on a {@link BackgroundIO} thread.
+ * </p>
+ * The {@link Company} is not touched while the Task runs. Once it has succeeded, the result is
+ * added with {@link #commit(Company, Consumer)}, which must be called on the JavaFX thread.
+ */
+class InventoryImportTask extends Task<StagedInventory> {
+    private static final int PROGRESS_STEP = 1024;
+    /** The number of rows committed per JavaFX event, so the UI keeps responding during a large import. */
+    private static final int COMMIT_STEP = 5000;
+
+    private final String path;
+    private final ShardedInventoryStore store;
+    private volatile List<Map<Key, Object>> maps = List.of();
+
+    /**
+     * Creates a new InventoryImportTask for the file at the given path.
+     *
+     * @param path The path of the inventory file to read.
+     */
+    InventoryImportTask(String path) {
+        this.path = path;
+        this.store = null;
+    }
+
+    /**
+     * Creates a new InventoryImportTask that reads every dealership of the given store.
+     *
+     * @param store The store of the inventory to read.
+     */
+    InventoryImportTask(ShardedInventoryStore store) {
+        this.path = store.getDirectory().toString();
+        this.store = store;
+    }
+
+    @Override
+    protected StagedInventory call() throws ReadWriteException {
+        updateMessage("Reading " + path + "...");
+        List<Map<Key, Object>> readMaps;
+        if (store != null) {
+            readMaps = store.load();
+        } else {
+            FileIOReader fileIOReader = FileIOFactory.getInstance().buildNewFileIOReader(path);
+            readMaps = fileIOReader.readInventory();
+        }
+
+        StagedInventory staged = new StagedInventory();
+        int total = readMaps.size();
+        updateMessage("Checking " + total + " vehicles...");
+        for (int i = 0; i < total; i++) {
+            if (i % PROGRESS_STEP == 0) {
+                if (isCancelled()) {return null;}
+                updateProgress(i, total);
+            }
+            staged.stage(readMaps.get(i));
+        }
+        updateProgress(total, total);
+
+        maps = readMaps;
+        return staged;
+    }
+
+    /**
+     * Adds the staged vehicles to the given Company, {@link #COMMIT_STEP} rows per JavaFX event
+     * so other events are handled in between. Must only be called on the JavaFX thread once the
+     * Task has succeeded.
+     *
+     * @param company The Company the vehicles are added to.
+     * @param onCommitted Called on the JavaFX thread with the List of Maps that could not be added,
+     *                    once every row is committed.
+     */
+    void commit(Company company, Consumer<List<Map<Key, Object>>> onCommitted) {
+        commitStep(company.beginCommit(getValue()), onCommitted);
+    }
+
+    private static void commitStep(InventoryCommit commit, Consumer<List<Map<Key, Object>>> onCommitted) {
+        if (commit.step(COMMIT_STEP)) {
+            Platform.runLater(() -> commitStep(commit, onCommitted));
+        } else {
+            onCommitted.accept(commit.finish());
+        }
+    }
+
+    /**
+     * Returns all Maps read from the file, once the Task has succeeded.
+     */
+    List<Map<Key, Object>> getMaps() {
+        return maps;
+    }
+}
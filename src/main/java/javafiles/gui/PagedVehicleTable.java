@@ -0,0 +1,157 @@
+package javafiles.gui;
+
+import javafiles.Key;
+import javafiles.domainfiles.Company;
+import javafiles.domainfiles.Vehicle;
+import javafiles.domainfiles.VehiclePage;
+import javafiles.domainfiles.VehiclePageRequest;
+import javafiles.domainfiles.VehicleQuery;
+import javafx.collections.FXCollections;
+import javafx.concurrent.Task;
+import javafx.scene.control.Pagination;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Binds a {@link TableView} of vehicles to a {@link Pagination} control so that only the visible page
+ * of a {@link VehicleQuery} is ever loaded into the table. Pages are prepared with
+ * {@link Company#preparePage(VehicleQuery, int, int)} on the JavaFX thread and fetched on a background
+ * thread, so the inventory can keep changing while a page is fetched.
+ * </p>
+ * Clicking a column header that was registered with {@link #bindSortKey(TableColumn, Key)} sorts the
+ * whole query rather than only the visible page.
+ */
+class PagedVehicleTable {
+    /** The number of vehicles shown on a single page. */
+    static final int PAGE_SIZE = 100;
+
+    private final TableView<Vehicle> table;
+    private final Pagination pagination;
+    private final Map<TableColumn<Vehicle, ?>, Key> sortKeys = new HashMap<>();
+
+    private VehicleQuery query;
+    private Task<VehiclePage> pendingTask;
+    private Key loadedSortKey;
+    private boolean loadedAscending = true;
+
+    /**
+     * Creates a new PagedVehicleTable. The table becomes the page content of the pagination,
+     * so only the pagination needs to be placed in the scene.
+     *
+     * @param table The TableView that shows the current page.
+     * @param pagination The Pagination control used to move between pages.
+     */
+    PagedVehicleTable(TableView<Vehicle> table, Pagination pagination) {
+        this.table = table;
+        this.pagination = pagination;
+
+        // Items are never sorted in place; a new sort order reloads the page from the query instead.
+        table.setSortPolicy(sortedTable -> {
+            if (query != null && sortChanged(sortedQuery(query))) {
+                reload();
+            }
+            return true;
+        });
+        pagination.setPageCount(1);
+        pagination.setPageFactory(pageIndex -> {
+            loadPage(pageIndex);
+            return table;
+        });
+    }
+
+    /**
+     * Lets the given column be sorted by clicking on its header. Sorting is done by the
+     * {@link VehicleQuery} across all pages, using the value of the given Key.
+     *
+     * @param column The column that can be sorted.
+     * @param key The Key whose value the column is sorted by.
+     */
+    void bindSortKey(TableColumn<Vehicle, ?> column, Key key) {
+        sortKeys.put(column, key);
+        column.setSortable(true);
+    }
+
+    /**
+     * Shows the first page of the given query. Passing null clears the table.
+     *
+     * @param newQuery The VehicleQuery describing the vehicles to show.
+     */
+    void setQuery(VehicleQuery newQuery) {
+        query = newQuery;
+        if (pagination.getCurrentPageIndex() == 0) {
+            loadPage(0);
+        } else {
+            pagination.setCurrentPageIndex(0); // Calls the page factory
+        }
+    }
+
+    /**
+     * Reloads the current page, such as after the inventory was changed.
+     */
+    void reload() {
+        loadPage(pagination.getCurrentPageIndex());
+    }
+
+    /**
+     * Returns the query with the sort order currently chosen in the table's column headers.
+     */
+    private VehicleQuery sortedQuery(VehicleQuery base) {
+        for (TableColumn<Vehicle, ?> column : table.getSortOrder()) {
+            Key key = sortKeys.get(column);
+            if (key != null) {
+                boolean ascending = column.getSortType() == TableColumn.SortType.ASCENDING;
+                return new VehicleQuery(base.getDealerId(), base.getFilter(), key, ascending);
+            }
+        }
+        return base;
+    }
+
+    /**
+     * Returns whether the given query is sorted differently from the page last loaded.
+     */
+    private boolean sortChanged(VehicleQuery sorted) {
+        return sorted.getSortKey() != loadedSortKey || sorted.getAscending() != loadedAscending;
+    }
+
+    /**
+     * Fetches the page at the given index on a {@link BackgroundIO} thread and shows it once it is ready.
+     * A page that is still loading is cancelled, so only the most recent request is shown.
+     *
+     * @param pageIndex The index of the page to load.
+     */
+    private void loadPage(int pageIndex) {
+        if (pendingTask != null) {
+            pendingTask.cancel();
+        }
+        if (query == null) {
+            table.setItems(FXCollections.observableArrayList());
+            return;
+        }
+
+        VehicleQuery pageQuery = sortedQuery(query);
+        loadedSortKey = pageQuery.getSortKey();
+        loadedAscending = pageQuery.getAscending();
+        VehiclePageRequest request = AppStateManager.getCompany().preparePage(pageQuery, pageIndex * PAGE_SIZE, PAGE_SIZE);
+        Task<VehiclePage> task = new Task<>() {
+            @Override
+            protected VehiclePage call() {
+                return request.fetch();
+            }
+        };
+        task.setOnSucceeded(event -> showPage(task.getValue()));
+        pendingTask = task;
+        BackgroundIO.run(task);
+    }
+
+    private void showPage(VehiclePage page) {
+        table.setItems(FXCollections.observableArrayList(page.getVehicles()));
+
+        int pageCount = Math.max(1, (page.getTotal() + PAGE_SIZE - 1) / PAGE_SIZE);
+        if (pagination.getPageCount() != pageCount) {
+            pagination.setPageCount(pageCount);
+        }
+    }
+}
@@ -21,7 +21,7 @@ import static javafiles.gui.FXMLPath.MAIN_SCREEN;
  * Handles actions related to managing dealership profiles, including adding dealership, editing dealership names,
  * and changing the receiving and rental statuses of dealerships.
  */
-public class ProfileManagementController {
+public class ProfileManagementController implements Refreshable {
     private DealershipRow selectedDealershipRow;
 
     @FXML
@@ -66,6 +66,14 @@ public class ProfileManagementController {
         });
     }
 
+    /**
+     * Fetches the dealership rows again, as dealerships may have been added by an import.
+     */
+    @Override
+    public void refresh() {
+        dealershipTable.setItems(FXCollections.observableArrayList(AppStateManager.getDealershipRows()));
+    }
+
     /**
      * Handles the "Back" button action.
      * Switches the scene to the main screen.
@@ -0,0 +1,13 @@
+package javafiles.gui;
+
+/**
+ * A controller whose screen is kept by {@link SceneManager} between visits.
+ * Instead of being rebuilt, the screen is refreshed each time it is shown again, so it
+ * only has to update the data that may have changed since it was last visible.
+ */
+interface Refreshable {
+    /**
+     * Called on the JavaFX thread each time the cached screen is shown again.
+     */
+    void refresh();
+}
@@ -6,12 +6,19 @@ import javafx.scene.Scene;
 import javafx.stage.Stage;
 
 import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
 
 
 /**
  * The SceneManager class is responsible for managing the scenes of the application.
  * It follows the Singleton design pattern to ensure that only one instance of SceneManager exists
  * for a given stage.
+ * </p>
+ * Each screen is loaded from its FXML file once and then kept, so switching back to a screen
+ * reuses its Scene and controller. Controllers implementing {@link Refreshable} are refreshed
+ * instead of being rebuilt. Setting the system property {@value #TIMING_PROPERTY} to true prints
+ * how long each switch took.
  */
 public class SceneManager {
 
@@ -22,6 +29,12 @@ public class SceneManager {
     /** The singleton instance of SceneManager. */
     private static SceneManager instance;
 
+    /** The system property that turns on printing of navigation latency. */
+    static final String TIMING_PROPERTY = "dealership.navigation.timing";
+
+    /** The screens loaded so far, along with their controllers. */
+    private final Map<FXMLPath, CachedScreen> screens = new EnumMap<>(FXMLPath.class);
+
     /**
      * Private constructor to initialize the SceneManager with the given stage.
      * This constructor is private to ensure only one instance of SceneManager exists.
@@ -47,18 +60,72 @@ public class SceneManager {
     }
 
     /**
-     * Loads a scene from the specified FXML file and stores it in the scenes map.
-     * The scene is also set with a title based on the FXML file's name.
+     * Returns the stage (window) the scenes are shown in, such as to own a dialog.
+     *
+     * @return the main stage of the application
+     */
+    Stage getStage() {
+        return stage;
+    }
+
+    /**
+     * Shows the scene of the specified FXML file, loading it the first time it is shown.
+     * A scene that was already loaded is reused and its controller refreshed if it is
+     * {@link Refreshable}. The scene is also set with a title based on the FXML file's name.
      *
      * @param fxmlPath the path to the FXML file to load the scene from
      * @throws IOException if there is an error loading the FXML file
      */
     public void switchScene(FXMLPath fxmlPath) throws IOException {
+        long start = System.nanoTime();
+        CachedScreen screen = screens.get(fxmlPath);
+        boolean cached = screen != null;
+
+        if (cached) {
+            if (screen.controller instanceof Refreshable refreshable) {refreshable.refresh();}
+        } else {
+            screen = load(fxmlPath);
+        }
+        stage.setScene(screen.scene);
+        stage.setTitle(fxmlPath.getScreenTitle());
+
+        if (Boolean.getBoolean(TIMING_PROPERTY)) {
+            double millis = (System.nanoTime() - start) / 1_000_000.0;
+            System.out.printf("%s shown in %.2f ms (%s)%n", fxmlPath, millis, cached ? "cached" : "loaded");
+        }
+    }
+
+    /**
+     * Loads the scenes of the given FXML files ahead of time, so that the first switch to them
+     * is as quick as any later one. Screens that are already loaded are skipped.
+     *
+     * @param fxmlPaths the paths to the FXML files to load
+     * @throws IOException if there is an error loading an FXML file
+     */
+    public void preload(FXMLPath... fxmlPaths) throws IOException {
+        for (FXMLPath fxmlPath : fxmlPaths) {
+            if (!screens.containsKey(fxmlPath)) {load(fxmlPath);}
+        }
+    }
+
+    private CachedScreen load(FXMLPath fxmlPath) throws IOException {
         FXMLLoader loader = new FXMLLoader(getClass().getResource(fxmlPath.getPath()));
         Parent root = loader.load();
-        Scene scene = new Scene(root,600,400);
-        stage.setScene(scene);
-        stage.setTitle(fxmlPath.getScreenTitle());
+        CachedScreen screen = new CachedScreen(new Scene(root,600,400), loader.getController());
+        screens.put(fxmlPath, screen);
+        return screen;
     }
 
+    /**
+     * A loaded Scene along with the controller of its FXML file.
+     */
+    private static final class CachedScreen {
+        private final Scene scene;
+        private final Object controller;
+
+        private CachedScreen(Scene scene, Object controller) {
+            this.scene = scene;
+            this.controller = controller;
+        }
+    }
 }
@@ -10,7 +10,6 @@ import javafx.scene.control.ComboBox;
 import javafx.scene.control.DatePicker;
 import javafx.scene.control.TextField;
 
-import javax.swing.*;
 import java.io.IOException;
 import java.net.URL;
 import java.time.LocalDate;
@@ -25,7 +24,7 @@ import static javafiles.gui.FXMLPath.ADD_INVENTORY;
  * Controller class for the vehicle entry form.
  * Handles user interactions for adding vehicle information.
  */
-public class VehicleEntryController implements Initializable {
+public class VehicleEntryController implements Initializable, Refreshable {
 
     @FXML
     private Button backButton;
@@ -73,6 +72,14 @@ public class VehicleEntryController implements Initializable {
         dealershipComboBox.getItems().addAll(AppStateManager.getDealershipIDs());
     }
 
+    /**
+     * Updates the dealershipComboBox with the current dealership IDs. Entered fields are kept.
+     */
+    @Override
+    public void refresh() {
+        GuiUtility.refreshComboItems(dealershipComboBox, AppStateManager.getDealershipIDs());
+    }
+
     /**
      * Handles the action when the back button is clicked.
      * Switches the scene to the add inventory screen.
@@ -102,7 +109,7 @@ public class VehicleEntryController implements Initializable {
         // Validation (required fields)
         if (vehicleTypeField.getText().isEmpty() || vehicleIdField.getText().isEmpty() ||
                 vehicleModelField.getText().isEmpty() || vehiclePriceField.getText().isEmpty()) {
-            JOptionPane.showMessageDialog(null, "Missing Required Vehicle Information");
+            GuiUtility.showAlert("Missing Required Vehicle Information");
             return;
         }
 
@@ -148,14 +155,14 @@ public class VehicleEntryController implements Initializable {
             // Call AppStateManager to add the vehicle
             AppStateManager.manualVehicleAdd(map);
 
-            JOptionPane.showMessageDialog(null, "Vehicle ID [" + vehicleId + "] has been successfully added");
+            GuiUtility.showAlert("Vehicle ID [" + vehicleId + "] has been successfully added");
             resetFields();
 
         } catch (VehicleAlreadyExistsException | InvalidPriceException |
                  DealershipNotAcceptingVehiclesException | InvalidVehicleTypeException |
                  InvalidLongPriceException |
                  DealershipNotSelectedException | MissingCriticalInfoException e) {
-            JOptionPane.showMessageDialog(null, e.getMessage());
+            GuiUtility.showAlert(e.getMessage());
         }
     }
 
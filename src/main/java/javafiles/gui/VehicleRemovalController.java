@@ -1,10 +1,12 @@
 package javafiles.gui;
 
 
+import javafiles.customexceptions.DealershipNotAcceptingVehiclesException;
+import javafiles.customexceptions.VehicleAlreadyExistsException;
 import javafiles.domainfiles.Dealership;
 import javafiles.domainfiles.Vehicle;
+import javafiles.domainfiles.VehicleQuery;
 import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
@@ -21,7 +23,7 @@ import static javafiles.gui.FXMLPath.INVENTORY_SCREEN;
  * and once dealership is selected the table populates with that dealership's vehicles. Once vehicle is chosen
  * it can be removed from inventory by clicking the removal button.
  */
-public class VehicleRemovalController {
+public class VehicleRemovalController implements Refreshable {
 
         @FXML
         private Button backButton;
@@ -35,6 +37,11 @@ public class VehicleRemovalController {
         @FXML
         private TableView<Vehicle> vehicleTable;
 
+        @FXML
+        private Pagination pagination;
+
+        private PagedVehicleTable pagedTable;
+
         @FXML
         private TableColumn<Vehicle, String> vehicleIdColumn;
 
@@ -79,6 +86,7 @@ public class VehicleRemovalController {
             vehiclePriceColum.setCellValueFactory(new PropertyValueFactory<>("vehiclePrice"));
             priceUnitColumn.setCellValueFactory(new PropertyValueFactory<>("priceUnit"));
             acquisitionDateColumn.setCellValueFactory(new PropertyValueFactory<>("formattedAcquisitionDate"));
+            pagedTable = new PagedVehicleTable(vehicleTable, pagination);
 
             // Add a listener to the selected item in the table
             vehicleTable.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) -> {
@@ -91,6 +99,19 @@ public class VehicleRemovalController {
             dealershipComboBox.setOnAction(this::handleDealershipSelection);
         }
 
+        /**
+         * Updates the dealership combo box, and reloads the table if the selected dealership
+         * still exists.
+         */
+        @Override
+        public void refresh() {
+            if (GuiUtility.refreshComboItems(dealershipComboBox, AppStateManager.getDealershipIDs())) {
+                pagedTable.reload();
+            } else {
+                pagedTable.setQuery(null);
+            }
+        }
+
     /**
      * Handles the event when the "Back" button is clicked, navigating back to the inventory screen.
      *
@@ -127,6 +148,42 @@ public class VehicleRemovalController {
             }
         }
 
+        /**
+         * Handles the event when the "Undo" button is clicked, putting back the vehicles of the
+         * last removal or other change, and refreshes the vehicle table. If a vehicle can not be
+         * put back, nothing is changed and the reason is shown.
+         *
+         * @param event The ActionEvent triggered by the button click.
+         */
+        @FXML
+        public void handleUndo(ActionEvent event) {
+            try {
+                String undone = AppStateManager.undoLastChange();
+                refresh();
+                showAlert(undone == null ? "There is nothing to undo." : "Undone: " + undone + ".");
+            } catch (DealershipNotAcceptingVehiclesException | VehicleAlreadyExistsException e) {
+                showAlert(e.getMessage());
+            }
+        }
+
+        /**
+         * Handles the event when the "Redo" button is clicked, making the last undone change
+         * again, and refreshes the vehicle table. If a vehicle can not be put back, nothing is
+         * changed and the reason is shown.
+         *
+         * @param event The ActionEvent triggered by the button click.
+         */
+        @FXML
+        public void handleRedo(ActionEvent event) {
+            try {
+                String redone = AppStateManager.redoLastChange();
+                refresh();
+                showAlert(redone == null ? "There is nothing to redo." : "Redone: " + redone + ".");
+            } catch (DealershipNotAcceptingVehiclesException | VehicleAlreadyExistsException e) {
+                showAlert(e.getMessage());
+            }
+        }
+
         /**
          * Handles the dealership selection event, updating the vehicle table with the selected dealership's vehicles.
          *
@@ -138,8 +195,7 @@ public class VehicleRemovalController {
             if (selectedDealershipId != null) {
                 Dealership dealership = AppStateManager.findADealership(selectedDealershipId);
                 if (dealership != null) {
-                    ObservableList<Vehicle> vehicleData = FXCollections.observableArrayList(AppStateManager.getDealershipCompleteInventory(selectedDealershipId));
-                    vehicleTable.setItems(vehicleData);
+                    pagedTable.setQuery(new VehicleQuery(selectedDealershipId));
                 }
             }
         }
@@ -2,28 +2,33 @@ package javafiles.gui;
 
 import javafiles.customexceptions.RentalException;
 import javafiles.domainfiles.Dealership;
+import javafiles.domainfiles.RentalOutcome;
 import javafiles.domainfiles.Vehicle;
+import javafiles.domainfiles.VehicleQuery;
 import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ComboBox;
+import javafx.scene.control.Pagination;
+import javafx.scene.control.SelectionMode;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.cell.PropertyValueFactory;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import static javafiles.gui.FXMLPath.INVENTORY_SCREEN;
 
 
 /**
  * Controller for the Vehicle Rental screen, allowing users to change rental status of vehicle
- * to true or false.
+ * to true or false, either one vehicle at a time or for every selected vehicle at once.
  */
-public class VehicleRentalController {
+public class VehicleRentalController implements Refreshable {
 
     @FXML
     private ComboBox<String> dealershipComboBox;
@@ -31,6 +36,11 @@ public class VehicleRentalController {
     @FXML
     private TableView<Vehicle> vehicleTable;
 
+    @FXML
+    private Pagination pagination;
+
+    private PagedVehicleTable pagedTable;
+
     @FXML
     private TableColumn<Vehicle, String> vehicleIdColumn;
 
@@ -68,6 +78,8 @@ public class VehicleRentalController {
         vehicleModelColumn.setCellValueFactory(new PropertyValueFactory<>("vehicleModel"));
         vehicleManufacturerColumn.setCellValueFactory(new PropertyValueFactory<>("vehicleManufacturer"));
         acquisitionDateColumn.setCellValueFactory(new PropertyValueFactory<>("formattedAcquisitionDate"));
+        pagedTable = new PagedVehicleTable(vehicleTable, pagination);
+        vehicleTable.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
 
         // Add a listener to the selected item in the table
         vehicleTable.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) -> {
@@ -80,6 +92,20 @@ public class VehicleRentalController {
         dealershipComboBox.setOnAction(this::handleDealershipSelection);
     }
 
+    /**
+     * Updates the dealerships that have renting enabled, and reloads the table if the
+     * selected dealership is still one of them.
+     */
+    @Override
+    public void refresh() {
+        List<String> rentingEnabledDealershipIDs = AppStateManager.getRentingEnabledDealershipIDs();
+        if (GuiUtility.refreshComboItems(dealershipComboBox, rentingEnabledDealershipIDs)) {
+            pagedTable.reload();
+        } else {
+            pagedTable.setQuery(null);
+        }
+    }
+
     /**
      * Handles the "Back" button action, switching to the main screen.
      *
@@ -130,6 +156,62 @@ public class VehicleRentalController {
 
 
 
+    /**
+     * Handles the "Check Out Selected" button action, renting every selected vehicle.
+     *
+     * @param event The action event.
+     */
+    @FXML
+    private void handleCheckOutSelected(ActionEvent event) {
+        updateSelectedRentals(true);
+    }
+
+    /**
+     * Handles the "Check In Selected" button action, returning every selected vehicle.
+     *
+     * @param event The action event.
+     */
+    @FXML
+    private void handleCheckInSelected(ActionEvent event) {
+        updateSelectedRentals(false);
+    }
+
+    /**
+     * Sets the rental status of every selected vehicle with
+     * {@link AppStateManager#updateDealershipVehicleRentalStates(String, java.util.Collection, boolean)},
+     * so the inventory is saved once for the whole selection. Vehicles that could not be
+     * changed are listed in an alert.
+     *
+     * @param rented The rental status to set.
+     */
+    private void updateSelectedRentals(boolean rented) {
+        String selectedDealershipId = dealershipComboBox.getValue();
+        if (selectedDealershipId == null) {
+            showAlert("Please select a dealership.");
+            return;
+        }
+
+        List<String> vehicleIds = vehicleTable.getSelectionModel().getSelectedItems().stream()
+                .map(Vehicle::getVehicleId)
+                .collect(Collectors.toList());
+        if (vehicleIds.isEmpty()) {
+            showAlert("Please select one or more vehicles.");
+            return;
+        }
+
+        Map<String, RentalOutcome> outcomes =
+                AppStateManager.updateDealershipVehicleRentalStates(selectedDealershipId, vehicleIds, rented);
+        pagedTable.reload();
+
+        List<String> failed = outcomes.entrySet().stream()
+                .filter(entry -> !entry.getValue().getSucceeded())
+                .map(entry -> entry.getKey() + " (" + entry.getValue() + ")")
+                .collect(Collectors.toList());
+        if (!failed.isEmpty()) {
+            showAlert("Could not update: " + String.join(", ", failed));
+        }
+    }
+
     /**
      * Displays an alert dialog with the given message.
      *
@@ -154,8 +236,7 @@ public class VehicleRentalController {
         if (selectedDealershipId != null) {
             Dealership dealership = AppStateManager.findADealership(selectedDealershipId);
             if (dealership != null) {
-                ObservableList<Vehicle> vehicleData = FXCollections.observableArrayList(AppStateManager.getDealershipCompleteInventory(selectedDealershipId));
-                vehicleTable.setItems(vehicleData);
+                pagedTable.setQuery(new VehicleQuery(selectedDealershipId));
             }
         }
     }
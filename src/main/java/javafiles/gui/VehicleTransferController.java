@@ -5,12 +5,14 @@ import javafiles.customexceptions.DuplicateSenderException;
 import javafiles.customexceptions.VehicleAlreadyExistsException;
 import javafiles.customexceptions.VehicleNotFoundException;
 import javafiles.domainfiles.Vehicle;
+import javafiles.domainfiles.VehicleQuery;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ComboBox;
+import javafx.scene.control.Pagination;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.cell.PropertyValueFactory;
@@ -24,7 +26,7 @@ import static javafiles.gui.FXMLPath.INVENTORY_SCREEN;
 /**
  * Controller for the Vehicle Transfer screen, handling vehicle transfer operations between dealerships.
  */
-public class VehicleTransferController {
+public class VehicleTransferController implements Refreshable {
 
     @FXML
     private ComboBox<String> senderComboBox;
@@ -35,6 +37,11 @@ public class VehicleTransferController {
     @FXML
     private TableView<Vehicle> vehicleTable;
 
+    @FXML
+    private Pagination pagination;
+
+    private PagedVehicleTable pagedTable;
+
     @FXML
     private TableColumn<Vehicle, String> vehicleIdColumn;
 
@@ -81,6 +88,7 @@ public class VehicleTransferController {
         vehiclePriceColum.setCellValueFactory(new PropertyValueFactory<>("vehiclePrice"));
         priceUnitColumn.setCellValueFactory(new PropertyValueFactory<>("priceUnit"));
         acquisitionDateColumn.setCellValueFactory(new PropertyValueFactory<>("formattedAcquisitionDate"));
+        pagedTable = new PagedVehicleTable(vehicleTable, pagination);
 
         // Add a listener to the selected item in the table
         vehicleTable.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) -> {
@@ -93,6 +101,25 @@ public class VehicleTransferController {
         senderComboBox.setOnAction(this::handleSenderSelection);
     }
 
+    /**
+     * Updates the dealership combo boxes, and reloads the table if the selected sender
+     * still exists.
+     */
+    @Override
+    public void refresh() {
+        List<String> dealershipIDs = AppStateManager.getDealershipIDs();
+        if (GuiUtility.refreshComboItems(senderComboBox, dealershipIDs)) {
+            String senderDealershipId = senderComboBox.getValue();
+            List<String> receiverOptions = new ArrayList<>(dealershipIDs);
+            receiverOptions.remove(senderDealershipId);
+            GuiUtility.refreshComboItems(receiverComboBox, receiverOptions);
+            pagedTable.reload();
+        } else {
+            GuiUtility.refreshComboItems(receiverComboBox, dealershipIDs);
+            pagedTable.setQuery(null);
+        }
+    }
+
     /**
      * Handles the "Back" button action, switching to the inventory screen.
      *
@@ -137,6 +164,39 @@ public class VehicleTransferController {
 
     }
 
+    /**
+     * Handles the "Undo" button action, moving the vehicle of the last transfer, or the
+     * vehicles of another recorded change, back to where they were.
+     *
+     * @param event The action event.
+     */
+    @FXML
+    private void handleUndo(ActionEvent event) {
+        try {
+            String undone = AppStateManager.undoLastChange();
+            refresh();
+            showAlert(undone == null ? "There is nothing to undo." : "Undone: " + undone + ".");
+        } catch (DealershipNotAcceptingVehiclesException | VehicleAlreadyExistsException e) {
+            showAlert(e.getMessage());
+        }
+    }
+
+    /**
+     * Handles the "Redo" button action, making the last undone change again.
+     *
+     * @param event The action event.
+     */
+    @FXML
+    private void handleRedo(ActionEvent event) {
+        try {
+            String redone = AppStateManager.redoLastChange();
+            refresh();
+            showAlert(redone == null ? "There is nothing to redo." : "Redone: " + redone + ".");
+        } catch (DealershipNotAcceptingVehiclesException | VehicleAlreadyExistsException e) {
+            showAlert(e.getMessage());
+        }
+    }
+
     /**
      * Handles the sender dealership selection event, updating the vehicle table and receiver combo box options.
      *
@@ -152,13 +212,13 @@ public class VehicleTransferController {
     }
 
     /**
-     * Updates the vehicle table with the inventory of the selected dealership.
+     * Updates the vehicle table with the inventory of the selected dealership,
+     * loading one page at a time through {@link PagedVehicleTable}.
      *
      * @param dealershipId The ID of the dealership to display vehicles from.
      */
     private void updateVehicleTable(String dealershipId) {
-        ObservableList<Vehicle> vehicleData = FXCollections.observableArrayList(AppStateManager.getDealershipCompleteInventory(dealershipId));
-        vehicleTable.setItems(vehicleData);
+        pagedTable.setQuery(new VehicleQuery(dealershipId));
     }
 
     /**
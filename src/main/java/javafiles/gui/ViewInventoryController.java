@@ -2,22 +2,20 @@ package javafiles.gui;
 
 import javafiles.Key;
 import javafiles.customexceptions.DealershipNotFoundException;
-import javafiles.customexceptions.VehicleNotFoundException;
+import javafiles.domainfiles.Company;
 import javafiles.domainfiles.Dealership;
 import javafiles.domainfiles.Vehicle;
+import javafiles.domainfiles.VehicleQuery;
 import javafx.beans.property.SimpleStringProperty;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
+import javafx.scene.control.Pagination;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.cell.PropertyValueFactory;
 
 import java.io.IOException;
-import java.util.List;
-import java.util.Map;
 
 import static javafiles.gui.FXMLPath.INVENTORY_SCREEN;
 
@@ -25,11 +23,16 @@ import static javafiles.gui.FXMLPath.INVENTORY_SCREEN;
  * Controller class for the View Inventory screen.
  * Handles the display of vehicle inventory in a TableView.
  */
-public class ViewInventoryController {
+public class ViewInventoryController implements Refreshable {
 
     @FXML
     private TableView<Vehicle> tableView;
 
+    @FXML
+    private Pagination pagination;
+
+    private PagedVehicleTable pagedTable;
+
     @FXML
     private TableColumn<Vehicle, String> dealershipIdColumn;
 
@@ -58,16 +61,14 @@ public class ViewInventoryController {
      */
     @FXML
     public void initialize() {
-        List<Map<Key, Object>> dataMaps = AppStateManager.getCompanyData();
-
         // Initialize the table columns with PropertyValueFactory
         dealershipIdColumn.setCellValueFactory(cellData -> {
-            String dealershipId = getDealershipIdFromMap(cellData.getValue(), dataMaps);
+            String dealershipId = getDealershipId(cellData.getValue());
             return new SimpleStringProperty(dealershipId);
         });
         dealershipNameColum.setCellValueFactory(cellData -> {
             try {
-                String dealershipName = getDealershipNameFromMap(cellData.getValue(), dataMaps);
+                String dealershipName = getDealershipName(cellData.getValue());
                 return new SimpleStringProperty(dealershipName);
             } catch (DealershipNotFoundException e) {
                 showAlert(e.getMessage());
@@ -85,64 +86,68 @@ public class ViewInventoryController {
         priceUnitColumn.setCellValueFactory(new PropertyValueFactory<>("priceUnit"));
         acquisitionDateColumn.setCellValueFactory(new PropertyValueFactory<>("formattedAcquisitionDate"));
 
+        pagedTable = new PagedVehicleTable(tableView, pagination);
+        pagedTable.bindSortKey(dealershipIdColumn, Key.DEALERSHIP_ID);
+        pagedTable.bindSortKey(dealershipNameColum, Key.DEALERSHIP_NAME);
+        pagedTable.bindSortKey(vehicleIdColumn, Key.VEHICLE_ID);
+        pagedTable.bindSortKey(rentalColumn, Key.VEHICLE_RENTAL_STATUS);
+        pagedTable.bindSortKey(vehicleTypeColumn, Key.VEHICLE_TYPE);
+        pagedTable.bindSortKey(vehicleManufacturerColumn, Key.VEHICLE_MANUFACTURER);
+        pagedTable.bindSortKey(vehicleModelColumn, Key.VEHICLE_MODEL);
+        pagedTable.bindSortKey(vehiclePriceColumn, Key.VEHICLE_PRICE);
+        pagedTable.bindSortKey(priceUnitColumn, Key.VEHICLE_PRICE_UNIT);
+        pagedTable.bindSortKey(acquisitionDateColumn, Key.VEHICLE_ACQUISITION_DATE);
+
         // Load data into the table
         loadVehicleData();
     }
 
     /**
-     * Loads the vehicle data using {@link AppStateManager#getListCompanyVehicles()} and populates the TableView.
+     * Reloads the visible page, keeping the current page and sort order.
+     */
+    @Override
+    public void refresh() {
+        pagedTable.reload();
+    }
+
+    /**
+     * Loads the vehicle data page by page using {@link Company#queryVehicles(VehicleQuery, int, int)},
+     * so only the visible page of the company's inventory is placed in the TableView.
      */
     private void loadVehicleData() {
-        ObservableList<Vehicle> vehicleList = FXCollections.observableArrayList(AppStateManager.getListCompanyVehicles());
-        tableView.setItems(vehicleList);
+        pagedTable.setQuery(new VehicleQuery());
     }
 
 
     /**
-     * Retrieves the dealership ID from the map for the selected Vehicle.
+     * Retrieves the dealership ID for the selected Vehicle.
+     * Method calls {@link AppStateManager#findVehicleDealership(Vehicle)}.
      *
      * @param vehicle The Vehicle object.
      * @return The dealership ID or "" if dealership ID is not found for a vehicle.
      */
-    private String getDealershipIdFromMap(Vehicle vehicle, List<Map<Key, Object>> dataMaps) {
-        for (Map<Key, Object> dataMap : dataMaps) {
-            if (vehicle.getVehicleId().equals(dataMap.get(Key.VEHICLE_ID))) {
-                return (String) dataMap.get(Key.DEALERSHIP_ID);
-            }
-        }
-
-        return "";
+    private String getDealershipId(Vehicle vehicle) {
+        Dealership dealership = AppStateManager.findVehicleDealership(vehicle);
+        return dealership != null ? dealership.getDealerId() : "";
     }
 
     /**
      * Retrieves the dealership name for a vehicle.
      * <p>
-     * Searches application data for the vehicle's dealership and returns the name.
-     * Returns an empty string if not found.
+     * Looks up the dealership that holds the vehicle and returns its name.
+     * Method calls {@link AppStateManager#findVehicleDealership(Vehicle)}.
      *
      * @param vehicle The vehicle.
-     * @return The dealership name, or "" if Dealership not found
-     * @throws DealershipNotFoundException if Dealership is not found in the company
-     * @throws VehicleNotFoundException if vehicle does not exist in the company
+     * @return The dealership name.
+     * @throws DealershipNotFoundException if the vehicle does not belong to a dealership in the company
      */
-    private String getDealershipNameFromMap(Vehicle vehicle, List<Map<Key, Object>> dataMaps) throws  DealershipNotFoundException, VehicleNotFoundException {
-        Dealership dealership;
-        for (Map<Key, Object> dataMap : dataMaps) {
-            // Ensure the vehicle ID is not null before comparison
-            if (dataMap.get(Key.VEHICLE_ID) != null && dataMap.get(Key.VEHICLE_ID).equals(vehicle.getVehicleId())) {
-                String dealerID = (String) dataMap.get(Key.DEALERSHIP_ID);
-                dealership = AppStateManager.findADealership(dealerID);
-
-                // Handle the case where findADealership returns null
-                if (dealership != null) {
-                    return dealership.getDealerName();
-                } else {
-                    throw new DealershipNotFoundException("Error: Dealership not found in company" + " vehicle " + vehicle.getVehicleId() +
-                    " does not belong to a dealership"); // Dealership not found
-                }
-            }
+    private String getDealershipName(Vehicle vehicle) throws DealershipNotFoundException {
+        Dealership dealership = AppStateManager.findVehicleDealership(vehicle);
+        if (dealership == null) {
+            throw new DealershipNotFoundException("Error: Dealership not found in company" + " vehicle " + vehicle.getVehicleId() +
+                    " does not belong to a dealership");
         }
-        throw new VehicleNotFoundException("Vehicle " + vehicle.getVehicleId() + " not found for " + vehicle.getVehicleId() + ".");
+        return dealership.getDealerName();
     }
 
 
@@ -0,0 +1,31 @@
+package javafiles.metricsfiles
+
+import java.util.concurrent.atomic.LongAdder
+
+/**
+ * A count that only goes up, such as the number of rejected vehicles. Safe to update from
+ * many threads at once without locking.
+ *
+ * @param name The name the counter is registered under in [Metrics].
+ */
+class Counter internal constructor(val name: String) {
+    private val count = LongAdder()
+
+    /**
+     * Adds the given amount, 1 by default, to the count.
+     */
+    @JvmOverloads
+    fun increment(amount: Long = 1) {
+        count.add(amount)
+    }
+
+    /**
+     * The current count.
+     */
+    val value: Long
+        get() = count.sum()
+
+    internal fun reset() {
+        count.reset()
+    }
+}
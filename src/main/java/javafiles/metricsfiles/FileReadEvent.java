@@ -0,0 +1,30 @@
+package javafiles.metricsfiles;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A JDK Flight Recorder event for reading an inventory file with a FileIOReader.
+ */
+@Name("javafiles.FileRead")
+@Label("Inventory File Read")
+@Category({"DealerProject", "File I/O"})
+@Description("An inventory file read by a FileIOReader")
+public class FileReadEvent extends Event {
+    @Label("Path")
+    public String path;
+
+    @Label("Format")
+    public String format;
+
+    @Label("Rows")
+    public long rows;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+}
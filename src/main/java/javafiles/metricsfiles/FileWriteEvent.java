@@ -0,0 +1,30 @@
+package javafiles.metricsfiles;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A JDK Flight Recorder event for writing an inventory file with a FileIOWriter.
+ */
+@Name("javafiles.FileWrite")
+@Label("Inventory File Write")
+@Category({"DealerProject", "File I/O"})
+@Description("An inventory file written by a FileIOWriter")
+public class FileWriteEvent extends Event {
+    @Label("Path")
+    public String path;
+
+    @Label("Format")
+    public String format;
+
+    @Label("Rows")
+    public long rows;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+}
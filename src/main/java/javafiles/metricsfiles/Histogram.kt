@@ -0,0 +1,104 @@
+package javafiles.metricsfiles
+
+import java.util.concurrent.atomic.AtomicLongArray
+import java.util.concurrent.atomic.LongAdder
+
+/**
+ * Records the distribution of non-negative values, such as latencies in nanoseconds, so that
+ * percentiles like p50 and p99 can be read back.
+ *
+ * Values are counted in buckets whose width grows with the value: every power of two is split
+ * into [SUB_BUCKETS] buckets, so a percentile is always within 1/[SUB_BUCKETS] of the real value.
+ * Recording a value is a single lock-free increment, and the memory used never grows.
+ *
+ * @param name The name the histogram is registered under in [Metrics].
+ */
+class Histogram internal constructor(val name: String) {
+    private val buckets = AtomicLongArray(BUCKET_COUNT)
+    private val recorded = LongAdder()
+    private val sum = LongAdder()
+
+    /**
+     * Records a single value. Negative values are recorded as 0.
+     */
+    fun record(value: Long) {
+        val clamped = maxOf(value, 0L)
+        buckets.incrementAndGet(bucketIndex(clamped))
+        recorded.increment()
+        sum.add(clamped)
+    }
+
+    /**
+     * The number of values recorded.
+     */
+    val count: Long
+        get() = recorded.sum()
+
+    /**
+     * The mean of the values recorded, or 0 if there are none.
+     */
+    val mean: Double
+        get() {
+            val n = recorded.sum()
+            return if (n == 0L) 0.0 else sum.sum().toDouble() / n
+        }
+
+    /**
+     * Returns the value below which the given fraction of the recorded values fall, such as
+     * 0.99 for the p99. Returns 0 if no values have been recorded.
+     *
+     * @param fraction A number from 0 to 1.
+     */
+    fun percentile(fraction: Double): Long {
+        require(fraction in 0.0..1.0) { "Fraction must be between 0 and 1" }
+        val counts = LongArray(BUCKET_COUNT) { buckets[it] }
+        val total = counts.sum()
+        if (total == 0L) {return 0}
+
+        val target = maxOf(1L, Math.ceil(fraction * total).toLong())
+        var seen = 0L
+        for (i in counts.indices) {
+            seen += counts[i]
+            if (seen >= target) {return bucketMiddle(i)}
+        }
+        return bucketMiddle(BUCKET_COUNT - 1)
+    }
+
+    internal fun reset() {
+        for (i in 0 until BUCKET_COUNT) {buckets.set(i, 0)}
+        recorded.reset()
+        sum.reset()
+    }
+
+    companion object {
+        private const val SUB_BUCKET_BITS = 3
+        private const val SUB_BUCKETS = 1 shl SUB_BUCKET_BITS
+        private const val BUCKET_COUNT = (63 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS
+
+        /**
+         * Values below [SUB_BUCKETS] get a bucket each. Larger values are bucketed by their
+         * highest set bit and the [SUB_BUCKET_BITS] bits below it.
+         */
+        private fun bucketIndex(value: Long): Int {
+            if (value < SUB_BUCKETS) {return value.toInt()}
+            val exponent = 63 - java.lang.Long.numberOfLeadingZeros(value)
+            val shift = exponent - SUB_BUCKET_BITS
+            val subBucket = (value ushr shift).toInt() and (SUB_BUCKETS - 1)
+            return (shift + 1) * SUB_BUCKETS + subBucket
+        }
+
+        private fun bucketLowerBound(index: Int): Long {
+            if (index < SUB_BUCKETS) {return index.toLong()}
+            val shift = index / SUB_BUCKETS - 1
+            val subBucket = index % SUB_BUCKETS
+            return (SUB_BUCKETS + subBucket).toLong() shl shift
+        }
+
+        private fun bucketMiddle(index: Int): Long {
+            if (index < SUB_BUCKETS) {return index.toLong()}
+            val lower = bucketLowerBound(index)
+            val width = 1L shl (index / SUB_BUCKETS - 1)
+            return lower + width / 2
+        }
+    }
+}
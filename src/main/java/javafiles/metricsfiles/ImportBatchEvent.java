@@ -0,0 +1,28 @@
+package javafiles.metricsfiles;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A JDK Flight Recorder event for a batch of vehicle data added to the Company.
+ */
+@Name("javafiles.ImportBatch")
+@Label("Inventory Import Batch")
+@Category({"DealerProject", "Inventory"})
+@Description("A batch of vehicle data added to the Company")
+public class ImportBatchEvent extends Event {
+    @Label("Rows")
+    public long rows;
+
+    @Label("Accepted")
+    public long accepted;
+
+    @Label("Rejected")
+    public long rejected;
+
+    @Label("New Dealerships")
+    public long newDealerships;
+}
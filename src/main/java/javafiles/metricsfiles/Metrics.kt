@@ -0,0 +1,92 @@
+package javafiles.metricsfiles
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+
+/**
+ * The in-process registry of every [Counter], [Timer] and [Histogram] in the app.
+ *
+ * Metrics are created the first time their name is asked for and live for the rest of the
+ * process. Looking a metric up is a single concurrent map read, and updating one never locks,
+ * so they can be used on hot paths and from any thread.
+ */
+object Metrics {
+    private val counters: MutableMap<String, Counter> = ConcurrentHashMap()
+    private val timers: MutableMap<String, Timer> = ConcurrentHashMap()
+    private val histograms: MutableMap<String, Histogram> = ConcurrentHashMap()
+
+    /**
+     * Returns the [Counter] with the given name, creating it if needed.
+     */
+    @JvmStatic
+    fun counter(name: String): Counter {
+        return counters.computeIfAbsent(name) { Counter(it) }
+    }
+
+    /**
+     * Returns the [Timer] with the given name, creating it if needed.
+     */
+    @JvmStatic
+    fun timer(name: String): Timer {
+        return timers.computeIfAbsent(name) { Timer(it) }
+    }
+
+    /**
+     * Returns the [Histogram] with the given name, creating it if needed.
+     */
+    @JvmStatic
+    fun histogram(name: String): Histogram {
+        return histograms.computeIfAbsent(name) { Histogram(it) }
+    }
+
+    /**
+     * Returns every [Counter], sorted by name.
+     */
+    @JvmStatic
+    fun counters(): List<Counter> = counters.values.sortedBy { it.name }
+
+    /**
+     * Returns every [Timer], sorted by name.
+     */
+    @JvmStatic
+    fun timers(): List<Timer> = timers.values.sortedBy { it.name }
+
+    /**
+     * Returns every [Histogram], sorted by name.
+     */
+    @JvmStatic
+    fun histograms(): List<Histogram> = histograms.values.sortedBy { it.name }
+
+    /**
+     * Sets every metric back to zero. Metrics that were already looked up stay registered.
+     */
+    @JvmStatic
+    fun reset() {
+        counters.values.forEach { it.reset() }
+        timers.values.forEach { it.reset() }
+        histograms.values.forEach { it.reset() }
+    }
+
+    /**
+     * Returns a plain text report of every metric, one per line.
+     */
+    @JvmStatic
+    fun report(): String {
+        val report = StringBuilder()
+        for (timer in timers()) {
+            report.append(String.format("%-32s count=%d p50=%.3fms p99=%.3fms rows/s=%.0f bytes/s=%.0f%n",
+                timer.name, timer.count,
+                timer.percentile(0.5, TimeUnit.MILLISECONDS), timer.percentile(0.99, TimeUnit.MILLISECONDS),
+                timer.rowsPerSecond, timer.bytesPerSecond))
+        }
+        for (histogram in histograms()) {
+            report.append(String.format("%-32s count=%d mean=%.1f p50=%d p99=%d%n",
+                histogram.name, histogram.count, histogram.mean,
+                histogram.percentile(0.5), histogram.percentile(0.99)))
+        }
+        for (counter in counters()) {
+            report.append(String.format("%-32s %d%n", counter.name, counter.value))
+        }
+        return report.toString()
+    }
+}
@@ -0,0 +1,29 @@
+package javafiles.metricsfiles;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A JDK Flight Recorder event for changing the rental status of a vehicle.
+ */
+@Name("javafiles.RentalToggle")
+@Label("Rental Toggle")
+@Category({"DealerProject", "Inventory"})
+@Description("The rental status of a vehicle being changed")
+public class RentalToggleEvent extends Event {
+    @Label("Vehicle ID")
+    public String vehicleId;
+
+    @Label("Dealership ID")
+    public String dealershipId;
+
+    @Label("Rented")
+    @Description("The rental status after the change")
+    public boolean rented;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
@@ -0,0 +1,92 @@
+package javafiles.metricsfiles
+
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.LongAdder
+
+/**
+ * Times an operation, such as reading a file, along with the rows and bytes it handled, so that
+ * latency percentiles and rows or bytes per second can be read back. Safe to update from many
+ * threads at once without locking.
+ *
+ * @param name The name the timer is registered under in [Metrics].
+ */
+class Timer internal constructor(val name: String) {
+    private val latencies = Histogram(name)
+    private val totalNanos = LongAdder()
+    private val rows = LongAdder()
+    private val bytes = LongAdder()
+
+    /**
+     * Records a single run of the operation.
+     *
+     * @param nanos How long the run took, in nanoseconds.
+     * @param rowCount The number of rows (such as vehicles) the run handled.
+     * @param byteCount The number of bytes the run read or wrote.
+     */
+    @JvmOverloads
+    fun record(nanos: Long, rowCount: Long = 0, byteCount: Long = 0) {
+        latencies.record(nanos)
+        totalNanos.add(maxOf(nanos, 0L))
+        rows.add(rowCount)
+        bytes.add(byteCount)
+    }
+
+    /**
+     * Records a run that started at the given [System.nanoTime] and ends now.
+     */
+    @JvmOverloads
+    fun recordSince(startNanos: Long, rowCount: Long = 0, byteCount: Long = 0) {
+        record(System.nanoTime() - startNanos, rowCount, byteCount)
+    }
+
+    /**
+     * Times the given block and records it as one run.
+     */
+    inline fun <T> time(block: () -> T): T {
+        val start = System.nanoTime()
+        try {
+            return block()
+        } finally {
+            recordSince(start)
+        }
+    }
+
+    /**
+     * The number of runs recorded.
+     */
+    val count: Long
+        get() = latencies.count
+
+    /**
+     * Returns the run time below which the given fraction of runs fall, in the given unit.
+     *
+     * @param fraction A number from 0 to 1, such as 0.99 for the p99.
+     */
+    fun percentile(fraction: Double, unit: TimeUnit): Double {
+        return latencies.percentile(fraction).toDouble() / unit.toNanos(1)
+    }
+
+    /**
+     * The rows handled per second of time spent in the operation.
+     */
+    val rowsPerSecond: Double
+        get() = perSecond(rows.sum())
+
+    /**
+     * The bytes handled per second of time spent in the operation.
+     */
+    val bytesPerSecond: Double
+        get() = perSecond(bytes.sum())
+
+    private fun perSecond(amount: Long): Double {
+        val nanos = totalNanos.sum()
+        return if (nanos == 0L) 0.0 else amount * 1e9 / nanos
+    }
+
+    internal fun reset() {
+        latencies.reset()
+        totalNanos.reset()
+        rows.reset()
+        bytes.reset()
+    }
+}
@@ -0,0 +1,28 @@
+package javafiles.metricsfiles;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A JDK Flight Recorder event for transferring a vehicle between dealerships.
+ */
+@Name("javafiles.VehicleTransfer")
+@Label("Vehicle Transfer")
+@Category({"DealerProject", "Inventory"})
+@Description("A vehicle transferred from one dealership to another")
+public class VehicleTransferEvent extends Event {
+    @Label("Vehicle ID")
+    public String vehicleId;
+
+    @Label("Sender ID")
+    public String senderId;
+
+    @Label("Receiver ID")
+    public String receiverId;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
@@ -0,0 +1,432 @@
+package javafiles.serverfiles
+
+import com.sun.net.httpserver.HttpExchange
+import com.sun.net.httpserver.HttpServer
+import javafiles.Key
+import javafiles.customexceptions.DealershipNotRentingException
+import javafiles.customexceptions.QuerySyntaxException
+import javafiles.customexceptions.ReadWriteException
+import javafiles.dataaccessfiles.FileIOFactory
+import javafiles.dataaccessfiles.fileioimplements.JSONConverter
+import javafiles.domainfiles.Company
+import javafiles.domainfiles.Dealership
+import javafiles.domainfiles.InventoryAggregates
+import javafiles.domainfiles.InventoryQuery
+import javafiles.domainfiles.RentalOutcome
+import javafiles.domainfiles.StagedInventory
+import javafiles.domainfiles.Vehicle
+import javafiles.domainfiles.VehicleQuery
+import javafiles.metricsfiles.Metrics
+import org.json.simple.JSONArray
+import org.json.simple.JSONObject
+import org.json.simple.parser.JSONParser
+import org.json.simple.parser.ParseException
+import java.io.File
+import java.io.IOException
+import java.io.InputStreamReader
+import java.net.InetSocketAddress
+import java.net.URLDecoder
+import java.nio.charset.StandardCharsets
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.locks.ReentrantReadWriteLock
+import java.util.function.Predicate
+import kotlin.concurrent.read
+import kotlin.concurrent.write
+
+/**
+ * An HTTP API over a [Company], built on the JDK's HTTP server. Each request is handled on
+ * its own virtual thread, so thousands of slow clients do not tie up platform threads.
+ *
+ * Queries share a read lock on the [Company] and updates take the write lock, so queries run
+ * in parallel and always see whole updates. Bodies and responses use the JSON inventory format
+ * of the data-access layer. If a master inventory file is given, the inventory is read from it
+ * at start and written back shortly after each change, and when the server stops.
+ *
+ * Endpoints:
+ * - GET /dealerships and /dealerships/{id}, with the [InventoryAggregates] of each
+ * - GET /totals, the [InventoryAggregates] of the whole company
+ * - GET /vehicles?dealer=&type=&rented=&sort=&order=asc|desc&offset=&limit= and /vehicles/{id}.
+ *   A q parameter holding an [InventoryQuery] can be given in place of type and rented.
+ * - POST /transfers {"vehicle_id", "from", "to"}
+ * - POST /rentals {"vehicle_id"}, which rents or returns the vehicle, or
+ *   {"dealer", "vehicle_ids": [...], "rented"}, which sets the status of many vehicles at once
+ * - POST /imports {"car_inventory": [...]}
+ * - GET /metrics
+ *
+ * @param company The [Company] served.
+ * @param port The port to listen on, or 0 for any free port.
+ * @param masterPath The inventory file kept up to date with the [Company], or null for none.
+ */
+class InventoryServer @JvmOverloads constructor(
+    private val company: Company,
+    port: Int,
+    private val masterPath: String? = null
+) {
+    private val lock = ReentrantReadWriteLock()
+    private val server: HttpServer = HttpServer.create(InetSocketAddress(port), BACKLOG)
+    private val executor: ExecutorService = Executors.newVirtualThreadPerTaskExecutor()
+    private val saver: ScheduledExecutorService = Executors.newSingleThreadScheduledExecutor { runnable ->
+        Thread(runnable, "inventory-save").apply { isDaemon = true }
+    }
+    private val saveScheduled = AtomicBoolean(false)
+
+    init {
+        server.executor = executor
+        route("/dealerships") { exchange, id -> getDealerships(exchange, id) }
+        route("/vehicles") { exchange, id -> getVehicles(exchange, id) }
+        route("/transfers") { exchange, _ -> postTransfer(exchange) }
+        route("/rentals") { exchange, _ -> postRental(exchange) }
+        route("/imports") { exchange, _ -> postImport(exchange) }
+        route("/totals") { exchange, _ ->
+            requireMethod(exchange, "GET")
+            sendJSON(exchange, 200, aggregatesJSON(company.aggregates).toJSONString()) // Aggregates lock themselves
+        }
+        route("/metrics") { exchange, _ ->
+            requireMethod(exchange, "GET")
+            send(exchange, 200, Metrics.report(), "text/plain")
+        }
+    }
+
+    /**
+     * The port the server is listening on.
+     */
+    val port: Int
+        get() = server.address.port
+
+    fun start() {
+        server.start()
+    }
+
+    /**
+     * Stops accepting requests, waits up to the given number of seconds for those in progress
+     * and writes the master inventory file one last time.
+     */
+    @Throws(ReadWriteException::class)
+    fun stop(delaySeconds: Int) {
+        server.stop(delaySeconds)
+        executor.shutdown()
+        saver.shutdownNow()
+        if (masterPath != null) save()
+    }
+
+    /**
+     * Adds a handler for requests to the given path. The handler is given the part of the path
+     * after it (such as the ID in /vehicles/{id}), or null if there is none. Errors thrown by
+     * the handler become JSON error responses.
+     */
+    private fun route(path: String, handler: (HttpExchange, String?) -> Unit) {
+        server.createContext(path) { exchange ->
+            val start = System.nanoTime()
+            try {
+                val rest = exchange.requestURI.rawPath.removePrefix(path).trim('/')
+                handler(exchange, if (rest.isEmpty()) null else decode(rest))
+            } catch (e: ApiException) {
+                sendError(exchange, e.status, e.message)
+            } catch (_: IOException) {
+                // The client went away; there is no one to answer.
+            } catch (e: Exception) {
+                val status = if (e is RuntimeException) 500 else 409 // Checked exceptions are broken business rules
+                sendError(exchange, status, e.message ?: e.javaClass.simpleName)
+            } finally {
+                exchange.close()
+            }
+            Metrics.timer("http$path").recordSince(start)
+        }
+    }
+
+    private fun getDealerships(exchange: HttpExchange, dealerId: String?) {
+        requireMethod(exchange, "GET")
+        val body = lock.read {
+            if (dealerId == null) {
+                JSONArray.toJSONString(company.listDealerships.map { dealershipJSON(it) })
+            } else {
+                val dealer = company.findDealership(dealerId) ?: throw ApiException(404, "No dealership with ID $dealerId.")
+                dealershipJSON(dealer).toJSONString()
+            }
+        }
+        sendJSON(exchange, 200, body)
+    }
+
+    private fun getVehicles(exchange: HttpExchange, vehicleId: String?) {
+        requireMethod(exchange, "GET")
+        if (vehicleId != null) {
+            val body = lock.read {
+                vehicleJSON(findVehicle(vehicleId) ?: throw ApiException(404, "No vehicle with ID $vehicleId.")).toJSONString()
+            }
+            sendJSON(exchange, 200, body)
+            return
+        }
+
+        val params = queryParams(exchange)
+        val query = VehicleQuery(params["dealer"], vehicleFilter(params), sortKey(params["sort"]), params["order"] != "desc")
+        val offset = intParam(params, "offset", 0)
+        val limit = minOf(intParam(params, "limit", DEFAULT_PAGE_SIZE), MAX_PAGE_SIZE)
+
+        val body = lock.read {
+            val response = JSONObject()
+            response["total"] = company.countVehicles(query)
+            response["vehicles"] = company.queryVehicles(query, offset, limit).map { vehicleJSON(it) }
+            response.toJSONString()
+        }
+        sendJSON(exchange, 200, body)
+    }
+
+    private fun postTransfer(exchange: HttpExchange) {
+        requireMethod(exchange, "POST")
+        val request = readJSON(exchange)
+        val vehicleId = stringField(request, "vehicle_id")
+        val fromId = stringField(request, "from")
+        val toId = stringField(request, "to")
+
+        val body = lock.write {
+            val sender = company.findDealership(fromId) ?: throw ApiException(404, "No dealership with ID $fromId.")
+            val receiver = company.findDealership(toId) ?: throw ApiException(404, "No dealership with ID $toId.")
+            val vehicle = sender.findVehicleById(vehicleId)
+                ?: throw ApiException(404, "Vehicle $vehicleId is not in dealership $fromId.")
+            sender.dealershipVehicleTransfer(receiver, vehicle)
+            vehicleJSON(vehicle).toJSONString()
+        }
+        scheduleSave()
+        sendJSON(exchange, 200, body)
+    }
+
+    private fun postRental(exchange: HttpExchange) {
+        requireMethod(exchange, "POST")
+        val request = readJSON(exchange)
+        if (request.containsKey("vehicle_ids")) return postBulkRental(exchange, request)
+        val vehicleId = stringField(request, "vehicle_id")
+
+        val body = lock.write {
+            val vehicle = findVehicle(vehicleId) ?: throw ApiException(404, "No vehicle with ID $vehicleId.")
+            val dealer = vehicle.dealership!!
+            if (!vehicle.rentalStatus && !dealer.rentingVehicles) {
+                throw DealershipNotRentingException("Dealership ${dealer.dealerId} is not renting vehicles.")
+            }
+            dealer.updateVehicleRental(vehicle)
+            vehicleJSON(vehicle).toJSONString()
+        }
+        scheduleSave()
+        sendJSON(exchange, 200, body)
+    }
+
+    /**
+     * Sets the rental status of many vehicles of one dealership at once, responding with the
+     * [RentalOutcome] of each. The inventory is saved once for the whole request.
+     */
+    private fun postBulkRental(exchange: HttpExchange, request: JSONObject) {
+        val dealerId = stringField(request, "dealer")
+        val rented = request["rented"] as? Boolean ?: throw ApiException(400, "Missing rented.")
+        val ids = (request["vehicle_ids"] as? JSONArray)?.map { it as? String ?: throw ApiException(400, "Vehicle IDs must be strings.") }
+            ?: throw ApiException(400, "Expected a vehicle_ids array.")
+
+        val outcomes = lock.write {
+            val dealer = company.findDealership(dealerId) ?: throw ApiException(404, "No dealership with ID $dealerId.")
+            dealer.updateRentalStatuses(ids, rented)
+        }
+        if (RentalOutcome.CHANGED in outcomes.values) scheduleSave()
+
+        val response = JSONObject()
+        outcomes.forEach { (id, outcome) -> response[id] = outcome.name }
+        sendJSON(exchange, 200, response.toJSONString())
+    }
+
+    /**
+     * Adds the vehicles in the body to the [Company]. Vehicles are created before the write lock
+     * is taken, so only checking and adding them holds up other requests.
+     */
+    private fun postImport(exchange: HttpExchange) {
+        requireMethod(exchange, "POST")
+        val rows = readJSON(exchange)["car_inventory"] as? JSONArray
+            ?: throw ApiException(400, "Expected a car_inventory array.")
+        val maps = rows.map { row -> JSONConverter.toMap(row as? JSONObject ?: throw ApiException(400, "Rows must be objects.")) }
+
+        val staged = StagedInventory()
+        staged.stageAll(maps)
+        val rejected = lock.write { company.commitInventory(staged) }
+        if (rejected.size < maps.size) scheduleSave()
+
+        val response = JSONObject()
+        response["rows"] = maps.size
+        response["accepted"] = maps.size - rejected.size
+        response["rejected"] = rejected.map { map ->
+            val reason = map[Key.REASON_FOR_ERROR] as? ReadWriteException
+            val cause = reason?.cause ?: reason
+            val json = JSONConverter.toJSONObject(map - Key.REASON_FOR_ERROR)
+            json["error"] = cause?.javaClass?.simpleName ?: "Unknown"
+            json["message"] = cause?.message
+            json
+        }
+        sendJSON(exchange, 200, response.toJSONString())
+    }
+
+    private fun findVehicle(vehicleId: String): Vehicle? {
+        return company.listDealerships.firstNotNullOfOrNull { it.findVehicleById(vehicleId) }
+    }
+
+    private fun dealershipJSON(dealer: Dealership): JSONObject {
+        val json = JSONConverter.toJSONObject(dealer.calcDealerMapData())
+        json.putAll(aggregatesJSON(dealer.aggregates))
+        return json
+    }
+
+    private fun aggregatesJSON(aggregates: InventoryAggregates): JSONObject {
+        val json = JSONObject()
+        json["vehicle_count"] = aggregates.vehicleCount
+        json["rented_count"] = aggregates.rentedCount
+        json["available_count"] = aggregates.availableCount
+        json["value_by_price_unit"] = JSONObject(aggregates.valueByPriceUnit())
+        json["count_by_type"] = JSONObject(aggregates.countByType())
+        return json
+    }
+
+    private fun vehicleJSON(vehicle: Vehicle): JSONObject {
+        val json = JSONConverter.toJSONObject(vehicle.getDataMap())
+        vehicle.dealership?.let { json[Key.DEALERSHIP_ID.key] = it.dealerId }
+        return json
+    }
+
+    private fun vehicleFilter(params: Map<String, String>): Predicate<Vehicle>? {
+        params["q"]?.let { text ->
+            try {
+                return InventoryQuery.compile(text).asPredicate()
+            } catch (e: QuerySyntaxException) {
+                throw ApiException(400, e.message ?: "Invalid query.")
+            }
+        }
+        val type = params["type"]
+        val rented = params["rented"]?.toBooleanStrictOrNull()
+        if (type == null && rented == null) return null
+        return Predicate { vehicle ->
+            (type == null || vehicle.vehicleType.equals(type, ignoreCase = true)) &&
+                (rented == null || vehicle.rentalStatus == rented)
+        }
+    }
+
+    private fun sortKey(name: String?): Key? {
+        if (name == null) return null
+        return Key.entries.find { it.key == name } ?: throw ApiException(400, "Can not sort by $name.")
+    }
+
+    /**
+     * Writes the master inventory file a short time from now, unless a write is already
+     * waiting, so a burst of changes is saved once.
+     */
+    private fun scheduleSave() {
+        if (masterPath == null || !saveScheduled.compareAndSet(false, true)) return
+        saver.schedule({
+            saveScheduled.set(false)
+            try {
+                save()
+            } catch (e: ReadWriteException) {
+                System.err.println("Inventory could not be written to $masterPath: ${e.cause?.message ?: e.message}")
+            }
+        }, SAVE_DELAY_MS, TimeUnit.MILLISECONDS)
+    }
+
+    @Throws(ReadWriteException::class)
+    private fun save() {
+        // Opened under the read lock, then written without it so updates are not held up.
+        lock.read { company.openSnapshot() }.use { snapshot ->
+            FileIOFactory.replaceInventoryFile(masterPath!!, snapshot.dealerships)
+        }
+    }
+
+    private class ApiException(val status: Int, override val message: String) : RuntimeException(message)
+
+    companion object {
+        private const val BACKLOG = 4096
+        private const val DEFAULT_PAGE_SIZE = 100
+        private const val MAX_PAGE_SIZE = 1000
+        private const val SAVE_DELAY_MS = 1000L
+
+        private fun requireMethod(exchange: HttpExchange, method: String) {
+            if (exchange.requestMethod != method) throw ApiException(405, "Use $method.")
+        }
+
+        private fun decode(value: String): String = URLDecoder.decode(value, StandardCharsets.UTF_8)
+
+        private fun queryParams(exchange: HttpExchange): Map<String, String> {
+            val query = exchange.requestURI.rawQuery ?: return emptyMap()
+            return query.split('&').filter { it.isNotEmpty() }.associate { pair ->
+                val (name, value) = (pair.split('=', limit = 2) + "").take(2)
+                decode(name) to decode(value)
+            }
+        }
+
+        private fun intParam(params: Map<String, String>, name: String, default: Int): Int {
+            val value = params[name] ?: return default
+            return value.toIntOrNull()?.takeIf { it >= 0 } ?: throw ApiException(400, "$name must be a number >= 0.")
+        }
+
+        private fun readJSON(exchange: HttpExchange): JSONObject {
+            return try {
+                InputStreamReader(exchange.requestBody, StandardCharsets.UTF_8).use { reader ->
+                    JSONParser().parse(reader) as? JSONObject
+                } ?: throw ApiException(400, "Expected a JSON object.")
+            } catch (e: ParseException) {
+                throw ApiException(400, "Invalid JSON: $e")
+            }
+        }
+
+        private fun stringField(json: JSONObject, name: String): String {
+            return json[name] as? String ?: throw ApiException(400, "Missing $name.")
+        }
+
+        private fun sendJSON(exchange: HttpExchange, status: Int, body: String) {
+            send(exchange, status, body, "application/json")
+        }
+
+        private fun sendError(exchange: HttpExchange, status: Int, message: String) {
+            val json = JSONObject()
+            json["error"] = message
+            sendJSON(exchange, status, json.toJSONString())
+        }
+
+        private fun send(exchange: HttpExchange, status: Int, body: String, contentType: String) {
+            val bytes = body.toByteArray(StandardCharsets.UTF_8)
+            exchange.responseHeaders["Content-Type"] = listOf("$contentType; charset=utf-8")
+            exchange.sendResponseHeaders(status, if (bytes.isEmpty()) -1 else bytes.size.toLong())
+            if (bytes.isNotEmpty()) exchange.responseBody.write(bytes)
+        }
+
+        /**
+         * Serves the inventory in the given master file. Arguments are [--port <port>] and
+         * [--master <file>]; the defaults are port 8080 and the app's master inventory file.
+         */
+        @JvmStatic
+        fun main(args: Array<String>) {
+            var port = 8080
+            var master = "masterInventoryList.json"
+            var i = 0
+            while (i < args.size) {
+                when (args[i]) {
+                    "--port" -> port = args[++i].toInt()
+                    "--master" -> master = args[++i]
+                    else -> throw IllegalArgumentException("Usage: [--port <port>] [--master <file>]")
+                }
+                i++
+            }
+
+            val company = Company()
+            if (File(master).exists()) {
+                @Suppress("UNCHECKED_CAST") // Readers return mutable maps
+                val maps = FileIOFactory.buildNewFileIOReader(master).readInventory() as List<MutableMap<Key, Any>>
+                company.dataToInventory(maps)
+            }
+            val server = InventoryServer(company, port, master)
+            Runtime.getRuntime().addShutdownHook(Thread {
+                try {
+                    server.stop(1)
+                } catch (e: ReadWriteException) {
+                    System.err.println("Inventory could not be written to $master: ${e.cause?.message ?: e.message}")
+                }
+            })
+            server.start()
+            println("Serving ${company.listDealerships.size} dealerships on port ${server.port}")
+        }
+    }
+}
@@ -5,7 +5,9 @@ module javafiles {
     requires org.controlsfx.controls;
     requires org.kordamp.bootstrapfx.core;
     requires json.simple;
-    requires java.desktop;
+    requires java.xml;
+    requires jdk.jfr;
+    requires jdk.httpserver;
     requires kotlin.stdlib;
     requires java.base;
 
@@ -13,4 +15,6 @@ module javafiles {
     exports javafiles.gui;
 
     opens javafiles.domainfiles to javafx.base;
+
+    exports javafiles.metricsfiles to jdk.jfr; // Lets Flight Recorder register the app's events
 }
\ No newline at end of file
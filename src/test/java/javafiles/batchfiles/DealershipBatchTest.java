@@ -0,0 +1,126 @@
+package javafiles.batchfiles;
+
+import javafiles.Key;
+import javafiles.customexceptions.ReadWriteException;
+import javafiles.dataaccessfiles.FileIOFactory;
+import javafiles.dataaccessfiles.InventoryGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DealershipBatchTest {
+    @TempDir
+    File tempDir;
+
+    private String master;
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    @BeforeEach
+    public void setUp() {
+        master = path("master.json");
+    }
+
+    private String path(String name) {
+        return new File(tempDir, name).getPath();
+    }
+
+    private int run(String... args) {
+        String[] withMaster = new String[args.length + 2];
+        withMaster[0] = "--master";
+        withMaster[1] = master;
+        System.arraycopy(args, 0, withMaster, 2, args.length);
+        PrintStream stream = new PrintStream(out);
+        return DealershipBatch.run(withMaster, stream, stream);
+    }
+
+    private List<Map<Key, Object>> read(String path) throws ReadWriteException {
+        return FileIOFactory.getInstance().buildNewFileIOReader(path).readInventory();
+    }
+
+    @Test
+    public void testImportThenExport() throws ReadWriteException {
+        new InventoryGenerator(3, 20, 1L).writeXml(path("in.xml"));
+
+        assertEquals(DealershipBatch.EXIT_OK, run("import", path("in.xml")));
+        assertEquals(60, read(master).size());
+
+        assertEquals(DealershipBatch.EXIT_OK, run("export", path("out.json")));
+        assertEquals(60, read(path("out.json")).size());
+    }
+
+    @Test
+    public void testExportWhere() throws ReadWriteException {
+        new InventoryGenerator(3, 20, 1L).writeXml(path("in.xml"));
+        assertEquals(DealershipBatch.EXIT_OK, run("import", path("in.xml")));
+        String dealerId = (String) read(master).get(0).get(Key.DEALERSHIP_ID);
+
+        assertEquals(DealershipBatch.EXIT_OK, run("--where",
+                "select dealership_id, vehicle_id where dealership_id = \"" + dealerId + "\"", "export", path("out.json")));
+        List<Map<Key, Object>> rows = read(path("out.json"));
+        assertEquals(20, rows.size());
+        for (Map<Key, Object> row : rows) {
+            assertEquals(dealerId, row.get(Key.DEALERSHIP_ID));
+            assertNull(row.get(Key.VEHICLE_PRICE));
+        }
+    }
+
+    @Test
+    public void testValidateReportsRejectionsWithoutSaving() throws ReadWriteException, IOException {
+        new InventoryGenerator(2, 50, 2L, 0.0, 0.2).write(path("in.json"));
+
+        assertEquals(DealershipBatch.EXIT_REJECTED, run("--report", path("report.tsv"), "validate", path("in.json")));
+        assertFalse(new File(master).exists());
+
+        List<String> lines = Files.readAllLines(new File(path("report.tsv")).toPath());
+        assertTrue(lines.size() > 1);
+        assertTrue(lines.get(1).startsWith(path("in.json") + "\t"));
+    }
+
+    @Test
+    public void testTransferManifest() throws ReadWriteException, IOException {
+        new InventoryGenerator(2, 2, 3L).write(master);
+        Files.writeString(new File(path("moves.csv")).toPath(),
+                "vehicle_id,from_dealership_id,to_dealership_id\nV0,D0,D1\nV0,D0,D1\n");
+
+        assertEquals(DealershipBatch.EXIT_REJECTED, run("transfer", path("moves.csv")));
+
+        for (Map<Key, Object> map : read(master)) {
+            if (map.get(Key.VEHICLE_ID).equals("V0")) {
+                assertEquals("D1", map.get(Key.DEALERSHIP_ID));
+            }
+        }
+    }
+
+    @Test
+    public void testMismatchedShardManifestIsAnError() throws IOException {
+        File directory = new File(tempDir, "store");
+        assertTrue(directory.mkdir());
+        master = directory.getPath();
+        new InventoryGenerator(1, 2, 4L).write(path("in.json"));
+        assertEquals(DealershipBatch.EXIT_OK, run("import", path("in.json")));
+
+        // The manifest lists D0 for the shard, which now holds another dealership.
+        Path shard = directory.toPath().resolve("D0.json");
+        Files.writeString(shard, Files.readString(shard).replace("\"D0\"", "\"D9\""));
+
+        assertEquals(DealershipBatch.EXIT_ERROR, run("import", path("in.json")));
+        assertTrue(out.toString().contains("does not match"));
+    }
+
+    @Test
+    public void testBadArguments() {
+        assertEquals(DealershipBatch.EXIT_ERROR, run("convert", path("only.json")));
+        assertEquals(DealershipBatch.EXIT_ERROR, run("import", path("missing.json")));
+    }
+}
@@ -0,0 +1,133 @@
+package javafiles.batchfiles;
+
+import javafiles.dataaccessfiles.InventoryGenerator;
+import javafiles.domainfiles.Company;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HotFolderIngestorTest {
+    @TempDir
+    Path inbox;
+
+    @Test
+    public void testIngestsAndArchivesFiles() throws Exception {
+        new InventoryGenerator(2, 10, 1L).write(inbox.resolve("first.json").toString());
+        Files.writeString(inbox.resolve("notes.csv"), "vehicle_id,price");
+        Files.writeString(inbox.resolve("upload.json.part"), "still copying");
+
+        Company company = new Company();
+        List<HotFolderIngestor.IngestedFile> done = new CopyOnWriteArrayList<>();
+        HotFolderIngestor ingestor = new HotFolderIngestor(company, inbox, inbox.resolve("processed"),
+                inbox.resolve("failed"), 2, 50L, done::add);
+        Thread watcher = new Thread(() -> {
+            try {
+                ingestor.run();
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+        });
+        watcher.start();
+
+        try {
+            waitFor(done, 2);
+            // Dropped while watching, with IDs of its own.
+            new InventoryGenerator(1, 5, 2L).write(inbox.resolve(".second.json").toString());
+            Files.move(inbox.resolve(".second.json"), inbox.resolve("second.json"));
+            waitFor(done, 3);
+        } finally {
+            ingestor.close();
+            watcher.join(5000);
+        }
+
+        assertEquals(2, done.stream().filter(file -> file.getError() == null).count());
+        assertTrue(Files.exists(inbox.resolve("processed").resolve("first.json")));
+        assertTrue(Files.exists(inbox.resolve("processed").resolve("second.json")));
+        assertTrue(Files.exists(inbox.resolve("failed").resolve("notes.csv")));
+        assertTrue(Files.exists(inbox.resolve("failed").resolve("notes.csv.error.txt")));
+        assertTrue(Files.exists(inbox.resolve("upload.json.part")), "Partial uploads are left alone");
+        assertEquals(20 + 5 - rejectedCount(done), company.getAggregates().getVehicleCount());
+    }
+
+    @Test
+    public void testMalformedJsonFails() throws Exception {
+        Files.writeString(inbox.resolve("truncated.json"), "{\"car_inventory\":[{\"dealership_id\":\"D001\",");
+
+        Company company = new Company();
+        List<HotFolderIngestor.IngestedFile> done = new CopyOnWriteArrayList<>();
+        HotFolderIngestor ingestor = new HotFolderIngestor(company, inbox, inbox.resolve("processed"),
+                inbox.resolve("failed"), 1, 50L, done::add);
+        Thread watcher = new Thread(() -> {
+            try {
+                ingestor.run();
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+        });
+        watcher.start();
+
+        try {
+            waitFor(done, 1);
+        } finally {
+            ingestor.close();
+            watcher.join(5000);
+        }
+
+        assertNotNull(done.get(0).getError());
+        assertTrue(Files.exists(inbox.resolve("failed").resolve("truncated.json")));
+        assertTrue(Files.exists(inbox.resolve("failed").resolve("truncated.json.error.txt")));
+        assertFalse(Files.exists(inbox.resolve("processed").resolve("truncated.json")));
+    }
+
+    @Test
+    public void testFileThatCannotBeMovedIsNotReadAgain() throws Exception {
+        Company company = new Company();
+        List<HotFolderIngestor.IngestedFile> done = new CopyOnWriteArrayList<>();
+        HotFolderIngestor ingestor = new HotFolderIngestor(company, inbox, inbox.resolve("processed"),
+                inbox.resolve("failed"), 1, 50L, done::add);
+        Files.delete(inbox.resolve("processed")); // So moving the file there fails.
+        new InventoryGenerator(1, 5, 1L).write(inbox.resolve("stuck.json").toString());
+        Thread watcher = new Thread(() -> {
+            try {
+                ingestor.run();
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+        });
+        watcher.start();
+
+        try {
+            waitFor(done, 1);
+            Files.writeString(inbox.resolve("stuck.json"), System.lineSeparator(), StandardOpenOption.APPEND);
+            Thread.sleep(500);
+        } finally {
+            ingestor.close();
+            watcher.join(5000);
+        }
+
+        assertEquals(1, done.size(), "The file is not ingested again");
+        assertNotNull(done.get(0).getError());
+        assertEquals(inbox.resolve("stuck.json"), done.get(0).getPath());
+        assertEquals(5, company.getAggregates().getVehicleCount());
+    }
+
+    private static long rejectedCount(List<HotFolderIngestor.IngestedFile> done) {
+        return done.stream().mapToLong(file -> file.getRejected().size()).sum();
+    }
+
+    private static void waitFor(List<?> done, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (done.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(count, done.size());
+    }
+}
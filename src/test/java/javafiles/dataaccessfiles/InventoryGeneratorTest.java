@@ -0,0 +1,58 @@
+package javafiles.dataaccessfiles;
+
+import javafiles.Key;
+import javafiles.customexceptions.ReadWriteException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InventoryGeneratorTest {
+    @TempDir
+    File tempDir;
+
+    @Test
+    public void testSameSeedGivesSameInventory() {
+        InventoryGenerator first = new InventoryGenerator(3, 50, 7L, 0.1, 0.1);
+        InventoryGenerator second = new InventoryGenerator(3, 50, 7L, 0.1, 0.1);
+
+        assertEquals(first.createMaps(), second.createMaps());
+        assertNotEquals(first.createMaps(), new InventoryGenerator(3, 50, 8L, 0.1, 0.1).createMaps());
+    }
+
+    @Test
+    public void testRatesAndTypeWeights() {
+        InventoryGenerator generator = new InventoryGenerator(10, 1000, 1L, 0.2, 0.0,
+                Map.of("SUV", 1.0, "Pickup", 0.0));
+        List<Map<Key, Object>> maps = generator.createMaps();
+        assertEquals(10_000, maps.size());
+
+        Set<Object> ids = new HashSet<>();
+        for (Map<Key, Object> map : maps) {
+            ids.add(map.get(Key.VEHICLE_ID));
+            assertEquals("SUV", map.get(Key.VEHICLE_TYPE));
+            assertInstanceOf(Long.class, map.get(Key.VEHICLE_PRICE));
+        }
+        double duplicateShare = 1.0 - ids.size() / 10_000.0;
+        assertTrue(duplicateShare > 0.15 && duplicateShare < 0.25, "Duplicate share was " + duplicateShare);
+    }
+
+    @Test
+    public void testWrittenFilesCanBeRead() throws ReadWriteException {
+        InventoryGenerator generator = new InventoryGenerator(4, 25, 3L, 0.0, 0.1);
+        String jsonPath = new File(tempDir, "generated.json").getPath();
+        String xmlPath = new File(tempDir, "generated.xml").getPath();
+
+        generator.write(jsonPath);
+        generator.writeXml(xmlPath);
+
+        assertEquals(100, FileIOFactory.getInstance().buildNewFileIOReader(jsonPath).readInventory().size());
+        assertEquals(100, FileIOFactory.getInstance().buildNewFileIOReader(xmlPath).readInventory().size());
+    }
+}
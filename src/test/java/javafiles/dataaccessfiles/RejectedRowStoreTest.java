@@ -0,0 +1,115 @@
+package javafiles.dataaccessfiles;
+
+import javafiles.Key;
+import javafiles.customexceptions.InvalidPriceException;
+import javafiles.customexceptions.ReadWriteException;
+import javafiles.customexceptions.VehicleAlreadyExistsException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RejectedRowStoreTest {
+
+    @TempDir
+    Path spillDirectory;
+
+    private RejectedRowStore store;
+
+    @BeforeEach
+    public void setUp() {
+        store = new RejectedRowStore(2, spillDirectory);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        store.close();
+    }
+
+    private static Map<Key, Object> row(String vehicleId, Exception cause) {
+        Map<Key, Object> map = new EnumMap<>(Key.class);
+        map.put(Key.DEALERSHIP_ID, "D001");
+        map.put(Key.VEHICLE_ID, vehicleId);
+        map.put(Key.VEHICLE_PRICE, 1000L);
+        map.put(Key.DEALERSHIP_RENTING_STATUS, true);
+        map.put(Key.REASON_FOR_ERROR, new ReadWriteException(cause));
+        return map;
+    }
+
+    @Test
+    public void testSpilledRowsReadBack() throws ReadWriteException {
+        List<Integer> ids = store.addAll(List.of(
+                row("V1", new InvalidPriceException("Price was negative.")),
+                row("V2", new VehicleAlreadyExistsException("Duplicate.")),
+                row("V3", new InvalidPriceException("Price was zero."))));
+
+        assertEquals(List.of(0, 1, 2), ids);
+        assertEquals(3, store.getSize());
+        assertEquals(1, store.getSpilledCount());
+
+        Map<Key, Object> spilled = store.get(2);
+        assertEquals("V3", spilled.get(Key.VEHICLE_ID));
+        assertEquals(1000L, spilled.get(Key.VEHICLE_PRICE));
+        assertEquals(true, spilled.get(Key.DEALERSHIP_RENTING_STATUS));
+        Throwable cause = ((ReadWriteException) spilled.get(Key.REASON_FOR_ERROR)).getCause();
+        assertInstanceOf(InvalidPriceException.class, cause);
+        assertEquals("Price was zero.", cause.getMessage());
+    }
+
+    @Test
+    public void testIndexesAndRemoval() throws ReadWriteException {
+        store.addAll(List.of(
+                row("V1", new InvalidPriceException("a")),
+                row("V2", new VehicleAlreadyExistsException("b")),
+                row(" v1 ", new InvalidPriceException("c"))));
+
+        assertEquals(List.of(0, 2), store.idsForVehicle("V1"));
+        assertEquals(List.of(0, 2), store.idsWithCause("InvalidPriceException"));
+        assertEquals(Map.of("InvalidPriceException", 2, "VehicleAlreadyExistsException", 1), store.countsByCause());
+
+        assertTrue(store.remove(2));
+        assertFalse(store.remove(2));
+        assertNull(store.get(2));
+        assertEquals(List.of(0), store.idsForVehicle("v1"));
+        assertEquals(0, store.getSpilledCount());
+
+        // Row IDs are never reused, and freed memory is used again.
+        assertTrue(store.remove(1));
+        assertEquals(3, store.add(row("V4", new InvalidPriceException("d"))));
+        assertEquals(0, store.getSpilledCount());
+        assertEquals(List.of(0, 3), store.rowIds());
+        assertEquals(List.of(), store.idsWithCause("VehicleAlreadyExistsException"));
+    }
+
+    @Test
+    public void testUpdateAndPaging() throws ReadWriteException {
+        for (int i = 0; i < 5; i++) {
+            store.add(row("V" + i, new InvalidPriceException("bad")));
+        }
+
+        Map<Key, Object> changed = store.get(4);
+        changed.put(Key.VEHICLE_ID, "V9");
+        changed.put(Key.REASON_FOR_ERROR, new ReadWriteException("Edited"));
+        assertTrue(store.update(4, changed));
+
+        assertEquals("V9", store.get(4).get(Key.VEHICLE_ID));
+        assertEquals(List.of(4), store.idsForVehicle("V9"));
+        assertEquals(List.of(), store.idsForVehicle("V4"));
+        assertEquals(List.of(4), store.idsWithCause("ReadWriteException"));
+
+        List<RejectedRowStore.Row> page = store.rows(1, 3);
+        assertEquals(List.of(1, 2, 3), page.stream().map(RejectedRowStore.Row::getId).toList());
+        assertEquals("V3", page.get(2).getData().get(Key.VEHICLE_ID));
+
+        store.clear();
+        assertEquals(0, store.getSize());
+        assertTrue(store.rows(0, 10).isEmpty());
+    }
+}
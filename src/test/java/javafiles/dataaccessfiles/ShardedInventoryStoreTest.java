@@ -0,0 +1,109 @@
+package javafiles.dataaccessfiles;
+
+import javafiles.DealershipExport;
+import javafiles.Key;
+import javafiles.customexceptions.ReadWriteException;
+import javafiles.metricsfiles.Metrics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardedInventoryStoreTest {
+    @TempDir
+    Path directory;
+
+    private static DealershipExport export(String dealerId, int vehicles, long price) {
+        Map<Key, Object> dealer = new EnumMap<>(Key.class);
+        dealer.put(Key.DEALERSHIP_ID, dealerId);
+        dealer.put(Key.DEALERSHIP_NAME, "Dealer " + dealerId);
+
+        List<Map<Key, Object>> vehicleData = new ArrayList<>();
+        for (int i = 0; i < vehicles; i++) {
+            Map<Key, Object> vehicle = new EnumMap<>(Key.class);
+            vehicle.put(Key.VEHICLE_TYPE, "sedan");
+            vehicle.put(Key.VEHICLE_ID, dealerId + "-V" + i);
+            vehicle.put(Key.VEHICLE_MODEL, "Model");
+            vehicle.put(Key.VEHICLE_PRICE, price);
+            vehicleData.add(vehicle);
+        }
+        return new DealershipExport(dealer, vehicleData);
+    }
+
+    @Test
+    public void testSaveAndLoad() throws ReadWriteException {
+        ShardedInventoryStore store = new ShardedInventoryStore(directory);
+        assertFalse(store.exists());
+        assertTrue(store.load().isEmpty());
+
+        store.save(List.of("D001", "D002", "D/3"), List.of(export("D001", 3, 100L), export("D002", 2, 100L), export("D/3", 0, 0L)));
+
+        assertTrue(store.exists());
+        assertTrue(Files.exists(directory.resolve("D001.json")));
+        assertTrue(Files.exists(directory.resolve("D_2f3.json")));
+        List<Map<Key, Object>> rows = new ShardedInventoryStore(directory).load();
+        assertEquals(6, rows.size(), "5 vehicles and the dealership without any");
+        assertEquals("D001", rows.get(0).get(Key.DEALERSHIP_ID));
+    }
+
+    @Test
+    public void testOnlyChangedShardsAreWritten() throws ReadWriteException, IOException {
+        ShardedInventoryStore store = new ShardedInventoryStore(directory);
+        store.save(List.of("D001", "D002"), List.of(export("D001", 3, 100L), export("D002", 2, 100L)));
+        byte[] untouched = Files.readAllBytes(directory.resolve("D002.json"));
+        long written = Metrics.counter("store.shards.written").getValue();
+
+        store.save(List.of("D001", "D002"), List.of(export("D001", 3, 200L)));
+
+        assertEquals(written + 1, Metrics.counter("store.shards.written").getValue());
+        assertArrayEquals(untouched, Files.readAllBytes(directory.resolve("D002.json")));
+        List<Map<Key, Object>> rows = new ShardedInventoryStore(directory).load();
+        assertEquals(5, rows.size());
+        assertEquals(200L, rows.get(0).get(Key.VEHICLE_PRICE));
+    }
+
+    @Test
+    public void testDroppedDealershipsAreDeleted() throws ReadWriteException {
+        ShardedInventoryStore store = new ShardedInventoryStore(directory);
+        store.save(List.of("D001", "D002"), List.of(export("D001", 1, 100L), export("D002", 1, 100L)));
+        store.save(List.of("D001"), List.of());
+
+        assertFalse(Files.exists(directory.resolve("D002.json")));
+        assertEquals(1, new ShardedInventoryStore(directory).load().size());
+        assertThrows(IllegalArgumentException.class, () -> store.save(List.of("D001", "D009"), List.of()));
+    }
+
+    @Test
+    public void testUnreadableShardIsKept() throws ReadWriteException, IOException {
+        new ShardedInventoryStore(directory).save(List.of("D001", "D002"),
+                List.of(export("D001", 1, 100L), export("D002", 2, 100L)));
+        Files.writeString(directory.resolve("D002.json"), "{\"car_inventory\":[{\"dealership_id\":");
+
+        ShardedInventoryStore store = new ShardedInventoryStore(directory);
+        ReadWriteException e = assertThrows(ReadWriteException.class, store::load);
+        assertTrue(e.getMessage().contains("D002"));
+
+        // As the app can after a failed load: save a change to a dealership it does not hold.
+        byte[] d001 = Files.readAllBytes(directory.resolve("D001.json"));
+        assertThrows(ReadWriteException.class, () -> store.save(List.of("D001"), List.of(export("D001", 1, 200L))));
+        assertThrows(ReadWriteException.class, () -> store.save(List.of("D001", "D002"),
+                List.of(export("D002", 0, 0L))));
+
+        // A new dealership can still be saved, without dropping the stored ones.
+        store.save(List.of("D003"), List.of(export("D003", 1, 100L)));
+
+        assertArrayEquals(d001, Files.readAllBytes(directory.resolve("D001.json")));
+        assertEquals("{\"car_inventory\":[{\"dealership_id\":", Files.readString(directory.resolve("D002.json")));
+        String manifest = Files.readString(directory.resolve(ShardedInventoryStore.MANIFEST_NAME));
+        assertTrue(manifest.contains("D001.json") && manifest.contains("D002.json"));
+        assertThrows(ReadWriteException.class, () -> new ShardedInventoryStore(directory).load());
+    }
+}
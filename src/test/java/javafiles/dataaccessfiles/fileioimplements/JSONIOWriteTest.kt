@@ -1,5 +1,6 @@
 package javafiles.dataaccessfiles.fileioimplements
 
+import javafiles.DealershipExport
 import javafiles.Key
 import javafiles.customexceptions.ReadWriteException
 import javafiles.dataaccessfiles.FileIOFactoryTest
@@ -11,7 +12,6 @@ import org.junit.jupiter.api.AfterEach
 
 import java.util.*
 import kotlin.collections.ArrayList
-import kotlin.collections.HashMap
 
 class JSONIOWriteTest {
     @AfterEach
@@ -49,9 +49,8 @@ class JSONIOWriteTest {
         }
 
         try {
-            // TODO: Fix this scuffed solution
-            val asMap: Map<Map<Key, Any>, List<Map<Key, Any>>> = hashMapOf(Pair(EnumMap(Key::class.java), targetLst))
-            jsonIO!!.writeInventory(asMap)
+            val export = listOf(DealershipExport(EnumMap(Key::class.java), targetLst))
+            jsonIO!!.writeInventory(export)
         } catch (e: ReadWriteException) {
             Assertions.fail<Any>(e.toString())
         }
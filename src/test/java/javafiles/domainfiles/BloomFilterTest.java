@@ -0,0 +1,43 @@
+package javafiles.domainfiles;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BloomFilterTest {
+
+    @Test
+    public void testAddedValuesAreAlwaysFound() {
+        BloomFilter filter = new BloomFilter(10000, 0.01);
+        for (int i = 0; i < 10000; i++) {
+            filter.add("v" + i);
+        }
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(filter.mightContain("v" + i));
+        }
+    }
+
+    @Test
+    public void testFalsePositiveRateAndSize() {
+        BloomFilter filter = new BloomFilter(10000, 0.01);
+        for (int i = 0; i < 10000; i++) {
+            filter.add("v" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100000; i++) {
+            if (filter.mightContain("x" + i)) falsePositives++;
+        }
+
+        assertTrue(falsePositives < 2000, "false positives: " + falsePositives);
+        assertEquals(7, filter.getHashCount());
+        assertTrue(filter.getMemoryBytes() < 13000, "bytes: " + filter.getMemoryBytes());
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(10, 0.0));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(10, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(-1, 0.01));
+        assertFalse(new BloomFilter(0, 0.01).mightContain("v1"));
+    }
+}
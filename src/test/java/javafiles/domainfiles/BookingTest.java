@@ -0,0 +1,92 @@
+package javafiles.domainfiles;
+
+import javafiles.customexceptions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookingTest {
+
+    private Dealership dealership;
+    private Vehicle suv;
+    private Vehicle sedan;
+    private Vehicle sportsCar;
+
+    @BeforeEach
+    public void setUp() throws VehicleAlreadyExistsException, DealershipNotAcceptingVehiclesException {
+        dealership = new Dealership("D001", "Alpha Motors");
+        dealership.setRentingVehicles(true);
+
+        suv = new SUV("S1", "RAV4", 25000L);
+        sedan = new Sedan("C1", "Camry", 20000L);
+        sportsCar = new SportsCar("P1", "911", 90000L);
+        dealership.addIncomingVehicle(suv);
+        dealership.addIncomingVehicle(sedan);
+        dealership.addIncomingVehicle(sportsCar);
+    }
+
+    @Test
+    public void testBookingBlocksOverlappingTimes() throws RentalException {
+        Booking booking = dealership.book(suv, 100, 200);
+
+        assertThrows(BookingConflictException.class, () -> dealership.book(suv, 150, 250));
+        assertThrows(BookingConflictException.class, () -> dealership.book(suv, 50, 101));
+        assertThrows(BookingConflictException.class, () -> dealership.book(suv, 120, 130));
+        dealership.book(suv, 200, 300); // Bookings end before their end time
+        dealership.book(suv, 0, 100);
+
+        assertEquals(List.of(0L, 100L, 200L), suv.getBookings().stream().map(Booking::getStart).toList());
+        assertTrue(dealership.cancelBooking(booking));
+        assertFalse(dealership.cancelBooking(booking));
+        assertTrue(suv.isFreeBetween(100, 200));
+        assertFalse(suv.getRentalStatus());
+    }
+
+    @Test
+    public void testAvailableVehicles() throws RentalException {
+        dealership.book(suv, 100, 200);
+
+        assertEquals(List.of(sedan), dealership.availableVehicles(150, 160));
+        assertEquals(List.of(suv, sedan), dealership.availableVehicles(200, 300));
+        assertEquals(List.of(suv), dealership.availableVehicles(0, 100, "SUV"));
+        assertEquals(List.of(), dealership.availableVehicles(150, 160, "SUV"));
+        assertEquals(List.of(), dealership.availableVehicles(0, 100, "Sports car"));
+
+        dealership.removeFromInventory(suv);
+        assertEquals(List.of(), dealership.availableVehicles(0, 100, "SUV"));
+        assertEquals(List.of(sedan), dealership.availableVehicles(0, 100));
+
+        dealership.setRentingVehicles(false);
+        assertEquals(List.of(), dealership.availableVehicles(0, 100));
+    }
+
+    @Test
+    public void testInvalidBookings() throws RentalException {
+        assertThrows(SportsCarRentalNotAllowedException.class, () -> dealership.book(sportsCar, 0, 100));
+        assertTrue(sportsCar.getBookings().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> dealership.book(suv, 100, 100));
+        assertThrows(VehicleNotFoundException.class,
+                () -> new Dealership("D002", "Beta Autos").book(suv, 0, 100));
+
+        dealership.setRentingVehicles(false);
+        assertThrows(DealershipNotRentingException.class, () -> dealership.book(suv, 0, 100));
+    }
+
+    @Test
+    public void testBookingsMoveWithTransfer() throws RentalException, VehicleAlreadyExistsException,
+            DealershipNotAcceptingVehiclesException, DuplicateSenderException {
+        Dealership beta = new Dealership("D002", "Beta Autos");
+        beta.setRentingVehicles(true);
+        dealership.book(suv, 100, 200);
+
+        dealership.dealershipVehicleTransfer(beta, suv);
+
+        assertEquals(List.of(), beta.availableVehicles(150, 160));
+        assertThrows(VehicleNotFoundException.class, () -> dealership.book(suv, 300, 400));
+        beta.book(suv, 300, 400);
+        assertEquals(2, suv.getBookings().size());
+    }
+}
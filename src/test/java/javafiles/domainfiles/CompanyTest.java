@@ -1,5 +1,6 @@
 package javafiles.domainfiles;
 
+import javafiles.Key;
 import javafiles.customexceptions.DealershipNotAcceptingVehiclesException;
 import javafiles.customexceptions.DuplicateSenderException;
 import javafiles.customexceptions.VehicleAlreadyExistsException;
@@ -7,7 +8,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -94,6 +97,277 @@ public class CompanyTest {
         assertThrows(DuplicateSenderException.class, () -> dealership1.dealershipVehicleTransfer(dealership1, mockVehicle));
     }
 
+    @Test
+    public void testFindVehicleDealership_followsTransferAndRemoval() throws Exception {
+        assertSame(dealership1, company.findVehicleDealership(mockVehicle));
+
+        dealership2.setStatusAcquiringVehicle(true);
+        dealership1.dealershipVehicleTransfer(dealership2, mockVehicle);
+        assertSame(dealership2, company.findVehicleDealership(mockVehicle));
+
+        dealership2.removeFromInventory(mockVehicle);
+        assertNull(company.findVehicleDealership(mockVehicle));
+    }
+
+    @Test
+    public void testQueryVehicles_pagesAndSorts() throws Exception {
+        dealership2.addIncomingVehicle(new Sedan("V003", "Civic", 15000L));
+        dealership2.addIncomingVehicle(new SUV("V002", "RAV4", 30000L));
+
+        VehicleQuery all = new VehicleQuery();
+        assertEquals(3, company.countVehicles(all));
+        assertEquals(List.of("V001", "V003"), ids(company.queryVehicles(all, 0, 2)));
+        assertEquals(List.of("V002"), ids(company.queryVehicles(all, 2, 2)));
+
+        VehicleQuery byPrice = new VehicleQuery(null, null, Key.VEHICLE_PRICE, false);
+        assertEquals(List.of("V002", "V001"), ids(company.queryVehicles(byPrice, 0, 2)));
+        assertEquals(List.of("V003"), ids(company.queryVehicles(byPrice, 2, 5)));
+
+        VehicleQuery filtered = new VehicleQuery("D002", vehicle -> vehicle.getVehiclePrice() > 20000L);
+        assertEquals(1, company.countVehicles(filtered));
+        assertEquals(List.of("V002"), ids(company.queryVehicles(filtered, 0, 10)));
+
+        VehiclePageRequest sortedPage = company.preparePage(byPrice, 0, 2);
+        VehiclePageRequest filteredPage = company.preparePage(filtered, 0, 10);
+        VehiclePageRequest firstPage = company.preparePage(all, 0, 2);
+        dealership2.addIncomingVehicle(new SUV("V004", "Tahoe", 40000L));
+        dealership1.addIncomingVehicle(new SUV("V005", "CR-V", 40000L));
+        assertEquals(3, sortedPage.fetch().getTotal());
+        assertEquals(List.of("V002", "V001"), ids(sortedPage.fetch().getVehicles()));
+        assertEquals(List.of("V002"), ids(filteredPage.fetch().getVehicles()));
+        assertEquals(List.of("V001", "V003"), ids(firstPage.fetch().getVehicles()));
+        assertEquals(2, company.countVehicles(filtered));
+    }
+
+    @Test
+    public void testCommitInventory_addsStagedVehicles() {
+        StagedInventory staged = new StagedInventory();
+        staged.stage(vehicleMap("D003", "V010", 10000L));
+        staged.stage(vehicleMap("D003", " v001 ", 10000L)); // Already in D001
+        staged.stage(vehicleMap("D003", "V011", -5L));
+
+        List<Map<Key, Object>> badMaps = company.commitInventory(staged);
+
+        assertEquals(2, badMaps.size());
+        assertTrue(badMaps.stream().allMatch(map -> map.containsKey(Key.REASON_FOR_ERROR)));
+        Dealership newDealer = company.findDealership("D003");
+        assertNotNull(newDealer);
+        assertEquals(List.of("V010"), ids(newDealer.getInventory()));
+        assertSame(newDealer, newDealer.findVehicleById("v010").getDealership());
+    }
+
+    @Test
+    public void testCommitInventory_idFilterKeepsDuplicateChecks() {
+        for (double rate : new double[] {0.0, 0.01, 0.5}) {
+            setUpFreshCompany();
+            company.setIdFilterFalsePositiveRate(rate);
+            StagedInventory staged = new StagedInventory();
+            for (int i = 0; i < 3000; i++) {
+                staged.stage(vehicleMap("D00" + (i % 3 + 1), "N" + i, 1000L));
+            }
+            staged.stage(vehicleMap("D003", "V001", 1000L)); // Already in D001
+            staged.stage(vehicleMap("D001", " n2999 ", 1000L)); // Earlier in the batch
+
+            List<Map<Key, Object>> badMaps = company.commitInventory(staged);
+
+            assertEquals(2, badMaps.size(), "rate " + rate);
+            assertEquals(3001, company.getAggregates().getVehicleCount(), "rate " + rate);
+        }
+        assertThrows(IllegalArgumentException.class, () -> company.setIdFilterFalsePositiveRate(1.0));
+    }
+
+    @Test
+    public void testBeginCommit_stepsCatchDuplicatesAddedBetweenSteps() throws VehicleAlreadyExistsException, DealershipNotAcceptingVehiclesException {
+        StagedInventory staged = new StagedInventory();
+        for (int i = 0; i < 3000; i++) {
+            staged.stage(vehicleMap("D002", "N" + i, 1000L));
+        }
+        InventoryCommit commit = company.beginCommit(staged);
+
+        assertTrue(commit.step(1000));
+        assertEquals(1000, commit.getCommitted());
+        dealership1.addIncomingVehicle(new Sedan("N1500", "Civic", 1000L)); // Added while the import is under way
+        assertTrue(commit.step(1000));
+        List<Map<Key, Object>> badMaps = commit.finish();
+
+        assertTrue(commit.isDone());
+        assertEquals(1, badMaps.size());
+        assertEquals("N1500", badMaps.get(0).get(Key.VEHICLE_ID));
+        assertEquals(2999, dealership2.getInventory().size());
+    }
+
+    @Test
+    public void testReconcileInventory() {
+        company.dataToInventory(new ArrayList<>(List.of(vehicleMap("D001", "V002", 15000L), vehicleMap("D002", "V009", 9000L))));
+        Vehicle kept = dealership1.findVehicleById("V002");
+
+        Map<Key, Object> repriced = vehicleMap("D001", "V001", 21000L);
+        repriced.put(Key.VEHICLE_MODEL, "Toyota");
+        Map<Key, Object> sameAsBefore = vehicleMap("D001", "V002", 15000L);
+        List<Map<Key, Object>> feed = new ArrayList<>(List.of(
+                repriced, sameAsBefore, vehicleMap("D001", "V003", 30000L), vehicleMap("D001", "V009", 9000L)));
+
+        ReconcileResult result = company.reconcileInventory(feed);
+
+        assertEquals(List.of("V003"), ids(result.getAdded()));
+        assertEquals(List.of("V001"), ids(result.getChanged()));
+        assertEquals(1, result.getUnchangedCount());
+        assertEquals(1, result.getRejected().size(), "V009 is still in D002");
+        assertSame(kept, dealership1.findVehicleById("V002"));
+        assertEquals(21000L, dealership1.findVehicleById("V001").getVehiclePrice());
+        assertEquals(3, dealership1.getInventory().size());
+        assertEquals(1, dealership2.getInventory().size(), "Dealerships not in the feed are not touched");
+
+        feed = new ArrayList<>(List.of(repriced, sameAsBefore));
+        result = company.reconcileInventory(feed);
+        assertEquals(List.of("V003"), ids(result.getRemoved()));
+        assertEquals(2, dealership1.getInventory().size());
+    }
+
+    @Test
+    public void testReconcileInventory_dryRunChangesNothing() {
+        Map<Key, Object> unchanged = vehicleMap("D001", "V001", 20000L);
+        unchanged.put(Key.VEHICLE_MODEL, "Toyota");
+        List<Map<Key, Object>> feed = new ArrayList<>(List.of(unchanged, vehicleMap("D003", "V004", 12000L)));
+
+        ReconcileResult dryRun = company.reconcileInventory(feed, true);
+        assertTrue(dryRun.getDryRun());
+        assertEquals(List.of("V004"), ids(dryRun.getAdded()));
+        assertNull(company.findDealership("D003"));
+        assertEquals(1, company.getAggregates().getVehicleCount());
+
+        ReconcileResult applied = company.reconcileInventory(feed);
+        assertEquals(List.of("V004"), ids(applied.getAdded()));
+        assertEquals(1, company.findDealership("D003").getInventory().size());
+
+        ReconcileResult again = company.reconcileInventory(feed);
+        assertFalse(again.getHasChanges());
+        assertEquals(2, again.getUnchangedCount());
+    }
+
+    @Test
+    public void testHistory_undoesAndRedoesTransferAndRemoval() throws Exception {
+        InventoryHistory history = company.getHistory();
+        history.clear();
+        assertNull(history.undo());
+
+        dealership1.dealershipVehicleTransfer(dealership2, mockVehicle);
+        assertTrue(history.checkpoint("Transfer V001"));
+        dealership2.removeFromInventory(mockVehicle);
+        assertTrue(history.checkpoint("Remove V001"));
+        assertFalse(history.checkpoint("Nothing"));
+
+        assertEquals("Remove V001", history.undo());
+        assertSame(dealership2, mockVehicle.getDealership());
+        assertTrue(dealership2.inventoryContainsById("V001"));
+        assertEquals(1, company.getAggregates().getVehicleCount());
+
+        assertEquals("Transfer V001", history.undo());
+        assertSame(dealership1, mockVehicle.getDealership());
+        assertTrue(dealership2.getInventory().isEmpty());
+        assertFalse(history.getCanUndo());
+
+        assertEquals("Transfer V001", history.redo());
+        assertSame(dealership2, mockVehicle.getDealership());
+        assertTrue(dealership1.getInventory().isEmpty());
+
+        // A new change drops the changes that could be redone.
+        dealership2.getInventory().add(new Sedan("V002", "Honda", 15000L));
+        assertTrue(history.checkpoint("Add V002"));
+        assertFalse(history.getCanRedo());
+        assertEquals("Add V002", history.undo());
+        assertEquals(List.of("V001"), ids(dealership2.getInventory()));
+    }
+
+    @Test
+    public void testHistory_undoesUnrecordedChangesAndKeepsCapacity() {
+        InventoryHistory history = company.getHistory();
+        history.clear();
+        history.setCapacity(2);
+        for (int i = 2; i <= 5; i++) {
+            dealership2.getInventory().add(new Sedan("V00" + i, "Honda", 15000L));
+            history.checkpoint("Add V00" + i);
+        }
+        dealership1.removeFromInventory(mockVehicle);
+        assertEquals(InventoryHistory.UNRECORDED_LABEL, history.getUndoLabel());
+
+        assertEquals(InventoryHistory.UNRECORDED_LABEL, history.undo());
+        assertSame(dealership1, mockVehicle.getDealership());
+        assertEquals("Add V005", history.undo());
+        assertNull(history.undo()); // Older versions were dropped.
+        assertEquals(List.of("V002", "V003", "V004"), ids(dealership2.getInventory()));
+    }
+
+    @Test
+    public void testHistory_rejectsUndoIntoDealershipNotAccepting() throws Exception {
+        InventoryHistory history = company.getHistory();
+        history.clear();
+        dealership1.removeFromInventory(mockVehicle);
+        assertTrue(history.checkpoint("Remove V001"));
+
+        dealership1.setStatusAcquiringVehicle(false);
+        assertThrows(DealershipNotAcceptingVehiclesException.class, history::undo);
+        assertTrue(dealership1.getInventory().isEmpty());
+        assertEquals("Remove V001", history.getUndoLabel());
+
+        dealership1.setStatusAcquiringVehicle(true);
+        assertEquals("Remove V001", history.undo());
+        assertSame(dealership1, mockVehicle.getDealership());
+    }
+
+    @Test
+    public void testOpenSnapshot_keepsViewWhileCompanyChanges() throws Exception {
+        InventorySnapshot before = company.openSnapshot();
+        mockVehicle.setRentalStatus(true);
+        mockVehicle.setVehicleManufacturer("Lexus");
+        InventorySnapshot middle = company.openSnapshot();
+        mockVehicle.setRentalStatus(false);
+        dealership1.removeFromInventory(mockVehicle);
+        dealership2.getInventory().add(new Sedan("V002", "Honda", 15000L));
+
+        Map<Key, Object> first = before.getDealerships().get(0).getVehicleData().get(0);
+        assertEquals(false, first.get(Key.VEHICLE_RENTAL_STATUS));
+        assertEquals("Unknown", first.get(Key.VEHICLE_MANUFACTURER));
+        assertTrue(before.getDealerships().get(1).getVehicleData().isEmpty());
+        assertTrue(middle.getVersion() > before.getVersion());
+
+        before.close();
+        Map<Key, Object> second = middle.getDealerships().get(0).getVehicleData().get(0);
+        assertEquals(true, second.get(Key.VEHICLE_RENTAL_STATUS));
+        assertEquals("Lexus", second.get(Key.VEHICLE_MANUFACTURER));
+
+        middle.close();
+        assertTrue(middle.isClosed());
+        assertThrows(IllegalStateException.class, () -> middle.getDealerships().get(0).getVehicleData().get(0));
+
+        try (InventorySnapshot after = company.openSnapshot(List.of(dealership2))) {
+            assertEquals(1, after.getDealerships().size());
+            assertEquals("V002", after.getDealerships().get(0).getVehicleData().get(0).get(Key.VEHICLE_ID));
+        }
+    }
+
+    private void setUpFreshCompany() {
+        try {
+            setUp();
+        } catch (VehicleAlreadyExistsException | DealershipNotAcceptingVehiclesException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static Map<Key, Object> vehicleMap(String dealerId, String vehicleId, long price) {
+        Map<Key, Object> map = new EnumMap<>(Key.class);
+        map.put(Key.DEALERSHIP_ID, dealerId);
+        map.put(Key.VEHICLE_TYPE, "sedan");
+        map.put(Key.VEHICLE_ID, vehicleId);
+        map.put(Key.VEHICLE_MODEL, "Model");
+        map.put(Key.VEHICLE_PRICE, price);
+        return map;
+    }
+
+    private static List<String> ids(List<Vehicle> vehicles) {
+        return vehicles.stream().map(Vehicle::getVehicleId).toList();
+    }
+
     @Test
     public void testGetAllDealershipIds() {
         ArrayList<String> ids = company.getAllDealershipIds();
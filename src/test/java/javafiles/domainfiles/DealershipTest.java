@@ -391,4 +391,53 @@ class DealershipTest {
 
         assertEquals(expectedOutput, result);
     }
+
+    @Test
+    public void testUpdateRentalStatuses() throws VehicleAlreadyExistsException,
+            DealershipNotAcceptingVehiclesException {
+        Vehicle sportsCar = new SportsCar("V005", "911", 90000L);
+        dealership.addIncomingVehicle(vehicle1);
+        dealership.addIncomingVehicle(vehicle3);
+        dealership.addIncomingVehicle(sportsCar);
+
+        Map<String, RentalOutcome> rented = dealership.updateRentalStatuses(List.of("V001", "V005"), true);
+        assertEquals(Map.of("V001", RentalOutcome.DEALERSHIP_NOT_RENTING, "V005", RentalOutcome.DEALERSHIP_NOT_RENTING), rented);
+
+        dealership.setRentingVehicles(true);
+        rented = dealership.updateRentalStatuses(List.of("v001 ", "V003", "V005", "V999"), true);
+        assertEquals(List.of(RentalOutcome.CHANGED, RentalOutcome.UNCHANGED, RentalOutcome.NOT_ALLOWED, RentalOutcome.NOT_FOUND),
+                new ArrayList<>(rented.values()));
+        assertTrue(vehicle1.getRentalStatus());
+        assertFalse(sportsCar.getRentalStatus());
+        assertEquals(2, dealership.getAggregates().getRentedCount());
+
+        dealership.setRentingVehicles(false);
+        Map<String, RentalOutcome> returned = dealership.updateRentalStatuses(List.of("V001", "V003"), false);
+        assertEquals(Map.of("V001", RentalOutcome.CHANGED, "V003", RentalOutcome.CHANGED), returned);
+        assertEquals(0, dealership.getAggregates().getRentedCount());
+    }
+
+    @Test
+    public void testDirtyTracking() throws VehicleAlreadyExistsException, DealershipNotAcceptingVehiclesException, RentalException {
+        assertTrue(dealership.isDirty(), "A new dealership has never been saved");
+        dealership.markSaved(dealership.getChangeCount());
+        assertFalse(dealership.isDirty());
+
+        long beforeAdd = dealership.getChangeCount();
+        dealership.addIncomingVehicle(vehicle1);
+        assertTrue(dealership.isDirty());
+        dealership.markSaved(beforeAdd);
+        assertTrue(dealership.isDirty(), "Changes after the count was read are not saved");
+
+        dealership.markSaved(dealership.getChangeCount());
+        vehicle1.setRentalStatus(true);
+        assertTrue(dealership.isDirty());
+
+        dealership.markSaved(dealership.getChangeCount());
+        dealership.setRentingVehicles(dealership.getRentingVehicles());
+        vehicle1.setVehicleManufacturer(vehicle1.getVehicleManufacturer());
+        assertFalse(dealership.isDirty(), "Setting a field to its value is not a change");
+        dealership.setStatusAcquiringVehicle(false);
+        assertTrue(dealership.isDirty());
+    }
 }
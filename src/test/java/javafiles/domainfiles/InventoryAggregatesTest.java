@@ -0,0 +1,79 @@
+package javafiles.domainfiles;
+
+import javafiles.customexceptions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InventoryAggregatesTest {
+
+    private Company company;
+    private Dealership alpha;
+    private Dealership beta;
+    private Vehicle suv;
+    private Vehicle sedan;
+
+    @BeforeEach
+    public void setUp() throws VehicleAlreadyExistsException, DealershipNotAcceptingVehiclesException {
+        company = new Company();
+        alpha = new Dealership("D001", "Alpha Motors");
+        beta = new Dealership("D002", "Beta Autos");
+
+        suv = new SUV("S1", "RAV4", 25000L);
+        sedan = new Sedan("C1", "Camry", 20000L);
+        alpha.addIncomingVehicle(suv);
+        alpha.addIncomingVehicle(sedan);
+
+        company.addDealership(alpha);
+        company.addDealership(beta);
+    }
+
+    @Test
+    public void testAddAndRemove() throws VehicleAlreadyExistsException, DealershipNotAcceptingVehiclesException {
+        assertEquals(2, alpha.getAggregates().getVehicleCount());
+        assertEquals(45000L, alpha.getAggregates().totalValue("dollars"));
+        assertEquals(Map.of("SUV", 1, "Sedan", 1), company.getAggregates().countByType());
+
+        beta.addIncomingVehicle(new SUV("S2", "CR-V", 30000L));
+        alpha.getInventory().remove(sedan);
+
+        assertEquals(1, alpha.getAggregates().getVehicleCount());
+        assertEquals(2, company.getAggregates().countOfType("SUV"));
+        assertEquals(0, company.getAggregates().countOfType("Sedan"));
+        assertEquals(55000L, company.getAggregates().totalValue("dollars"));
+    }
+
+    @Test
+    public void testTransferMovesTotals() throws VehicleAlreadyExistsException,
+            DealershipNotAcceptingVehiclesException, DuplicateSenderException {
+        alpha.dealershipVehicleTransfer(beta, suv);
+
+        assertEquals(20000L, alpha.getAggregates().totalValue("dollars"));
+        assertEquals(25000L, beta.getAggregates().totalValue("dollars"));
+        assertEquals(2, company.getAggregates().getVehicleCount());
+        assertEquals(45000L, company.getAggregates().totalValue("dollars"));
+    }
+
+    @Test
+    public void testRentalAndPriceUnitChanges() throws RentalException {
+        alpha.updateVehicleRental(suv);
+        assertEquals(1, alpha.getAggregates().getRentedCount());
+        assertEquals(1, company.getAggregates().getAvailableCount());
+
+        alpha.updateVehicleRental(suv);
+        assertEquals(0, company.getAggregates().getRentedCount());
+
+        sedan.setPriceUnit("pounds");
+        assertEquals(Map.of("dollars", 25000L, "pounds", 20000L), company.getAggregates().valueByPriceUnit());
+    }
+
+    @Test
+    public void testToStringUsesRentedCount() throws RentalException {
+        alpha.updateVehicleRental(sedan);
+        assertTrue(alpha.toString().contains("Sales Inventory Num: 1"));
+        assertTrue(alpha.toString().contains("Rental Inventory Num: 1"));
+    }
+}
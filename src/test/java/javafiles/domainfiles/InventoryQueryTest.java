@@ -0,0 +1,108 @@
+package javafiles.domainfiles;
+
+import javafiles.DealershipExport;
+import javafiles.Key;
+import javafiles.customexceptions.QuerySyntaxException;
+import javafiles.customexceptions.VehicleAlreadyExistsException;
+import javafiles.customexceptions.DealershipNotAcceptingVehiclesException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InventoryQueryTest {
+
+    private Company company;
+
+    @BeforeEach
+    public void setUp() throws VehicleAlreadyExistsException, DealershipNotAcceptingVehiclesException {
+        company = new Company();
+        Dealership alpha = new Dealership("D001", "Alpha Motors");
+        Dealership beta = new Dealership("D002", "Beta Autos");
+        alpha.setRentingVehicles(true);
+
+        alpha.addIncomingVehicle(new SUV("S1", "RAV4", 25000L));
+        alpha.addIncomingVehicle(new SUV("S2", "CR-V", 35000L));
+        alpha.addIncomingVehicle(new Sedan("C1", "Camry", 20000L));
+        beta.addIncomingVehicle(new SUV("S3", "Tahoe", 28000L));
+        beta.addIncomingVehicle(new SportsCar("P1", "911", 90000L));
+
+        company.addDealership(alpha);
+        company.addDealership(beta);
+    }
+
+    private List<String> ids(String query) throws QuerySyntaxException {
+        return InventoryQuery.compile(query).stream(company)
+                .map(Vehicle::getVehicleId)
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testComparisonsAndBooleanLogic() throws QuerySyntaxException {
+        assertEquals(List.of("S1", "S3"), ids("vehicle_type = \"SUV\" and price < 30000 and vehicle_rental_status = false"));
+        assertEquals(List.of("S2", "C1", "P1"), ids("not (vehicle_type = 'SUV' and price < 30000)"));
+        assertEquals(List.of("C1", "P1"), ids("price <= 20000 OR price > 50000"));
+        assertEquals(List.of("S2", "S3"), ids("vehicle_model in (\"CR-V\", \"Tahoe\")"));
+    }
+
+    @Test
+    public void testDealershipAndIdConditions() throws QuerySyntaxException {
+        assertEquals(List.of("S1", "S2", "C1"), ids("dealership_rental_status = true"));
+        assertEquals(List.of("S3"), ids("dealership_id = \"D002\" and vehicle_type = \"SUV\""));
+        assertEquals(List.of("S2"), ids("vehicle_id = \"S2\""));
+        assertEquals(List.of(), ids("vehicle_id = \"s2\""));
+        assertEquals(List.of(), ids("dealership_id = \"D001\" and dealership_id = \"D002\""));
+    }
+
+    @Test
+    public void testProjectionAndMatchingDealerships() throws QuerySyntaxException {
+        InventoryQuery query = InventoryQuery.compile("select vehicle_id, dealership_name where price > 80000");
+        List<Map<Key, Object>> rows = query.project(company).collect(Collectors.toList());
+
+        assertEquals(1, rows.size());
+        assertEquals(Map.of(Key.VEHICLE_ID, "P1", Key.DEALERSHIP_NAME, "Beta Autos"), rows.get(0));
+
+        List<Dealership> dealers = InventoryQuery.compile("vehicle_type = \"Sedan\"").matchingDealerships(company);
+        assertEquals(List.of("D001"), dealers.stream().map(Dealership::getDealerId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testFilteredExportViews() throws QuerySyntaxException {
+        List<DealershipExport> export = new ArrayList<>();
+        InventoryQuery.compile("select dealership_name, vehicle_id where vehicle_type = \"SUV\" and price < 30000")
+                .exportView(company).forEach(export::add);
+
+        assertEquals(2, export.size());
+        assertEquals(Map.of(Key.DEALERSHIP_NAME, "Alpha Motors"), export.get(0).getDealerData());
+        assertEquals(List.of(Map.of(Key.VEHICLE_ID, "S1")), export.get(0).getVehicleData());
+        assertEquals(List.of(Map.of(Key.VEHICLE_ID, "S3")), export.get(1).getVehicleData());
+
+        export.clear();
+        company.exportView(dealer -> dealer.getDealerId().equals("D002"), vehicle -> vehicle.getVehiclePrice() > 50000L,
+                List.of(Key.VEHICLE_ID, Key.VEHICLE_PRICE)).forEach(export::add);
+        assertEquals(1, export.size());
+        assertTrue(export.get(0).getDealerData().isEmpty());
+        assertEquals(List.of(Map.of(Key.VEHICLE_ID, "P1", Key.VEHICLE_PRICE, 90000L)), export.get(0).getVehicleData());
+
+        export.clear();
+        company.exportView(dealer -> dealer.getDealerId().equals("D001")).forEach(export::add);
+        assertEquals(1, export.size());
+        assertEquals("D001", export.get(0).getDealerData().get(Key.DEALERSHIP_ID));
+        assertEquals(3, export.get(0).getVehicleData().size());
+    }
+
+    @Test
+    public void testInvalidQueries() {
+        assertThrows(QuerySyntaxException.class, () -> InventoryQuery.compile("colour = \"red\""));
+        assertThrows(QuerySyntaxException.class, () -> InventoryQuery.compile("price < \"cheap\""));
+        assertThrows(QuerySyntaxException.class, () -> InventoryQuery.compile("vehicle_rental_status > true"));
+        assertThrows(QuerySyntaxException.class, () -> InventoryQuery.compile("price < 5 and"));
+        assertThrows(QuerySyntaxException.class, () -> InventoryQuery.compile("(price < 5"));
+        assertThrows(QuerySyntaxException.class, () -> InventoryQuery.compile("vehicle_model = \"open"));
+    }
+}
@@ -0,0 +1,84 @@
+package javafiles.domainfiles;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PersistentHashMapTest {
+
+    @Test
+    public void testPutAndRemoveKeepEarlierVersions() {
+        PersistentHashMap<String, Integer> map = PersistentHashMap.empty();
+        List<PersistentHashMap<String, Integer>> versions = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            map = map.put("v" + i, i);
+            versions.add(map);
+        }
+
+        assertEquals(5000, map.getSize());
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(i, map.get("v" + i));
+        }
+        assertEquals(100, versions.get(99).getSize());
+        assertNull(versions.get(99).get("v100"));
+
+        PersistentHashMap<String, Integer> removed = map;
+        for (int i = 0; i < 5000; i += 2) {
+            removed = removed.remove("v" + i);
+        }
+        assertEquals(2500, removed.getSize());
+        assertNull(removed.get("v0"));
+        assertEquals(1, removed.get("v1"));
+        assertEquals(5000, map.getSize());
+        assertEquals(0, map.get("v0"));
+
+        assertSame(map, map.put("v1", map.get("v1")));
+        assertSame(map, map.remove("x"));
+        assertSame(PersistentHashMap.empty(), PersistentHashMap.<String, Integer>empty().put("a", 1).remove("a"));
+    }
+
+    @Test
+    public void testCollidingKeys() {
+        // "Aa" and "BB" have the same hash code.
+        PersistentHashMap<String, Integer> map = PersistentHashMap.<String, Integer>empty()
+                .put("Aa", 1).put("BB", 2).put("C", 3);
+
+        assertEquals(3, map.getSize());
+        assertEquals(1, map.get("Aa"));
+        assertEquals(2, map.get("BB"));
+        assertEquals(4, map.put("BB", 4).get("BB"));
+
+        PersistentHashMap<String, Integer> removed = map.remove("Aa");
+        assertEquals(2, removed.getSize());
+        assertNull(removed.get("Aa"));
+        assertEquals(2, removed.get("BB"));
+        assertEquals(0, removed.remove("BB").remove("C").getSize());
+    }
+
+    @Test
+    public void testDiffFindsOnlyChanges() {
+        PersistentHashMap<String, Integer> before = PersistentHashMap.empty();
+        for (int i = 0; i < 10000; i++) {
+            before = before.put("v" + i, i);
+        }
+        PersistentHashMap<String, Integer> after = before.remove("v5").put("v7", 70).put("new", 1);
+
+        Map<String, Integer> removed = new HashMap<>();
+        Map<String, Integer> added = new HashMap<>();
+        before.diff(after, removed::put, added::put);
+
+        assertEquals(Map.of("v5", 5, "v7", 7), removed);
+        assertEquals(Map.of("v7", 70, "new", 1), added);
+
+        removed.clear();
+        added.clear();
+        after.diff(PersistentHashMap.empty(), removed::put, added::put);
+        assertEquals(after.getSize(), removed.size());
+        assertTrue(added.isEmpty());
+    }
+}
@@ -1,10 +1,17 @@
 package javafiles.domainfiles;
 
+import javafiles.Key;
+import javafiles.ValidationCode;
 import javafiles.customexceptions.InvalidPriceException;
 import javafiles.customexceptions.InvalidVehicleTypeException;
 import javafiles.customexceptions.MissingCriticalInfoException;
+import javafiles.customexceptions.ReadWriteException;
+import javafiles.customexceptions.SportsCarRentalNotAllowedException;
 import org.junit.jupiter.api.Test;
 
+import java.util.EnumMap;
+import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class VehicleCreatorTest {
@@ -59,4 +66,57 @@ public class VehicleCreatorTest {
             VehicleCreator.Companion.getInstance().createVehicle("hovercraft", "H001", "Hover", 50000L);
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testValidateValidMap() {
+        VehicleResult result = VehicleCreator.Companion.getInstance().validate(vehicleMap("suv", "U002", 25000L));
+        assertTrue(result.isValid());
+        assertNull(result.getCode());
+        assertNull(result.toReason());
+        assertEquals("U002", result.getVehicle().getVehicleId());
+    }
+
+    @Test
+    public void testValidateReportsCodesWithoutThrowing() {
+        VehicleCreator creator = VehicleCreator.Companion.getInstance();
+
+        assertEquals(ValidationCode.INVALID_TYPE, creator.validate(vehicleMap("hovercraft", "H001", 5L)).getCode());
+        assertEquals(ValidationCode.INVALID_PRICE, creator.validate(vehicleMap("sedan", "S002", 0L)).getCode());
+        assertEquals(ValidationCode.MISSING_INFO, creator.validate(vehicleMap("sedan", " ", 5L)).getCode());
+
+        Map<Key, Object> rentedSportsCar = vehicleMap("sports car", "X001", 90000L);
+        rentedSportsCar.put(Key.VEHICLE_RENTAL_STATUS, true);
+        VehicleResult result = creator.validate(rentedSportsCar);
+        assertFalse(result.isValid());
+        assertEquals(ValidationCode.RENTAL_NOT_ALLOWED, result.getCode());
+    }
+
+    @Test
+    public void testValidateReasonHasNoStackTrace() {
+        ReadWriteException reason = VehicleCreator.Companion.getInstance()
+                .validate(vehicleMap("sedan", "S003", -1L)).toReason();
+        assertNotNull(reason);
+        assertEquals(0, reason.getStackTrace().length);
+        assertTrue(reason.getCause() instanceof InvalidPriceException);
+        assertEquals(0, reason.getCause().getStackTrace().length);
+    }
+
+    @Test
+    public void testCreateFullVehicleStillThrows() {
+        VehicleCreator creator = VehicleCreator.Companion.getInstance();
+        assertThrows(InvalidPriceException.class, () -> creator.createFullVehicle(vehicleMap("sedan", "S004", 0L)));
+
+        Map<Key, Object> rentedSportsCar = vehicleMap("sports car", "X002", 90000L);
+        rentedSportsCar.put(Key.VEHICLE_RENTAL_STATUS, true);
+        assertThrows(SportsCarRentalNotAllowedException.class, () -> creator.createFullVehicle(rentedSportsCar));
+    }
+
+    private static Map<Key, Object> vehicleMap(String type, String id, long price) {
+        Map<Key, Object> map = new EnumMap<>(Key.class);
+        map.put(Key.VEHICLE_TYPE, type);
+        map.put(Key.VEHICLE_ID, id);
+        map.put(Key.VEHICLE_MODEL, "Model");
+        map.put(Key.VEHICLE_PRICE, price);
+        return map;
+    }
+}
@@ -0,0 +1,50 @@
+package javafiles.metricsfiles;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsTest {
+
+    @Test
+    public void testHistogramPercentilesAreWithinBucketError() {
+        Histogram histogram = Metrics.histogram("test.histogram.percentiles");
+        for (long value = 1; value <= 10_000; value++) {
+            histogram.record(value);
+        }
+
+        assertEquals(10_000, histogram.getCount());
+        assertEquals(5_000.5, histogram.getMean(), 0.001);
+        assertEquals(5_000, histogram.percentile(0.5), 5_000 / 8.0);
+        assertEquals(9_900, histogram.percentile(0.99), 9_900 / 8.0);
+        assertEquals(1, histogram.percentile(0.0));
+    }
+
+    @Test
+    public void testTimerRatesAndSameInstanceByName() {
+        Timer timer = Metrics.timer("test.timer.rates");
+        assertSame(timer, Metrics.timer("test.timer.rates"));
+
+        timer.record(TimeUnit.MILLISECONDS.toNanos(500), 1_000, 4_000);
+        timer.record(TimeUnit.MILLISECONDS.toNanos(500), 1_000, 4_000);
+
+        assertEquals(2, timer.getCount());
+        assertEquals(2_000, timer.getRowsPerSecond(), 0.001);
+        assertEquals(8_000, timer.getBytesPerSecond(), 0.001);
+        assertEquals(500, timer.percentile(0.5, TimeUnit.MILLISECONDS), 500 / 8.0);
+    }
+
+    @Test
+    public void testCounterAndReset() {
+        Counter counter = Metrics.counter("test.counter.reset");
+        counter.increment();
+        counter.increment(4);
+        assertEquals(5, counter.getValue());
+        assertTrue(Metrics.report().contains("test.counter.reset"));
+
+        Metrics.reset();
+        assertEquals(0, counter.getValue());
+    }
+}
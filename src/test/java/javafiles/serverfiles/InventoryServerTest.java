@@ -0,0 +1,96 @@
+package javafiles.serverfiles;
+
+import javafiles.customexceptions.ReadWriteException;
+import javafiles.dataaccessfiles.InventoryGenerator;
+import javafiles.domainfiles.Company;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InventoryServerTest {
+    private Company company;
+    private InventoryServer server;
+
+    @BeforeEach
+    public void setUp() {
+        company = new Company();
+        company.dataToInventory(new InventoryGenerator(2, 10, 1L).createMaps());
+        server = new InventoryServer(company, 0);
+        server.start();
+    }
+
+    @AfterEach
+    public void tearDown() throws ReadWriteException {
+        server.stop(0);
+    }
+
+    private Response request(String method, String path, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection)
+                URI.create("http://localhost:" + server.getPort() + path).toURL().openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int status = connection.getResponseCode();
+        try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            return new Response(status, JSONValue.parse(new String(in.readAllBytes(), StandardCharsets.UTF_8)));
+        }
+    }
+
+    private record Response(int status, Object json) {}
+
+    @Test
+    public void testQueryVehicles() throws IOException {
+        Response response = request("GET", "/vehicles?dealer=D1&limit=4", null);
+        assertEquals(200, response.status());
+
+        JSONObject json = (JSONObject) response.json();
+        assertEquals(10L, json.get("total"));
+        assertEquals(4, ((JSONArray) json.get("vehicles")).size());
+    }
+
+    @Test
+    public void testLookupsReturn404WhenMissing() throws IOException {
+        assertEquals(200, request("GET", "/dealerships/D0", null).status());
+        assertEquals(404, request("GET", "/dealerships/D9", null).status());
+        assertEquals(404, request("GET", "/vehicles/V999", null).status());
+    }
+
+    @Test
+    public void testTransfer() throws IOException {
+        Response response = request("POST", "/transfers", "{\"vehicle_id\":\"V0\",\"from\":\"D0\",\"to\":\"D1\"}");
+        assertEquals(200, response.status());
+        assertEquals("D1", ((JSONObject) response.json()).get("dealership_id"));
+        assertEquals(11, company.findDealership("D1").getInventory().size());
+
+        assertEquals(404, request("POST", "/transfers", "{\"vehicle_id\":\"V0\",\"from\":\"D0\",\"to\":\"D1\"}").status());
+        assertEquals(400, request("POST", "/transfers", "not json").status());
+    }
+
+    @Test
+    public void testImportReportsRejectedRows() throws IOException {
+        String body = "{\"car_inventory\":["
+                + "{\"dealership_id\":\"D2\",\"vehicle_type\":\"suv\",\"vehicle_model\":\"X\",\"vehicle_id\":\"N1\",\"price\":100},"
+                + "{\"dealership_id\":\"D2\",\"vehicle_type\":\"suv\",\"vehicle_model\":\"X\",\"vehicle_id\":\"V1\",\"price\":100}]}";
+        JSONObject json = (JSONObject) request("POST", "/imports", body).json();
+
+        assertEquals(1L, json.get("accepted"));
+        assertEquals(1, ((JSONArray) json.get("rejected")).size());
+        assertNotNull(company.findDealership("D2"));
+    }
+}